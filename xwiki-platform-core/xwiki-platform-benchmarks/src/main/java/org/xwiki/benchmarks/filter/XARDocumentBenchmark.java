@@ -0,0 +1,145 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmarks.filter;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.benchmarks.oldcore.BenchmarkOldcore;
+import org.xwiki.filter.output.DefaultOutputStreamOutputTarget;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.rendering.syntax.Syntax;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.classes.BaseClass;
+
+/**
+ * Measure the serialization of a document to the XAR XML format and its parsing, as done for each document of an
+ * exported or imported XAR package.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XARDocumentBenchmark
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("xwiki", "Space", "Page");
+
+    /**
+     * The number of objects in the document.
+     */
+    @Param({ "1", "50" })
+    public int objects;
+
+    private BenchmarkOldcore oldcore;
+
+    private XWikiDocument document;
+
+    private String xml;
+
+    /**
+     * Create a document holding {@link #objects} objects of its own class, and its XML version.
+     *
+     * @throws Exception when failing to create the document
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        this.oldcore = new BenchmarkOldcore();
+        this.oldcore.initialize();
+
+        XWikiContext xcontext = this.oldcore.getXWikiContext();
+
+        this.document = new XWikiDocument(DOCUMENT_REFERENCE);
+        this.document.setSyntax(Syntax.XWIKI_2_1);
+        this.document.setContent("= Title =\n\nSome **content**.");
+
+        BaseClass xclass = this.document.getXClass();
+        xclass.addTextField("string", "String", 30);
+        xclass.addTextAreaField("area", "Area", 10, 10);
+        xclass.addNumberField("int", "Int", 10, "integer");
+
+        for (int i = 0; i < this.objects; ++i) {
+            BaseObject xobject = this.document.newXObject(DOCUMENT_REFERENCE, xcontext);
+            xobject.setStringValue("string", "value" + i);
+            xobject.setLargeStringValue("area", "Some longer value " + i);
+            xobject.setIntValue("int", i);
+        }
+
+        this.xml = this.document.toXML(xcontext);
+    }
+
+    /**
+     * Release the environment.
+     *
+     * @throws Exception when failing to release the environment
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        this.oldcore.dispose();
+    }
+
+    /**
+     * Serialize the document without keeping the result in memory.
+     *
+     * @throws XWikiException when failing to serialize the document
+     */
+    @Benchmark
+    public void exportDocument() throws XWikiException
+    {
+        this.document.toXML(new DefaultOutputStreamOutputTarget(OutputStream.nullOutputStream()), true, false, true,
+            false, false, "UTF-8");
+    }
+
+    /**
+     * @return the document parsed from its XML version
+     * @throws XWikiException when failing to parse the document
+     */
+    @Benchmark
+    public XWikiDocument importDocument() throws XWikiException
+    {
+        XWikiDocument parsedDocument = new XWikiDocument(DOCUMENT_REFERENCE);
+        parsedDocument.fromXML(this.xml);
+
+        return parsedDocument;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmarks.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.internal.reference.DefaultStringEntityReferenceResolver;
+import org.xwiki.model.internal.reference.DefaultStringEntityReferenceSerializer;
+import org.xwiki.model.internal.reference.DefaultSymbolScheme;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceProvider;
+import org.xwiki.model.reference.EntityReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Measure the parsing and serialization of entity references with the default string resolver and serializer.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityReferenceBenchmark
+{
+    /**
+     * The document references to parse, from the simplest to a nested one with escaped characters.
+     */
+    @Param({ "wiki:Space.Page", "wiki:Space1.Space2.Space3.Page", "wiki:Space\\.With\\.Dots.Sub\\:Space.Page\\@1" })
+    public String documentReferenceString;
+
+    private MockitoComponentManager componentManager;
+
+    private EntityReferenceResolver<String> resolver;
+
+    private EntityReferenceSerializer<String> serializer;
+
+    private EntityReference documentReference;
+
+    /**
+     * Register the reference components.
+     *
+     * @throws Exception when failing to initialize the components
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        this.componentManager = new MockitoComponentManager();
+        this.componentManager.initializeTest(this);
+
+        this.componentManager.registerComponent(DefaultSymbolScheme.class);
+        this.componentManager.registerComponent(DefaultStringEntityReferenceResolver.class);
+        this.componentManager.registerComponent(DefaultStringEntityReferenceSerializer.class);
+
+        EntityReferenceProvider provider = this.componentManager.registerMockComponent(EntityReferenceProvider.class);
+        when(provider.getDefaultReference(EntityType.WIKI)).thenReturn(new WikiReference("xwiki"));
+        when(provider.getDefaultReference(EntityType.SPACE))
+            .thenReturn(new SpaceReference("Main", new WikiReference("xwiki")));
+        when(provider.getDefaultReference(EntityType.DOCUMENT))
+            .thenReturn(new DocumentReference("xwiki", "Main", "WebHome"));
+
+        this.resolver = this.componentManager.getInstance(EntityReferenceResolver.TYPE_STRING);
+        this.serializer = this.componentManager.getInstance(EntityReferenceSerializer.TYPE_STRING);
+
+        this.documentReference = this.resolver.resolve(this.documentReferenceString, EntityType.DOCUMENT);
+    }
+
+    /**
+     * Dispose the components.
+     *
+     * @throws Exception when failing to dispose the components
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        this.componentManager.dispose();
+    }
+
+    /**
+     * @return the parsed document reference
+     */
+    @Benchmark
+    public EntityReference resolve()
+    {
+        return this.resolver.resolve(this.documentReferenceString, EntityType.DOCUMENT);
+    }
+
+    /**
+     * @return the serialized document reference
+     */
+    @Benchmark
+    public String serialize()
+    {
+        return this.serializer.serialize(this.documentReference);
+    }
+
+    /**
+     * @return a document reference created from the parsed reference, as done by most APIs taking an
+     *         {@link EntityReference}
+     */
+    @Benchmark
+    public DocumentReference resolveDocumentReference()
+    {
+        return new DocumentReference(this.resolver.resolve(this.documentReferenceString, EntityType.DOCUMENT));
+    }
+}
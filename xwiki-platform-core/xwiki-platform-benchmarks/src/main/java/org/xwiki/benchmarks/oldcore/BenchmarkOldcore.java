@@ -0,0 +1,103 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmarks.oldcore;
+
+import org.xwiki.component.util.DefaultParameterizedType;
+import org.xwiki.link.LinkStore;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.mockito.MockitoComponentManager;
+import org.xwiki.user.UserConfiguration;
+import org.xwiki.user.UserReferenceResolver;
+import org.xwiki.user.UserReferenceSerializer;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.objects.meta.MetaClass;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.component.XWikiDocumentFilterUtilsComponentList;
+import com.xpn.xwiki.test.reference.ReferenceComponentList;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Set up the oldcore environment shared by the benchmarks, the same way {@code @OldcoreTest} does for unit tests but
+ * without depending on JUnit. The store is the in-memory one provided by {@link MockitoOldcore}.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@ReferenceComponentList
+@XWikiDocumentFilterUtilsComponentList
+public class BenchmarkOldcore
+{
+    private final MockitoComponentManager componentManager = new MockitoComponentManager();
+
+    private final MockitoOldcore oldcore = new MockitoOldcore(this.componentManager);
+
+    /**
+     * Initialize the component manager and the oldcore environment.
+     *
+     * @throws Exception when failing to initialize the environment
+     */
+    public void initialize() throws Exception
+    {
+        this.componentManager.initializeTest(this, this.componentManager, this.oldcore);
+
+        this.componentManager.registerMockComponent(
+            new DefaultParameterizedType(null, UserReferenceSerializer.class, DocumentReference.class), "document");
+        this.componentManager.registerMockComponent(
+            new DefaultParameterizedType(null, UserReferenceResolver.class, DocumentReference.class), "document");
+        this.componentManager.registerMockComponent(
+            new DefaultParameterizedType(null, UserReferenceSerializer.class, String.class), "compactwiki/document");
+        this.componentManager.registerMockComponent(LinkStore.class);
+        UserConfiguration userConfiguration = this.componentManager.registerMockComponent(UserConfiguration.class);
+        when(userConfiguration.getStoreHint()).thenReturn("document");
+
+        this.oldcore.before(getClass());
+
+        MetaClass.setMetaClass(null);
+    }
+
+    /**
+     * Release the environment.
+     *
+     * @throws Exception when failing to release the environment
+     */
+    public void dispose() throws Exception
+    {
+        this.oldcore.after();
+        this.componentManager.dispose();
+    }
+
+    /**
+     * @return the oldcore environment
+     */
+    public MockitoOldcore getOldcore()
+    {
+        return this.oldcore;
+    }
+
+    /**
+     * @return the context of the benchmarked thread
+     */
+    public XWikiContext getXWikiContext()
+    {
+        return this.oldcore.getXWikiContext();
+    }
+}
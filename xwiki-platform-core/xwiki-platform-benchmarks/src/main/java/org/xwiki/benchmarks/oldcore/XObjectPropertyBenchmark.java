@@ -0,0 +1,142 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmarks.oldcore;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.model.reference.DocumentReference;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.PropertyInterface;
+import com.xpn.xwiki.objects.classes.BaseClass;
+
+/**
+ * Measure the access to the properties of an XObject and of its XClass.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XObjectPropertyBenchmark
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("xwiki", "Space", "Page");
+
+    private static final String STRING_PROPERTY = "string";
+
+    private static final String INT_PROPERTY = "int";
+
+    private BenchmarkOldcore oldcore;
+
+    private BaseClass xclass;
+
+    private BaseObject xobject;
+
+    /**
+     * Create a document holding an object of its own class.
+     *
+     * @throws Exception when failing to create the document
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        this.oldcore = new BenchmarkOldcore();
+        this.oldcore.initialize();
+
+        XWikiDocument document = new XWikiDocument(DOCUMENT_REFERENCE);
+
+        this.xclass = document.getXClass();
+        for (int i = 0; i < 20; ++i) {
+            this.xclass.addTextField(STRING_PROPERTY + i, STRING_PROPERTY, 30);
+        }
+        this.xclass.addTextField(STRING_PROPERTY, STRING_PROPERTY, 30);
+        this.xclass.addNumberField(INT_PROPERTY, INT_PROPERTY, 10, "integer");
+
+        this.xobject = document.newXObject(DOCUMENT_REFERENCE, this.oldcore.getXWikiContext());
+        this.xobject.setStringValue(STRING_PROPERTY, "value");
+        this.xobject.setIntValue(INT_PROPERTY, 42);
+    }
+
+    /**
+     * Release the environment.
+     *
+     * @throws Exception when failing to release the environment
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        this.oldcore.dispose();
+    }
+
+    /**
+     * @return the value of a string property
+     */
+    @Benchmark
+    public String getStringValue()
+    {
+        return this.xobject.getStringValue(STRING_PROPERTY);
+    }
+
+    /**
+     * @return the value of an integer property
+     */
+    @Benchmark
+    public int getIntValue()
+    {
+        return this.xobject.getIntValue(INT_PROPERTY);
+    }
+
+    /**
+     * @return the modified object
+     */
+    @Benchmark
+    public BaseObject setStringValue()
+    {
+        this.xobject.setStringValue(STRING_PROPERTY, "value");
+
+        return this.xobject;
+    }
+
+    /**
+     * @return the definition of a class property
+     */
+    @Benchmark
+    public PropertyInterface getClassProperty()
+    {
+        return this.xclass.get(STRING_PROPERTY);
+    }
+}
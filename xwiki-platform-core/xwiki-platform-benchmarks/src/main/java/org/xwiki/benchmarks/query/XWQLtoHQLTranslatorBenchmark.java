@@ -0,0 +1,102 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmarks.query;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.query.xwql.internal.hql.XWQLtoHQLTranslator;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measure the translation of XWQL statements to HQL, done for each executed XWQL query.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XWQLtoHQLTranslatorBenchmark
+{
+    /**
+     * The translated XWQL statement.
+     */
+    @Param({
+        "select doc from Document as doc where doc.title like '%test'",
+        "from doc.object(XWiki.XWikiUsers) as user where user.email like '%@xwiki.org' order by doc.fullName",
+        "select doc.fullName from Document as doc, doc.object(Blog.BlogPostClass) as post, "
+            + "doc.object(XWiki.TagClass) as tag where post.published = 1 and :tag member of tag.tags "
+            + "order by post.publishDate desc"
+    })
+    public String statement;
+
+    private XWQLtoHQLTranslator translator;
+
+    /**
+     * Create the translator.
+     *
+     * @throws Exception when failing to mock the bridge
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        DocumentAccessBridge documentAccessBridge = mock(DocumentAccessBridge.class);
+        when(documentAccessBridge.getPropertyType(anyString(), anyString())).thenReturn("StringProperty");
+        when(documentAccessBridge.getPropertyType("XWiki.TagClass", "tags")).thenReturn("StringListProperty");
+
+        this.translator = new XWQLtoHQLTranslator()
+        {
+            @Override
+            public DocumentAccessBridge getDocumentAccessBridge()
+            {
+                return documentAccessBridge;
+            }
+        };
+    }
+
+    /**
+     * @return the HQL statement
+     * @throws Exception when failing to translate the statement
+     */
+    @Benchmark
+    public String translate() throws Exception
+    {
+        return this.translator.translate(this.statement);
+    }
+}
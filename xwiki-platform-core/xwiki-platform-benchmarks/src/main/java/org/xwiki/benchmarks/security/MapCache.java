@@ -0,0 +1,80 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmarks.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.event.CacheEntryListener;
+
+/**
+ * A cache without eviction, to measure the cost of the security cache itself and not of the cache implementation.
+ *
+ * @param <T> the type of the cached values
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class MapCache<T> implements Cache<T>
+{
+    private final Map<String, T> map = new ConcurrentHashMap<>();
+
+    @Override
+    public void set(String key, T value)
+    {
+        this.map.put(key, value);
+    }
+
+    @Override
+    public T get(String key)
+    {
+        return this.map.get(key);
+    }
+
+    @Override
+    public void remove(String key)
+    {
+        this.map.remove(key);
+    }
+
+    @Override
+    public void removeAll()
+    {
+        this.map.clear();
+    }
+
+    @Override
+    public void addCacheEntryListener(CacheEntryListener<T> listener)
+    {
+        // Not needed
+    }
+
+    @Override
+    public void removeCacheEntryListener(CacheEntryListener<T> listener)
+    {
+        // Not needed
+    }
+
+    @Override
+    public void dispose()
+    {
+        this.map.clear();
+    }
+}
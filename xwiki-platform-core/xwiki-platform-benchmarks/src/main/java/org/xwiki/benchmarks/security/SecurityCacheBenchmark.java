@@ -0,0 +1,300 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmarks.security;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.model.EntityReference;
+import org.xwiki.model.internal.reference.DefaultStringEntityReferenceSerializer;
+import org.xwiki.model.internal.reference.DefaultSymbolScheme;
+import org.xwiki.model.internal.reference.EntityReferenceFactory;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.security.DefaultSecurityReferenceFactory;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.SecurityReferenceFactory;
+import org.xwiki.security.UserSecurityReference;
+import org.xwiki.security.authorization.SecurityAccess;
+import org.xwiki.security.authorization.SecurityAccessEntry;
+import org.xwiki.security.authorization.SecurityRule;
+import org.xwiki.security.authorization.SecurityRuleEntry;
+import org.xwiki.security.authorization.cache.internal.DefaultSecurityCache;
+import org.xwiki.security.authorization.cache.internal.SecurityCache;
+import org.xwiki.security.authorization.internal.AbstractSecurityAccessEntry;
+import org.xwiki.security.authorization.internal.AbstractSecurityRuleEntry;
+import org.xwiki.security.authorization.internal.XWikiSecurityAccess;
+import org.xwiki.security.internal.XWikiBridge;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measure the lookups in {@link DefaultSecurityCache}, alone and while another thread keeps inserting and removing
+ * unrelated entries.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityCacheBenchmark
+{
+    private static final String MAIN_WIKI = "xwiki";
+
+    /**
+     * The number of users and of documents in the cache. The cache contains an access entry for each couple.
+     */
+    @Param({ "10", "50" })
+    public int size;
+
+    private MockitoComponentManager componentManager;
+
+    private SecurityCache securityCache;
+
+    private SecurityReference[] documents;
+
+    private UserSecurityReference[] users;
+
+    private SecurityReference[] writtenDocuments;
+
+    /**
+     * The state of each benchmark thread.
+     *
+     * @version $Id$
+     */
+    @State(Scope.Thread)
+    public static class ThreadState
+    {
+        private int index;
+
+        int next(int bound)
+        {
+            this.index = (this.index + 1) % bound;
+
+            return this.index;
+        }
+    }
+
+    private static final class RuleEntry extends AbstractSecurityRuleEntry
+    {
+        private final SecurityReference reference;
+
+        RuleEntry(SecurityReference reference)
+        {
+            this.reference = reference;
+        }
+
+        @Override
+        public SecurityReference getReference()
+        {
+            return this.reference;
+        }
+
+        @Override
+        public Collection<SecurityRule> getRules()
+        {
+            return Collections.emptyList();
+        }
+    }
+
+    private static final class AccessEntry extends AbstractSecurityAccessEntry
+    {
+        private final SecurityReference reference;
+
+        private final UserSecurityReference user;
+
+        AccessEntry(SecurityReference reference, UserSecurityReference user)
+        {
+            this.reference = reference;
+            this.user = user;
+        }
+
+        @Override
+        public SecurityReference getReference()
+        {
+            return this.reference;
+        }
+
+        @Override
+        public UserSecurityReference getUserReference()
+        {
+            return this.user;
+        }
+
+        @Override
+        public SecurityAccess getAccess()
+        {
+            return XWikiSecurityAccess.getDefaultAccess();
+        }
+    }
+
+    /**
+     * Fill the cache with the entries of a wiki containing {@link #size} users and documents.
+     *
+     * @throws Exception when failing to initialize the cache
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        this.componentManager = new MockitoComponentManager();
+        this.componentManager.initializeTest(this);
+
+        this.componentManager.registerComponent(DefaultSymbolScheme.class);
+        this.componentManager.registerComponent(DefaultStringEntityReferenceSerializer.class);
+        this.componentManager.registerComponent(EntityReferenceFactory.class);
+        this.componentManager.registerComponent(DefaultSecurityReferenceFactory.class);
+        this.componentManager.registerComponent(DefaultSecurityCache.class);
+
+        XWikiBridge bridge = this.componentManager.registerMockComponent(XWikiBridge.class);
+        when(bridge.getMainWikiReference()).thenReturn(new WikiReference(MAIN_WIKI));
+        when(bridge.toCompatibleEntityReference(any(EntityReference.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        CacheManager cacheManager = this.componentManager.registerMockComponent(CacheManager.class);
+        when(cacheManager.createNewCache(any(CacheConfiguration.class))).thenAnswer(invocation -> new MapCache<>());
+
+        this.securityCache = (SecurityCache) this.componentManager
+            .<org.xwiki.security.authorization.cache.SecurityCache>getInstance(
+                org.xwiki.security.authorization.cache.SecurityCache.class);
+        SecurityReferenceFactory factory = this.componentManager.getInstance(SecurityReferenceFactory.class);
+
+        // The hierarchy
+        WikiReference wikiReference = new WikiReference(MAIN_WIKI);
+        this.securityCache.add(new RuleEntry(factory.newEntityReference(wikiReference)));
+        SpaceReference usersSpace = new SpaceReference("XWiki", wikiReference);
+        this.securityCache.add(new RuleEntry(factory.newEntityReference(usersSpace)));
+        SpaceReference documentsSpace = new SpaceReference("Space", wikiReference);
+        this.securityCache.add(new RuleEntry(factory.newEntityReference(documentsSpace)));
+        SpaceReference writtenSpace = new SpaceReference("Written", wikiReference);
+        this.securityCache.add(new RuleEntry(factory.newEntityReference(writtenSpace)));
+
+        this.users = new UserSecurityReference[this.size];
+        this.documents = new SecurityReference[this.size];
+        this.writtenDocuments = new SecurityReference[this.size];
+        for (int i = 0; i < this.size; ++i) {
+            this.users[i] = factory.newUserReference(new DocumentReference("User" + i, usersSpace));
+            this.securityCache.add(new RuleEntry(this.users[i]), Collections.emptyList());
+
+            this.documents[i] = factory.newEntityReference(new DocumentReference("Page" + i, documentsSpace));
+            this.securityCache.add(new RuleEntry(this.documents[i]));
+
+            this.writtenDocuments[i] = factory.newEntityReference(new DocumentReference("Page" + i, writtenSpace));
+        }
+
+        // The access entries
+        for (UserSecurityReference user : this.users) {
+            for (SecurityReference document : this.documents) {
+                this.securityCache.add(new AccessEntry(document, user));
+            }
+        }
+    }
+
+    /**
+     * Dispose the components.
+     *
+     * @throws Exception when failing to dispose the components
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        this.componentManager.dispose();
+    }
+
+    /**
+     * @param state the state of the current thread
+     * @return the access entry of a user on a document, as done for each right check
+     */
+    @Benchmark
+    @Threads(4)
+    public SecurityAccessEntry getAccessEntry(ThreadState state)
+    {
+        return this.securityCache.get(this.users[state.next(this.size)], this.documents[state.next(this.size)]);
+    }
+
+    /**
+     * @param state the state of the current thread
+     * @return the rule entry of a document
+     */
+    @Benchmark
+    @Threads(4)
+    public SecurityRuleEntry getRuleEntry(ThreadState state)
+    {
+        return this.securityCache.get(this.documents[state.next(this.size)]);
+    }
+
+    /**
+     * Readers of the contention group, reading access entries while {@link #contentionWriter(ThreadState)} modifies
+     * the cache.
+     *
+     * @param state the state of the current thread
+     * @return the access entry of a user on a document
+     */
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(7)
+    public SecurityAccessEntry contentionReader(ThreadState state)
+    {
+        return this.securityCache.get(this.users[state.next(this.size)], this.documents[state.next(this.size)]);
+    }
+
+    /**
+     * Writer of the contention group, inserting and removing entries unrelated to the ones read by
+     * {@link #contentionReader(ThreadState)}.
+     *
+     * @param state the state of the current thread
+     * @throws Exception when failing to insert the entry
+     */
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(1)
+    public void contentionWriter(ThreadState state) throws Exception
+    {
+        SecurityReference reference = this.writtenDocuments[state.next(this.size)];
+
+        this.securityCache.add(new RuleEntry(reference));
+        this.securityCache.remove(reference);
+    }
+}
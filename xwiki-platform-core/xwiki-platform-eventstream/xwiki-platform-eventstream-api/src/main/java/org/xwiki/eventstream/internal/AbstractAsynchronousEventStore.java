@@ -23,12 +23,19 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.inject.Inject;
 
@@ -64,6 +71,11 @@ public abstract class AbstractAsynchronousEventStore implements EventStore, Init
 {
     private static final List<String> CONTEXT_ENTRIES = Arrays.asList("user", "author", "wiki");
 
+    /**
+     * The upper bounds of the batch size histogram buckets.
+     */
+    private static final int[] BATCH_SIZE_BUCKETS = {1, 10, 50, 100, 500, 1000};
+
     /**
      * The type of task.
      * 
@@ -153,6 +165,49 @@ public EventStoreTaskType getType()
         {
             return this.type;
         }
+
+        /**
+         * @return true if the task failed
+         * @since 17.0.0RC1
+         */
+        public boolean isFailed()
+        {
+            return this.future.isCompletedExceptionally();
+        }
+
+        /**
+         * Indicate that the task failed.
+         *
+         * @param cause the reason of the failure
+         * @since 17.0.0RC1
+         */
+        public void fail(Throwable cause)
+        {
+            this.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * A task added to all the queues, executed once all the consumer threads reached it.
+     */
+    private static final class GlobalTask extends EventStoreTask<Object, Object>
+    {
+        private final EventStoreTask<?, ?> task;
+
+        /**
+         * The number of consumer threads which did not reach the task yet.
+         */
+        private final AtomicInteger pending;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        GlobalTask(EventStoreTask<?, ?> task, int consumers)
+        {
+            super(null, task.type, null);
+
+            this.task = task;
+            this.pending = new AtomicInteger(consumers);
+        }
     }
 
     private static class DeleteStatusesData
@@ -183,11 +238,18 @@ public EventStoreTaskType getType()
     @Inject
     private Execution execution;
 
-    private Thread thread;
+    private List<Thread> threads;
 
     private int queueCapacity;
 
-    private BlockingQueue<EventStoreTask<?, ?>> queue;
+    /**
+     * One queue per consumer thread.
+     */
+    private List<BlockingQueue<EventStoreTask<?, ?>>> queues;
+
+    private final LongAdder processedTasks = new LongAdder();
+
+    private final AtomicLongArray batchSizeHistogram = new AtomicLongArray(BATCH_SIZE_BUCKETS.length + 1);
 
     private boolean notifyEach;
 
@@ -207,22 +269,130 @@ public EventStoreTaskType getType()
     public int getQueueSize()
     {
         int size = 0;
-        for (EventStoreTask<?, ?> task : this.queue) {
-            switch (task.type) {
-                case DELETE_EVENT, DELETE_EVENT_BY_ID:
-                    --size;
-                    break;
-                case SAVE_EVENT:
-                    ++size;
-                    break;
-                default:
-                    break;
+        for (BlockingQueue<EventStoreTask<?, ?>> queue : this.queues) {
+            for (EventStoreTask<?, ?> task : queue) {
+                switch (task.type) {
+                    case DELETE_EVENT, DELETE_EVENT_BY_ID:
+                        --size;
+                        break;
+                    case SAVE_EVENT:
+                        ++size;
+                        break;
+                    default:
+                        break;
+                }
             }
         }
 
         return size;
     }
 
+    /**
+     * @return the number of tasks waiting to be processed, whatever their type
+     * @since 17.0.0RC1
+     */
+    public int getQueueDepth()
+    {
+        int depth = 0;
+        for (BlockingQueue<EventStoreTask<?, ?>> queue : this.queues) {
+            depth += queue.size();
+        }
+
+        return depth;
+    }
+
+    /**
+     * @return the number of threads consuming the tasks
+     * @since 17.0.0RC1
+     */
+    public int getConsumers()
+    {
+        return this.queues.size();
+    }
+
+    /**
+     * @return the total number of processed tasks
+     * @since 17.0.0RC1
+     */
+    public long getProcessedTasks()
+    {
+        return this.processedTasks.sum();
+    }
+
+    /**
+     * @return the number of processed batches indexed by the upper bound of their size
+     * @since 17.0.0RC1
+     */
+    public Map<String, Long> getBatchSizeHistogram()
+    {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < BATCH_SIZE_BUCKETS.length; ++i) {
+            histogram.put("<=" + BATCH_SIZE_BUCKETS[i], this.batchSizeHistogram.get(i));
+        }
+        histogram.put(">" + BATCH_SIZE_BUCKETS[BATCH_SIZE_BUCKETS.length - 1],
+            this.batchSizeHistogram.get(BATCH_SIZE_BUCKETS.length));
+
+        return histogram;
+    }
+
+    private void recordBatch(int size)
+    {
+        this.processedTasks.add(size);
+
+        int bucket = 0;
+        while (bucket < BATCH_SIZE_BUCKETS.length && size > BATCH_SIZE_BUCKETS[bucket]) {
+            ++bucket;
+        }
+        this.batchSizeHistogram.incrementAndGet(bucket);
+    }
+
+    /**
+     * Tasks with the same partition key are always handled by the same consumer thread, in the order they were added.
+     * By default, the key is the identifier of the event targeted by the task, or the entity whose statuses are removed
+     * (see {@link #isGlobal(EventStoreTask)}).
+     *
+     * @param task the task
+     * @return the key used to decide which consumer thread should handle the task
+     * @since 17.0.0RC1
+     */
+    protected Object getPartitionKey(EventStoreTask<?, ?> task)
+    {
+        Object input = task.input;
+
+        if (input instanceof Event) {
+            return ((Event) input).getId();
+        } else if (input instanceof EntityEvent) {
+            return ((EntityEvent) input).getEvent().getId();
+        } else if (input instanceof DeleteStatusesData) {
+            return ((DeleteStatusesData) input).entityId;
+        }
+
+        return input;
+    }
+
+    /**
+     * A global task is executed after all the tasks added before it and before all the tasks added after it, whatever
+     * their partition. By default, only the removal of the statuses of an entity is global since it modifies events
+     * which belong to any partition.
+     *
+     * @param task the task
+     * @return true if the task can impact the events of several partitions
+     * @since 17.0.0RC1
+     */
+    protected boolean isGlobal(EventStoreTask<?, ?> task)
+    {
+        return task.type == EventStoreTaskType.DELETE_STATUSES;
+    }
+
+    private BlockingQueue<EventStoreTask<?, ?>> getQueue(EventStoreTask<?, ?> task)
+    {
+        if (this.queues.size() == 1) {
+            return this.queues.get(0);
+        }
+
+        return this.queues.get(Math.floorMod(Objects.hashCode(getPartitionKey(task)), this.queues.size()));
+    }
+
     private <O, I> CompletableFuture<O> addTask(I input, EventStoreTaskType type)
     {
         // Remember a few standard things from the context
@@ -243,9 +413,42 @@ private <O, I> CompletableFuture<O> addTask(I input, EventStoreTaskType type)
     }
 
     private <O, I> void addTask(EventStoreTask<O, I> task)
+    {
+        if (this.queues.size() > 1 && isGlobal(task)) {
+            addGlobalTask(task);
+        } else {
+            addTask(task, getQueue(task));
+        }
+    }
+
+    private void addGlobalTask(EventStoreTask<?, ?> task)
+    {
+        GlobalTask globalTask = new GlobalTask(task, this.queues.size());
+
+        // Make sure all the consumer threads reach the global tasks in the same order
+        synchronized (this.queues) {
+            for (int i = 0; i < this.queues.size(); ++i) {
+                try {
+                    this.queues.get(i).put(globalTask);
+                } catch (InterruptedException e) {
+                    task.fail(e);
+
+                    // The consumer threads of the remaining queues will never reach the task
+                    if (globalTask.pending.addAndGet(i - this.queues.size()) == 0) {
+                        globalTask.done.countDown();
+                    }
+
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    private <O, I> void addTask(EventStoreTask<O, I> task, BlockingQueue<EventStoreTask<?, ?>> queue)
     {
         try {
-            this.queue.put(task);
+            queue.put(task);
         } catch (InterruptedException e) {
             task.future.completeExceptionally(e);
 
@@ -307,12 +510,12 @@ public CompletableFuture<Event> prefilterEvent(Event event)
         return addTask(event, EventStoreTaskType.PREFILTER_EVENT);
     }
 
-    private void run()
+    private void run(BlockingQueue<EventStoreTask<?, ?>> queue)
     {
         while (!this.disposed) {
             EventStoreTask<?, ?> firstTask;
             try {
-                firstTask = this.queue.take();
+                firstTask = queue.take();
             } catch (InterruptedException e) {
                 this.logger.warn("The thread handling asynchronous storage for event store [{}] has been interrupted",
                     this.descriptor.getRoleHint(), e);
@@ -321,22 +524,66 @@ private void run()
                 break;
             }
 
-            processTasks(firstTask);
+            GlobalTask globalTask =
+                firstTask instanceof GlobalTask ? (GlobalTask) firstTask : processTasks(firstTask, queue);
+            if (globalTask != null) {
+                processGlobalTask(globalTask);
+            }
         }
     }
 
-    private void processTasks(EventStoreTask<?, ?> firstTask)
+    private void processGlobalTask(GlobalTask globalTask)
+    {
+        if (globalTask.pending.decrementAndGet() == 0) {
+            // Last consumer thread to reach the task: all the tasks added before it have been processed
+            try {
+                if (!globalTask.task.isFailed()) {
+                    processTasks(globalTask.task, null);
+                }
+            } finally {
+                globalTask.done.countDown();
+            }
+        } else {
+            // Wait for the task to be processed before processing the tasks added after it
+            try {
+                boolean done = false;
+                while (!done && !this.disposed) {
+                    done = globalTask.done.await(1, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                this.logger.warn("The thread handling asynchronous storage for event store [{}] has been interrupted",
+                    this.descriptor.getRoleHint(), e);
+
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return the global task which interrupted the batch, if any
+     */
+    private GlobalTask processTasks(EventStoreTask<?, ?> firstTask, BlockingQueue<EventStoreTask<?, ?>> queue)
     {
         this.execution.setContext(new ExecutionContext());
 
         // Make sure to not treat more than the queue capacity in a single batch
         List<EventStoreTask<?, ?>> tasks = new ArrayList<>(this.queueCapacity);
+        int processed = 0;
+        GlobalTask globalTask = null;
         try {
-            for (EventStoreTask<?, ?> task = firstTask; task != null; task = this.queue.poll()) {
+            for (EventStoreTask<?, ?> task = firstTask; task != null; task = queue != null ? queue.poll() : null) {
                 if (task == EventStoreTask.STOP) {
                     break;
                 }
 
+                if (task instanceof GlobalTask) {
+                    // The tasks added before the global task must be committed before it's executed
+                    globalTask = (GlobalTask) task;
+                    break;
+                }
+
+                ++processed;
+
                 try {
                     // Execute the task
                     processTask(task);
@@ -358,7 +605,13 @@ private void processTasks(EventStoreTask<?, ?> firstTask)
             afterTasks(tasks);
 
             this.execution.removeContext();
+
+            if (processed > 0) {
+                recordBatch(processed);
+            }
         }
+
+        return globalTask;
     }
 
     private boolean processTask(EventStoreTask<?, ?> task) throws EventStreamException
@@ -425,6 +678,11 @@ private <O, I> void processTaskOutput(EventStoreTask<O, I> task, O output)
 
     private <O, I> void complete(EventStoreTask<O, I> task, O output)
     {
+        // The extending class might have indicated that the task failed after all
+        if (task.isFailed()) {
+            return;
+        }
+
         if (task.context != null) {
             // Restore a few things from the context in case the listener need them (for example to lookup the right
             // components for the context of the event)
@@ -551,17 +809,40 @@ protected void afterTasks(List<EventStoreTask<?, ?>> tasks)
     }
 
     protected void initialize(int queueCapacity, boolean notifyEach, boolean notifyAll)
+    {
+        initialize(queueCapacity, 1, notifyEach, notifyAll);
+    }
+
+    /**
+     * @param queueCapacity the maximum number of tasks waiting in each queue, and the maximum size of a batch
+     * @param consumers the number of threads processing the tasks in parallel (see
+     *            {@link #getPartitionKey(EventStoreTask)})
+     * @param notifyEach true if each task should be completed as soon as it's executed
+     * @param notifyAll true if the tasks should be completed after each batch (see {@link #afterTasks(List)})
+     * @since 17.0.0RC1
+     */
+    protected void initialize(int queueCapacity, int consumers, boolean notifyEach, boolean notifyAll)
     {
         this.notifyEach = notifyEach;
         this.notifyAll = !notifyEach && notifyAll;
 
         this.queueCapacity = queueCapacity;
-        this.queue = new LinkedBlockingQueue<>(this.queueCapacity);
 
-        this.thread = new Thread(this::run);
-        this.thread.setName("Asynchronous handler for event store [" + descriptor.getRoleHint() + "]");
-        this.thread.setPriority(Thread.NORM_PRIORITY - 1);
-        this.thread.start();
+        int threadCount = Math.max(1, consumers);
+        this.queues = new ArrayList<>(threadCount);
+        this.threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; ++i) {
+            BlockingQueue<EventStoreTask<?, ?>> queue = new LinkedBlockingQueue<>(this.queueCapacity);
+            this.queues.add(queue);
+
+            Thread thread = new Thread(() -> run(queue));
+            String name = "Asynchronous handler for event store [" + descriptor.getRoleHint() + "]";
+            thread.setName(threadCount > 1 ? name + " #" + (i + 1) : name);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            this.threads.add(thread);
+        }
+
+        this.threads.forEach(Thread::start);
     }
 
     @Override
@@ -569,17 +850,23 @@ public void dispose() throws ComponentLifecycleException
     {
         this.disposed = true;
 
-        // Make sure to wake up the thread
-        addTask(EventStoreTask.STOP);
+        // Make sure to wake up the threads
+        for (BlockingQueue<EventStoreTask<?, ?>> queue : this.queues) {
+            addTask(EventStoreTask.STOP, queue);
+        }
 
         // Wait for the processing to be over but not more than 10s in case it's stuck for some reason
-        try {
-            this.thread.join(10000);
-        } catch (InterruptedException e) {
-            this.logger.warn("The thread handling asynchronous storage for event store [{}] has been interrupted",
-                this.descriptor.getRoleHint(), e);
+        for (Thread thread : this.threads) {
+            try {
+                thread.join(10000);
+            } catch (InterruptedException e) {
+                this.logger.warn("The thread handling asynchronous storage for event store [{}] has been interrupted",
+                    this.descriptor.getRoleHint(), e);
 
-            this.thread.interrupt();
+                thread.interrupt();
+                Thread.currentThread().interrupt();
+                break;
+            }
         }
     }
 }
@@ -64,4 +64,22 @@ public boolean isEventStoreEnabled()
     {
         return this.configuration.getProperty("eventstream.store.enabled", true);
     }
+
+    /**
+     * @return the number of threads writing events in the store in parallel
+     * @since 17.0.0RC1
+     */
+    public int getStoreConsumers()
+    {
+        return this.configuration.getProperty("eventstream.store.consumers", 1);
+    }
+
+    /**
+     * @return the number of days after which events are moved to the archive, 0 to disable archiving
+     * @since 17.0.0RC1
+     */
+    public int getArchiveDays()
+    {
+        return this.configuration.getProperty("eventstream.store.archive.days", 0);
+    }
 }
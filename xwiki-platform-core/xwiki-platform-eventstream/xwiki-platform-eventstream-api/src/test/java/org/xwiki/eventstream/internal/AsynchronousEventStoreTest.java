@@ -19,6 +19,7 @@
  */
 package org.xwiki.eventstream.internal;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -269,12 +270,24 @@ protected Optional<Event> syncDeleteEvent(Event event) throws EventStreamExcepti
         }
     }
 
+    public static class ParallelAsynchronousEventStore extends TestAbstractAsynchronousEventStore
+    {
+        @Override
+        public void initialize() throws InitializationException
+        {
+            initialize(10, 3, true, false);
+        }
+    }
+
     @InjectComponentManager
     private MockitoComponentManager componentManager;
 
     @InjectMockComponents
     private TestAbstractAsynchronousEventStore store;
 
+    @InjectMockComponents
+    private ParallelAsynchronousEventStore parallelStore;
+
     @MockComponent
     private ObservationManager observation;
 
@@ -332,6 +345,68 @@ void getQueueSize() throws InterruptedException
         }
     }
 
+    @Test
+    void getQueueDepth() throws InterruptedException
+    {
+        assertEquals(0, this.store.getQueueDepth());
+        assertEquals(1, this.store.getConsumers());
+
+        // Lock, add an event and wait for the lock to be in place in the store thread
+        this.store.lock.lock();
+
+        try {
+            DefaultEvent event = event("id1");
+
+            this.store.saveEvent(event(""));
+            Thread.sleep(10);
+            assertEquals(0, this.store.getQueueDepth());
+
+            this.store.saveEvent(event);
+            this.store.saveEventStatus(eventStatus(event, "entity", true));
+            this.store.deleteEvent(event);
+
+            assertEquals(3, this.store.getQueueDepth());
+            // The depth is not impacted by the fact that the tasks cancel each other
+            assertEquals(0, this.store.getQueueSize());
+        } finally {
+            this.store.lock.unlock();
+        }
+    }
+
+    @Test
+    void getBatchSizeHistogram() throws InterruptedException, ExecutionException
+    {
+        this.store.lock.lock();
+
+        try {
+            this.store.saveEvent(event(""));
+            Thread.sleep(10);
+
+            for (int i = 0; i < 5; ++i) {
+                this.store.saveEvent(event("id" + i));
+            }
+        } finally {
+            this.store.lock.unlock();
+        }
+
+        this.store.saveEvent(event("last")).get();
+
+        // The statistics are updated right after the tasks are completed
+        for (int i = 0; i < 100 && this.store.getProcessedTasks() < 7; ++i) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(7, this.store.getProcessedTasks());
+
+        Map<String, Long> histogram = this.store.getBatchSizeHistogram();
+        assertEquals(7, histogram.size());
+        assertEquals(Long.valueOf(0), histogram.get(">1000"));
+        // The first event is handled alone and the next ones are grouped in at most two batches
+        assertTrue(histogram.get("<=1") >= 1);
+        assertTrue(histogram.get("<=10") >= 1);
+        assertTrue(histogram.get("<=1") + histogram.get("<=10") <= 3);
+    }
+
     @Test
     void event() throws InterruptedException, ExecutionException, EventStreamException
     {
@@ -467,6 +542,46 @@ void prefilter() throws InterruptedException, ExecutionException, EventStreamExc
         assertFalse(this.store.getEvent(event2.getId()).get().isPrefiltered());
     }
 
+    @Test
+    void deleteEventStatusesWithSeveralConsumers() throws InterruptedException, ExecutionException
+    {
+        assertEquals(3, this.parallelStore.getConsumers());
+
+        Date date = new Date();
+        List<DefaultEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5; ++i) {
+            DefaultEvent event = event("id" + i);
+            event.setDate(date);
+            events.add(event);
+        }
+        DefaultEventStatus lastStatus = eventStatus(events.get(0), "entity", false);
+
+        CompletableFuture<Void> deleted;
+        CompletableFuture<EventStatus> saved;
+        // Make sure the tasks are distributed to the consumer threads before any of them is executed
+        this.parallelStore.lock.lock();
+        try {
+            for (DefaultEvent event : events) {
+                this.parallelStore.saveEvent(event);
+                this.parallelStore.saveEventStatus(eventStatus(event, "entity", true));
+            }
+            deleted = this.parallelStore.deleteEventStatuses("entity", date);
+            saved = this.parallelStore.saveEventStatus(lastStatus);
+        } finally {
+            this.parallelStore.lock.unlock();
+        }
+
+        deleted.get();
+        saved.get();
+
+        // The statuses saved before the removal are removed whatever the thread which handled them, but not the one
+        // saved after
+        assertSame(lastStatus, this.parallelStore.events.get("id0").statuses.get("entity"));
+        for (int i = 1; i < events.size(); ++i) {
+            assertNull(this.parallelStore.events.get("id" + i).statuses.get("entity"));
+        }
+    }
+
     /**
      * Observe for a call to notify on {@link #observation} for a given event and type. Complete the returned
      * {@link CompletableFuture} as soon as notify is called. This allows for tests to wait for notify to be called even
@@ -28,12 +28,18 @@
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -41,15 +47,22 @@
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrQuery.ORDER;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.SolrParams;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.eventstream.EntityEvent;
 import org.xwiki.eventstream.Event;
@@ -62,6 +75,7 @@
 import org.xwiki.eventstream.internal.AbstractAsynchronousEventStore;
 import org.xwiki.eventstream.internal.DefaultEvent;
 import org.xwiki.eventstream.internal.DefaultEventStatus;
+import org.xwiki.eventstream.internal.EventStreamConfiguration;
 import org.xwiki.eventstream.internal.StreamEventSearchResult;
 import org.xwiki.eventstream.query.AbstractPropertyQueryCondition;
 import org.xwiki.eventstream.query.CompareQueryCondition;
@@ -76,6 +90,8 @@
 import org.xwiki.eventstream.query.SortableEventQuery.SortClause;
 import org.xwiki.eventstream.query.SortableEventQuery.SortClause.Order;
 import org.xwiki.eventstream.query.StatusQueryCondition;
+import org.xwiki.eventstream.store.solr.internal.jmx.JMXSolrEventStore;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
@@ -98,6 +114,74 @@ public class SolrEventStore extends AbstractAsynchronousEventStore
 {
     private static final Map<String, SearchFieldMapping> SEARCH_FIELD_MAPPING = new HashMap<>();
 
+    private static final int BATCH_SIZE = 100;
+
+    private static final String MBEAN_NAME = "name=solreventstore";
+
+    private static final int ARCHIVE_BATCH_SIZE = 1000;
+
+    /**
+     * Only return the identifier of the event, when checking in which core it is stored.
+     */
+    private static final SolrParams ID_ONLY = new ModifiableSolrParams().set(CommonParams.FL,
+        EventsSolrCoreInitializer.SOLR_FIELD_ID);
+
+    /**
+     * The value of {@link CommonParams#VERSION_FIELD} requiring the updated document to exist.
+     */
+    private static final Long VERSION_EXISTS = 1L;
+
+    /**
+     * The fields which are not part of {@link Event} and need to be copied when an event is archived.
+     */
+    private static final List<String> LISTENER_FIELDS = List.of(EventsSolrCoreInitializer.SOLR_FIELD_READLISTENERS,
+        EventsSolrCoreInitializer.SOLR_FIELD_UNREADLISTENERS, EventsSolrCoreInitializer.SOLR_FIELD_MAILLISTENERS);
+
+    /**
+     * A write operation waiting to be sent to the Solr server.
+     */
+    private static final class SolrOperation
+    {
+        private final String id;
+
+        /**
+         * The document to add, or {@code null} to delete the document with the identifier {@link #id}.
+         */
+        private final SolrInputDocument document;
+
+        /**
+         * The partition key of the task at the origin of the operation.
+         */
+        private final Object key;
+
+        /**
+         * True if the operation targets the archive core.
+         */
+        private final boolean archive;
+
+        SolrOperation(String id, SolrInputDocument document, Object key, boolean archive)
+        {
+            this.id = id;
+            this.document = document;
+            this.key = key;
+            this.archive = archive;
+        }
+    }
+
+    /**
+     * The write operations produced by the tasks of a batch.
+     */
+    private static final class SolrBatch
+    {
+        private final List<SolrOperation> operations = new ArrayList<>(BATCH_SIZE);
+
+        private final Set<String> ids = new HashSet<>();
+
+        private final Set<Object> failedKeys = new HashSet<>();
+
+        private boolean archiveModified;
+    }
+
     private static class SearchFieldMapping
     {
         String solrFieldName;
@@ -148,48 +232,424 @@ public class SolrEventStore extends AbstractAsynchronousEventStore
     @Named("compactwiki")
     private EntityReferenceSerializer<String> compactwiki;
 
+    @Inject
+    private EventStreamConfiguration configuration;
+
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
     private SolrClient client;
 
+    private volatile SolrClient archiveClient;
+
+    /**
+     * The date of the most recent archived event, {@code null} if the archive is empty or disabled.
+     */
+    private volatile Date archiveEnd;
+
+    private ScheduledExecutorService archiveExecutor;
+
+    /**
+     * Each consumer thread accumulates the write operations of its current batch.
+     */
+    private final ThreadLocal<SolrBatch> batch = ThreadLocal.withInitial(SolrBatch::new);
+
     @Override
     public void initialize() throws InitializationException
     {
-        initialize(100, false, true);
-
         try {
             this.client = this.solr.getClient(EventsSolrCoreInitializer.NAME);
         } catch (SolrException e) {
             throw new InitializationException("Failed to get the events Solr core", e);
         }
+
+        initialize(BATCH_SIZE, Math.max(1, this.configuration.getStoreConsumers()), false, true);
+
+        this.jmxRegistration.registerMBean(new JMXSolrEventStore(this), MBEAN_NAME);
+
+        int archiveDays = this.configuration.getArchiveDays();
+        if (archiveDays > 0) {
+            try {
+                initializeArchive();
+            } catch (EventStreamException e) {
+                throw new InitializationException("Failed to initialize the events archive", e);
+            }
+
+            this.archiveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Event store archiver");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            this.archiveExecutor.scheduleWithFixedDelay(() -> archive(archiveDays), 1, 24, TimeUnit.HOURS);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        if (this.archiveExecutor != null) {
+            this.archiveExecutor.shutdownNow();
+        }
+
+        super.dispose();
+
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
     }
 
     @Override
     protected void afterTasks(List<EventStoreTask<?, ?>> tasks)
     {
+        SolrBatch currentBatch = this.batch.get();
+
+        // Send the remaining operations of the batch and commit them all at once
+        flush(currentBatch);
+
         try {
             commit();
-        } catch (EventStreamException e) {
+
+            if (currentBatch.archiveModified) {
+                currentBatch.archiveModified = false;
+                getArchiveClient().commit();
+            }
+        } catch (Exception e) {
             this.logger.error("Failed to commit", e);
         }
 
+        // Make sure the tasks whose operations could not be sent are not declared successful
+        if (!currentBatch.failedKeys.isEmpty()) {
+            for (EventStoreTask<?, ?> task : tasks) {
+                if (currentBatch.failedKeys.contains(getPartitionKey(task))) {
+                    task.fail(new EventStreamException(
+                        String.format("Failed to write the event store changes of task [%s]", task.getType())));
+                }
+            }
+            currentBatch.failedKeys.clear();
+        }
+
         super.afterTasks(tasks);
     }
 
-    @Override
-    protected Event syncSaveEvent(Event event) throws EventStreamException
+    private void add(String id, SolrInputDocument document, Object key)
     {
+        add(id, document, key, false);
+    }
+
+    private void add(String id, SolrInputDocument document, Object key, boolean archive)
+    {
+        SolrBatch currentBatch = this.batch.get();
+
+        currentBatch.operations.add(new SolrOperation(id, document, key, archive));
+        currentBatch.archiveModified |= archive;
+        currentBatch.ids.add(id);
+
+        if (currentBatch.operations.size() >= BATCH_SIZE) {
+            flush(currentBatch);
+        }
+    }
+
+    /**
+     * Send the buffered operations grouping consecutive additions and consecutive deletions targeting the same core in
+     * a single request. When a grouped request fails, its operations are sent again one by one to find which ones are
+     * responsible.
+     */
+    private void flush(SolrBatch currentBatch)
+    {
+        List<SolrOperation> operations = currentBatch.operations;
+
+        int start = 0;
+        while (start < operations.size()) {
+            boolean delete = operations.get(start).document == null;
+            boolean archive = operations.get(start).archive;
+
+            int end = start + 1;
+            while (end < operations.size() && (operations.get(end).document == null) == delete
+                && operations.get(end).archive == archive) {
+                ++end;
+            }
+
+            List<SolrOperation> group = operations.subList(start, end);
+            try {
+                send(group, delete, archive);
+            } catch (Exception e) {
+                this.logger.warn("Failed to send a group of [{}] operations to the events Solr core, retrying them"
+                    + " one by one: {}", group.size(), ExceptionUtils.getRootCauseMessage(e));
+
+                for (SolrOperation operation : group) {
+                    try {
+                        send(List.of(operation), delete, archive);
+                    } catch (Exception operationException) {
+                        this.logger.error("Failed to write the event with id [{}]", operation.id, operationException);
+
+                        currentBatch.failedKeys.add(operation.key);
+                    }
+                }
+            }
+
+            start = end;
+        }
+
+        operations.clear();
+        currentBatch.ids.clear();
+    }
+
+    private void send(List<SolrOperation> group, boolean delete, boolean archive)
+        throws SolrServerException, IOException, EventStreamException
+    {
+        SolrClient target = archive ? getArchiveClient() : this.client;
+
+        if (delete) {
+            target.deleteById(group.stream().map(operation -> operation.id).collect(Collectors.toList()));
+        } else {
+            target.add(group.stream().map(operation -> operation.document).collect(Collectors.toList()));
+        }
+    }
+
+    private SolrClient getArchiveClient() throws EventStreamException
+    {
+        if (this.archiveClient == null) {
+            try {
+                this.archiveClient = this.solr.getClient(EventsArchiveSolrCoreInitializer.NAME);
+            } catch (SolrException e) {
+                throw new EventStreamException("Failed to get the archived events Solr core", e);
+            }
+        }
+
+        return this.archiveClient;
+    }
+
+    private void initializeArchive() throws EventStreamException
+    {
+        SolrQuery solrQuery = new SolrQuery();
+        solrQuery.setFields(Event.FIELD_DATE);
+        solrQuery.addSort(Event.FIELD_DATE, ORDER.desc);
+        solrQuery.setRows(1);
+
         try {
-            this.client.add(toSolrInputDocument(event));
+            SolrDocumentList documents = getArchiveClient().query(solrQuery).getResults();
+            if (!documents.isEmpty()) {
+                this.archiveEnd = this.utils.get(Event.FIELD_DATE, documents.get(0));
+            }
+        } catch (SolrServerException | IOException e) {
+            throw new EventStreamException("Failed to get the date of the most recent archived event", e);
+        }
+    }
+
+    private void archive(int days)
+    {
+        try {
+            long count = archive(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days)));
+
+            this.logger.debug("[{}] events have been moved to the archive", count);
         } catch (Exception e) {
-            throw new EventStreamException("Failed to save event", e);
+            this.logger.error("Failed to archive the events older than [{}] days", days, e);
+        }
+    }
+
+    /**
+     * Move the events older than the passed date to the archive core and compact it.
+     * <p>
+     * The events are copied to the archive before being removed from the main core so they remain searchable during
+     * the whole operation. An event is only removed from the main core if it was not modified since it was copied, the
+     * events modified in the meantime being copied again.
+     * 
+     * @param before the date before which events should be archived
+     * @return the number of archived events
+     * @throws EventStreamException when failing to archive the events
+     * @since 17.0.0RC1
+     */
+    public synchronized long archive(Date before) throws EventStreamException
+    {
+        SolrClient archive = getArchiveClient();
+
+        SolrQuery solrQuery = new SolrQuery();
+        solrQuery.addFilterQuery(
+            Event.FIELD_DATE + ":[* TO " + this.utils.toCompleteFilterQueryString(before) + '}');
+        solrQuery.addSort(Event.FIELD_DATE, ORDER.asc);
+        solrQuery.setRows(ARCHIVE_BATCH_SIZE);
+
+        long count = 0;
+        try {
+            for (SolrDocumentList documents = this.client.query(solrQuery).getResults(); !documents.isEmpty();
+                documents = this.client.query(solrQuery).getResults()) {
+                List<SolrInputDocument> archivedDocuments = new ArrayList<>(documents.size());
+                Map<String, Long> versions = new LinkedHashMap<>(documents.size());
+                Date end = null;
+                for (SolrDocument document : documents) {
+                    Event event = toEvent(document);
+
+                    // Some fields are indexed but not stored so the document need to be generated again
+                    SolrInputDocument archivedDocument = toSolrInputDocument(event);
+                    for (String field : LISTENER_FIELDS) {
+                        Collection<Object> values = document.getFieldValues(field);
+                        if (values != null) {
+                            archivedDocument.setField(field, values);
+                        }
+                    }
+
+                    archivedDocuments.add(archivedDocument);
+                    versions.put(event.getId(), (Long) document.getFieldValue(CommonParams.VERSION_FIELD));
+                    end = event.getDate();
+                }
+
+                archive.add(archivedDocuments);
+                archive.commit();
+
+                if (this.archiveEnd == null || end.after(this.archiveEnd)) {
+                    this.archiveEnd = end;
+                }
+
+                count += deleteArchived(versions);
+                this.client.commit();
+            }
+
+            // Merge the segments of the archive which is not supposed to change much anymore
+            if (count > 0) {
+                archive.optimize();
+            }
+        } catch (SolrServerException | IOException e) {
+            throw new EventStreamException("Failed to archive events", e);
         }
 
+        return count;
+    }
+
+    /**
+     * Remove the archived events from the main core, unless they were modified since they were copied.
+     * 
+     * @param versions the versions of the copied events, indexed by id
+     * @return the number of removed events
+     */
+    private int deleteArchived(Map<String, Long> versions) throws SolrServerException, IOException
+    {
+        UpdateRequest request = new UpdateRequest();
+        versions.forEach(request::deleteById);
+
+        try {
+            request.process(this.client);
+
+            return versions.size();
+        } catch (org.apache.solr.common.SolrException e) {
+            if (e.code() != ErrorCode.CONFLICT.code) {
+                throw e;
+            }
+        }
+
+        // At least one event was modified while being archived, find which ones
+        int count = 0;
+        for (Map.Entry<String, Long> entry : versions.entrySet()) {
+            UpdateRequest eventRequest = new UpdateRequest();
+            eventRequest.deleteById(entry.getKey(), entry.getValue());
+            try {
+                eventRequest.process(this.client);
+
+                ++count;
+            } catch (org.apache.solr.common.SolrException e) {
+                if (e.code() != ErrorCode.CONFLICT.code) {
+                    throw e;
+                }
+
+                // Already removed or modified: the event will be copied again by the next iteration if still there
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @param event the event to modify
+     * @return true if the event is stored in the archive core
+     * @throws EventStreamException when failing to locate the event
+     */
+    private boolean isArchived(Event event) throws EventStreamException
+    {
+        Date end = this.archiveEnd;
+
+        if (end == null) {
+            return false;
+        }
+
+        // The events more recent than the archive cannot be in it
+        if (event.getDate() != null && event.getDate().after(end)) {
+            return false;
+        }
+
+        // The date alone is not enough: the event might not be known (e.g. only its id is provided) or might not be
+        // moved yet, so ask Solr
+        SolrBatch currentBatch = this.batch.get();
+        if (currentBatch.ids.contains(event.getId())) {
+            // The event was already located by a pending operation
+            for (SolrOperation operation : currentBatch.operations) {
+                if (operation.id.equals(event.getId())) {
+                    return operation.archive;
+                }
+            }
+        }
+
+        try {
+            // Real time get
+            return getEventDocument(event.getId(), ID_ONLY) == null
+                && getArchiveClient().getById(event.getId(), ID_ONLY) != null;
+        } catch (SolrServerException | IOException e) {
+            throw new EventStreamException("Failed to locate the event with id [" + event.getId() + "]", e);
+        }
+    }
+
+    /**
+     * @return true if the passed query might match archived events
+     */
+    private boolean isArchiveSearched(EventQuery query)
+    {
+        Date end = this.archiveEnd;
+
+        if (end == null) {
+            return false;
+        }
+
+        Date from = getLowerDateBound(query);
+
+        return from == null || !from.after(end);
+    }
+
+    private Date getLowerDateBound(EventQuery query)
+    {
+        Date from = null;
+
+        if (query instanceof SimpleEventQuery && !((SimpleEventQuery) query).isOr()) {
+            for (QueryCondition condition : ((SimpleEventQuery) query).getConditions()) {
+                if (condition instanceof CompareQueryCondition && !condition.isReversed()) {
+                    CompareQueryCondition compare = (CompareQueryCondition) condition;
+
+                    if (!compare.isCustom() && Event.FIELD_DATE.equals(compare.getProperty())
+                        && compare.getValue() instanceof Date
+                        && (compare.getType() == CompareType.GREATER
+                            || compare.getType() == CompareType.GREATER_OR_EQUALS
+                            || compare.getType() == CompareType.EQUALS)) {
+                        Date date = (Date) compare.getValue();
+                        if (from == null || date.after(from)) {
+                            from = date;
+                        }
+                    }
+                }
+            }
+        }
+
+        return from;
+    }
+
+    @Override
+    protected Event syncSaveEvent(Event event) throws EventStreamException
+    {
+        add(event.getId(), toSolrInputDocument(event), event.getId());
+
         return event;
     }
 
     @Override
     protected EventStatus syncSaveEventStatus(EventStatus status) throws EventStreamException
     {
-        saveEventStatus(status.getEvent().getId(), status.getEntityId(), status.isRead(), !status.isRead());
+        saveEventStatus(status.getEvent(), status.getEntityId(), status.isRead(), !status.isRead(),
+            status.getEvent().getId());
 
         return status;
     }
@@ -197,7 +657,7 @@ protected EventStatus syncSaveEventStatus(EventStatus status) throws EventStream
     @Override
     protected EntityEvent syncSaveMailEntityEvent(EntityEvent event) throws EventStreamException
     {
-        saveMailEntityEvent(event.getEvent().getId(), event.getEntityId(), true);
+        saveMailEntityEvent(event.getEvent(), event.getEntityId(), true);
 
         return event;
     }
@@ -205,7 +665,7 @@ protected EntityEvent syncSaveMailEntityEvent(EntityEvent event) throws EventStr
     @Override
     protected Optional<EventStatus> syncDeleteEventStatus(EventStatus status) throws EventStreamException
     {
-        saveEventStatus(status.getEvent().getId(), status.getEntityId(), false, false);
+        saveEventStatus(status.getEvent(), status.getEntityId(), false, false, status.getEvent().getId());
 
         return Optional.of(status);
     }
@@ -218,12 +678,13 @@ protected Void syncDeleteEventStatuses(String entityId, Date date) throws EventS
         if (date != null) {
             query.lessOrEq(Event.FIELD_DATE, date);
         }
-        EventSearchResult results = search(query, Collections.singleton(Event.FIELD_ID));
+        // The date is needed to know in which core the event is stored
+        EventSearchResult results = search(query, Set.of(Event.FIELD_ID, Event.FIELD_DATE));
 
         for (Iterator<Event> it = results.stream().iterator(); it.hasNext();) {
             Event event = it.next();
 
-            saveEventStatus(event.getId(), entityId, false, false);
+            saveEventStatus(event, entityId, false, false, entityId);
         }
 
         return null;
@@ -232,7 +693,7 @@ protected Void syncDeleteEventStatuses(String entityId, Date date) throws EventS
     @Override
     protected Optional<EntityEvent> syncDeleteMailEntityEvent(EntityEvent event) throws EventStreamException
     {
-        saveMailEntityEvent(event.getEvent().getId(), event.getEntityId(), false);
+        saveMailEntityEvent(event.getEvent(), event.getEntityId(), false);
 
         return Optional.of(event);
     }
@@ -240,18 +701,11 @@ protected Optional<EntityEvent> syncDeleteMailEntityEvent(EntityEvent event) thr
     @Override
     protected Event syncPrefilterEvent(Event event) throws EventStreamException
     {
-        SolrInputDocument document = new SolrInputDocument();
-
-        this.utils.set(EventsSolrCoreInitializer.SOLR_FIELD_ID, event.getId(), document);
+        SolrInputDocument document = createUpdateDocument(event);
 
         this.utils.setAtomic(SolrUtils.ATOMIC_UPDATE_MODIFIER_SET, Event.FIELD_PREFILTERED, true, document);
 
-        try {
-            this.client.add(document);
-        } catch (Exception e) {
-            throw new EventStreamException(
-                String.format("Failed to to set the event [%s] as prefiltered", event.getId()), e);
-        }
+        add(event.getId(), document, event.getId(), isArchived(event));
 
         // Update the event so that we return something with the right value
         if (event instanceof DefaultEvent) {
@@ -261,12 +715,10 @@ protected Event syncPrefilterEvent(Event event) throws EventStreamException
         return event;
     }
 
-    private void saveEventStatus(String eventId, String entityId, boolean read, boolean unread)
+    private void saveEventStatus(Event event, String entityId, boolean read, boolean unread, Object key)
         throws EventStreamException
     {
-        SolrInputDocument document = new SolrInputDocument();
-
-        this.utils.set(EventsSolrCoreInitializer.SOLR_FIELD_ID, eventId, document);
+        SolrInputDocument document = createUpdateDocument(event);
 
         this.utils.setAtomic(
             read ? SolrUtils.ATOMIC_UPDATE_MODIFIER_ADD_DISTINCT : SolrUtils.ATOMIC_UPDATE_MODIFIER_REMOVE,
@@ -275,31 +727,34 @@ private void saveEventStatus(String eventId, String entityId, boolean read, bool
             unread ? SolrUtils.ATOMIC_UPDATE_MODIFIER_ADD_DISTINCT : SolrUtils.ATOMIC_UPDATE_MODIFIER_REMOVE,
             EventsSolrCoreInitializer.SOLR_FIELD_UNREADLISTENERS, entityId, document);
 
-        try {
-            this.client.add(document);
-        } catch (Exception e) {
-            throw new EventStreamException(
-                String.format("Failed to update the event status for event [%s] and entity id [%s]", eventId, entityId),
-                e);
-        }
+        add(event.getId(), document, key, isArchived(event));
     }
 
-    private void saveMailEntityEvent(String eventId, String entityId, boolean add) throws EventStreamException
+    private void saveMailEntityEvent(Event event, String entityId, boolean add) throws EventStreamException
     {
-        SolrInputDocument document = new SolrInputDocument();
-
-        this.utils.set(EventsSolrCoreInitializer.SOLR_FIELD_ID, eventId, document);
+        SolrInputDocument document = createUpdateDocument(event);
 
         this.utils.setAtomic(
             add ? SolrUtils.ATOMIC_UPDATE_MODIFIER_ADD_DISTINCT : SolrUtils.ATOMIC_UPDATE_MODIFIER_REMOVE,
             EventsSolrCoreInitializer.SOLR_FIELD_MAILLISTENERS, entityId, document);
 
-        try {
-            this.client.add(document);
-        } catch (Exception e) {
-            throw new EventStreamException(String.format(
-                "Failed to update the event mail status for event [%s] and entity id [%s]", eventId, entityId), e);
-        }
+        add(event.getId(), document, event.getId(), isArchived(event));
+    }
+
+    /**
+     * @param event the event to update
+     * @return the document of an atomic update of the passed event
+     */
+    private SolrInputDocument createUpdateDocument(Event event)
+    {
+        SolrInputDocument document = new SolrInputDocument();
+
+        this.utils.set(EventsSolrCoreInitializer.SOLR_FIELD_ID, event.getId(), document);
+
+        // Fail instead of creating an incomplete event when the event is not in the target core
+        document.setField(CommonParams.VERSION_FIELD, VERSION_EXISTS);
+
+        return document;
     }
 
     private SolrInputDocument toSolrInputDocument(Event event)
@@ -356,13 +811,30 @@ private SolrInputDocument toSolrInputDocument(Event event)
     @Override
     protected Optional<Event> syncDeleteEvent(String eventId) throws EventStreamException
     {
-        Optional<Event> event = getEvent(eventId);
+        // Make sure the event returned by the real time get takes into account the pending operations of the batch
+        SolrBatch currentBatch = this.batch.get();
+        if (currentBatch.ids.contains(eventId)) {
+            flush(currentBatch);
+        }
+
+        Event event;
+        boolean archived = false;
+        try {
+            event = toEvent(getEventDocument(eventId));
+
+            if (event == null && this.archiveEnd != null) {
+                event = toEvent(getArchiveClient().getById(eventId));
+                archived = true;
+            }
+        } catch (Exception e) {
+            throw new EventStreamException("Failed to get Solr document with id [" + eventId + "]", e);
+        }
 
-        if (event.isPresent()) {
-            deleteById(eventId);
+        if (event != null) {
+            add(eventId, null, eventId, archived);
         }
 
-        return event;
+        return Optional.ofNullable(event);
     }
 
     @Override
@@ -371,15 +843,6 @@ protected Optional<Event> syncDeleteEvent(Event event) throws EventStreamExcepti
         return syncDeleteEvent(event.getId());
     }
 
-    private void deleteById(String eventId) throws EventStreamException
-    {
-        try {
-            this.client.deleteById(eventId);
-        } catch (Exception e) {
-            throw new EventStreamException("Failed to delete the event", e);
-        }
-    }
-
     private void commit() throws EventStreamException
     {
         try {
@@ -394,12 +857,21 @@ public SolrDocument getEventDocument(String eventId) throws SolrServerException,
         return this.client.getById(eventId);
     }
 
+    private SolrDocument getEventDocument(String eventId, SolrParams params) throws SolrServerException, IOException
+    {
+        return this.client.getById(eventId, params);
+    }
+
     @Override
     public Optional<Event> getEvent(String eventId) throws EventStreamException
     {
         SolrDocument document;
         try {
             document = getEventDocument(eventId);
+
+            if (document == null && this.archiveEnd != null) {
+                document = getArchiveClient().getById(eventId);
+            }
         } catch (Exception e) {
             throw new EventStreamException("Failed to get Solr document with id [" + eventId + "]", e);
         }
@@ -421,15 +893,18 @@ public List<EventStatus> getEventStatuses(Collection<Event> events, Collection<S
         // Without it the query will only return 10 first results.
         solrQuery.setRows(events.size());
 
-        QueryResponse response;
+        SolrDocumentList documents;
         try {
-            response = this.client.query(solrQuery);
+            documents = this.client.query(solrQuery).getResults();
+
+            // Some of the events might be archived
+            if (this.archiveEnd != null && documents.size() < events.size()) {
+                documents.addAll(getArchiveClient().query(solrQuery).getResults());
+            }
         } catch (Exception e) {
             throw new EventStreamException("Failed to execute Solr query", e);
         }
 
-        SolrDocumentList documents = response.getResults();
-
         List<EventStatus> statuses = new ArrayList<>(documents.size() * entityIds.size());
         for (SolrDocument solrDocument : documents) {
             Event event = toEvent(solrDocument);
@@ -494,7 +969,7 @@ private SolrQuery toSolrQuery(EventQuery query, Set<String> fields)
         SolrQuery solrQuery = new SolrQuery();
 
         if (CollectionUtils.isNotEmpty(fields)) {
-            fields.forEach(solrQuery::setFields);
+            solrQuery.setFields(fields.toArray(new String[0]));
         }
 
         if (query instanceof PageableEventQuery) {
@@ -838,6 +1313,10 @@ public EventSearchResult search(EventQuery query, Set<String> fields) throws Eve
     {
         SolrQuery solrQuery = toSolrQuery(query, fields);
 
+        if (isArchiveSearched(query)) {
+            return searchWithArchive(query, solrQuery);
+        }
+
         QueryResponse response;
         try {
             response = this.client.query(solrQuery);
@@ -850,4 +1329,40 @@ public EventSearchResult search(EventQuery query, Set<String> fields) throws Eve
         return new StreamEventSearchResult(documents.getNumFound(), documents.getStart(), documents.size(),
             documents.stream().map(this::toEvent));
     }
+
+    /**
+     * Search both the main and the archive cores. Since archived events are all older than the events of the main
+     * core, the results of the two cores are concatenated, starting with the archive when the first sort is an
+     * ascending sort on the date.
+     */
+    private EventSearchResult searchWithArchive(EventQuery query, SolrQuery solrQuery) throws EventStreamException
+    {
+        boolean archiveFirst = false;
+        if (query instanceof SortableEventQuery) {
+            List<SortClause> sorts = ((SortableEventQuery) query).getSorts();
+            archiveFirst = !sorts.isEmpty() && Event.FIELD_DATE.equals(sorts.get(0).getProperty())
+                && sorts.get(0).getOrder() == Order.ASC;
+        }
+
+        int start = solrQuery.getStart() != null ? solrQuery.getStart() : 0;
+        int rows = solrQuery.getRows() != null ? solrQuery.getRows() : 10;
+
+        try {
+            SolrClient first = archiveFirst ? getArchiveClient() : this.client;
+            SolrClient second = archiveFirst ? this.client : getArchiveClient();
+
+            SolrDocumentList firstDocuments = first.query(solrQuery).getResults();
+
+            SolrQuery secondQuery = solrQuery.getCopy();
+            secondQuery.setStart((int) Math.max(0, start - firstDocuments.getNumFound()));
+            secondQuery.setRows(rows - firstDocuments.size());
+            SolrDocumentList secondDocuments = second.query(secondQuery).getResults();
+
+            return new StreamEventSearchResult(firstDocuments.getNumFound() + secondDocuments.getNumFound(), start,
+                firstDocuments.size() + secondDocuments.size(),
+                Stream.concat(firstDocuments.stream(), secondDocuments.stream()).map(this::toEvent));
+        } catch (Exception e) {
+            throw new EventStreamException("Failed to execute Solr query", e);
+        }
+    }
 }
@@ -27,6 +27,7 @@
 import org.slf4j.Logger;
 import org.xwiki.bridge.event.WikiDeletedEvent;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.eventstream.internal.EventStreamConfiguration;
 import org.xwiki.observation.AbstractEventListener;
 import org.xwiki.observation.event.Event;
 import org.xwiki.search.solr.Solr;
@@ -54,6 +55,9 @@ public class WikiDeletedListener extends AbstractEventListener
     @Inject
     private SolrUtils utils;
 
+    @Inject
+    private EventStreamConfiguration configuration;
+
     @Inject
     private Logger logger;
 
@@ -71,13 +75,22 @@ public void onEvent(Event event, Object source, Object data)
         WikiDeletedEvent wikiDeletedEvent = (WikiDeletedEvent) event;
 
         try {
-            SolrClient client = this.solr.getClient(EventsSolrCoreInitializer.NAME);
+            delete(wikiDeletedEvent.getWikiId(), EventsSolrCoreInitializer.NAME);
 
-            client.deleteByQuery(org.xwiki.eventstream.Event.FIELD_WIKI + ':'
-                + this.utils.toCompleteFilterQueryString(wikiDeletedEvent.getWikiId()));
-            client.commit();
+            if (this.configuration.getArchiveDays() > 0) {
+                delete(wikiDeletedEvent.getWikiId(), EventsArchiveSolrCoreInitializer.NAME);
+            }
         } catch (Exception e) {
             this.logger.error("Failed to delete events associated with wiki [{}]", wikiDeletedEvent.getWikiId(), e);
         }
     }
+
+    private void delete(String wikiId, String core) throws Exception
+    {
+        SolrClient client = this.solr.getClient(core);
+
+        client.deleteByQuery(
+            org.xwiki.eventstream.Event.FIELD_WIKI + ':' + this.utils.toCompleteFilterQueryString(wikiId));
+        client.commit();
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.eventstream.store.solr.internal.jmx;
+
+import java.util.Map;
+
+import org.xwiki.eventstream.store.solr.internal.SolrEventStore;
+
+/**
+ * Default implementation of {@link JMXSolrEventStoreMBean}.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class JMXSolrEventStore implements JMXSolrEventStoreMBean
+{
+    private final SolrEventStore store;
+
+    /**
+     * @param store the store to monitor
+     */
+    public JMXSolrEventStore(SolrEventStore store)
+    {
+        this.store = store;
+    }
+
+    @Override
+    public int getQueueDepth()
+    {
+        return this.store.getQueueDepth();
+    }
+
+    @Override
+    public int getConsumers()
+    {
+        return this.store.getConsumers();
+    }
+
+    @Override
+    public long getProcessedTasks()
+    {
+        return this.store.getProcessedTasks();
+    }
+
+    @Override
+    public Map<String, Long> getBatchSizeHistogram()
+    {
+        return this.store.getBatchSizeHistogram();
+    }
+}
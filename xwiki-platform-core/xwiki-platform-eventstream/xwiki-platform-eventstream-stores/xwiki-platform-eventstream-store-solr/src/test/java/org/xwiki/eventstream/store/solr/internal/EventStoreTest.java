@@ -53,6 +53,7 @@
 import org.xwiki.eventstream.internal.DefaultEntityEvent;
 import org.xwiki.eventstream.internal.DefaultEvent;
 import org.xwiki.eventstream.internal.DefaultEventStatus;
+import org.xwiki.eventstream.internal.EventStreamConfiguration;
 import org.xwiki.eventstream.query.SimpleEventQuery;
 import org.xwiki.eventstream.query.SortableEventQuery.SortClause.Order;
 import org.xwiki.model.internal.reference.converter.EntityReferenceConverter;
@@ -80,6 +81,7 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -89,8 +91,9 @@
  * @version $Id$
  */
 @ComponentTest
-@ComponentList({EventsSolrCoreInitializer.class, WikiDeletedListener.class, WikiReferenceConverter.class,
-    SpaceReferenceConverter.class, DocumentReferenceConverter.class, EntityReferenceConverter.class})
+@ComponentList({EventsSolrCoreInitializer.class, EventsArchiveSolrCoreInitializer.class, WikiDeletedListener.class,
+    WikiReferenceConverter.class, SpaceReferenceConverter.class, DocumentReferenceConverter.class,
+    EntityReferenceConverter.class})
 @ReferenceComponentList
 @SolrComponentList
 public class EventStoreTest
@@ -165,6 +168,9 @@
     @MockComponent
     private WikiDescriptorManager wikis;
 
+    @MockComponent
+    private EventStreamConfiguration configuration;
+
     @InjectComponentManager
     private MockitoComponentManager componentManager;
 
@@ -787,4 +793,74 @@ void deleteWiki() throws EventStreamException, InterruptedException, ExecutionEx
 
         assertSearch(Arrays.asList(EVENT3, EVENT4), new SimpleEventQuery());
     }
+
+    @Test
+    void archive() throws Exception
+    {
+        DefaultEvent event10 = event("id10", new Date(10));
+        DefaultEvent event30 = event("id30", new Date(30));
+
+        this.eventStore.saveEvent(event10);
+        this.eventStore.saveEvent(event30).get();
+
+        assertEquals(1, this.eventStore.archive(new Date(20)));
+
+        // The archived event is not in the main core anymore but can still be found
+        assertNull(this.eventStore.getEventDocument(event10.getId()));
+        assertEquals(event10, this.eventStore.getEvent(event10.getId()).get());
+
+        assertSearch(Arrays.asList(event10, event30), new SimpleEventQuery());
+        assertSearch(Arrays.asList(event30), new SimpleEventQuery().after(new Date(20)));
+        assertSearch(Arrays.asList(event10), new SimpleEventQuery().before(new Date(20)));
+
+        EventSearchResult result =
+            this.eventStore.search(new SimpleEventQuery().addSort(Event.FIELD_DATE, Order.ASC).setLimit(1));
+        assertEquals(2, result.getTotalHits());
+        assertEquals(List.of(event10), result.stream().collect(Collectors.toList()));
+
+        result = this.eventStore
+            .search(new SimpleEventQuery().addSort(Event.FIELD_DATE, Order.DESC).setOffset(1).setLimit(1));
+        assertEquals(2, result.getTotalHits());
+        assertEquals(List.of(event10), result.stream().collect(Collectors.toList()));
+
+        // The statuses of archived events can still be modified
+        DefaultEventStatus status = eventstatus(event10, "entity", true);
+        this.eventStore.saveEventStatus(status).get();
+
+        assertEquals(List.of(status), this.eventStore.getEventStatuses(List.of(event10), List.of("entity")));
+        assertSearch(Arrays.asList(event10), new SimpleEventQuery().withStatus("entity"));
+
+        this.eventStore.deleteEvent(event10).get();
+
+        assertFalse(this.eventStore.getEvent(event10.getId()).isPresent());
+        assertSearch(Arrays.asList(event30), new SimpleEventQuery());
+    }
+
+    @Test
+    void saveStatusOfArchivedEventWithOnlyId() throws Exception
+    {
+        this.eventStore.saveEvent(event("id10", new Date(10))).get();
+        this.eventStore.saveEvent(event("id15", new Date(10))).get();
+        this.eventStore.saveEvent(event("id30", new Date(30))).get();
+
+        assertEquals(2, this.eventStore.archive(new Date(20)));
+
+        // Only the identifier of the events is known (e.g. when marking an event as read from a script)
+        this.eventStore.saveEventStatus(eventstatus(event("id10"), "entity", true)).get();
+        this.eventStore.saveMailEntityEvent(entityevent(event("id15"), "entity")).get();
+        this.eventStore.saveEventStatus(eventstatus(event("id30"), "entity", true)).get();
+
+        // No incomplete event is created in the main core
+        assertNull(this.eventStore.getEventDocument("id10"));
+        assertNull(this.eventStore.getEventDocument("id15"));
+
+        DefaultEvent event10 = event("id10", new Date(10));
+        assertEquals(List.of(eventstatus(event10, "entity", true)),
+            this.eventStore.getEventStatuses(List.of(event10), List.of("entity")));
+        DefaultEvent event30 = event("id30", new Date(30));
+        assertEquals(List.of(eventstatus(event30, "entity", true)),
+            this.eventStore.getEventStatuses(List.of(event30), List.of("entity")));
+        assertSearch(Arrays.asList(event10, event30), new SimpleEventQuery().withStatus("entity"));
+        assertSearch(Arrays.asList(event("id15", new Date(10))), new SimpleEventQuery().withMail("entity"));
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.eventstream.store.solr.internal;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.Test;
+import org.xwiki.eventstream.EventStatus;
+import org.xwiki.eventstream.EventStreamException;
+import org.xwiki.eventstream.internal.DefaultEvent;
+import org.xwiki.eventstream.internal.DefaultEventStatus;
+import org.xwiki.search.solr.Solr;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the batching of the writes in {@link SolrEventStore}, see {@link EventStoreTest} for the tests on a
+ * real Solr core.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class SolrEventStoreTest
+{
+    @MockComponent
+    private Solr solr;
+
+    @InjectMockComponents
+    private SolrEventStore eventStore;
+
+    private SolrClient client = mock(SolrClient.class);
+
+    @BeforeComponent
+    void beforeComponent() throws Exception
+    {
+        when(this.solr.getClient(EventsSolrCoreInitializer.NAME)).thenReturn(this.client);
+    }
+
+    private static DefaultEvent event(String id)
+    {
+        DefaultEvent event = new DefaultEvent();
+
+        event.setId(id);
+
+        return event;
+    }
+
+    private CompletableFuture<EventStatus> saveEventStatus(String eventId)
+    {
+        return this.eventStore.saveEventStatus(new DefaultEventStatus(event(eventId), "entity", true));
+    }
+
+    @Test
+    void retryFailingGroupOneByOne() throws Exception
+    {
+        // Block the consumer thread in the commit of the first batch so that the next tasks end up in the same batch
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            committing.countDown();
+            release.await();
+            return null;
+        }).when(this.client).commit();
+
+        // The group fails and then only the second operation when retried alone (e.g. the event does not exist)
+        AtomicBoolean groupFailed = new AtomicBoolean();
+        AtomicInteger retries = new AtomicInteger();
+        when(this.client.add(anyCollection())).then(invocation -> {
+            Collection<SolrInputDocument> documents = invocation.getArgument(0);
+            if (documents.size() > 1) {
+                groupFailed.set(true);
+                throw new SolrServerException("Failed to add the group");
+            }
+            if (groupFailed.get() && retries.incrementAndGet() == 2) {
+                throw new SolrServerException("Failed to add the document");
+            }
+            return null;
+        });
+
+        this.eventStore.saveEvent(event("id0"));
+        assertTrue(committing.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<EventStatus> status1 = saveEventStatus("id1");
+        CompletableFuture<EventStatus> status2 = saveEventStatus("id2");
+        CompletableFuture<EventStatus> status3 = saveEventStatus("id3");
+
+        release.countDown();
+
+        // Only the task whose operation failed is failed
+        status1.get();
+        status3.get();
+        ExecutionException exception = assertThrows(ExecutionException.class, status2::get);
+        assertInstanceOf(EventStreamException.class, exception.getCause());
+
+        verify(this.client).add(argThat((Collection<SolrInputDocument> documents) -> documents.size() == 3));
+        // The event, the group and then each operation of the group
+        verify(this.client, times(5)).add(anyCollection());
+        verify(this.client, times(2)).commit();
+    }
+}
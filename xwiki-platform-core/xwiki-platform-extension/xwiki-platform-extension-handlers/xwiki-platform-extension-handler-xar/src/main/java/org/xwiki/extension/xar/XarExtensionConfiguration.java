@@ -20,6 +20,7 @@
 package org.xwiki.extension.xar;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Various configuration related to XAR extensions support.
@@ -126,4 +127,14 @@ public boolean isSimple()
      * @return the protection to apply
      */
     DocumentProtection getDocumentProtection();
+
+    /**
+     * @return the number of threads used to save the documents of a XAR extension, 1 to save them one by one
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default int getImportThreads()
+    {
+        return 1;
+    }
 }
@@ -25,7 +25,17 @@
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -34,11 +44,17 @@
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.extension.ExtensionId;
 import org.xwiki.extension.repository.InstalledExtensionRepository;
+import org.xwiki.extension.xar.XarExtensionConfiguration;
 import org.xwiki.extension.xar.XarExtensionException;
 import org.xwiki.extension.xar.internal.handler.XarExtensionHandler;
 import org.xwiki.extension.xar.internal.handler.XarExtensionPlan;
@@ -48,6 +64,9 @@
 import org.xwiki.filter.input.DefaultInputStreamInputSource;
 import org.xwiki.filter.instance.output.DocumentInstanceOutputProperties;
 import org.xwiki.filter.xar.input.XARInputProperties;
+import org.xwiki.logging.LogQueue;
+import org.xwiki.logging.LoggerManager;
+import org.xwiki.logging.event.LoggerListener;
 import org.xwiki.logging.marker.BeginTranslationMarker;
 import org.xwiki.logging.marker.EndTranslationMarker;
 import org.xwiki.logging.marker.TranslationMarker;
@@ -98,6 +117,33 @@
     private static final TranslationMarker LOG_DELETEDDOCUMENT_FAILURE =
         new TranslationMarker("extension.xar.log.delete.document.failure");
 
+    private static final TranslationMarker LOG_IMPORT_THROUGHPUT =
+        new TranslationMarker("extension.xar.log.import.throughput");
+
+    /**
+     * The maximum number of parsed documents waiting to be saved when importing documents concurrently.
+     */
+    private static final int IMPORT_BATCH_SIZE = 100;
+
+    private static final class PendingDocument
+    {
+        private final XWikiDocument document;
+
+        private final PackageConfiguration configuration;
+
+        private final LogQueue log = new LogQueue();
+
+        private boolean imported;
+
+        private Exception failure;
+
+        private PendingDocument(XWikiDocument document, PackageConfiguration configuration)
+        {
+            this.document = document;
+            this.configuration = configuration;
+        }
+    }
+
     @Inject
     @Named("explicit")
     private DocumentReferenceResolver<EntityReference> resolver;
@@ -130,6 +176,18 @@
     @Named(XarExtensionHandler.TYPE)
     private InstalledExtensionRepository installedXARs;
 
+    @Inject
+    private XarExtensionConfiguration xarConfiguration;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private LoggerManager loggerManager;
+
     private XarInstalledExtensionRepository getXarInstalledExtensionRepository()
     {
         return (XarInstalledExtensionRepository) this.installedXARs;
@@ -152,74 +210,295 @@ public void importXAR(String comment, File xarFile, PackageConfiguration configu
     private void importXARToWiki(String comment, File xarFile, WikiReference wikiReference,
         PackageConfiguration configuration) throws IOException, XarException, XWikiException
     {
-        FileInputStream fis = new FileInputStream(xarFile);
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        String currentWiki = xcontext.getWikiId();
         try {
-            importXARToWiki(comment, fis, wikiReference, configuration);
+            xcontext.setWikiId(wikiReference.getName());
+
+            this.observation.notify(new XARImportingEvent(), null, xcontext);
+
+            long begin = System.nanoTime();
+
+            int importThreads = this.xarConfiguration.getImportThreads();
+            int count;
+            // Conflicts questions cannot be asked concurrently
+            if (importThreads > 1 && !configuration.isInteractive()) {
+                count = importXARToWikiConcurrently(comment, xarFile, wikiReference, configuration, importThreads);
+            } else {
+                try (FileInputStream fis = new FileInputStream(xarFile)) {
+                    count = importXARToWiki(comment, fis, wikiReference, configuration);
+                }
+            }
+
+            if (configuration.isVerbose()) {
+                long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+                this.logger.info(LOG_IMPORT_THROUGHPUT,
+                    "Imported [{}] documents in [{}] ms ([{}] documents per second)", count, duration,
+                    duration > 0 ? count * 1000L / duration : count);
+            }
         } finally {
-            fis.close();
+            this.observation.notify(new XARImportedEvent(), null, xcontext);
+
+            xcontext.setWikiId(currentWiki);
         }
     }
 
-    private void importXARToWiki(String comment, InputStream xarInputStream, WikiReference wikiReference,
+    private boolean isImported(ArchiveEntry entry, PackageConfiguration configuration)
+    {
+        // Only import what should be imported
+        return !entry.isDirectory() && !entry.getName().equals(XarModel.PATH_PACKAGE)
+            && (configuration.getEntriesToImport() == null
+                || configuration.getEntriesToImport().containsKey(entry.getName()));
+    }
+
+    private XarEntry getXarEntry(ArchiveEntry entry, PackageConfiguration configuration)
+    {
+        return configuration.getEntriesToImport() != null ? configuration.getEntriesToImport().get(entry.getName())
+            : null;
+    }
+
+    private int importXARToWiki(String comment, InputStream xarInputStream, WikiReference wikiReference,
         PackageConfiguration configuration) throws IOException, XarException, XWikiException
     {
         ZipArchiveInputStream zis = new ZipArchiveInputStream(xarInputStream);
 
+        int count = 0;
+        for (ArchiveEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
+            if (isImported(entry, configuration)) {
+                configuration.setXarEntry(getXarEntry(entry, configuration));
+
+                XWikiDocument nextDocument = parseDocument(zis, wikiReference, entry.getName());
+                if (nextDocument != null && importDocumentToWiki(comment, nextDocument, configuration)) {
+                    ++count;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Import the documents in a single pass over the XAR, saving them concurrently in batches of at most
+     * {@link #IMPORT_BATCH_SIZE} documents. As when importing sequentially, a document containing a class is saved
+     * before the documents which follow it in the XAR: the current batch is saved first and then the class alone.
+     */
+    private int importXARToWikiConcurrently(String comment, File xarFile, WikiReference wikiReference,
+        PackageConfiguration configuration, int importThreads) throws IOException, XarException, XWikiException
+    {
+        int count = 0;
+
         XWikiContext xcontext = this.xcontextProvider.get();
+        DocumentReference userReference = xcontext.getUserReference();
+        ExecutorService executor = Executors.newFixedThreadPool(importThreads,
+            new BasicThreadFactory.Builder().namingPattern("XAR import %d").daemon(true).build());
+        try (ZipArchiveInputStream zis = new ZipArchiveInputStream(new FileInputStream(xarFile))) {
+            List<PendingDocument> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            for (ArchiveEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
+                if (!isImported(entry, configuration)) {
+                    continue;
+                }
+
+                XWikiDocument nextDocument = parseDocument(zis, wikiReference, entry.getName());
+                if (nextDocument == null) {
+                    continue;
+                }
+
+                PackageConfiguration documentConfiguration = configuration.clone();
+                documentConfiguration.setXarEntry(getXarEntry(entry, configuration));
+
+                if (!nextDocument.getXClass().getFieldList().isEmpty()) {
+                    count += importBatch(comment, batch, executor, importThreads, wikiReference, userReference);
+                    batch.clear();
+
+                    if (importDocumentToWiki(comment, nextDocument, documentConfiguration)) {
+                        ++count;
+                    }
+                } else {
+                    batch.add(new PendingDocument(nextDocument, documentConfiguration));
+
+                    if (batch.size() >= IMPORT_BATCH_SIZE) {
+                        count += importBatch(comment, batch, executor, importThreads, wikiReference, userReference);
+                        batch.clear();
+                    }
+                }
+            }
+
+            count += importBatch(comment, batch, executor, importThreads, wikiReference, userReference);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return count;
+    }
+
+    private int importBatch(String comment, List<PendingDocument> batch, ExecutorService executor, int importThreads,
+        WikiReference wikiReference, DocumentReference userReference) throws XWikiException
+    {
+        // The locales of a same document are saved by the same thread, one after the other
+        Map<DocumentReference, List<PendingDocument>> groups = new LinkedHashMap<>();
+        for (PendingDocument pendingDocument : batch) {
+            groups.computeIfAbsent(pendingDocument.document.getDocumentReference(), k -> new ArrayList<>())
+                .add(pendingDocument);
+        }
+
+        // Each thread initializes its context once and then saves the groups of documents until there is none left
+        Queue<List<PendingDocument>> queue = new ConcurrentLinkedQueue<>(groups.values());
+        int workers = Math.min(importThreads, queue.size());
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; ++i) {
+            futures.add(executor.submit(() -> {
+                importDocuments(comment, queue, wikiReference, userReference);
+
+                return null;
+            }));
+        }
+
+        // Wait for all the workers, even when one of them failed, so that the log of the whole batch is replayed
+        List<Throwable> workerFailures = new ArrayList<>();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new XWikiException("Interrupted while importing documents", e);
+            } catch (ExecutionException e) {
+                workerFailures.add(e.getCause());
+            }
+        }
+
+        // The log of the import threads is replayed in the job thread so that it ends up in the job log
+        int count = 0;
+        for (PendingDocument pendingDocument : batch) {
+            DocumentReference reference = pendingDocument.document.getDocumentReferenceWithLocale();
+
+            if (pendingDocument.imported) {
+                ++count;
+            } else if (pendingDocument.failure == null) {
+                // Left in the queue by failed workers
+                this.logger.error("Document [{}] was not installed", reference);
+
+                continue;
+            }
+
+            if (pendingDocument.configuration.isVerbose()) {
+                this.logger.info(LOG_INSTALLDOCUMENT_BEGIN, "Installing document [{}]", reference);
+                pendingDocument.log.log(this.logger);
+                if (pendingDocument.failure == null) {
+                    this.logger.info(LOG_INSTALLDOCUMENT_SUCCESS_END, "Done installing document [{}]", reference);
+                } else {
+                    this.logger.error(LOG_INSTALLDOCUMENT_FAILURE_END, "Failed to install document [{}]", reference,
+                        pendingDocument.failure);
+                }
+            } else {
+                pendingDocument.log.log(this.logger);
+                if (pendingDocument.failure != null) {
+                    this.logger.error("Failed to install document [{}]", reference, pendingDocument.failure);
+                }
+            }
+        }
+
+        if (!workerFailures.isEmpty()) {
+            XWikiException exception = new XWikiException("Failed to import documents", workerFailures.get(0));
+            workerFailures.subList(1, workerFailures.size()).forEach(exception::addSuppressed);
+
+            throw exception;
+        }
+
+        return count;
+    }
+
+    /**
+     * Called from the import threads.
+     */
+    private void importDocuments(String comment, Queue<List<PendingDocument>> queue, WikiReference wikiReference,
+        DocumentReference userReference) throws ExecutionContextException
+    {
+        ExecutionContext executionContext = new ExecutionContext();
+        this.executionContextManager.initialize(executionContext);
 
-        String currentWiki = xcontext.getWikiId();
         try {
+            XWikiContext xcontext = this.xcontextProvider.get();
             xcontext.setWikiId(wikiReference.getName());
+            xcontext.setUserReference(userReference);
 
+            // Make the listeners called from this thread aware that the documents are saved as part of a XAR import
+            // (e.g. to not record activity or automatically watch the imported documents). The end of the import is
+            // notified once by the job thread when all the documents have been saved, the context of this thread
+            // being discarded before that.
             this.observation.notify(new XARImportingEvent(), null, xcontext);
 
-            for (ArchiveEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
-                // Only import what should be imported
-                if (!entry.isDirectory() && !entry.getName().equals(XarModel.PATH_PACKAGE)) {
-                    if (configuration.getEntriesToImport() != null) {
-                        XarEntry xarEntry = configuration.getEntriesToImport().get(entry.getName());
-                        if (xarEntry != null) {
-                            configuration.setXarEntry(xarEntry);
-
-                            importDocumentToWiki(comment, wikiReference, zis, configuration, entry.getName());
-                        }
-                    } else {
-                        configuration.setXarEntry(null);
-                        importDocumentToWiki(comment, wikiReference, zis, configuration, entry.getName());
-                    }
+            for (List<PendingDocument> group = queue.poll(); group != null; group = queue.poll()) {
+                for (PendingDocument pendingDocument : group) {
+                    importDocument(comment, pendingDocument);
                 }
             }
         } finally {
-            this.observation.notify(new XARImportedEvent(), null, xcontext);
+            this.execution.removeContext();
+        }
+    }
 
-            xcontext.setWikiId(currentWiki);
+    private void importDocument(String comment, PendingDocument pendingDocument)
+    {
+        // Isolate the log produced while saving the document so that it can be replayed in the job thread
+        this.loggerManager.pushLogListener(new LoggerListener(UUID.randomUUID().toString(), pendingDocument.log));
+
+        try {
+            importDocument(comment, pendingDocument.document, pendingDocument.configuration);
+
+            pendingDocument.imported = true;
+        } catch (Exception e) {
+            pendingDocument.failure = e;
+        } finally {
+            this.loggerManager.popLogListener();
         }
     }
 
-    private void importDocumentToWiki(String comment, WikiReference wikiReference, InputStream inputStream,
-        PackageConfiguration configuration, String name) throws XWikiException, XarException, IOException
+    private void importDocument(String comment, XWikiDocument nextDocument, PackageConfiguration configuration)
+        throws Exception
     {
         XWikiContext xcontext = this.xcontextProvider.get();
 
-        XWikiDocument nextDocument;
+        DocumentReference reference = nextDocument.getDocumentReferenceWithLocale();
+        XWikiDocument currentDocument = xcontext.getWiki().getDocument(reference, xcontext);
+        currentDocument.loadAttachmentsContentSafe(xcontext);
+
+        this.importer.importDocument(comment, getPreviousDocument(reference, configuration), currentDocument,
+            nextDocument, configuration);
+    }
+
+    private XWikiDocument getPreviousDocument(DocumentReference reference, PackageConfiguration configuration)
+        throws XarException, IOException
+    {
+        XarExtensionPlan xarExtensionPlan = configuration.getXarExtensionPlan();
+        if (xarExtensionPlan != null) {
+            return xarExtensionPlan.getPreviousXWikiDocument(reference, this);
+        }
+
+        return null;
+    }
+
+    private XWikiDocument parseDocument(InputStream inputStream, WikiReference wikiReference, String name)
+    {
         try {
-            nextDocument = getXWikiDocument(inputStream, wikiReference);
+            return getXWikiDocument(inputStream, wikiReference);
         } catch (Exception e) {
             this.logger.error("Failed to parse XAR entry [{}]", name, e);
 
-            return;
+            return null;
         }
+    }
+
+    private boolean importDocumentToWiki(String comment, XWikiDocument nextDocument,
+        PackageConfiguration configuration) throws XWikiException, XarException, IOException
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
 
         DocumentReference reference = nextDocument.getDocumentReferenceWithLocale();
         XWikiDocument currentDocument = xcontext.getWiki().getDocument(reference, xcontext);
         currentDocument.loadAttachmentsContentSafe(xcontext);
-        XWikiDocument previousDocument;
-        XarExtensionPlan xarExtensionPlan = configuration.getXarExtensionPlan();
-        if (xarExtensionPlan != null) {
-            previousDocument = xarExtensionPlan.getPreviousXWikiDocument(reference, this);
-        } else {
-            previousDocument = null;
-        }
+        XWikiDocument previousDocument = getPreviousDocument(reference, configuration);
 
         if (configuration.isVerbose()) {
             this.logger.info(LOG_INSTALLDOCUMENT_BEGIN, "Installing document [{}]",
@@ -233,11 +512,15 @@ private void importDocumentToWiki(String comment, WikiReference wikiReference, I
                 this.logger.info(LOG_INSTALLDOCUMENT_SUCCESS_END, "Done installing document [{}]",
                     nextDocument.getDocumentReferenceWithLocale());
             }
+
+            return true;
         } catch (Exception e) {
             if (configuration.isVerbose()) {
                 this.logger.error(LOG_INSTALLDOCUMENT_FAILURE_END, "Failed to install document [{}]",
                     nextDocument.getDocumentReferenceWithLocale(), e);
             }
+
+            return false;
         }
     }
 
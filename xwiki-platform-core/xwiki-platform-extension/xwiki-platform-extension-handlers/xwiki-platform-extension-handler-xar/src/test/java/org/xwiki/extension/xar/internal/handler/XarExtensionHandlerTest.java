@@ -25,6 +25,8 @@
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
@@ -33,6 +35,8 @@
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.slf4j.LoggerFactory;
+import org.xwiki.bridge.event.DocumentCreatingEvent;
 import org.xwiki.bridge.event.WikiCreatedEvent;
 import org.xwiki.bridge.event.WikiCreatingEvent;
 import org.xwiki.extension.ExtensionId;
@@ -52,7 +56,10 @@
 import org.xwiki.logging.event.LogEvent;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.ObservationContext;
 import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.security.authorization.AccessDeniedException;
 import org.xwiki.security.authorization.Right;
@@ -61,9 +68,11 @@
 
 import com.xpn.xwiki.CoreConfiguration;
 import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.MandatoryDocumentInitializer;
 import com.xpn.xwiki.doc.XWikiAttachment;
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.XARImportingEvent;
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.classes.BaseClass;
 import com.xpn.xwiki.objects.classes.NumberClass;
@@ -74,7 +83,10 @@
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
@@ -566,6 +578,62 @@ public void testInstallOnWikiWithoutAuthor() throws Throwable
         assertTrue("Document is not hidden", hiddenpage.isHidden());
     }
 
+    @Test
+    public void testInstallOnWikiConcurrently() throws Throwable
+    {
+        this.oldcore.getConfigurationSource().setProperty("extension.xar.importThreads", 2);
+
+        // Remember if the documents are saved as part of a XAR import and from which thread
+        ObservationContext observationContext = this.componentManager.getInstance(ObservationContext.class);
+        Map<DocumentReference, Boolean> importing = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        this.observation.addListener(
+            new AbstractEventListener("XarExtensionHandlerTest", new DocumentCreatingEvent())
+            {
+                @Override
+                public void onEvent(Event event, Object source, Object data)
+                {
+                    importing.put(((XWikiDocument) source).getDocumentReferenceWithLocale(),
+                        observationContext.isIn(new XARImportingEvent()));
+                    threads.add(Thread.currentThread().getName());
+                }
+            });
+
+        // Fail to save a document from an import thread
+        DocumentReference failingReference = new DocumentReference("wiki", "space1", "page1");
+        doAnswer(invocation -> {
+            LoggerFactory.getLogger(XarExtensionHandlerTest.class).warn("Saving [{}]", failingReference);
+
+            throw new XWikiException();
+        }).when(this.oldcore.getSpyXWiki()).saveDocument(
+            argThat(document -> failingReference.equals(document.getDocumentReference())), any(), anyBoolean(),
+            any(XWikiContext.class));
+
+        InstallRequest installRequest = new InstallRequest();
+        installRequest.setProperty("user.reference", this.contextUser);
+        installRequest.addExtension(this.localXarExtensiontId1);
+        installRequest.addNamespace("wiki:wiki");
+        Job installJob = this.jobExecutor.execute(InstallJob.JOBTYPE, installRequest);
+        installJob.join();
+
+        // The documents saved from the import threads are part of the XAR import
+        assertFalse(importing.isEmpty());
+        assertFalse(importing.containsValue(false));
+        assertTrue(threads.stream().anyMatch(thread -> thread.startsWith("XAR import")));
+
+        assertFalse(this.oldcore.getSpyXWiki()
+            .getDocument(new DocumentReference("wiki", "space", "page"), getXWikiContext()).isNew());
+        assertTrue(this.oldcore.getSpyXWiki().getDocument(failingReference, getXWikiContext()).isNew());
+
+        // The log of the import threads ends up in the job log
+        List<LogEvent> logs = installJob.getStatus().getLog().getLogsFrom(LogLevel.WARN);
+        assertEquals(2, logs.size());
+        assertEquals("Saving [wiki:space1.page1]", logs.get(0).getFormattedMessage());
+        assertEquals(LogLevel.WARN, logs.get(0).getLevel());
+        assertEquals("Failed to install document [wiki:space1.page1]", logs.get(1).getFormattedMessage());
+        assertEquals(LogLevel.ERROR, logs.get(1).getLevel());
+    }
+
     @Test
     public void testUpgradeOnWiki() throws Throwable
     {
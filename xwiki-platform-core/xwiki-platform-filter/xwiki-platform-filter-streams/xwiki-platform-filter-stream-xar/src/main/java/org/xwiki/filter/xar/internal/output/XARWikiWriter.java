@@ -19,15 +19,28 @@
  */
 package org.xwiki.filter.xar.internal.output;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.xwiki.filter.FilterException;
 import org.xwiki.filter.output.FileOutputTarget;
 import org.xwiki.filter.output.OutputStreamOutputTarget;
@@ -44,6 +57,12 @@
  */
 public class XARWikiWriter implements Closeable
 {
+    /**
+     * The maximum size of an entry kept in memory to be compressed by a background thread. Bigger entries are
+     * compressed directly in the zip stream by the thread producing them.
+     */
+    private static final int MAX_DEFERRED_ENTRY_SIZE = 1024 * 1024;
+
     private final String name;
 
     private final XAROutputProperties xarProperties;
@@ -52,6 +71,99 @@ public class XARWikiWriter implements Closeable
 
     private XarPackage xarPackage = new XarPackage();
 
+    private final ExecutorService compressionExecutor;
+
+    private final int maxPendingEntries;
+
+    /**
+     * The entries being compressed by background threads, in the order they should be written in the zip stream.
+     */
+    private final Deque<Future<CompressedEntry>> pendingEntries = new ArrayDeque<>();
+
+    private DeferredEntryOutputStream currentEntry;
+
+    private static final class CompressedEntry
+    {
+        private final ZipArchiveEntry entry;
+
+        private final byte[] data;
+
+        private CompressedEntry(ZipArchiveEntry entry, byte[] data)
+        {
+            this.entry = entry;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Keep the content of an entry in memory until it's complete so that it can be compressed by a background thread,
+     * unless it gets too big, in which case it's switched to direct streaming in the zip stream.
+     */
+    private final class DeferredEntryOutputStream extends OutputStream
+    {
+        private final ZipArchiveEntry entry;
+
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private DeferredEntryOutputStream(ZipArchiveEntry entry)
+        {
+            this.entry = entry;
+        }
+
+        private boolean isDirect()
+        {
+            return this.buffer == null;
+        }
+
+        private void switchToDirect() throws IOException
+        {
+            try {
+                // Make sure the entries produced before this one are written first
+                flushPendingEntries(0);
+            } catch (FilterException e) {
+                throw new IOException("Failed to write pending zip entries", e);
+            }
+
+            zipStream.putArchiveEntry(this.entry);
+            this.buffer.writeTo(zipStream);
+            this.buffer = null;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            if (!isDirect() && this.buffer.size() >= MAX_DEFERRED_ENTRY_SIZE) {
+                switchToDirect();
+            }
+
+            if (isDirect()) {
+                zipStream.write(b);
+            } else {
+                this.buffer.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            if (!isDirect() && this.buffer.size() + len > MAX_DEFERRED_ENTRY_SIZE) {
+                switchToDirect();
+            }
+
+            if (isDirect()) {
+                zipStream.write(b, off, len);
+            } else {
+                this.buffer.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            // The entry is closed by XARWikiWriter#closeEntry()
+        }
+    }
+
     public XARWikiWriter(String name, XAROutputProperties xarProperties) throws FilterException
     {
         this.name = name;
@@ -91,6 +203,17 @@ public XARWikiWriter(String name, XAROutputProperties xarProperties) throws Filt
         // non-ascii characters in the document name using InfoZIP, and the filenames will be correctly
         // converted to the character set of the local file system.
         this.zipStream.setCreateUnicodeExtraFields(ZipArchiveOutputStream.UnicodeExtraFieldPolicy.ALWAYS);
+
+        int compressionThreads = xarProperties.getCompressionThreads();
+        if (compressionThreads > 0) {
+            this.compressionExecutor = Executors.newFixedThreadPool(compressionThreads,
+                new BasicThreadFactory.Builder().namingPattern("XAR compression %d").daemon(true).build());
+            // Limit the number of entries kept in memory
+            this.maxPendingEntries = compressionThreads * 2;
+        } else {
+            this.compressionExecutor = null;
+            this.maxPendingEntries = 0;
+        }
     }
 
     public String getName()
@@ -135,6 +258,15 @@ public OutputStream newEntry(LocalDocumentReference reference) throws FilterExce
         String entryName = path.toString();
 
         ZipArchiveEntry zipentry = new ZipArchiveEntry(entryName);
+
+        if (this.compressionExecutor != null) {
+            this.xarPackage.addEntry(reference, entryName);
+
+            this.currentEntry = new DeferredEntryOutputStream(zipentry);
+
+            return this.currentEntry;
+        }
+
         try {
             this.zipStream.putArchiveEntry(zipentry);
         } catch (IOException e) {
@@ -148,10 +280,72 @@ public OutputStream newEntry(LocalDocumentReference reference) throws FilterExce
 
     public void closeEntry() throws FilterException
     {
+        DeferredEntryOutputStream entry = this.currentEntry;
+        this.currentEntry = null;
+
+        if (entry != null && !entry.isDirect()) {
+            byte[] data = entry.buffer.toByteArray();
+            this.pendingEntries.add(this.compressionExecutor.submit(() -> compress(entry.entry, data)));
+
+            flushPendingEntries(this.maxPendingEntries);
+        } else {
+            try {
+                this.zipStream.closeArchiveEntry();
+            } catch (IOException e) {
+                throw new FilterException("Failed to close zip archive entry", e);
+            }
+        }
+    }
+
+    private static CompressedEntry compress(ZipArchiveEntry entry, byte[] data) throws IOException
+    {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        // Zip entries contain raw deflate data (without zlib header)
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
         try {
-            this.zipStream.closeArchiveEntry();
-        } catch (IOException e) {
-            throw new FilterException("Failed to close zip archive entry", e);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 2 + 64);
+            try (DeflaterOutputStream stream = new DeflaterOutputStream(compressed, deflater)) {
+                stream.write(data);
+            }
+
+            entry.setMethod(ZipEntry.DEFLATED);
+            entry.setSize(data.length);
+            entry.setCompressedSize(compressed.size());
+            entry.setCrc(crc.getValue());
+
+            return new CompressedEntry(entry, compressed.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Write in the zip stream, in order, the compressed entries until there is no more than the passed number of
+     * entries waiting.
+     */
+    private void flushPendingEntries(int max) throws FilterException
+    {
+        while (this.pendingEntries.size() > max) {
+            CompressedEntry compressedEntry;
+            try {
+                compressedEntry = this.pendingEntries.poll().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new FilterException("Interrupted while waiting for a zip entry to be compressed", e);
+            } catch (ExecutionException e) {
+                throw new FilterException("Failed to compress a zip entry", e.getCause());
+            }
+
+            try {
+                this.zipStream.addRawArchiveEntry(compressedEntry.entry,
+                    new ByteArrayInputStream(compressedEntry.data));
+            } catch (IOException e) {
+                throw new FilterException(
+                    "Failed to add zip entry [" + compressedEntry.entry.getName() + "]", e);
+            }
         }
     }
 
@@ -167,11 +361,18 @@ private void writePackage() throws FilterException
     @Override
     public void close() throws IOException
     {
-        // Add package.xml descriptor
         try {
+            // Write the entries still being compressed
+            flushPendingEntries(0);
+
+            // Add package.xml descriptor
             writePackage();
         } catch (FilterException e) {
             throw new IOException("Failed to write package", e);
+        } finally {
+            if (this.compressionExecutor != null) {
+                this.compressionExecutor.shutdownNow();
+            }
         }
 
         // Close zip stream
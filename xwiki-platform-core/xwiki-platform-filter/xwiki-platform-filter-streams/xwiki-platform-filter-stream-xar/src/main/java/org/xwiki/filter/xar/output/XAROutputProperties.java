@@ -22,6 +22,7 @@
 import org.xwiki.filter.xml.output.XMLOutputProperties;
 import org.xwiki.properties.annotation.PropertyDescription;
 import org.xwiki.properties.annotation.PropertyName;
+import org.xwiki.stability.Unstable;
 
 /**
  * XAR output properties.
@@ -81,6 +82,11 @@ public class XAROutputProperties extends XMLOutputProperties
      */
     private String packageExtensionId;
 
+    /**
+     * @see #getCompressionThreads()
+     */
+    private int compressionThreads;
+
     /**
      * @return Indicate if all revisions related informations should be serialized
      */
@@ -137,6 +143,31 @@ public void setOptimized(boolean optimized)
         this.optimized = optimized;
     }
 
+    /**
+     * @return the number of threads used to compress the XAR entries in parallel, 0 to compress them in the thread
+     *         producing the XAR
+     * @since 17.0.0RC1
+     */
+    @PropertyName("Compression threads")
+    @PropertyDescription("The number of threads used to compress the XAR entries in parallel"
+        + " (0 to compress them in the thread producing the XAR)")
+    @Unstable
+    public int getCompressionThreads()
+    {
+        return this.compressionThreads;
+    }
+
+    /**
+     * @param compressionThreads the number of threads used to compress the XAR entries in parallel, 0 to compress them
+     *            in the thread producing the XAR
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    public void setCompressionThreads(int compressionThreads)
+    {
+        this.compressionThreads = compressionThreads;
+    }
+
     // package.xml
 
     /**
@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.filter.xar.internal.output;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.xwiki.filter.output.DefaultOutputStreamOutputTarget;
+import org.xwiki.filter.xar.output.XAROutputProperties;
+import org.xwiki.model.reference.LocalDocumentReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Validate {@link XARWikiWriter}.
+ *
+ * @version $Id$
+ */
+class XARWikiWriterTest
+{
+    private Map<String, String> write(int compressionThreads) throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        XAROutputProperties properties = new XAROutputProperties();
+        properties.setTarget(new DefaultOutputStreamOutputTarget(output));
+        properties.setCompressionThreads(compressionThreads);
+
+        XARWikiWriter writer = new XARWikiWriter("package", properties);
+        for (int i = 0; i < 20; ++i) {
+            OutputStream stream = writer.newEntry(new LocalDocumentReference("Space", "Page" + i));
+            // Make some of the entries bigger than what is compressed in the background
+            String content = i % 7 == 0 ? StringUtils.repeat("content" + i, 200000) : "content" + i;
+            stream.write(content.getBytes(StandardCharsets.UTF_8));
+            writer.closeEntry();
+        }
+        writer.close();
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipArchiveInputStream zip = new ZipArchiveInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            for (ZipArchiveEntry entry = zip.getNextZipEntry(); entry != null; entry = zip.getNextZipEntry()) {
+                entries.put(entry.getName(), IOUtils.toString(zip, StandardCharsets.UTF_8));
+            }
+        }
+
+        return entries;
+    }
+
+    @Test
+    void parallelCompressionKeepsOrderAndContent() throws Exception
+    {
+        Map<String, String> sequential = write(0);
+        Map<String, String> parallel = write(3);
+
+        assertEquals(21, parallel.size());
+        assertArrayEquals(sequential.keySet().toArray(), parallel.keySet().toArray());
+        assertEquals("Space/Page0.xml", parallel.keySet().iterator().next());
+        for (Map.Entry<String, String> entry : sequential.entrySet()) {
+            if (!entry.getKey().equals("package.xml")) {
+                assertEquals(entry.getValue(), parallel.get(entry.getKey()), entry.getKey());
+            }
+        }
+    }
+}
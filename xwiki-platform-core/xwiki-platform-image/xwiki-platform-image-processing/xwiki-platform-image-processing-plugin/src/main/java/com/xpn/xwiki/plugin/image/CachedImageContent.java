@@ -0,0 +1,149 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.io.input.AutoCloseInputStream;
+
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
+
+/**
+ * The content of a transformed image, read from the {@link DiskImageCache} instead of being loaded in memory. The image
+ * can be evicted from the cache before it's read, in which case it's transformed again.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+class CachedImageContent extends XWikiAttachmentContent
+{
+    private volatile Path path;
+
+    private final Callable<Path> reload;
+
+    /**
+     * @param path the file containing the transformed image
+     * @param attachment the attachment to associate this content with
+     * @param reload get the file containing the transformed image again when it was evicted from the cache
+     */
+    CachedImageContent(Path path, XWikiAttachment attachment, Callable<Path> reload)
+    {
+        super(attachment, null);
+
+        this.path = path;
+        this.reload = reload;
+    }
+
+    private CachedImageContent(CachedImageContent content)
+    {
+        super(content);
+
+        this.path = content.path;
+        this.reload = content.reload;
+    }
+
+    @Override
+    public CachedImageContent clone()
+    {
+        return new CachedImageContent(this);
+    }
+
+    private Path reload() throws IOException
+    {
+        Path reloadedPath;
+        try {
+            reloadedPath = this.reload.call();
+        } catch (Exception e) {
+            throw new IOException("Failed to transform the image again", e);
+        }
+
+        if (reloadedPath == null) {
+            throw new NoSuchFileException(this.path.toString(), null, "The transformed image is not available anymore");
+        }
+
+        this.path = reloadedPath;
+
+        return reloadedPath;
+    }
+
+    @Override
+    public boolean exists()
+    {
+        return Files.exists(this.path);
+    }
+
+    @Override
+    @Deprecated
+    public byte[] getContent()
+    {
+        try {
+            try {
+                return Files.readAllBytes(this.path);
+            } catch (NoSuchFileException e) {
+                return Files.readAllBytes(reload());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the cached image", e);
+        }
+    }
+
+    @Override
+    public InputStream getContentInputStream()
+    {
+        try {
+            try {
+                return new AutoCloseInputStream(Files.newInputStream(this.path));
+            } catch (NoSuchFileException e) {
+                return new AutoCloseInputStream(Files.newInputStream(reload()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the cached image", e);
+        }
+    }
+
+    @Override
+    public Optional<Path> getContentPath()
+    {
+        // The file could be evicted from the cache before the caller opens it
+        return Optional.empty();
+    }
+
+    @Override
+    public long getLongSize()
+    {
+        try {
+            try {
+                return Files.size(this.path);
+            } catch (NoSuchFileException e) {
+                return Files.size(reload());
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
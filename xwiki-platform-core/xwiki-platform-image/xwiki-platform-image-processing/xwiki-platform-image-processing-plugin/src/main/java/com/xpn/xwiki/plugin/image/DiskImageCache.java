@@ -0,0 +1,301 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Size bounded cache of transformed images, stored on disk so that it survives restarts without using the heap. The
+ * least recently used images are removed when the cache exceeds its maximum size, and concurrent requests for the same
+ * missing image wait for a single transformation.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+class DiskImageCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskImageCache.class);
+
+    /**
+     * The suffix of the (empty) files indicating that the original image should be used.
+     */
+    private static final String ORIGINAL_SUFFIX = ".original";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * Write the transformed image.
+     *
+     * @version $Id$
+     */
+    @FunctionalInterface
+    interface ImageWriter
+    {
+        /**
+         * @param output the stream where to write the transformed image
+         * @return {@code false} if the original image should be used instead (nothing was written)
+         * @throws Exception when failing to transform the image
+         */
+        boolean write(OutputStream output) throws Exception;
+    }
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    /**
+     * The size of the cached files, in access order.
+     */
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(16, 0.75F, true);
+
+    private final Map<String, CompletableFuture<Path>> pending = new ConcurrentHashMap<>();
+
+    private long size;
+
+    /**
+     * @param directory the directory where to store the images
+     * @param maxSize the maximum size of the cache, in bytes
+     * @throws IOException when failing to create or read the cache directory
+     */
+    DiskImageCache(Path directory, long maxSize) throws IOException
+    {
+        this.directory = directory;
+        this.maxSize = maxSize;
+
+        Files.createDirectories(directory);
+        load();
+    }
+
+    /**
+     * Index the images stored by a previous execution, from the least to the most recently used.
+     */
+    private void load() throws IOException
+    {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+            for (Path path : stream) {
+                if (path.getFileName().toString().endsWith(TEMPORARY_SUFFIX)) {
+                    // Left by an interrupted transformation
+                    Files.deleteIfExists(path);
+                } else {
+                    paths.add(path);
+                }
+            }
+        }
+
+        Map<Path, BasicFileAttributes> attributes = new LinkedHashMap<>();
+        for (Path path : paths) {
+            attributes.put(path, Files.readAttributes(path, BasicFileAttributes.class));
+        }
+        paths.sort(Comparator.comparing(path -> attributes.get(path).lastModifiedTime()));
+
+        synchronized (this.files) {
+            for (Path path : paths) {
+                long fileSize = attributes.get(path).size();
+                this.files.put(path.getFileName().toString(), fileSize);
+                this.size += fileSize;
+            }
+            evict();
+        }
+    }
+
+    /**
+     * Return the cached image or transform it and cache the result.
+     *
+     * @param key the identifier of the transformed image (source image version and transformation parameters)
+     * @param writer the function used to transform the image when it's not cached yet
+     * @return the file containing the transformed image, {@code null} if the original image should be used
+     * @throws Exception when failing to transform or store the image
+     */
+    Path get(String key, ImageWriter writer) throws Exception
+    {
+        String name = DigestUtils.sha256Hex(key);
+
+        Path path = getCached(name);
+        if (path == null) {
+            CompletableFuture<Path> future = new CompletableFuture<>();
+            CompletableFuture<Path> existingFuture = this.pending.putIfAbsent(name, future);
+            if (existingFuture != null) {
+                // Another thread is already transforming the same image
+                return waitFor(existingFuture);
+            }
+
+            try {
+                path = store(name, writer);
+                future.complete(path);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                this.pending.remove(name);
+            }
+        }
+
+        return isOriginal(path) ? null : path;
+    }
+
+    private Path getCached(String name)
+    {
+        String cachedName = null;
+        synchronized (this.files) {
+            if (this.files.get(name) != null) {
+                cachedName = name;
+            } else if (this.files.get(name + ORIGINAL_SUFFIX) != null) {
+                cachedName = name + ORIGINAL_SUFFIX;
+            }
+        }
+
+        if (cachedName != null) {
+            Path path = this.directory.resolve(cachedName);
+            try {
+                // Remember the access for the next restart
+                Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+
+                return path;
+            } catch (IOException e) {
+                // The file was removed behind our back
+                synchronized (this.files) {
+                    Long fileSize = this.files.remove(cachedName);
+                    if (fileSize != null) {
+                        this.size -= fileSize;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private Path waitFor(CompletableFuture<Path> future) throws Exception
+    {
+        try {
+            Path path = future.get();
+
+            return isOriginal(path) ? null : path;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private boolean isOriginal(Path path)
+    {
+        return path.getFileName().toString().endsWith(ORIGINAL_SUFFIX);
+    }
+
+    private Path store(String name, ImageWriter writer) throws Exception
+    {
+        Path temporaryPath = Files.createTempFile(this.directory, name, TEMPORARY_SUFFIX);
+        try {
+            boolean transformed;
+            try (OutputStream output = Files.newOutputStream(temporaryPath)) {
+                transformed = writer.write(output);
+            }
+
+            String fileName = transformed ? name : name + ORIGINAL_SUFFIX;
+            Path path = this.directory.resolve(fileName);
+            if (transformed) {
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.deleteIfExists(temporaryPath);
+                Files.write(path, new byte[0]);
+            }
+
+            long fileSize = Files.size(path);
+            synchronized (this.files) {
+                Long previousSize = this.files.put(fileName, fileSize);
+                this.size += fileSize - (previousSize != null ? previousSize : 0);
+                evict();
+            }
+
+            return path;
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Remove the least recently used images until the cache fits its maximum size. Must be called while holding the
+     * lock on {@link #files}.
+     */
+    private void evict()
+    {
+        Iterator<Map.Entry<String, Long>> iterator = this.files.entrySet().iterator();
+        // Always keep the most recent entry, even when it's larger than the cache
+        while (this.size > this.maxSize && this.files.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            iterator.remove();
+            this.size -= entry.getValue();
+            delete(entry.getKey());
+        }
+    }
+
+    private void delete(String name)
+    {
+        try {
+            Files.deleteIfExists(this.directory.resolve(name));
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete cached image [{}]: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove all the cached images.
+     */
+    void clear()
+    {
+        synchronized (this.files) {
+            for (String name : this.files.keySet()) {
+                delete(name);
+            }
+            this.files.clear();
+            this.size = 0;
+        }
+    }
+
+    /**
+     * @return the total size of the cached images, in bytes
+     */
+    long getSize()
+    {
+        synchronized (this.files) {
+            return this.size;
+        }
+    }
+}
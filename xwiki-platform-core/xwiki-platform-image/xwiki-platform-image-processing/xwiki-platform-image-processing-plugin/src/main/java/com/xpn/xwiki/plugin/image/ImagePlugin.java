@@ -23,6 +23,7 @@
 import java.awt.image.RenderedImage;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.Arrays;
 
 import org.apache.commons.io.IOUtils;
@@ -30,12 +31,7 @@
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xwiki.cache.Cache;
-import org.xwiki.cache.CacheException;
-import org.xwiki.cache.CacheManager;
-import org.xwiki.cache.config.CacheConfiguration;
-import org.xwiki.cache.eviction.EntryEvictionConfiguration;
-import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+import org.xwiki.environment.Environment;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -64,15 +60,18 @@ public class ImagePlugin extends XWikiDefaultPlugin
 
     private static final String DEFAULT_QUALITY_PARAM = "xwiki.plugin.image.defaultQuality";
 
+    private static final String CACHE_SIZE_PARAM = "xwiki.plugin.image.cache.size";
+
     /**
      * Cache for already served images.
      */
-    private Cache<XWikiAttachment> imageCache;
+    private DiskImageCache imageCache;
 
     /**
-     * The size of the cache. This parameter can be configured using the key {@code xwiki.plugin.image.cache.capacity}.
+     * The maximum size of the cache, in megabytes. This parameter can be configured using the key
+     * {@code xwiki.plugin.image.cache.size}.
      */
-    private int capacity = 50;
+    private long cacheSize = 500;
 
     /**
      * Default JPEG image quality.
@@ -140,30 +139,24 @@ public void init(XWikiContext context)
     private void initCache(XWikiContext context)
     {
         if (this.imageCache == null) {
-            CacheConfiguration configuration = new CacheConfiguration();
-
-            configuration.setConfigurationId("xwiki.plugin.image");
-
-            // Set cache constraints.
-            LRUEvictionConfiguration lru = new LRUEvictionConfiguration();
-            configuration.put(EntryEvictionConfiguration.CONFIGURATIONID, lru);
-
-            String capacityParam = context.getWiki().Param("xwiki.plugin.image.cache.capacity");
-            if (!StringUtils.isBlank(capacityParam) && StringUtils.isNumeric(capacityParam.trim())) {
+            String cacheSizeParam = context.getWiki().Param(CACHE_SIZE_PARAM);
+            if (!StringUtils.isBlank(cacheSizeParam)) {
                 try {
-                    this.capacity = Integer.parseInt(capacityParam.trim());
+                    this.cacheSize = Long.parseLong(cacheSizeParam.trim());
                 } catch (NumberFormatException e) {
-                    LOG.warn(String.format(
-                        "Failed to parse xwiki.plugin.image.cache.capacity configuration parameter. "
-                            + "Using %s as the cache capacity.", this.capacity), e);
+                    LOG.warn("Failed to parse [{}] configuration parameter. Using [{}] as the cache size.",
+                        CACHE_SIZE_PARAM, this.cacheSize);
                 }
             }
-            lru.setMaxEntries(this.capacity);
 
-            try {
-                this.imageCache = Utils.getComponent(CacheManager.class).createNewLocalCache(configuration);
-            } catch (CacheException e) {
-                LOG.error("Error initializing the image cache.", e);
+            if (this.cacheSize > 0) {
+                Path directory =
+                    Utils.getComponent(Environment.class).getPermanentDirectory().toPath().resolve("cache/image");
+                try {
+                    this.imageCache = new DiskImageCache(directory, this.cacheSize * 1024 * 1024);
+                } catch (IOException e) {
+                    LOG.error("Error initializing the image cache in [{}].", directory, e);
+                }
             }
         }
     }
@@ -172,9 +165,8 @@ private void initCache(XWikiContext context)
     public void flushCache()
     {
         if (this.imageCache != null) {
-            this.imageCache.dispose();
+            this.imageCache.clear();
         }
-        this.imageCache = null;
     }
 
     private int parseIntIgnoringException(String parameter)
@@ -246,8 +238,6 @@ public XWikiAttachment downloadAttachment(XWikiAttachment attachment, XWikiConte
     private XWikiAttachment downloadImage(XWikiAttachment image, int width, int height, float quality,
         XWikiContext context) throws Exception
     {
-        initCache(context);
-
         boolean keepAspectRatio = Boolean.valueOf(context.getRequest().getParameter("keepAspectRatio"));
 
         XWikiAttachment thumbnail = (this.imageCache == null)
@@ -282,14 +272,20 @@ private XWikiAttachment downloadImage(XWikiAttachment image, int width, int heig
     private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width, int height,
         boolean keepAspectRatio, float quality, XWikiContext context) throws Exception
     {
-        String key = String.format("%s;%s;%s;%s;%s;%s;%s", image.getId(), image.getVersion(), image.getDate().getTime(),
-            width, height, keepAspectRatio, quality);
-
-        XWikiAttachment thumbnail = this.imageCache.get(key);
-        if (thumbnail == null) {
-            thumbnail = shrinkImage(image, width, height, keepAspectRatio, quality, context);
-            this.imageCache.set(key, thumbnail);
+        // The attachment identifier is not unique across wikis
+        String key = String.format("%s;%s;%s;%s;%s;%s;%s;%s", image.getReference(), image.getVersion(),
+            image.getDate().getTime(), width, height, keepAspectRatio, quality, this.defaultQuality);
+
+        DiskImageCache.ImageWriter writer =
+            output -> shrinkImage(image, width, height, keepAspectRatio, quality, output, context);
+        Path path = this.imageCache.get(key, writer);
+        if (path == null) {
+            return image;
         }
+
+        XWikiAttachment thumbnail = image.clone();
+        thumbnail.setAttachment_content(
+            new CachedImageContent(path, thumbnail, () -> this.imageCache.get(key, writer)));
         return thumbnail;
     }
 
@@ -312,6 +308,47 @@ private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width,
      */
     private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWidth, int requestedHeight,
         boolean keepAspectRatio, float requestedQuality, XWikiContext context) throws Exception
+    {
+        // Create an image attachment for the shrunk image.
+        XWikiAttachment thumbnail = attachment.clone();
+        thumbnail.loadAttachmentContent(context);
+
+        OutputStream acos = thumbnail.getAttachment_content().getContentOutputStream();
+        boolean shrunk;
+        try {
+            shrunk = shrinkImage(attachment, requestedWidth, requestedHeight, keepAspectRatio, requestedQuality, acos,
+                context);
+        } finally {
+            IOUtils.closeQuietly(acos);
+        }
+
+        if (!shrunk) {
+            // Delete the unused temporary content
+            thumbnail.getAttachment_content().dispose();
+            return attachment;
+        }
+
+        return thumbnail;
+    }
+
+    /**
+     * Writes a reduced version of the image.
+     *
+     * @param attachment the image to be shrunk
+     * @param requestedWidth the desired image width; this value is taken into account only if it is greater than
+     *     zero and less than the current image width
+     * @param requestedHeight the desired image height; this value is taken into account only if it is greater than
+     *     zero and less than the current image height
+     * @param keepAspectRatio {@code true} to preserve the image aspect ratio even when both requested dimensions
+     *     are properly specified, {@code false} otherwise
+     * @param requestedQuality the desired compression quality
+     * @param output the stream where to write the shrunk image
+     * @param context the XWiki context
+     * @return {@code false} if the original image should be used (nothing is written in this case)
+     * @throws Exception if shrinking the image fails
+     */
+    private boolean shrinkImage(XWikiAttachment attachment, int requestedWidth, int requestedHeight,
+        boolean keepAspectRatio, float requestedQuality, OutputStream output, XWikiContext context) throws Exception
     {
         Image image = this.imageProcessor.readImage(attachment.getContentInputStream(context));
 
@@ -325,7 +362,7 @@ private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWid
         if (quality < 0) {
             // If no scaling is needed and the quality parameter is not specified, return the original image.
             if (dimensions[0] == currentWidth && dimensions[1] == currentHeight) {
-                return attachment;
+                return false;
             }
             quality = this.defaultQuality;
         }
@@ -333,19 +370,12 @@ private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWid
         // Scale the image to the new dimensions.
         RenderedImage shrunkImage = this.imageProcessor.scaleImage(image, dimensions[0], dimensions[1]);
 
-        // Create an image attachment for the shrunk image.
-        XWikiAttachment thumbnail = attachment.clone();
-        thumbnail.loadAttachmentContent(context);
-
-        OutputStream acos = thumbnail.getAttachment_content().getContentOutputStream();
         this.imageProcessor.writeImage(shrunkImage,
             attachment.getMimeType(context),
             quality,
-            acos);
+            output);
 
-        IOUtils.closeQuietly(acos);
-
-        return thumbnail;
+        return true;
     }
 
     /**
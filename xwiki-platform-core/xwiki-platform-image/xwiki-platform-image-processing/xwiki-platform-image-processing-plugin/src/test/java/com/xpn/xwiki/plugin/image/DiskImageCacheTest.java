@@ -0,0 +1,174 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.XWikiTempDirExtension;
+
+import com.xpn.xwiki.plugin.image.DiskImageCache.ImageWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Validate {@link DiskImageCache}.
+ *
+ * @version $Id$
+ */
+@ExtendWith(XWikiTempDirExtension.class)
+class DiskImageCacheTest
+{
+    @XWikiTempDir
+    private File tmpDir;
+
+    private Path directory;
+
+    private final AtomicInteger writes = new AtomicInteger();
+
+    @BeforeEach
+    void beforeEach()
+    {
+        this.directory = this.tmpDir.toPath().resolve("cache");
+    }
+
+    private ImageWriter writer(String content)
+    {
+        return output -> {
+            this.writes.incrementAndGet();
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+            return true;
+        };
+    }
+
+    private String read(Path path) throws Exception
+    {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void getTransformsOnce() throws Exception
+    {
+        DiskImageCache cache = new DiskImageCache(this.directory, 1000);
+
+        assertEquals("image", read(cache.get("key", writer("image"))));
+        assertEquals("image", read(cache.get("key", writer("other"))));
+        assertEquals(1, this.writes.get());
+        assertEquals(5, cache.getSize());
+
+        assertEquals("other", read(cache.get("otherkey", writer("other"))));
+        assertEquals(2, this.writes.get());
+    }
+
+    @Test
+    void getOriginal() throws Exception
+    {
+        DiskImageCache cache = new DiskImageCache(this.directory, 1000);
+
+        assertNull(cache.get("key", output -> {
+            this.writes.incrementAndGet();
+            return false;
+        }));
+        assertNull(cache.get("key", writer("image")));
+        assertEquals(1, this.writes.get());
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() throws Exception
+    {
+        DiskImageCache cache = new DiskImageCache(this.directory, 10);
+
+        Path first = cache.get("first", writer("12345"));
+        Path second = cache.get("second", writer("12345"));
+        // Access the first image so that the second is the least recently used
+        cache.get("first", writer("12345"));
+        Path third = cache.get("third", writer("12345"));
+
+        assertTrue(Files.exists(first));
+        assertFalse(Files.exists(second));
+        assertTrue(Files.exists(third));
+        assertEquals(10, cache.getSize());
+    }
+
+    @Test
+    void surviveRestart() throws Exception
+    {
+        new DiskImageCache(this.directory, 1000).get("key", writer("image"));
+
+        DiskImageCache cache = new DiskImageCache(this.directory, 1000);
+
+        assertEquals(5, cache.getSize());
+        assertEquals("image", read(cache.get("key", output -> fail("Should be cached"))));
+    }
+
+    @Test
+    void clear() throws Exception
+    {
+        DiskImageCache cache = new DiskImageCache(this.directory, 1000);
+
+        Path path = cache.get("key", writer("image"));
+        cache.clear();
+
+        assertFalse(Files.exists(path));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void concurrentGetTransformsOnce() throws Exception
+    {
+        DiskImageCache cache = new DiskImageCache(this.directory, 1000);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Path> first = executor.submit(() -> cache.get("key", output -> {
+                started.countDown();
+                release.await();
+                return writer("image").write(output);
+            }));
+            started.await();
+            Future<Path> second = executor.submit(() -> cache.get("key", writer("other")));
+
+            release.countDown();
+
+            assertEquals("image", read(first.get()));
+            assertEquals("image", read(second.get()));
+            assertEquals(1, this.writes.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -22,18 +22,20 @@
 import java.awt.Image;
 import java.awt.image.RenderedImage;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Date;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
-import org.xwiki.cache.Cache;
-import org.xwiki.cache.CacheManager;
 
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
@@ -44,11 +46,15 @@
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 import com.xpn.xwiki.web.XWikiServletRequest;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -102,6 +108,8 @@
             + "bwl+otAu7U4p4/Hv5kPqQhwJx0cWWWSRRRZZZNH4DzmZwO7NW2cKAAAAAElFTkSu"
             + "QmCC");
 
+    private static final byte[] SCALED_CONTENT = new byte[] {1, 2, 3};
+
     @InjectMockitoOldcore
     private MockitoOldcore oldCore;
 
@@ -113,11 +121,11 @@
     void configure() throws Exception
     {
         XWiki xwiki = this.oldCore.getSpyXWiki();
-        doReturn("10").when(xwiki).Param("xwiki.plugin.image.cache.capacity");
         doReturn("test").when(xwiki).Param(eq("xwiki.plugin.image.processorHint"),
             ArgumentMatchers.anyString());
 
-        this.oldCore.getMocker().registerMockComponent(CacheManager.class);
+        // Start with an empty image cache
+        FileUtils.deleteDirectory(new File(this.oldCore.getPermanentDirectory(), "cache/image"));
 
         this.imageProcessor = this.oldCore.getMocker().registerMockComponent(ImageProcessor.class, "test");
         when(this.imageProcessor.isMimeTypeSupported("image/png")).thenReturn(true);
@@ -154,15 +162,50 @@ void cacheOfScaledAttachment() throws Exception
         when(attachment.clone()).thenReturn(attachment);
         when(attachment.getDate()).thenReturn(date);
 
-        XWikiAttachmentContent attachmentContent = mock(XWikiAttachmentContent.class);
-        when(attachment.getAttachment_content()).thenReturn(attachmentContent);
-        when(attachmentContent.getContentInputStream()).thenReturn(attachmentInputStream);
-        OutputStream attachmentOutputStream = mock(OutputStream.class);
-        when(attachmentContent.getContentOutputStream()).thenReturn(attachmentOutputStream);
+        XWikiServletRequest request = mock(XWikiServletRequest.class);
+        when(request.getParameter("width")).thenReturn("30");
+        when(request.getParameter("height")).thenReturn("30");
+        xcontext.setRequest(request);
+
+        Image image = mock(Image.class);
+        when(image.getWidth(null)).thenReturn(400);
+        when(image.getHeight(null)).thenReturn(300);
+        when(this.imageProcessor.readImage(attachmentInputStream)).thenReturn(image);
+        RenderedImage renderedImage = mock(RenderedImage.class);
+        when(this.imageProcessor.scaleImage(image, 30, 30)).thenReturn(renderedImage);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write(SCALED_CONTENT);
+            return null;
+        }).when(this.imageProcessor).writeImage(eq(renderedImage), eq("image/png"), eq(.5F), any());
+
+        this.plugin.downloadAttachment(attachment, xcontext);
+
+        // Load again, this time from cache.
+        this.plugin.downloadAttachment(attachment, xcontext);
+
+        verify(this.imageProcessor, times(1)).readImage(any());
+        verify(this.imageProcessor, times(1)).writeImage(eq(renderedImage), eq("image/png"), eq(.5F), any());
 
-        CacheManager cacheManager = this.oldCore.getMocker().getInstance(CacheManager.class);
-        Cache<Object> imageCache = mock(Cache.class);
-        when(cacheManager.createNewLocalCache(ArgumentMatchers.any())).thenReturn(imageCache);
+        // The scaled image is read from the disk cache
+        ArgumentCaptor<XWikiAttachmentContent> contentCaptor = ArgumentCaptor.forClass(XWikiAttachmentContent.class);
+        verify(attachment, times(2)).setAttachment_content(contentCaptor.capture());
+        for (XWikiAttachmentContent content : contentCaptor.getAllValues()) {
+            assertArrayEquals(SCALED_CONTENT, IOUtils.toByteArray(content.getContentInputStream()));
+            assertEquals(SCALED_CONTENT.length, content.getLongSize());
+        }
+    }
+
+    @Test
+    void scaledAttachmentEvictedBeforeBeingSent() throws Exception
+    {
+        XWikiContext xcontext = this.oldCore.getXWikiContext();
+
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachment.getMimeType(xcontext)).thenReturn("image/png");
+        InputStream attachmentInputStream = new ByteArrayInputStream(IMAGE_CONTENT);
+        when(attachment.getContentInputStream(xcontext)).thenReturn(attachmentInputStream);
+        when(attachment.clone()).thenReturn(attachment);
+        when(attachment.getDate()).thenReturn(new Date(0));
 
         XWikiServletRequest request = mock(XWikiServletRequest.class);
         when(request.getParameter("width")).thenReturn("30");
@@ -175,17 +218,27 @@ void cacheOfScaledAttachment() throws Exception
         when(this.imageProcessor.readImage(attachmentInputStream)).thenReturn(image);
         RenderedImage renderedImage = mock(RenderedImage.class);
         when(this.imageProcessor.scaleImage(image, 30, 30)).thenReturn(renderedImage);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write(SCALED_CONTENT);
+            return null;
+        }).when(this.imageProcessor).writeImage(eq(renderedImage), eq("image/png"), eq(.5F), any());
 
-        XWikiAttachment scaled = this.plugin.downloadAttachment(attachment, xcontext);
+        this.plugin.downloadAttachment(attachment, xcontext);
 
-        String cacheKey = "0;null;0;30;30;false;-1.0";
-        when(imageCache.get(cacheKey)).thenReturn(scaled);
+        ArgumentCaptor<XWikiAttachmentContent> contentCaptor = ArgumentCaptor.forClass(XWikiAttachmentContent.class);
+        verify(attachment).setAttachment_content(contentCaptor.capture());
+        XWikiAttachmentContent content = contentCaptor.getValue();
 
-        // Load again, this time from cache.
-        assertSame(scaled, this.plugin.downloadAttachment(attachment, xcontext));
+        // The caller is not given a file which could be removed before it opens it
+        assertFalse(content.getContentPath().isPresent());
+
+        // The image is removed from the cache before being sent
+        this.plugin.flushCache();
 
-        verify(this.imageProcessor, times(1)).writeImage(renderedImage, "image/png", .5F, attachmentOutputStream);
-        verify(imageCache, times(1)).set(cacheKey, attachment);
+        // The image is transformed again
+        assertEquals(SCALED_CONTENT.length, content.getLongSize());
+        assertArrayEquals(SCALED_CONTENT, IOUtils.toByteArray(content.getContentInputStream()));
+        verify(this.imageProcessor, times(2)).writeImage(eq(renderedImage), eq("image/png"), eq(.5F), any());
     }
 
     @ParameterizedTest
@@ -226,16 +279,6 @@ void scaling(int width, int height, boolean keepAspectRatio, int expectedWidth,
         when(attachment.clone()).thenReturn(attachment);
         when(attachment.getDate()).thenReturn(date);
 
-        XWikiAttachmentContent attachmentContent = mock(XWikiAttachmentContent.class);
-        when(attachment.getAttachment_content()).thenReturn(attachmentContent);
-        when(attachmentContent.getContentInputStream()).thenReturn(attachmentInputStream);
-        OutputStream attachmentOutputStream = mock(OutputStream.class);
-        when(attachmentContent.getContentOutputStream()).thenReturn(attachmentOutputStream);
-
-        CacheManager cacheManager = this.oldCore.getMocker().getInstance(CacheManager.class);
-        Cache<Object> imageCache = mock(Cache.class);
-        when(cacheManager.createNewLocalCache(ArgumentMatchers.any())).thenReturn(imageCache);
-
         XWikiServletRequest request = mock(XWikiServletRequest.class);
         when(request.getParameter("width")).thenReturn(Integer.toString(width));
         when(request.getParameter("height")).thenReturn(Integer.toString(height));
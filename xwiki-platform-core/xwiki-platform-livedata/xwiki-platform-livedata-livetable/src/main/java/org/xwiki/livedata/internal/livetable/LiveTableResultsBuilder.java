@@ -0,0 +1,779 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.livedata.internal.livetable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.livedata.LiveData;
+import org.xwiki.livedata.LiveDataQuery;
+import org.xwiki.livedata.LiveDataQuery.Constraint;
+import org.xwiki.livedata.LiveDataQuery.Filter;
+import org.xwiki.livedata.LiveDataQuery.SortEntry;
+import org.xwiki.localization.ContextualLocalizationManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.user.CurrentUserReference;
+import org.xwiki.user.UserPropertiesResolver;
+import org.xwiki.user.UserType;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.BaseProperty;
+import com.xpn.xwiki.objects.classes.BaseClass;
+import com.xpn.xwiki.objects.classes.BooleanClass;
+import com.xpn.xwiki.objects.classes.DBListClass;
+import com.xpn.xwiki.objects.classes.DateClass;
+import com.xpn.xwiki.objects.classes.EmailClass;
+import com.xpn.xwiki.objects.classes.GroupsClass;
+import com.xpn.xwiki.objects.classes.LevelsClass;
+import com.xpn.xwiki.objects.classes.ListClass;
+import com.xpn.xwiki.objects.classes.NumberClass;
+import com.xpn.xwiki.objects.classes.PasswordClass;
+import com.xpn.xwiki.objects.classes.PropertyClass;
+import com.xpn.xwiki.objects.classes.TextAreaClass;
+import com.xpn.xwiki.objects.classes.UsersClass;
+
+/**
+ * Build the live table results of the standard document and xobject columns directly from the database, the same way
+ * the default {@code XWiki.LiveTableResults} page does, but without rendering a page and parsing its JSON output.
+ * Queries relying on features that are only supported by the page (location, tag or date filters, computed columns,
+ * custom source parameters, etc.) are not handled.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component(roles = LiveTableResultsBuilder.class)
+@Singleton
+public class LiveTableResultsBuilder
+{
+    private static final String CLASS_NAME = "className";
+
+    private static final String QUERY_FILTERS = "queryFilters";
+
+    private static final String TRANSLATION_PREFIX = "translationPrefix";
+
+    /**
+     * The source parameters understood by this builder.
+     */
+    private static final Set<String> SUPPORTED_PARAMETERS =
+        Set.of(CLASS_NAME, QUERY_FILTERS, TRANSLATION_PREFIX, LiveTableRequestHandler.CONTEXT_DOC);
+
+    /**
+     * The special columns which require more than the document and its objects.
+     */
+    private static final Set<String> UNSUPPORTED_COLUMNS =
+        Set.of("doc.location", "_action", "_attachments", "_avatar", "_images", "_likes");
+
+    /**
+     * The document fields which can be filtered as strings.
+     */
+    private static final Set<String> STRING_DOCUMENT_FIELDS =
+        Set.of("name", "fullName", "space", "title", "author", "creator", "contentAuthor", "parent", "hidden");
+
+    /**
+     * The document fields which are sorted as raw values.
+     */
+    private static final Set<String> RAW_DOCUMENT_FIELDS =
+        Set.of("translation", "date", "contentUpdateDate", "creationDate", "elements", "minorEdit1", "hidden");
+
+    private static final String DOC_PREFIX = "doc.";
+
+    private static final String PROPERTY_PREFIX = "prop_";
+
+    private static final String OBJECT_ALIAS = "obj";
+
+    private static final String AND = " and ";
+
+    private static final String PARTIAL = "partial";
+
+    private static final String PREFIX = "prefix";
+
+    private static final String EXACT = "exact";
+
+    private static final String EMPTY = "empty";
+
+    private static final String STRING_PROPERTY = "StringProperty";
+
+    private static final String PERCENT = "%";
+
+    private static final String VIEW = "view";
+
+    private static final String DESC = "desc";
+
+    private static final Map<String, String> MATCH_TYPE =
+        Map.of("equals", EXACT, "contains", PARTIAL, "startsWith", PREFIX);
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> currentDocumentReferenceResolver;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @Inject
+    private ContextualLocalizationManager l10n;
+
+    @Inject
+    @Named("all")
+    private UserPropertiesResolver userPropertiesResolver;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * The query being built from the live data query.
+     */
+    private static final class Statement
+    {
+        private final StringBuilder from = new StringBuilder();
+
+        private final StringBuilder where = new StringBuilder();
+
+        private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+        private final Set<String> joinedColumns = new LinkedHashSet<>();
+
+        private String order = "";
+    }
+
+    /**
+     * @param query the live data query, with the source parameters merged
+     * @return the live data matching the query, empty if the query can't be handled without rendering the live table
+     *         results page
+     * @throws XWikiException when failing to load the documents
+     * @throws QueryException when failing to execute the query
+     */
+    public Optional<LiveData> getLiveData(LiveDataQuery query) throws XWikiException, QueryException
+    {
+        Map<String, Object> parameters =
+            query.getSource() != null ? query.getSource().getParameters() : Collections.emptyMap();
+        if (!SUPPORTED_PARAMETERS.containsAll(parameters.keySet())) {
+            return Optional.empty();
+        }
+
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        String className = Objects.toString(parameters.get(CLASS_NAME), "");
+        BaseClass xclass = null;
+        if (!className.isEmpty()) {
+            xclass = xcontext.getWiki().getXClass(this.currentDocumentReferenceResolver.resolve(className), xcontext);
+        }
+
+        List<String> columns = query.getProperties() != null ? query.getProperties() : Collections.emptyList();
+        for (String column : columns) {
+            if (UNSUPPORTED_COLUMNS.contains(column) || isUnsupportedProperty(xclass, column)) {
+                return Optional.empty();
+            }
+        }
+
+        Statement statement = new Statement();
+        if (!addFilters(statement, query, columns, xclass) || !addOrder(statement, query, xclass)) {
+            return Optional.empty();
+        }
+
+        XWikiDocument originalDocument = xcontext.getDoc();
+        try {
+            Object contextDocument = parameters.get(LiveTableRequestHandler.CONTEXT_DOC);
+            if (contextDocument != null) {
+                xcontext.setDoc(xcontext.getWiki().getDocument(
+                    this.currentDocumentReferenceResolver.resolve(contextDocument.toString()), xcontext));
+            }
+
+            return Optional.of(getLiveData(query, statement, className, columns, xclass, xcontext));
+        } finally {
+            xcontext.setDoc(originalDocument);
+        }
+    }
+
+    private boolean isUnsupportedProperty(BaseClass xclass, String column)
+    {
+        PropertyClass propertyClass = getPropertyClass(xclass, column);
+
+        // The page hides or obfuscates some values depending on the mail configuration, and stores levels differently
+        return propertyClass instanceof PasswordClass || propertyClass instanceof EmailClass
+            || propertyClass instanceof LevelsClass;
+    }
+
+    private PropertyClass getPropertyClass(BaseClass xclass, String property)
+    {
+        return xclass != null ? (PropertyClass) xclass.get(property) : null;
+    }
+
+    private Map<String, List<String[]>> getFilterValues(LiveDataQuery query)
+    {
+        // Value and match type of each constraint, per property
+        Map<String, List<String[]>> filterValues = new HashMap<>();
+        if (query.getFilters() != null) {
+            for (Filter filter : query.getFilters()) {
+                List<String[]> values = new ArrayList<>();
+                for (Constraint constraint : filter.getConstraints()) {
+                    if (constraint != null && constraint.getValue() != null) {
+                        // The match type is always sent to the page, so constraints without operator are matched
+                        // exactly, whatever the default match type of the property
+                        String operator = StringUtils.defaultString(constraint.getOperator());
+                        values.add(new String[] {constraint.getValue().toString(),
+                            MATCH_TYPE.getOrDefault(operator, operator)});
+                    }
+                }
+                if (!values.isEmpty()) {
+                    filterValues.put(filter.getProperty(), values);
+                }
+            }
+        }
+
+        return filterValues;
+    }
+
+    private boolean isMatchAll(LiveDataQuery query, String property)
+    {
+        boolean matchAll = true;
+        for (Filter filter : query.getFilters()) {
+            if (property.equals(filter.getProperty())) {
+                matchAll = filter.isMatchAll();
+            }
+        }
+
+        return matchAll;
+    }
+
+    private boolean addFilters(Statement statement, LiveDataQuery query, List<String> columns, BaseClass xclass)
+    {
+        Map<String, List<String[]>> filterValues = getFilterValues(query);
+
+        // Only the displayed columns are filtered
+        for (String column : columns) {
+            List<String[]> values = filterValues.get(column);
+            if (values != null) {
+                statement.joinedColumns.add(column);
+
+                boolean supported;
+                if (column.startsWith(DOC_PREFIX)) {
+                    supported = addDocumentFilter(statement, column, values.get(0)[0]);
+                } else if (xclass != null) {
+                    supported = addPropertyFilter(statement, column, values, isMatchAll(query, column), xclass);
+                } else {
+                    supported = false;
+                }
+
+                if (!supported) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private boolean addDocumentFilter(Statement statement, String column, String value)
+    {
+        String field = StringUtils.removeStart(column, DOC_PREFIX);
+        if (!STRING_DOCUMENT_FIELDS.contains(field)) {
+            // Dates are filtered with ranges
+            return false;
+        }
+
+        String parameter = "doc_" + field + "_filter";
+        statement.where.append(" and upper(str(doc.").append(field).append(")) like upper(:").append(parameter)
+            .append(')');
+        statement.parameters.put(parameter, PERCENT + value + PERCENT);
+
+        return true;
+    }
+
+    private boolean addPropertyFilter(Statement statement, String column, List<String[]> values, boolean matchAll,
+        BaseClass xclass)
+    {
+        PropertyClass propertyClass = getPropertyClass(xclass, column);
+        String tableName = getTableName(propertyClass);
+        if (tableName == null || "DateProperty".equals(tableName)) {
+            // Lists of values and dates are filtered with dedicated constraints
+            return false;
+        }
+
+        // Join the property before constraining it, the query being discarded anyway if the filter is not supported
+        String alias = getTableAlias(column);
+        statement.from.append(", ").append(tableName).append(" as ").append(alias);
+        statement.where.append(AND).append(OBJECT_ALIAS).append(".id = ").append(alias).append(".id.id and ")
+            .append(alias).append(".id.name = :").append(alias).append("_id_name");
+        statement.parameters.put(alias + "_id_name", column);
+
+        if (propertyClass instanceof NumberClass || propertyClass instanceof BooleanClass) {
+            return addNumberFilter(statement, alias, tableName, values.get(0)[0]);
+        }
+
+        addStringFilter(statement, alias, values, matchAll);
+
+        return true;
+    }
+
+    private boolean addNumberFilter(Statement statement, String alias, String tableName, String value)
+    {
+        Number number;
+        try {
+            number = NumberUtils.createNumber(value);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        String parameter = alias + "_value";
+        if ("IntegerProperty".equals(tableName) || "LongProperty".equals(tableName)) {
+            statement.where.append(AND).append(alias).append(".value = :").append(parameter);
+            statement.parameters.put(parameter,
+                "IntegerProperty".equals(tableName) ? (Object) number.intValue() : (Object) number.longValue());
+        } else {
+            statement.where.append(" and abs(:").append(parameter).append(" - ").append(alias)
+                .append(".value) <= 0.000001");
+            statement.parameters.put(parameter,
+                "FloatProperty".equals(tableName) ? (Object) number.floatValue() : (Object) number.doubleValue());
+        }
+
+        return true;
+    }
+
+    private void addStringFilter(Statement statement, String alias, List<String[]> values, boolean matchAll)
+    {
+        String operator = matchAll ? " AND " : " OR ";
+        String column = alias + ".value";
+        String parameterPrefix = alias + "_value_";
+
+        // Group the values by match type to optimize the query
+        Map<String, List<String>> valuesByMatchType = new LinkedHashMap<>();
+        for (String[] value : values) {
+            valuesByMatchType.computeIfAbsent(value[1], key -> new ArrayList<>()).add(value[0]);
+        }
+
+        List<String> constraints = new ArrayList<>();
+        int index = 1;
+        for (Map.Entry<String, List<String>> entry : valuesByMatchType.entrySet()) {
+            String matchType = entry.getKey();
+            List<String> constraint = new ArrayList<>();
+            for (String value : entry.getValue()) {
+                String parameter = ':' + parameterPrefix + index++;
+                if (PARTIAL.equals(matchType) || PREFIX.equals(matchType)) {
+                    constraint.add("upper(" + column + ") like upper(" + parameter + ')');
+                } else if (EMPTY.equals(matchType)) {
+                    constraint.add('(' + column + " like " + parameter + " or " + column + " is null)");
+                } else {
+                    constraint.add(parameter);
+                }
+                statement.parameters.put(parameter.substring(1), getFilterParameter(value, matchType));
+            }
+
+            if (PARTIAL.equals(matchType) || PREFIX.equals(matchType) || EMPTY.equals(matchType)) {
+                constraints.add(StringUtils.join(constraint, operator));
+            } else if (constraint.size() > 1 && !matchAll) {
+                constraints.add(column + " in (" + StringUtils.join(constraint, ", ") + ')');
+            } else {
+                constraints.add(column + " = " + StringUtils.join(constraint, " AND " + column + " = "));
+            }
+        }
+
+        statement.where.append(" and (").append(StringUtils.join(constraints, operator)).append(')');
+    }
+
+    private Object getFilterParameter(String value, String matchType)
+    {
+        if (PARTIAL.equals(matchType)) {
+            return PERCENT + value + PERCENT;
+        } else if (PREFIX.equals(matchType)) {
+            return value + PERCENT;
+        } else if (EMPTY.equals(matchType)) {
+            return "";
+        }
+
+        return value;
+    }
+
+    private boolean addOrder(Statement statement, LiveDataQuery query, BaseClass xclass)
+    {
+        if (query.getSort() == null || query.getSort().isEmpty()) {
+            return true;
+        }
+
+        // Only the first sort entry is taken into account
+        SortEntry sort = query.getSort().get(0);
+        String direction = sort.isDescending() ? DESC : "asc";
+        String property = sort.getProperty();
+
+        if (property.startsWith(DOC_PREFIX)) {
+            String field = "doc.location".equals(property) ? "fullName" : StringUtils.removeStart(property, DOC_PREFIX);
+            if (!STRING_DOCUMENT_FIELDS.contains(field) && !RAW_DOCUMENT_FIELDS.contains(field)
+                && !"language".equals(field)) {
+                return false;
+            }
+            statement.order = getOrder(DOC_PREFIX + field, direction, RAW_DOCUMENT_FIELDS.contains(field));
+        } else if (xclass != null) {
+            PropertyClass propertyClass = getPropertyClass(xclass, property);
+            if (isUnsupportedProperty(xclass, property)) {
+                return false;
+            }
+            // Lists of values can't be sorted
+            if (!(propertyClass instanceof ListClass) || !((ListClass) propertyClass).isMultiSelect()) {
+                String alias = getTableAlias(property);
+                if (!statement.joinedColumns.contains(property)) {
+                    statement.from.append(", ").append(getTableName(propertyClass)).append(' ').append(alias);
+                    statement.where.append(AND).append(OBJECT_ALIAS).append(".id=").append(alias)
+                        .append(".id.id and ").append(alias).append(".name = :").append(alias).append("_name");
+                    statement.parameters.put(alias + "_name", property);
+                }
+                statement.order = getOrder(alias + ".value", direction, propertyClass instanceof NumberClass
+                    || propertyClass instanceof BooleanClass || propertyClass instanceof DateClass);
+            }
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    private String getOrder(String field, String direction, boolean raw)
+    {
+        if (raw) {
+            return " order by " + field + ' ' + direction;
+        }
+
+        // Ignore the case first (so that 'aaa' equals 'AAA') but consider it for equal values
+        return " order by lower(" + field + ") " + direction + ", " + field + ' ' + direction;
+    }
+
+    private String getTableAlias(String column)
+    {
+        // Force a prefix to avoid the cases when the column name is a reserved SQL keyword
+        return PROPERTY_PREFIX + column.replaceAll("\\W", "");
+    }
+
+    /**
+     * @return the name of the table storing the values of the property, {@code null} for multiple values
+     */
+    private String getTableName(PropertyClass propertyClass)
+    {
+        String tableName;
+        if (propertyClass instanceof NumberClass) {
+            String numberType = ((NumberClass) propertyClass).getNumberType();
+            if ("integer".equals(numberType)) {
+                tableName = "IntegerProperty";
+            } else if ("float".equals(numberType)) {
+                tableName = "FloatProperty";
+            } else if ("double".equals(numberType)) {
+                tableName = "DoubleProperty";
+            } else {
+                tableName = "LongProperty";
+            }
+        } else if (propertyClass instanceof BooleanClass) {
+            tableName = "IntegerProperty";
+        } else if (propertyClass instanceof DateClass) {
+            tableName = "DateProperty";
+        } else if (propertyClass instanceof TextAreaClass || propertyClass instanceof UsersClass
+            || propertyClass instanceof GroupsClass) {
+            tableName = "LargeStringProperty";
+        } else if (propertyClass instanceof ListClass && ((ListClass) propertyClass).isMultiSelect()) {
+            tableName = null;
+        } else {
+            tableName = STRING_PROPERTY;
+        }
+
+        return tableName;
+    }
+
+    private LiveData getLiveData(LiveDataQuery liveDataQuery, Statement statement, String className,
+        List<String> columns, BaseClass xclass, XWikiContext xcontext) throws XWikiException, QueryException
+    {
+        StringBuilder hql = new StringBuilder();
+        if (!className.isEmpty()) {
+            hql.append(", BaseObject as obj").append(statement.from);
+            hql.append(" where obj.name=doc.fullName and obj.className = :className");
+            hql.append(" and doc.fullName not in (:classTemplate1, :classTemplate2)");
+            statement.parameters.put(CLASS_NAME, className);
+            statement.parameters.put("classTemplate1", className + "Template");
+            statement.parameters.put("classTemplate2", className.replaceAll("Class$", "Template"));
+        } else {
+            hql.append(statement.from).append(" where 1=1");
+        }
+        hql.append(statement.where);
+
+        Object queryFilters = liveDataQuery.getSource().getParameters().get(QUERY_FILTERS);
+        String countStatement = hql.toString().trim();
+        Query query = createQuery(countStatement + statement.order, statement.parameters, queryFilters);
+
+        // Offset starts from 0 and no limit means 15 rows, like the live table
+        Integer limit = liveDataQuery.getLimit();
+        query.setLimit(limit != null ? limit : 15);
+        if (liveDataQuery.getOffset() != null) {
+            query.setOffset(liveDataQuery.getOffset().intValue());
+        }
+
+        LiveData liveData = new LiveData();
+        liveData.setCount(count(countStatement, statement.parameters, queryFilters));
+        addEntries(query.execute(), liveData, liveDataQuery, className, columns, xclass, xcontext);
+
+        return liveData;
+    }
+
+    private Query createQuery(String statement, Map<String, Object> parameters, Object queryFilters)
+        throws QueryException
+    {
+        Query query = this.queryManager.createQuery(statement, Query.HQL);
+        query.bindValues(parameters);
+
+        for (String hint : StringUtils.split(Objects.toString(queryFilters, ""), ", ")) {
+            try {
+                query.addFilter(this.componentManagerProvider.get().getInstance(QueryFilter.class, hint));
+            } catch (ComponentLookupException e) {
+                this.logger.warn("Failed to lookup query filter [{}]", hint, e);
+            }
+        }
+
+        return query;
+    }
+
+    private long count(String statement, Map<String, Object> parameters, Object queryFilters)
+        throws QueryException
+    {
+        Query query = createQuery(statement, parameters, queryFilters);
+        try {
+            query.addFilter(this.componentManagerProvider.get().getInstance(QueryFilter.class, "count"));
+        } catch (ComponentLookupException e) {
+            throw new QueryException("Failed to lookup the count query filter", query, e);
+        }
+
+        List<Long> results = query.execute();
+
+        return results.get(0);
+    }
+
+    private void addEntries(List<Object> items, LiveData liveData, LiveDataQuery query, String className,
+        List<String> columns, BaseClass xclass, XWikiContext xcontext) throws XWikiException
+    {
+        // Check the rights of all the rows before loading the viewable documents at once
+        List<DocumentReference> references = new ArrayList<>(items.size());
+        List<String> languages = new ArrayList<>(items.size());
+        List<DocumentReference> viewableReferences = new ArrayList<>(items.size());
+        for (Object item : items) {
+            // The result contains the language when the "currentlanguage" query filter is used
+            Object documentName = item instanceof Object[] ? ((Object[]) item)[0] : item;
+            DocumentReference reference = this.currentDocumentReferenceResolver.resolve((String) documentName);
+            references.add(reference);
+            languages.add(item instanceof Object[] ? Objects.toString(((Object[]) item)[1], "") : "");
+            if (this.authorization.hasAccess(Right.VIEW, reference)) {
+                viewableReferences.add(reference);
+            }
+        }
+
+        Map<DocumentReference, XWikiDocument> documents = new HashMap<>();
+        for (XWikiDocument document : xcontext.getWiki().getStore().loadXWikiDocs(viewableReferences, xcontext)) {
+            documents.put(document.getDocumentReference(), document);
+        }
+
+        RowContext rowContext = new RowContext(query, className, columns, xclass, xcontext);
+        for (int i = 0; i < references.size(); ++i) {
+            XWikiDocument document = documents.get(references.get(i));
+            if (document != null) {
+                liveData.getEntries().add(getEntry(document, languages.get(i), rowContext));
+            } else {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("doc.viewable", false);
+                entry.put("doc.fullName", "obfuscated");
+                liveData.getEntries().add(entry);
+            }
+        }
+    }
+
+    /**
+     * The information shared by all the rows.
+     */
+    private final class RowContext
+    {
+        private final DocumentReference classReference;
+
+        private final List<String> columns;
+
+        private final BaseClass xclass;
+
+        private final XWikiContext xcontext;
+
+        private final boolean admin;
+
+        private final boolean advancedUser;
+
+        private final String emptyValue;
+
+        RowContext(LiveDataQuery query, String className, List<String> columns, BaseClass xclass,
+            XWikiContext xcontext)
+        {
+            this.classReference =
+                className.isEmpty() ? null : currentDocumentReferenceResolver.resolve(className);
+            this.columns = columns;
+            this.xclass = xclass;
+            this.xcontext = xcontext;
+            this.admin = authorization.hasAccess(Right.ADMIN);
+            this.advancedUser = (xcontext.getUserReference() == null && this.admin)
+                || userPropertiesResolver.resolve(CurrentUserReference.INSTANCE).getType() == UserType.ADVANCED;
+
+            String emptyValueKey =
+                Objects.toString(query.getSource().getParameters().get(TRANSLATION_PREFIX), "") + "emptyvalue";
+            this.emptyValue = StringUtils.defaultString(l10n.getTranslationPlain(emptyValueKey), emptyValueKey);
+        }
+    }
+
+    private Map<String, Object> getEntry(XWikiDocument document, String language, RowContext rowContext)
+        throws XWikiException
+    {
+        XWikiContext xcontext = rowContext.xcontext;
+        XWiki xwiki = xcontext.getWiki();
+        DocumentReference reference = document.getDocumentReference();
+        boolean edit = this.authorization.hasAccess(Right.EDIT, reference);
+        boolean delete = this.authorization.hasAccess(Right.DELETE, reference);
+
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("doc.viewable", true);
+        entry.put("doc.fullName", this.localSerializer.serialize(reference));
+        entry.put("doc.space", this.localSerializer.serialize(reference.getParent()));
+        entry.put("doc.url", xwiki.getURL(reference, VIEW, xcontext));
+        entry.put("doc.space_url", xwiki.getURL(reference.getParent(), VIEW, xcontext));
+        entry.put("doc.wiki", reference.getWikiReference().getName());
+        entry.put("doc.wiki_url", xwiki.getURL(reference.getWikiReference(), VIEW, xcontext));
+        entry.put("doc.hasadmin", rowContext.admin);
+        entry.put("doc.hasedit", edit);
+        entry.put("doc.hasdelete", delete);
+        entry.put("doc.edit_url", document.getURL(document.getDefaultEditMode(xcontext), xcontext));
+        entry.put("doc.copy_url", xwiki.getURL(reference, VIEW, "xpage=copy", null, xcontext));
+        entry.put("doc.delete_url", xwiki.getURL(reference, "delete", xcontext));
+        entry.put("doc.rename_url", xwiki.getURL(reference, VIEW, "xpage=rename&step=1", null, xcontext));
+
+        // Display the language after the document name so that not all translated documents have the same name
+        boolean translation = !language.isEmpty() && !language.equals(xwiki.getLanguagePreference(xcontext));
+        entry.put("doc.name", translation ? reference.getName() + " (" + language + ')' : reference.getName());
+        entry.put("doc.hascopy", true);
+        entry.put("doc.hasrename", delete);
+        entry.put("doc.hasrights", edit && rowContext.advancedUser);
+        if (XWiki.DEFAULT_SPACE_HOMEPAGE.equals(reference.getName())) {
+            // For nested pages, use the page administration
+            entry.put("doc.rights_url",
+                xwiki.getURL(new DocumentReference("WebPreferences", reference.getLastSpaceReference()), "admin",
+                    "editor=spaceadmin&section=PageRights", null, xcontext));
+        } else {
+            entry.put("doc.rights_url", xwiki.getURL(reference, "edit", "editor=rights", null, xcontext));
+        }
+
+        XWikiDocument translatedDocument = translation ? document.getTranslatedDocument(language, xcontext)
+            : document.getTranslatedDocument(xcontext);
+        entry.put("doc.objectCount",
+            rowContext.classReference != null ? document.getXObjectSize(rowContext.classReference) : 0);
+        entry.put("doc.date", xwiki.formatDate(translatedDocument.getDate(), null, xcontext));
+        String title = translatedDocument.getRenderedTitle(Syntax.PLAIN_1_0, xcontext);
+        entry.put("doc.title", title);
+        if (!Objects.equals(title, translatedDocument.getTitle())) {
+            entry.put("doc.title_raw", translatedDocument.getTitle());
+        }
+        DocumentReference author = translatedDocument.getAuthorReference();
+        entry.put("doc.author", xwiki.getPlainUserName(author, xcontext));
+        entry.put("doc.author_url", author != null ? xwiki.getURL(author, VIEW, xcontext) : "");
+        entry.put("doc.creationDate", xwiki.formatDate(translatedDocument.getCreationDate(), null, xcontext));
+        entry.put("doc.creator", xwiki.getPlainUserName(translatedDocument.getCreatorReference(), xcontext));
+        entry.put("doc.hidden", translatedDocument.isHidden());
+
+        BaseObject object = rowContext.classReference != null ? document.getXObject(rowContext.classReference) : null;
+        for (String column : rowContext.columns) {
+            if (!column.startsWith(DOC_PREFIX)) {
+                addPropertyColumn(entry, column, document, object, rowContext);
+            }
+        }
+
+        return entry;
+    }
+
+    private void addPropertyColumn(Map<String, Object> entry, String column, XWikiDocument document,
+        BaseObject object, RowContext rowContext)
+    {
+        XWikiContext xcontext = rowContext.xcontext;
+
+        String value = "";
+        String display = "";
+        if (object != null) {
+            BaseProperty<?> property = (BaseProperty<?>) object.safeget(column);
+            if (property != null && property.getValue() != null) {
+                value = property.getValue().toString();
+            }
+            display = StringUtils.removeEnd(StringUtils.removeStart(
+                document.display(column, VIEW, object, xcontext), "{{html clean=\"false\" wiki=\"false\"}}"),
+                "{{/html}}");
+        }
+        if (display.isEmpty()) {
+            display = rowContext.emptyValue;
+        }
+
+        // Only single value lists of pages have an URL
+        String url = "";
+        PropertyClass propertyClass = getPropertyClass(rowContext.xclass, column);
+        if (propertyClass instanceof DBListClass && !((ListClass) propertyClass).isMultiSelect()
+            && !value.isEmpty()) {
+            url = xcontext.getWiki().getURL(this.currentDocumentReferenceResolver.resolve(value), VIEW, xcontext);
+        }
+
+        entry.put(column, display);
+        entry.put(column + "_value", value);
+        entry.put(column + "_url", url);
+    }
+}
@@ -50,10 +50,12 @@
 
 import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -75,6 +77,9 @@
     @MockComponent
     private LiveTableLiveDataResultsRenderer resultsRenderer;
 
+    @MockComponent
+    private LiveTableResultsBuilder resultsBuilder;
+
     @MockComponent
     @Named("current")
     private DocumentReferenceResolver<String> currentDocumentReferenceResolver;
@@ -106,6 +111,25 @@ void before()
         when(this.entryDescriptor.getIdProperty()).thenReturn("doc.fullName");
     }
 
+    @Test
+    void getFromBuilder() throws Exception
+    {
+        this.entryStore.getParameters().put("className", "Some.Class");
+
+        LiveData liveData = new LiveData();
+        when(this.resultsBuilder.getLiveData(any())).thenReturn(Optional.of(liveData));
+
+        Source source = new Source("liveTable");
+        LiveDataQuery query = new LiveDataQuery();
+        query.setSource(source);
+        assertEquals(liveData, this.entryStore.get(query));
+
+        verify(this.resultsBuilder).getLiveData(query);
+        verify(this.resultsRenderer, never()).getLiveTableResultsFromPage(any(), any());
+        // The original source is restored
+        assertSame(source, query.getSource());
+    }
+
     @Test
     void getFromTemplate() throws Exception
     {
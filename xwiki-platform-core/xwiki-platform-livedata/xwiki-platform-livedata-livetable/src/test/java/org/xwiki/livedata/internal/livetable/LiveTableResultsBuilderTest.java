@@ -0,0 +1,421 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.livedata.internal.livetable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.livedata.LiveData;
+import org.xwiki.livedata.LiveDataQuery;
+import org.xwiki.livedata.LiveDataQuery.Constraint;
+import org.xwiki.livedata.LiveDataQuery.Filter;
+import org.xwiki.livedata.LiveDataQuery.SortEntry;
+import org.xwiki.livedata.LiveDataQuery.Source;
+import org.xwiki.localization.ContextualLocalizationManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.user.UserProperties;
+import org.xwiki.user.UserPropertiesResolver;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.StringProperty;
+import com.xpn.xwiki.objects.classes.BaseClass;
+import com.xpn.xwiki.objects.classes.DBListClass;
+import com.xpn.xwiki.objects.classes.NumberClass;
+import com.xpn.xwiki.objects.classes.StaticListClass;
+import com.xpn.xwiki.objects.classes.StringClass;
+import com.xpn.xwiki.store.XWikiStoreInterface;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link LiveTableResultsBuilder}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class LiveTableResultsBuilderTest
+{
+    private static final String STATEMENT =
+        "where 1=1 and upper(str(doc.title)) like upper(:doc_title_filter)";
+
+    private static final String CLASS_NAME = "Space.MyClass";
+
+    private static final String CLASS_STATEMENT = ", BaseObject as obj%s where obj.name=doc.fullName"
+        + " and obj.className = :className and doc.fullName not in (:classTemplate1, :classTemplate2)%s";
+
+    private static final String TITLE = "title";
+
+    private static final String STATUS = "status";
+
+    private static final String COUNT = "count";
+
+    private static final DocumentReference CLASS_REFERENCE = new DocumentReference("wiki", "Space", "MyClass");
+
+    @InjectMockComponents
+    private LiveTableResultsBuilder builder;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> currentDocumentReferenceResolver;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @MockComponent
+    private ContextualLocalizationManager l10n;
+
+    @MockComponent
+    @Named("all")
+    private UserPropertiesResolver userPropertiesResolver;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Mock
+    private XWikiContext xcontext;
+
+    @Mock
+    private XWiki xwiki;
+
+    @Mock
+    private XWikiStoreInterface store;
+
+    @Mock
+    private ComponentManager componentManager;
+
+    @Mock
+    private BaseClass xclass;
+
+    @BeforeEach
+    void before() throws Exception
+    {
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        when(this.xcontext.getWiki()).thenReturn(this.xwiki);
+        when(this.xwiki.getStore()).thenReturn(this.store);
+        when(this.componentManagerProvider.get()).thenReturn(this.componentManager);
+        when(this.userPropertiesResolver.resolve(any())).thenReturn(mock(UserProperties.class));
+    }
+
+    private LiveDataQuery createQuery(String... properties)
+    {
+        LiveDataQuery query = new LiveDataQuery();
+        query.setSource(new Source(LiveTableLiveDataEntryStore.ROLE_HINT));
+        query.setProperties(List.of(properties));
+        return query;
+    }
+
+    private LiveDataQuery createClassQuery(String... properties) throws Exception
+    {
+        when(this.currentDocumentReferenceResolver.resolve(CLASS_NAME)).thenReturn(CLASS_REFERENCE);
+        when(this.xwiki.getXClass(CLASS_REFERENCE, this.xcontext)).thenReturn(this.xclass);
+
+        // A string, a single select list and an integer property, like the ones handled by LiveTableResultsMacros
+        when(this.xclass.get(TITLE)).thenReturn(mock(StringClass.class));
+        when(this.xclass.get(STATUS)).thenReturn(mock(StaticListClass.class));
+        NumberClass countClass = mock(NumberClass.class);
+        when(countClass.getNumberType()).thenReturn("integer");
+        when(this.xclass.get(COUNT)).thenReturn(countClass);
+
+        LiveDataQuery query = createQuery(properties);
+        query.getSource().setParameter("className", CLASS_NAME);
+        return query;
+    }
+
+    private Query[] mockQueries(String from, String where, String order, List<Object> results) throws Exception
+    {
+        String statement = String.format(CLASS_STATEMENT, from, where);
+        Query query = mock(Query.class, "query");
+        Query countQuery = mock(Query.class, "count");
+        if (order.isEmpty()) {
+            when(this.queryManager.createQuery(statement, Query.HQL)).thenReturn(query, countQuery);
+        } else {
+            when(this.queryManager.createQuery(statement + order, Query.HQL)).thenReturn(query);
+            when(this.queryManager.createQuery(statement, Query.HQL)).thenReturn(countQuery);
+        }
+        when(this.componentManager.getInstance(QueryFilter.class, COUNT)).thenReturn(mock(QueryFilter.class));
+        when(query.execute()).thenReturn(results);
+        when(countQuery.execute()).thenReturn(List.of((long) results.size()));
+
+        return new Query[] {query, countQuery};
+    }
+
+    private void verifyParameters(Query[] queries, Map<String, Object> parameters)
+    {
+        Map<String, Object> allParameters = new HashMap<>(parameters);
+        allParameters.put("className", CLASS_NAME);
+        allParameters.put("classTemplate1", "Space.MyClassTemplate");
+        allParameters.put("classTemplate2", "Space.MyTemplate");
+
+        for (Query query : queries) {
+            verify(query).bindValues(allParameters);
+        }
+    }
+
+    @Test
+    void getLiveDataWithUnsupportedQuery() throws Exception
+    {
+        LiveDataQuery query = createQuery("doc.title");
+        query.getSource().setParameter(LiveTableRequestHandler.RESULT_PAGE, "Some.Results");
+
+        assertEquals(Optional.empty(), this.builder.getLiveData(query));
+
+        assertEquals(Optional.empty(), this.builder.getLiveData(createQuery("doc.title", "doc.location")));
+
+        query = createQuery("doc.date");
+        query.setFilters(List.of(new Filter("doc.date", "between", "2020-01-01/2021-01-01")));
+        assertEquals(Optional.empty(), this.builder.getLiveData(query));
+
+        verifyNoInteractions(this.queryManager);
+    }
+
+    @Test
+    void getLiveData() throws Exception
+    {
+        LiveDataQuery liveDataQuery = createQuery("doc.title", "doc.name");
+        liveDataQuery.getSource().setParameter("queryFilters", "hidden");
+        liveDataQuery.setFilters(List.of(new Filter("doc.title", "contains", "foo")));
+        liveDataQuery.setSort(List.of(new SortEntry("doc.date", true)));
+        liveDataQuery.setOffset(20L);
+        liveDataQuery.setLimit(10);
+
+        Query query = mock(Query.class, "query");
+        Query countQuery = mock(Query.class, "count");
+        when(this.queryManager.createQuery(STATEMENT + " order by doc.date desc", Query.HQL)).thenReturn(query);
+        when(this.queryManager.createQuery(STATEMENT, Query.HQL)).thenReturn(countQuery);
+        QueryFilter hiddenFilter = mock(QueryFilter.class, "hidden");
+        QueryFilter countFilter = mock(QueryFilter.class, "count");
+        when(this.componentManager.getInstance(QueryFilter.class, "hidden")).thenReturn(hiddenFilter);
+        when(this.componentManager.getInstance(QueryFilter.class, "count")).thenReturn(countFilter);
+        when(query.execute()).thenReturn(List.of("Space.Page", "Space.Hidden"));
+        when(countQuery.execute()).thenReturn(List.of(42L));
+
+        DocumentReference pageReference = new DocumentReference("wiki", "Space", "Page");
+        DocumentReference hiddenReference = new DocumentReference("wiki", "Space", "Hidden");
+        when(this.currentDocumentReferenceResolver.resolve("Space.Page")).thenReturn(pageReference);
+        when(this.currentDocumentReferenceResolver.resolve("Space.Hidden")).thenReturn(hiddenReference);
+        when(this.authorization.hasAccess(Right.VIEW, pageReference)).thenReturn(true);
+        when(this.localSerializer.serialize(pageReference)).thenReturn("Space.Page");
+
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(pageReference);
+        when(document.getTranslatedDocument(this.xcontext)).thenReturn(document);
+        when(document.getRenderedTitle(any(), any())).thenReturn("Title");
+        when(document.getTitle()).thenReturn("Title");
+        when(this.store.loadXWikiDocs(List.of(pageReference), this.xcontext)).thenReturn(List.of(document));
+
+        LiveData liveData = this.builder.getLiveData(liveDataQuery).get();
+
+        assertEquals(42, liveData.getCount());
+        assertEquals(2, liveData.getEntries().size());
+
+        Map<String, Object> entry = liveData.getEntries().get(0);
+        assertEquals(true, entry.get("doc.viewable"));
+        assertEquals("Space.Page", entry.get("doc.fullName"));
+        assertEquals("Page", entry.get("doc.name"));
+        assertEquals("Title", entry.get("doc.title"));
+        assertFalse(entry.containsKey("doc.title_raw"));
+
+        assertEquals(Map.of("doc.viewable", false, "doc.fullName", "obfuscated"), liveData.getEntries().get(1));
+
+        verify(query).bindValues(Map.of("doc_title_filter", "%foo%"));
+        verify(query).addFilter(hiddenFilter);
+        verify(query).setLimit(10);
+        verify(query).setOffset(20);
+        verify(countQuery).addFilter(hiddenFilter);
+        verify(countQuery).addFilter(countFilter);
+    }
+
+    @Test
+    void getLiveDataWithPropertyFilters() throws Exception
+    {
+        LiveDataQuery liveDataQuery = createClassQuery("doc.name", TITLE, COUNT, "price", STATUS);
+        NumberClass priceClass = mock(NumberClass.class);
+        when(priceClass.getNumberType()).thenReturn("float");
+        when(this.xclass.get("price")).thenReturn(priceClass);
+        when(this.xclass.get("rank")).thenReturn(mock(StringClass.class));
+
+        Filter titleFilter = new Filter(TITLE, "contains", false, "a", "b");
+        titleFilter.getConstraints().add(new Constraint("c", "startsWith"));
+        liveDataQuery.setFilters(List.of(titleFilter, new Filter(COUNT, "equals", "42"), new Filter("price", "1.5"),
+            new Filter(STATUS, "equals", false, "open", "closed")));
+        // Sort on a property which is not filtered
+        liveDataQuery.setSort(List.of(new SortEntry("rank", true)));
+
+        Query[] queries = mockQueries(
+            ", StringProperty as prop_title, IntegerProperty as prop_count, FloatProperty as prop_price,"
+                + " StringProperty as prop_status, StringProperty prop_rank",
+            " and obj.id = prop_title.id.id and prop_title.id.name = :prop_title_id_name"
+                + " and (upper(prop_title.value) like upper(:prop_title_value_1)"
+                + " OR upper(prop_title.value) like upper(:prop_title_value_2)"
+                + " OR upper(prop_title.value) like upper(:prop_title_value_3))"
+                + " and obj.id = prop_count.id.id and prop_count.id.name = :prop_count_id_name"
+                + " and prop_count.value = :prop_count_value"
+                + " and obj.id = prop_price.id.id and prop_price.id.name = :prop_price_id_name"
+                + " and abs(:prop_price_value - prop_price.value) <= 0.000001"
+                + " and obj.id = prop_status.id.id and prop_status.id.name = :prop_status_id_name"
+                + " and (prop_status.value in (:prop_status_value_1, :prop_status_value_2))"
+                + " and obj.id=prop_rank.id.id and prop_rank.name = :prop_rank_name",
+            " order by lower(prop_rank.value) desc, prop_rank.value desc", List.of());
+
+        assertEquals(0, this.builder.getLiveData(liveDataQuery).get().getCount());
+
+        verifyParameters(queries, Map.ofEntries(Map.entry("prop_title_id_name", TITLE),
+            Map.entry("prop_title_value_1", "%a%"), Map.entry("prop_title_value_2", "%b%"),
+            Map.entry("prop_title_value_3", "c%"), Map.entry("prop_count_id_name", COUNT),
+            Map.entry("prop_count_value", 42), Map.entry("prop_price_id_name", "price"),
+            Map.entry("prop_price_value", 1.5f), Map.entry("prop_status_id_name", STATUS),
+            Map.entry("prop_status_value_1", "open"), Map.entry("prop_status_value_2", "closed"),
+            Map.entry("prop_rank_name", "rank")));
+    }
+
+    @Test
+    void getLiveDataWithPropertyFiltersMatchingAll() throws Exception
+    {
+        LiveDataQuery liveDataQuery = createClassQuery(TITLE, STATUS, COUNT);
+
+        Filter titleFilter = new Filter(TITLE, "equals", true, "x");
+        titleFilter.getConstraints().add(new Constraint("-", "empty"));
+        // The constraints without operator are matched exactly, like the live table does
+        liveDataQuery.setFilters(List.of(titleFilter, new Filter(STATUS, "open"), new Filter(COUNT, "7")));
+        // Sort on a filtered property, which is already joined
+        liveDataQuery.setSort(List.of(new SortEntry(COUNT, false)));
+
+        Query[] queries = mockQueries(
+            ", StringProperty as prop_title, StringProperty as prop_status, IntegerProperty as prop_count",
+            " and obj.id = prop_title.id.id and prop_title.id.name = :prop_title_id_name"
+                + " and (prop_title.value = :prop_title_value_1"
+                + " AND (prop_title.value like :prop_title_value_2 or prop_title.value is null))"
+                + " and obj.id = prop_status.id.id and prop_status.id.name = :prop_status_id_name"
+                + " and (prop_status.value = :prop_status_value_1)"
+                + " and obj.id = prop_count.id.id and prop_count.id.name = :prop_count_id_name"
+                + " and prop_count.value = :prop_count_value",
+            " order by prop_count.value asc", List.of());
+
+        this.builder.getLiveData(liveDataQuery);
+
+        verifyParameters(queries,
+            Map.of("prop_title_id_name", TITLE, "prop_title_value_1", "x", "prop_title_value_2", "",
+                "prop_status_id_name", STATUS, "prop_status_value_1", "open", "prop_count_id_name", COUNT,
+                "prop_count_value", 7));
+    }
+
+    @Test
+    void getLiveDataWithUnsupportedPropertyFilter() throws Exception
+    {
+        LiveDataQuery liveDataQuery = createClassQuery(COUNT);
+        liveDataQuery.setFilters(List.of(new Filter(COUNT, "notANumber")));
+
+        assertEquals(Optional.empty(), this.builder.getLiveData(liveDataQuery));
+
+        verifyNoInteractions(this.queryManager);
+    }
+
+    @Test
+    void getLiveDataWithPropertyColumns() throws Exception
+    {
+        LiveDataQuery liveDataQuery = createClassQuery(TITLE, STATUS, COUNT);
+        liveDataQuery.getSource().setParameter("translationPrefix", "my.");
+        when(this.l10n.getTranslationPlain("my.emptyvalue")).thenReturn("(empty)");
+        when(this.xclass.get(STATUS)).thenReturn(mock(DBListClass.class));
+
+        mockQueries("", "", "", List.of("Space.Page"));
+
+        DocumentReference pageReference = new DocumentReference("wiki", "Space", "Page");
+        when(this.currentDocumentReferenceResolver.resolve("Space.Page")).thenReturn(pageReference);
+        when(this.authorization.hasAccess(Right.VIEW, pageReference)).thenReturn(true);
+
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(pageReference);
+        when(document.getTranslatedDocument(this.xcontext)).thenReturn(document);
+        when(this.store.loadXWikiDocs(List.of(pageReference), this.xcontext)).thenReturn(List.of(document));
+
+        BaseObject object = mock(BaseObject.class);
+        when(document.getXObject(CLASS_REFERENCE)).thenReturn(object);
+        when(document.getXObjectSize(CLASS_REFERENCE)).thenReturn(1);
+        StringProperty title = new StringProperty();
+        title.setValue("Raw title");
+        when(object.safeget(TITLE)).thenReturn(title);
+        when(document.display(TITLE, "view", object, this.xcontext))
+            .thenReturn("{{html clean=\"false\" wiki=\"false\"}}<em>Raw title</em>{{/html}}");
+        StringProperty status = new StringProperty();
+        status.setValue("Space.Target");
+        when(object.safeget(STATUS)).thenReturn(status);
+        when(document.display(STATUS, "view", object, this.xcontext)).thenReturn("Target");
+        when(document.display(COUNT, "view", object, this.xcontext)).thenReturn("");
+
+        DocumentReference targetReference = new DocumentReference("wiki", "Space", "Target");
+        when(this.currentDocumentReferenceResolver.resolve("Space.Target")).thenReturn(targetReference);
+        when(this.xwiki.getURL(targetReference, "view", this.xcontext)).thenReturn("/Space/Target");
+
+        Map<String, Object> entry = this.builder.getLiveData(liveDataQuery).get().getEntries().get(0);
+
+        assertEquals(1, entry.get("doc.objectCount"));
+        assertEquals("<em>Raw title</em>", entry.get(TITLE));
+        assertEquals("Raw title", entry.get("title_value"));
+        assertEquals("", entry.get("title_url"));
+        // Single value lists of pages link to the selected page
+        assertEquals("Target", entry.get(STATUS));
+        assertEquals("Space.Target", entry.get("status_value"));
+        assertEquals("/Space/Target", entry.get("status_url"));
+        // Missing values are displayed with the empty value translation
+        assertEquals("(empty)", entry.get(COUNT));
+        assertEquals("", entry.get("count_value"));
+        assertEquals("", entry.get("count_url"));
+    }
+}
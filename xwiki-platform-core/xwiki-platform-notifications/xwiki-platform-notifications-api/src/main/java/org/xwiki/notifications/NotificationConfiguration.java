@@ -20,6 +20,7 @@
 package org.xwiki.notifications;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Get the configuration options concerning the Notification module.
@@ -85,4 +86,18 @@ default String getEmailGroupingStrategyHint()
     {
         return "default";
     }
+
+    /**
+     * When the inbox is enabled, the alert notifications of a user are read directly from the events which were
+     * associated with this user when they were dispatched, instead of being searched according to all the
+     * notification preferences and filters of the user.
+     *
+     * @return true if the alert notifications should be read from the user inbox
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default boolean isInboxEnabled()
+    {
+        return false;
+    }
 }
@@ -84,4 +84,10 @@ public String getEmailGroupingStrategyHint()
     {
         return configurationSource.getProperty(CONFIGURATION_PREFIX + "emailGroupingStrategyHint", "default");
     }
+
+    @Override
+    public boolean isInboxEnabled()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "inbox.enabled", false);
+    }
 }
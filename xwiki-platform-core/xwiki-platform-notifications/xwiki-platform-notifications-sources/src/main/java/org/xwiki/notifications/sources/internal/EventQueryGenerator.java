@@ -25,6 +25,8 @@
 import org.xwiki.component.annotation.Component;
 import org.xwiki.eventstream.EventStreamException;
 import org.xwiki.eventstream.query.SimpleEventQuery;
+import org.xwiki.notifications.NotificationConfiguration;
+import org.xwiki.notifications.NotificationFormat;
 import org.xwiki.notifications.sources.NotificationParameters;
 
 /**
@@ -43,6 +45,9 @@
     @Inject
     private ExpressionNodeToEventQueryConverter eventQueryConverter;
 
+    @Inject
+    private NotificationConfiguration configuration;
+
     /**
      * Generate the query.
      *
@@ -52,6 +57,19 @@
      */
     public SimpleEventQuery generateQuery(NotificationParameters parameters) throws EventStreamException
     {
+        if (isInbox(parameters)) {
+            // The preferences of the user were already applied when the events were dispatched
+            return this.eventQueryConverter.parse(this.expressionGenerator.generateInboxQueryExpression(parameters));
+        }
+
         return this.eventQueryConverter.parse(this.expressionGenerator.generateQueryExpression(parameters));
     }
+
+    private boolean isInbox(NotificationParameters parameters)
+    {
+        // Only the alerts of a specific user are associated with users when dispatching events and a user without
+        // any enabled preference should not get any notification
+        return parameters.user != null && parameters.format == NotificationFormat.ALERT
+            && !parameters.preferences.isEmpty() && this.configuration.isInboxEnabled();
+    }
 }
@@ -31,6 +31,7 @@
 import org.xwiki.eventstream.EventStreamException;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.notifications.NotificationFormat;
 import org.xwiki.notifications.filters.NotificationFilter;
 import org.xwiki.notifications.filters.NotificationFilterManager;
 import org.xwiki.notifications.filters.NotificationFilterType;
@@ -50,6 +51,7 @@
 import org.xwiki.notifications.filters.expression.StringValueNode;
 import org.xwiki.notifications.filters.expression.generics.AbstractOperatorNode;
 import org.xwiki.notifications.filters.expression.generics.AbstractValueNode;
+import org.xwiki.notifications.filters.internal.status.ForUserNode;
 import org.xwiki.notifications.preferences.NotificationPreference;
 import org.xwiki.notifications.preferences.NotificationPreferenceProperty;
 import org.xwiki.notifications.sources.NotificationParameters;
@@ -151,6 +153,34 @@ public ExpressionNode generateQueryExpression(NotificationParameters parameters)
         return topNode;
     }
 
+    /**
+     * Generate a query targeting the events which were associated with the user when they were dispatched.
+     * <p>
+     * The notification preferences and filters of the user were already applied at that time so the only conditions
+     * left are the ones related to the request itself.
+     *
+     * @param parameters parameters to use
+     * @return the query to execute
+     * @since 17.0.0RC1
+     */
+    public ExpressionNode generateInboxQueryExpression(NotificationParameters parameters)
+    {
+        AbstractOperatorNode topNode = new ForUserNode(parameters.user,
+            Boolean.TRUE.equals(parameters.onlyUnread) ? Boolean.FALSE : null, NotificationFormat.ALERT);
+
+        if (parameters.fromDate != null) {
+            topNode = topNode.and(
+                new GreaterThanNode(new PropertyValueNode(EventProperty.DATE), new DateValueNode(parameters.fromDate)));
+        }
+
+        topNode = handleBlackList(parameters, topNode);
+        topNode = handleEndDate(parameters, topNode);
+        topNode = handleHiddenEvents(parameters, topNode);
+        topNode = handleWiki(parameters, topNode);
+
+        return handleOrder(topNode);
+    }
+
     /**
      * For each notification preference of the given user, add a constraint on the events to - have one of the
      * notification types that have been subscribed by the user; - have a date superior to the start date corresponding
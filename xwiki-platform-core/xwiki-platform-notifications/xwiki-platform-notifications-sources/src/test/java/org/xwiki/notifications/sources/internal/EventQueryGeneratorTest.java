@@ -41,6 +41,7 @@
 import org.xwiki.model.internal.reference.DefaultStringEntityReferenceSerializer;
 import org.xwiki.model.internal.reference.DefaultSymbolScheme;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.notifications.NotificationConfiguration;
 import org.xwiki.notifications.NotificationFormat;
 import org.xwiki.notifications.filters.NotificationFilter;
 import org.xwiki.notifications.filters.expression.EmptyNode;
@@ -51,10 +52,12 @@
 import org.xwiki.notifications.sources.NotificationParameters;
 import org.xwiki.test.annotation.ComponentList;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
 import org.xwiki.user.UserProperties;
 import org.xwiki.user.UserReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.mock;
@@ -73,6 +76,9 @@ class EventQueryGeneratorTest extends AbstractQueryGeneratorTest
     @InjectMockComponents
     private EventQueryGenerator generator;
 
+    @MockComponent
+    private NotificationConfiguration configuration;
+
     @Test
     void generateQueryExpression() throws Exception
     {
@@ -536,4 +542,43 @@ void generateQueryWithPreFilteringEmailReadFilter() throws Exception
 
         assertEquals(new SortClause(Event.FIELD_DATE, Order.DESC), sortClause.get(0));
     }
+
+    @Test
+    void generateInboxQuery() throws Exception
+    {
+        when(this.configuration.isInboxEnabled()).thenReturn(true);
+
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.user = USER_REFERENCE;
+        parameters.format = NotificationFormat.ALERT;
+        parameters.fromDate = this.startDate;
+        parameters.onlyUnread = true;
+        parameters.blackList = Arrays.asList("event1");
+        parameters.preferences = Arrays.asList(this.pref1);
+        parameters.filterPreferences = Arrays.asList(this.fakeFilterPreference);
+
+        SimpleEventQuery query = this.generator.generateQuery(parameters);
+
+        Iterator<QueryCondition> conditions = query.getConditions().iterator();
+
+        // The preferences are not part of the query
+        assertEquals(new StatusQueryCondition(SERIALIZED_USER_REFERENCE, false, false), conditions.next());
+        assertEquals(new CompareQueryCondition(Event.FIELD_DATE, this.startDate, CompareType.GREATER_OR_EQUALS, false),
+            conditions.next());
+        assertEquals(new InQueryCondition(true, Event.FIELD_ID, Arrays.asList("event1")), conditions.next());
+        assertEquals(new CompareQueryCondition(Event.FIELD_HIDDEN, true, CompareType.EQUALS, true), conditions.next());
+        assertFalse(conditions.hasNext());
+
+        assertEquals(new SortClause(Event.FIELD_DATE, Order.DESC), query.getSorts().get(0));
+
+        // Inbox is only used for alerts
+        parameters.format = NotificationFormat.EMAIL;
+
+        conditions = this.generator.generateQuery(parameters).getConditions().iterator();
+
+        assertEquals(new CompareQueryCondition(Event.FIELD_DATE, this.startDate, CompareType.GREATER_OR_EQUALS, false),
+            conditions.next());
+        assertEquals(new CompareQueryCondition(Event.FIELD_TYPE, "create", CompareType.EQUALS, false),
+            conditions.next());
+    }
 }
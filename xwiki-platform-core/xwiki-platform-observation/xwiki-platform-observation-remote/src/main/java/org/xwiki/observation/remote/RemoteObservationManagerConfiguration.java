@@ -22,6 +22,7 @@
 import java.util.List;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Provide configuration for remote observation manager.
@@ -56,4 +57,59 @@ default String getId()
     {
         return null;
     }
+
+    /**
+     * @return {@code true} if the remote events should be sent in a compact binary format (which also allows sending
+     *     several events in the same message), {@code false} to use plain Java serialization
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default boolean isCompactFormatEnabled()
+    {
+        return false;
+    }
+
+    /**
+     * @return the maximum number of remote events to send in the same network message (only when the compact format is
+     *     enabled)
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default int getBatchMaxSize()
+    {
+        return 1;
+    }
+
+    /**
+     * @return the maximum time in milliseconds to wait for other remote events before sending a network message, 0 to
+     *     only group the events which were waiting to be sent anyway (only when the compact format is enabled)
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default long getBatchMaxDelay()
+    {
+        return 0;
+    }
+
+    /**
+     * @return the maximum time in milliseconds to wait for other cache invalidations before sending them to the other
+     *     members of the cluster, 0 to send each invalidation immediately
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default long getInvalidationMaxDelay()
+    {
+        return 0;
+    }
+
+    /**
+     * @return the maximum number of cache invalidations to accumulate before sending them to the other members of the
+     *     cluster without waiting for {@link #getInvalidationMaxDelay()}
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default int getInvalidationMaxSize()
+    {
+        return 1;
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.codec;
+
+import java.io.IOException;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Encode and decode a specific kind of value (event, source or data of a
+ * {@link org.xwiki.observation.remote.RemoteEventData}, or anything they contain) in the compact binary format used to
+ * send remote events over the network.
+ * <p>
+ * The hint of the component is written in the message to identify the codec to use when decoding the value so it
+ * should stay short and it must be the same on all the members of the cluster. Values which are not supported by any
+ * codec are sent using Java serialization.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Role
+@Unstable
+public interface RemoteValueCodec
+{
+    /**
+     * @param value the value to encode, never {@code null}
+     * @return {@code true} if this codec is able to encode the passed value without losing any information
+     */
+    boolean canEncode(Object value);
+
+    /**
+     * @param value the value to encode
+     * @param output the output where to write the value
+     * @throws IOException when failing to write the value
+     */
+    void encode(Object value, RemoteValueOutput output) throws IOException;
+
+    /**
+     * @param input the input from where to read the value
+     * @return the decoded value
+     * @throws IOException when failing to read the value
+     */
+    Object decode(RemoteValueInput input) throws IOException;
+}
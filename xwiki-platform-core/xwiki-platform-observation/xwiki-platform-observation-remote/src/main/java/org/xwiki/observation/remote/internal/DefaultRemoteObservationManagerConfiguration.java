@@ -83,6 +83,36 @@ public String getNetworkAdapter()
         return this.configurationSource.getProperty("observation.remote.networkadapter", "jgroups");
     }
 
+    @Override
+    public boolean isCompactFormatEnabled()
+    {
+        return this.configurationSource.getProperty("observation.remote.compactFormat", false);
+    }
+
+    @Override
+    public int getBatchMaxSize()
+    {
+        return Math.max(1, this.configurationSource.getProperty("observation.remote.batch.maxSize", 100));
+    }
+
+    @Override
+    public long getBatchMaxDelay()
+    {
+        return Math.max(0L, this.configurationSource.getProperty("observation.remote.batch.maxDelay", 0L));
+    }
+
+    @Override
+    public long getInvalidationMaxDelay()
+    {
+        return Math.max(0L, this.configurationSource.getProperty("observation.remote.invalidation.maxDelay", 100L));
+    }
+
+    @Override
+    public int getInvalidationMaxSize()
+    {
+        return Math.max(1, this.configurationSource.getProperty("observation.remote.invalidation.maxSize", 1000));
+    }
+
     @Override
     public String getId()
     {
@@ -0,0 +1,103 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.codec;
+
+import java.io.IOException;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.event.filter.AlwaysMatchingEventFilter;
+import org.xwiki.observation.event.filter.EventFilter;
+import org.xwiki.observation.event.filter.FixedNameEventFilter;
+import org.xwiki.observation.event.filter.RegexEventFilter;
+import org.xwiki.observation.remote.codec.RemoteValueCodec;
+import org.xwiki.observation.remote.codec.RemoteValueInput;
+import org.xwiki.observation.remote.codec.RemoteValueOutput;
+
+/**
+ * Encode the standard event filters as their type and filter string.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component
+@Named(EventFilterRemoteValueCodec.HINT)
+@Singleton
+public class EventFilterRemoteValueCodec implements RemoteValueCodec
+{
+    /**
+     * The hint of the component.
+     */
+    public static final String HINT = "filter";
+
+    private static final int ALWAYS_MATCHING_FILTER = 1;
+
+    private static final int FIXED_NAME_FILTER = 2;
+
+    private static final int REGEX_FILTER = 3;
+
+    @Override
+    public boolean canEncode(Object value)
+    {
+        return value != null && getFilterType(value) != -1;
+    }
+
+    @Override
+    public void encode(Object value, RemoteValueOutput output) throws IOException
+    {
+        int filterType = getFilterType(value);
+        output.writeNumber(filterType);
+        if (filterType == FIXED_NAME_FILTER || filterType == REGEX_FILTER) {
+            output.writeString(((EventFilter) value).getFilter());
+        }
+    }
+
+    @Override
+    public Object decode(RemoteValueInput input) throws IOException
+    {
+        long filterType = input.readNumber();
+
+        if (filterType == ALWAYS_MATCHING_FILTER) {
+            return new AlwaysMatchingEventFilter();
+        } else if (filterType == FIXED_NAME_FILTER) {
+            return new FixedNameEventFilter(input.readString());
+        } else if (filterType == REGEX_FILTER) {
+            return new RegexEventFilter(input.readString());
+        }
+
+        throw new IOException("Unknown event filter type [" + filterType + "]");
+    }
+
+    private int getFilterType(Object filter)
+    {
+        // Only the standard filters are supported (and not their extensions)
+        if (filter.getClass() == AlwaysMatchingEventFilter.class) {
+            return ALWAYS_MATCHING_FILTER;
+        } else if (filter.getClass() == FixedNameEventFilter.class) {
+            return FIXED_NAME_FILTER;
+        } else if (filter.getClass() == RegexEventFilter.class) {
+            return REGEX_FILTER;
+        }
+
+        return -1;
+    }
+}
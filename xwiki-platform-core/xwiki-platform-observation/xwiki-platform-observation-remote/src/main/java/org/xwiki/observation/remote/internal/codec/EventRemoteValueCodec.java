@@ -0,0 +1,148 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.codec;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.event.AbstractFilterableEvent;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.filter.EventFilter;
+import org.xwiki.observation.remote.codec.RemoteValueCodec;
+import org.xwiki.observation.remote.codec.RemoteValueInput;
+import org.xwiki.observation.remote.codec.RemoteValueOutput;
+
+/**
+ * Encode events which don't hold any state other than their standard filter (which covers most of the wiki and
+ * cache events) as their class name and filter.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component
+@Named("event")
+@Singleton
+public class EventRemoteValueCodec implements RemoteValueCodec
+{
+    @Inject
+    @Named(EventFilterRemoteValueCodec.HINT)
+    private RemoteValueCodec filterCodec;
+
+    private final Map<Class<?>, Boolean> supportedClasses = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean canEncode(Object value)
+    {
+        return value instanceof Event && value instanceof Serializable && isFilterSupported(value)
+            && isSupported(value.getClass());
+    }
+
+    @Override
+    public void encode(Object value, RemoteValueOutput output) throws IOException
+    {
+        output.writeString(value.getClass().getName());
+
+        if (value instanceof AbstractFilterableEvent) {
+            this.filterCodec.encode(((AbstractFilterableEvent) value).getEventFilter(), output);
+        }
+    }
+
+    @Override
+    public Object decode(RemoteValueInput input) throws IOException
+    {
+        String className = input.readString();
+
+        Class<?> eventClass;
+        try {
+            eventClass = Class.forName(className, true, input.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Failed to load event class [" + className + "]", e);
+        }
+
+        // Make sure to not instantiate anything else than a supported event
+        if (!Event.class.isAssignableFrom(eventClass) || !isSupported(eventClass)) {
+            throw new IOException("Unsupported event class [" + className + "]");
+        }
+
+        EventFilter filter = AbstractFilterableEvent.class.isAssignableFrom(eventClass)
+            ? (EventFilter) this.filterCodec.decode(input) : null;
+        try {
+            if (filter == null) {
+                return eventClass.getConstructor().newInstance();
+            }
+
+            return eventClass.getConstructor(EventFilter.class).newInstance(filter);
+        } catch (Exception e) {
+            throw new IOException("Failed to create an instance of event class [" + className + "]", e);
+        }
+    }
+
+    private boolean isFilterSupported(Object event)
+    {
+        return !(event instanceof AbstractFilterableEvent)
+            || this.filterCodec.canEncode(((AbstractFilterableEvent) event).getEventFilter());
+    }
+
+    private boolean isSupported(Class<?> eventClass)
+    {
+        return this.supportedClasses.computeIfAbsent(eventClass, this::computeSupported);
+    }
+
+    private boolean computeSupported(Class<?> eventClass)
+    {
+        if (!Modifier.isPublic(eventClass.getModifiers()) || Modifier.isAbstract(eventClass.getModifiers())) {
+            return false;
+        }
+
+        boolean filterable = AbstractFilterableEvent.class.isAssignableFrom(eventClass);
+
+        // Make sure the event does not hold any state which would be lost
+        Class<?> stopClass = filterable ? AbstractFilterableEvent.class : Object.class;
+        for (Class<?> current = eventClass; current != stopClass; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    return false;
+                }
+            }
+        }
+
+        try {
+            if (filterable) {
+                eventClass.getConstructor(EventFilter.class);
+            } else {
+                eventClass.getConstructor();
+            }
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+
+        return true;
+    }
+}
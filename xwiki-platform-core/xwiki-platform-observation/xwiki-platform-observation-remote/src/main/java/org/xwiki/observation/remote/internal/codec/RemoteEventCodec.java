@@ -0,0 +1,525 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.codec.RemoteValueCodec;
+import org.xwiki.observation.remote.codec.RemoteValueInput;
+import org.xwiki.observation.remote.codec.RemoteValueOutput;
+
+/**
+ * Encode and decode a batch of {@link RemoteEventData} in a compact binary format.
+ * <p>
+ * The format starts with a magic header and a version followed by the number of events and, for each event, its
+ * event, source and data values. Each value is prefixed by a tag indicating its type: the most common Java types are
+ * written directly, other values are delegated to the first {@link RemoteValueCodec} supporting them and Java
+ * serialization is used as a last resort. All the strings of a message are written only once.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component(roles = RemoteEventCodec.class)
+@Singleton
+public class RemoteEventCodec
+{
+    private static final byte[] MAGIC = {'X', 'R', 'E'};
+
+    private static final int VERSION = 1;
+
+    private static final int TAG_NULL = 0;
+
+    private static final int TAG_STRING = 1;
+
+    private static final int TAG_INTEGER = 2;
+
+    private static final int TAG_LONG = 3;
+
+    private static final int TAG_TRUE = 4;
+
+    private static final int TAG_FALSE = 5;
+
+    private static final int TAG_HASHMAP = 6;
+
+    private static final int TAG_ARRAYLIST = 7;
+
+    private static final int TAG_LOCALE = 8;
+
+    private static final int TAG_CODEC = 9;
+
+    private static final int TAG_SERIALIZED = 10;
+
+    @Inject
+    private ComponentManager componentManager;
+
+    private final class Output implements RemoteValueOutput
+    {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final DataOutputStream stream = new DataOutputStream(this.bytes);
+
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private final Map<String, RemoteValueCodec> codecs;
+
+        Output(Map<String, RemoteValueCodec> codecs) throws IOException
+        {
+            this.codecs = codecs;
+
+            this.stream.write(MAGIC);
+            this.stream.write(VERSION);
+        }
+
+        @Override
+        public void writeString(String value) throws IOException
+        {
+            if (value == null) {
+                writeUnsigned(0);
+            } else {
+                Integer index = this.strings.get(value);
+                if (index != null) {
+                    // Odd numbers are references to a previous string
+                    writeUnsigned(((long) index << 1) | 1);
+                } else {
+                    this.strings.put(value, this.strings.size());
+
+                    // Even numbers (except 0) are new strings
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    writeUnsigned((utf8.length + 1L) << 1);
+                    this.stream.write(utf8);
+                }
+            }
+        }
+
+        @Override
+        public void writeNumber(long value) throws IOException
+        {
+            // Zigzag encoding to keep small negative numbers small
+            writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        @Override
+        public void writeBoolean(boolean value) throws IOException
+        {
+            this.stream.write(value ? 1 : 0);
+        }
+
+        @Override
+        public void writeValue(Object value) throws IOException
+        {
+            if (value == null) {
+                this.stream.write(TAG_NULL);
+            } else if (value.getClass() == String.class) {
+                this.stream.write(TAG_STRING);
+                writeString((String) value);
+            } else if (value.getClass() == Integer.class) {
+                this.stream.write(TAG_INTEGER);
+                writeNumber((Integer) value);
+            } else if (value.getClass() == Long.class) {
+                this.stream.write(TAG_LONG);
+                writeNumber((Long) value);
+            } else if (value.getClass() == Boolean.class) {
+                this.stream.write((Boolean) value ? TAG_TRUE : TAG_FALSE);
+            } else if (value.getClass() == HashMap.class) {
+                writeMap((Map<?, ?>) value);
+            } else if (value.getClass() == ArrayList.class) {
+                writeList((List<?>) value);
+            } else if (value instanceof Locale && isLanguageTagCompatible((Locale) value)) {
+                this.stream.write(TAG_LOCALE);
+                writeString(((Locale) value).toLanguageTag());
+            } else {
+                writeOther(value);
+            }
+        }
+
+        private void writeMap(Map<?, ?> map) throws IOException
+        {
+            this.stream.write(TAG_HASHMAP);
+            writeUnsigned(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeList(List<?> list) throws IOException
+        {
+            this.stream.write(TAG_ARRAYLIST);
+            writeUnsigned(list.size());
+            for (Object element : list) {
+                writeValue(element);
+            }
+        }
+
+        private void writeOther(Object value) throws IOException
+        {
+            for (Map.Entry<String, RemoteValueCodec> entry : this.codecs.entrySet()) {
+                if (entry.getValue().canEncode(value)) {
+                    this.stream.write(TAG_CODEC);
+                    writeString(entry.getKey());
+                    entry.getValue().encode(value, this);
+
+                    return;
+                }
+            }
+
+            // Fallback on Java serialization
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectStream = new ObjectOutputStream(serialized)) {
+                objectStream.writeObject(value);
+            }
+            this.stream.write(TAG_SERIALIZED);
+            writeUnsigned(serialized.size());
+            serialized.writeTo(this.stream);
+        }
+
+        private void writeUnsigned(long value) throws IOException
+        {
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                this.stream.write((int) ((remaining & 0x7F) | 0x80));
+                remaining >>>= 7;
+            }
+            this.stream.write((int) remaining);
+        }
+
+        byte[] toByteArray() throws IOException
+        {
+            this.stream.flush();
+
+            return this.bytes.toByteArray();
+        }
+    }
+
+    private final class Input implements RemoteValueInput
+    {
+        private final DataInputStream stream;
+
+        private final List<String> strings = new ArrayList<>();
+
+        private final Map<String, RemoteValueCodec> codecs = new HashMap<>();
+
+        private final ClassLoader classLoader;
+
+        Input(byte[] buffer, int offset, int length, ClassLoader classLoader)
+        {
+            this.stream = new DataInputStream(new ByteArrayInputStream(buffer, offset, length));
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public String readString() throws IOException
+        {
+            long header = readUnsigned();
+
+            if (header == 0) {
+                return null;
+            }
+
+            if ((header & 1) == 1) {
+                long index = header >>> 1;
+                if (index >= this.strings.size()) {
+                    throw new IOException("Invalid reference to string [" + index + "]");
+                }
+
+                return this.strings.get((int) index);
+            }
+
+            byte[] utf8 = new byte[checkLength((header >>> 1) - 1)];
+            this.stream.readFully(utf8);
+            String value = new String(utf8, StandardCharsets.UTF_8);
+            this.strings.add(value);
+
+            return value;
+        }
+
+        @Override
+        public long readNumber() throws IOException
+        {
+            long value = readUnsigned();
+
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        @Override
+        public boolean readBoolean() throws IOException
+        {
+            return this.stream.readUnsignedByte() != 0;
+        }
+
+        @Override
+        public Object readValue() throws IOException
+        {
+            int tag = this.stream.readUnsignedByte();
+
+            switch (tag) {
+                case TAG_NULL:
+                    return null;
+                case TAG_STRING:
+                    return readString();
+                case TAG_INTEGER:
+                    return (int) readNumber();
+                case TAG_LONG:
+                    return readNumber();
+                case TAG_TRUE:
+                    return Boolean.TRUE;
+                case TAG_FALSE:
+                    return Boolean.FALSE;
+                case TAG_HASHMAP:
+                    return readMap();
+                case TAG_ARRAYLIST:
+                    return readList();
+                case TAG_LOCALE:
+                    return Locale.forLanguageTag(readString());
+                case TAG_CODEC:
+                    return getCodec(readString()).decode(this);
+                case TAG_SERIALIZED:
+                    return readSerialized();
+                default:
+                    throw new IOException("Unknown value tag [" + tag + "]");
+            }
+        }
+
+        @Override
+        public ClassLoader getClassLoader()
+        {
+            return this.classLoader;
+        }
+
+        private Map<Object, Object> readMap() throws IOException
+        {
+            int size = checkLength(readUnsigned());
+            Map<Object, Object> map = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; ++i) {
+                map.put(readValue(), readValue());
+            }
+
+            return map;
+        }
+
+        private List<Object> readList() throws IOException
+        {
+            int size = checkLength(readUnsigned());
+            List<Object> list = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                list.add(readValue());
+            }
+
+            return list;
+        }
+
+        private Object readSerialized() throws IOException
+        {
+            byte[] serialized = new byte[checkLength(readUnsigned())];
+            this.stream.readFully(serialized);
+
+            try (ObjectInputStream objectStream =
+                new ClassLoaderObjectInputStream(new ByteArrayInputStream(serialized), this.classLoader)) {
+                return objectStream.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Failed to deserialize value", e);
+            }
+        }
+
+        private RemoteValueCodec getCodec(String hint) throws IOException
+        {
+            RemoteValueCodec codec = this.codecs.get(hint);
+
+            if (codec == null) {
+                try {
+                    codec = componentManager.getInstance(RemoteValueCodec.class, hint);
+                } catch (ComponentLookupException e) {
+                    throw new IOException("Unknown remote value codec [" + hint + "]", e);
+                }
+                this.codecs.put(hint, codec);
+            }
+
+            return codec;
+        }
+
+        private long readUnsigned() throws IOException
+        {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                int b = this.stream.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IOException("Malformed number");
+        }
+
+        private int checkLength(long length) throws IOException
+        {
+            // Every element takes at least one byte so a bigger length can only be a corrupted message
+            if (length < 0 || length > this.stream.available()) {
+                throw new IOException("Invalid length [" + length + "]");
+            }
+
+            return (int) length;
+        }
+    }
+
+    private static final class ClassLoaderObjectInputStream extends ObjectInputStream
+    {
+        private final ClassLoader classLoader;
+
+        ClassLoaderObjectInputStream(InputStream stream, ClassLoader classLoader) throws IOException
+        {
+            super(stream);
+
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+        {
+            if (this.classLoader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, this.classLoader);
+                } catch (ClassNotFoundException e) {
+                    // Try the default resolution
+                }
+            }
+
+            return super.resolveClass(desc);
+        }
+    }
+
+    /**
+     * @param buffer the buffer containing the message
+     * @param offset the offset of the message in the buffer
+     * @param length the length of the message
+     * @return {@code true} if the message was produced by {@link #encode(List)}
+     */
+    public boolean isEncoded(byte[] buffer, int offset, int length)
+    {
+        if (buffer == null || length <= MAGIC.length) {
+            return false;
+        }
+
+        for (int i = 0; i < MAGIC.length; ++i) {
+            if (buffer[offset + i] != MAGIC[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param events the events to encode
+     * @return the encoded events
+     * @throws IOException when failing to encode the events
+     */
+    public byte[] encode(List<RemoteEventData> events) throws IOException
+    {
+        Map<String, RemoteValueCodec> codecs;
+        try {
+            codecs = this.componentManager.getInstanceMap(RemoteValueCodec.class);
+        } catch (ComponentLookupException e) {
+            throw new IOException("Failed to lookup the remote value codecs", e);
+        }
+
+        Output output = new Output(codecs);
+
+        output.writeUnsigned(events.size());
+        for (RemoteEventData event : events) {
+            output.writeValue(event.getEvent());
+            output.writeValue(event.getSource());
+            output.writeValue(event.getData());
+        }
+
+        return output.toByteArray();
+    }
+
+    /**
+     * @param buffer the buffer containing the message
+     * @param offset the offset of the message in the buffer
+     * @param length the length of the message
+     * @param classLoader the class loader to use to load the classes of the decoded values
+     * @return the decoded events
+     * @throws IOException when failing to decode the events
+     */
+    public List<RemoteEventData> decode(byte[] buffer, int offset, int length, ClassLoader classLoader)
+        throws IOException
+    {
+        if (!isEncoded(buffer, offset, length)) {
+            throw new IOException("Not a remote events message");
+        }
+
+        Input input = new Input(buffer, offset + MAGIC.length, length - MAGIC.length, classLoader);
+
+        int version = input.stream.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported remote events message version [" + version + "]");
+        }
+
+        int size = input.checkLength(input.readUnsigned());
+        List<RemoteEventData> events = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            Serializable event = toSerializable(input.readValue());
+            Serializable source = toSerializable(input.readValue());
+            Serializable data = toSerializable(input.readValue());
+
+            events.add(new RemoteEventData(event, source, data));
+        }
+
+        return events;
+    }
+
+    private static Serializable toSerializable(Object value) throws IOException
+    {
+        if (value != null && !(value instanceof Serializable)) {
+            throw new IOException("Decoded value of type [" + value.getClass() + "] is not serializable");
+        }
+
+        return (Serializable) value;
+    }
+
+    private static boolean isLanguageTagCompatible(Locale locale)
+    {
+        return Locale.forLanguageTag(locale.toLanguageTag()).equals(locale);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.codec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.remote.codec.RemoteValueCodec;
+import org.xwiki.observation.remote.codec.RemoteValueInput;
+import org.xwiki.observation.remote.codec.RemoteValueOutput;
+import org.xwiki.observation.remote.internal.invalidation.RemoteInvalidationEvent;
+
+/**
+ * Encode {@link RemoteInvalidationEvent} as its map of invalidated keys.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component
+@Named("invalidation")
+@Singleton
+public class RemoteInvalidationEventCodec implements RemoteValueCodec
+{
+    @Override
+    public boolean canEncode(Object value)
+    {
+        return value.getClass() == RemoteInvalidationEvent.class;
+    }
+
+    @Override
+    public void encode(Object value, RemoteValueOutput output) throws IOException
+    {
+        output.writeValue(((RemoteInvalidationEvent) value).getInvalidations());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object decode(RemoteValueInput input) throws IOException
+    {
+        Object invalidations = input.readValue();
+
+        if (!(invalidations instanceof HashMap)) {
+            throw new IOException("Invalid invalidation event");
+        }
+
+        return new RemoteInvalidationEvent((HashMap<String, ArrayList<String>>) invalidations);
+    }
+}
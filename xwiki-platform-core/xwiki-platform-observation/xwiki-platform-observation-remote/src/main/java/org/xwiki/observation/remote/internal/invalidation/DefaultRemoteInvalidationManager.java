@@ -0,0 +1,229 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.invalidation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.LocalEventData;
+import org.xwiki.observation.remote.RemoteObservationManager;
+import org.xwiki.observation.remote.RemoteObservationManagerConfiguration;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationHandler;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
+
+/**
+ * Default implementation of {@link RemoteInvalidationManager}.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component
+@Singleton
+public class DefaultRemoteInvalidationManager implements RemoteInvalidationManager, Initializable, Disposable
+{
+    private static final String LISTENER_NAME = "observation.remote.invalidation";
+
+    @Inject
+    private RemoteObservationManagerConfiguration configuration;
+
+    @Inject
+    private RemoteObservationManagerContext remoteObservationManagerContext;
+
+    /**
+     * Lazily loaded to initialize the remote observation manager only when something needs to be sent.
+     */
+    @Inject
+    private Provider<RemoteObservationManager> remoteObservationManagerProvider;
+
+    @Inject
+    private ObservationManager observationManager;
+
+    @Inject
+    private Logger logger;
+
+    private final Map<String, RemoteInvalidationHandler> handlers = new ConcurrentHashMap<>();
+
+    private Map<String, Set<String>> pendingInvalidations = new HashMap<>();
+
+    private int pendingSize;
+
+    private ScheduledExecutorService executor;
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final class Listener extends AbstractEventListener
+    {
+        Listener()
+        {
+            super(LISTENER_NAME, new RemoteInvalidationEvent());
+        }
+
+        @Override
+        public void onEvent(Event event, Object source, Object data)
+        {
+            // Only the invalidations received from other members are interesting
+            if (remoteObservationManagerContext.isRemoteState()) {
+                apply((RemoteInvalidationEvent) event);
+            }
+        }
+    }
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.observationManager.addListener(new Listener(), EventListener.CACHE_INVALIDATION_DEFAULT_PRIORITY);
+    }
+
+    @Override
+    public void addHandler(String id, RemoteInvalidationHandler handler)
+    {
+        this.handlers.put(id, handler);
+    }
+
+    @Override
+    public void removeHandler(String id)
+    {
+        this.handlers.remove(id);
+    }
+
+    @Override
+    public void invalidate(String id, String key)
+    {
+        if (!this.configuration.isEnabled() || this.remoteObservationManagerContext.isRemoteState()) {
+            return;
+        }
+
+        boolean flushNow;
+        synchronized (this) {
+            if (this.pendingInvalidations.computeIfAbsent(id, k -> new LinkedHashSet<>()).add(key)) {
+                ++this.pendingSize;
+            }
+
+            long maxDelay = this.configuration.getInvalidationMaxDelay();
+            flushNow = maxDelay <= 0 || this.pendingSize >= this.configuration.getInvalidationMaxSize();
+
+            if (!flushNow && this.scheduledFlush == null) {
+                this.scheduledFlush = getExecutor().schedule(this::flush, maxDelay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush()
+    {
+        Map<String, Set<String>> invalidations;
+        synchronized (this) {
+            if (this.scheduledFlush != null) {
+                this.scheduledFlush.cancel(false);
+                this.scheduledFlush = null;
+            }
+
+            if (this.pendingInvalidations.isEmpty()) {
+                return;
+            }
+
+            invalidations = this.pendingInvalidations;
+            this.pendingInvalidations = new HashMap<>();
+            this.pendingSize = 0;
+        }
+
+        HashMap<String, ArrayList<String>> keys = new HashMap<>(invalidations.size());
+        for (Map.Entry<String, Set<String>> entry : invalidations.entrySet()) {
+            keys.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+
+        try {
+            this.remoteObservationManagerProvider.get()
+                .notify(new LocalEventData(new RemoteInvalidationEvent(keys), null, null));
+        } catch (Exception e) {
+            this.logger.error("Failed to send the invalidations [{}]", keys, e);
+        }
+    }
+
+    private void apply(RemoteInvalidationEvent event)
+    {
+        for (Map.Entry<String, ArrayList<String>> entry : event.getInvalidations().entrySet()) {
+            RemoteInvalidationHandler handler = this.handlers.get(entry.getKey());
+
+            if (handler != null) {
+                try {
+                    handler.invalidate(entry.getValue());
+                } catch (Exception e) {
+                    this.logger.error("Failed to apply the remote invalidations of [{}]", entry.getKey(), e);
+                }
+            }
+        }
+    }
+
+    private ScheduledExecutorService getExecutor()
+    {
+        if (this.executor == null) {
+            this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "XWiki remote invalidations sender");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        return this.executor;
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.observationManager.removeListener(LISTENER_NAME);
+
+        flush();
+
+        synchronized (this) {
+            if (this.executor != null) {
+                this.executor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.invalidation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.xwiki.observation.event.Event;
+
+/**
+ * The remote event carrying a batch of invalidated keys, indexed by cache identifier.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class RemoteInvalidationEvent implements Event, Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final HashMap<String, ArrayList<String>> invalidations;
+
+    /**
+     * Listener to all invalidation events.
+     */
+    public RemoteInvalidationEvent()
+    {
+        this.invalidations = new HashMap<>();
+    }
+
+    /**
+     * @param invalidations the invalidated keys, indexed by cache identifier
+     */
+    public RemoteInvalidationEvent(HashMap<String, ArrayList<String>> invalidations)
+    {
+        this.invalidations = invalidations;
+    }
+
+    /**
+     * @return the invalidated keys, indexed by cache identifier
+     */
+    public HashMap<String, ArrayList<String>> getInvalidations()
+    {
+        return this.invalidations;
+    }
+
+    @Override
+    public boolean matches(Object otherEvent)
+    {
+        return otherEvent instanceof RemoteInvalidationEvent;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RemoteInvalidationEvent " + this.invalidations;
+    }
+}
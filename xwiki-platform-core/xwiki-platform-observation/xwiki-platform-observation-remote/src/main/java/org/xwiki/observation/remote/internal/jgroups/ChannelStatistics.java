@@ -0,0 +1,182 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.jgroups;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and latency statistics of a JGroups channel.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class ChannelStatistics
+{
+    private final LongAdder sentMessages = new LongAdder();
+
+    private final LongAdder sentEvents = new LongAdder();
+
+    private final LongAdder sentBytes = new LongAdder();
+
+    private final LongAdder sendFailures = new LongAdder();
+
+    private final LongAdder sendLatency = new LongAdder();
+
+    private final AtomicLong maxSendLatency = new AtomicLong();
+
+    private final LongAdder receivedMessages = new LongAdder();
+
+    private final LongAdder receivedBytes = new LongAdder();
+
+    private final LongAdder receiveTime = new LongAdder();
+
+    /**
+     * @param events the number of events in the sent message
+     * @param bytes the size of the sent message
+     * @param totalLatency the sum of the time (in nanoseconds) the events of the message waited before being sent
+     * @param maxLatency the maximum time (in nanoseconds) an event of the message waited before being sent
+     */
+    public void sent(int events, long bytes, long totalLatency, long maxLatency)
+    {
+        this.sentMessages.increment();
+        this.sentEvents.add(events);
+        this.sentBytes.add(bytes);
+        this.sendLatency.add(totalLatency);
+        this.maxSendLatency.accumulateAndGet(maxLatency, Math::max);
+    }
+
+    /**
+     * Indicate that a message could not be sent.
+     */
+    public void failed()
+    {
+        this.sendFailures.increment();
+    }
+
+    /**
+     * @param bytes the size of the received message
+     * @param time the time (in nanoseconds) spent handling the message
+     */
+    public void received(long bytes, long time)
+    {
+        this.receivedMessages.increment();
+        this.receivedBytes.add(bytes);
+        this.receiveTime.add(time);
+    }
+
+    /**
+     * @return the number of messages sent
+     */
+    public long getSentMessages()
+    {
+        return this.sentMessages.sum();
+    }
+
+    /**
+     * @return the number of events sent
+     */
+    public long getSentEvents()
+    {
+        return this.sentEvents.sum();
+    }
+
+    /**
+     * @return the number of bytes sent
+     */
+    public long getSentBytes()
+    {
+        return this.sentBytes.sum();
+    }
+
+    /**
+     * @return the number of messages which could not be sent
+     */
+    public long getSendFailures()
+    {
+        return this.sendFailures.sum();
+    }
+
+    /**
+     * @return the average time in milliseconds between the moment an event is produced and the moment it's sent
+     */
+    public double getAverageSendLatency()
+    {
+        long events = this.sentEvents.sum();
+
+        return events > 0 ? toMilliseconds(this.sendLatency.sum()) / events : 0;
+    }
+
+    /**
+     * @return the maximum time in milliseconds between the moment an event is produced and the moment it's sent
+     */
+    public double getMaxSendLatency()
+    {
+        return toMilliseconds(this.maxSendLatency.get());
+    }
+
+    /**
+     * @return the number of messages received
+     */
+    public long getReceivedMessages()
+    {
+        return this.receivedMessages.sum();
+    }
+
+    /**
+     * @return the number of bytes received
+     */
+    public long getReceivedBytes()
+    {
+        return this.receivedBytes.sum();
+    }
+
+    /**
+     * @return the average time in milliseconds spent handling a received message
+     */
+    public double getAverageReceiveTime()
+    {
+        long messages = this.receivedMessages.sum();
+
+        return messages > 0 ? toMilliseconds(this.receiveTime.sum()) / messages : 0;
+    }
+
+    /**
+     * Reset all the statistics.
+     */
+    public void reset()
+    {
+        this.sentMessages.reset();
+        this.sentEvents.reset();
+        this.sentBytes.reset();
+        this.sendFailures.reset();
+        this.sendLatency.reset();
+        this.maxSendLatency.set(0);
+        this.receivedMessages.reset();
+        this.receivedBytes.reset();
+        this.receiveTime.reset();
+    }
+
+    private static double toMilliseconds(long nanoseconds)
+    {
+        return (double) nanoseconds / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -19,6 +19,9 @@
  */
 package org.xwiki.observation.remote.internal.jgroups;
 
+import java.io.IOException;
+import java.util.List;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -32,6 +35,7 @@
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.observation.remote.RemoteEventData;
 import org.xwiki.observation.remote.RemoteObservationManager;
+import org.xwiki.observation.remote.internal.codec.RemoteEventCodec;
 import org.xwiki.observation.remote.jgroups.JGroupsReceiver;
 
 /**
@@ -59,6 +63,9 @@ public class DefaultJGroupsReceiver extends ReceiverAdapter implements JGroupsRe
     @Inject
     private ClassLoaderManager classLoaderManager;
 
+    @Inject
+    private RemoteEventCodec codec;
+
     /**
      * The logger to log.
      */
@@ -85,12 +92,38 @@ public RemoteObservationManager getRemoteObservationManager()
     public void receive(Message msg)
     {
         if (msg instanceof BytesMessage) {
-            RemoteEventData remoteEvent = (RemoteEventData) ((BytesMessage) msg)
-                .getObject(this.classLoaderManager.getURLClassLoader(null, false));
+            ClassLoader classLoader = this.classLoaderManager.getURLClassLoader(null, false);
 
-            this.logger.debug("Received JGroups remote event [{}]", remoteEvent);
+            if (this.codec.isEncoded(msg.getArray(), msg.getOffset(), msg.getLength())) {
+                receiveEncoded(msg, classLoader);
+            } else {
+                RemoteEventData remoteEvent = (RemoteEventData) ((BytesMessage) msg).getObject(classLoader);
 
-            getRemoteObservationManager().notify(remoteEvent);
+                notify(remoteEvent);
+            }
         }
     }
+
+    private void receiveEncoded(Message msg, ClassLoader classLoader)
+    {
+        List<RemoteEventData> remoteEvents;
+        try {
+            remoteEvents = this.codec.decode(msg.getArray(), msg.getOffset(), msg.getLength(), classLoader);
+        } catch (IOException e) {
+            this.logger.error("Failed to decode JGroups remote events message from [{}]", msg.getSrc(), e);
+
+            return;
+        }
+
+        for (RemoteEventData remoteEvent : remoteEvents) {
+            notify(remoteEvent);
+        }
+    }
+
+    private void notify(RemoteEventData remoteEvent)
+    {
+        this.logger.debug("Received JGroups remote event [{}]", remoteEvent);
+
+        getRemoteObservationManager().notify(remoteEvent);
+    }
 }
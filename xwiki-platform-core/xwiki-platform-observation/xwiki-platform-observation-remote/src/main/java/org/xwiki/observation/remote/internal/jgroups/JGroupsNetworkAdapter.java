@@ -23,13 +23,21 @@
 import java.io.InputStream;
 import java.lang.management.ManagementFactory;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 
 import org.jgroups.BytesMessage;
 import org.jgroups.Global;
@@ -47,6 +55,9 @@
 import org.xwiki.observation.remote.NetworkAdapter;
 import org.xwiki.observation.remote.RemoteEventData;
 import org.xwiki.observation.remote.RemoteEventException;
+import org.xwiki.observation.remote.RemoteObservationManagerConfiguration;
+import org.xwiki.observation.remote.internal.codec.RemoteEventCodec;
+import org.xwiki.observation.remote.internal.jmx.JMXRemoteChannel;
 import org.xwiki.observation.remote.jgroups.JGroupsReceiver;
 
 /**
@@ -77,30 +88,208 @@ public class JGroupsNetworkAdapter implements NetworkAdapter
     @Inject
     private Logger logger;
 
+    @Inject
+    private RemoteObservationManagerConfiguration configuration;
+
+    @Inject
+    private RemoteEventCodec codec;
+
     /**
      * The network channels.
      */
     private Map<String, JChannel> channels = new ConcurrentHashMap<>();
 
+    private final Map<String, ChannelStatistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * The events waiting to be sent in the compact format.
+     */
+    private final BlockingQueue<PendingEvent> pendingEvents = new LinkedBlockingQueue<>();
+
+    private Thread senderThread;
+
+    private static final class PendingEvent
+    {
+        private final RemoteEventData event;
+
+        private final long date = System.nanoTime();
+
+        PendingEvent(RemoteEventData event)
+        {
+            this.event = event;
+        }
+    }
+
     @Override
     public void send(RemoteEventData remoteEvent)
     {
         this.logger.debug("Send JGroups remote event [{}]", remoteEvent.toString());
 
+        if (this.configuration.isCompactFormatEnabled()) {
+            // The events are grouped and sent by a dedicated thread
+            startSender();
+
+            this.pendingEvents.add(new PendingEvent(remoteEvent));
+        } else {
+            sendSerialized(remoteEvent);
+        }
+    }
+
+    private void sendSerialized(RemoteEventData remoteEvent)
+    {
+        long date = System.nanoTime();
+
         // Send the message to the whole group
         Message message = new BytesMessage(null,  remoteEvent);
 
         // Send message to JGroups channels
         for (Map.Entry<String, JChannel> entry : this.channels.entrySet()) {
+            ChannelStatistics channelStatistics = getStatistics(entry.getKey());
             try {
                 entry.getValue().send(message);
+
+                long latency = System.nanoTime() - date;
+                channelStatistics.sent(1, message.getLength(), latency, latency);
             } catch (Exception e) {
+                channelStatistics.failed();
+
                 this.logger.error("Failed to send message [{}] to the channel [{}]", remoteEvent.toString(),
                     entry.getKey(), e);
             }
         }
     }
 
+    private synchronized void startSender()
+    {
+        if (this.senderThread == null) {
+            this.senderThread = new Thread(this::runSender, "XWiki remote events sender");
+            this.senderThread.setDaemon(true);
+            this.senderThread.start();
+        }
+    }
+
+    private void stopSender()
+    {
+        Thread thread;
+        synchronized (this) {
+            thread = this.senderThread;
+            this.senderThread = null;
+        }
+
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Send what's left
+        List<PendingEvent> batch = new ArrayList<>();
+        this.pendingEvents.drainTo(batch);
+        if (!batch.isEmpty()) {
+            sendBatch(batch);
+        }
+    }
+
+    private void runSender()
+    {
+        List<PendingEvent> batch = new ArrayList<>();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(this.pendingEvents.take());
+
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (!batch.isEmpty()) {
+                sendBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingEvent> batch) throws InterruptedException
+    {
+        int maxSize = this.configuration.getBatchMaxSize();
+        long maxDelay = this.configuration.getBatchMaxDelay();
+
+        if (maxDelay > 0) {
+            long deadline = batch.get(0).date + TimeUnit.MILLISECONDS.toNanos(maxDelay);
+            while (batch.size() < maxSize) {
+                long remaining = deadline - System.nanoTime();
+                PendingEvent event = remaining > 0 ? this.pendingEvents.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (event == null) {
+                    break;
+                }
+                batch.add(event);
+            }
+        } else if (batch.size() < maxSize) {
+            // Take whatever was produced while the previous message was being sent
+            this.pendingEvents.drainTo(batch, maxSize - batch.size());
+        }
+    }
+
+    private void sendBatch(List<PendingEvent> batch)
+    {
+        List<RemoteEventData> events = new ArrayList<>(batch.size());
+        for (PendingEvent pendingEvent : batch) {
+            events.add(pendingEvent.event);
+        }
+
+        byte[] bytes;
+        try {
+            bytes = this.codec.encode(events);
+        } catch (Exception e) {
+            if (batch.size() > 1) {
+                // Isolate the event(s) which cannot be encoded
+                for (PendingEvent pendingEvent : batch) {
+                    sendBatch(Collections.singletonList(pendingEvent));
+                }
+            } else {
+                this.logger.error("Failed to encode remote event [{}]", batch.get(0).event, e);
+            }
+
+            return;
+        }
+
+        for (Map.Entry<String, JChannel> entry : this.channels.entrySet()) {
+            ChannelStatistics channelStatistics = getStatistics(entry.getKey());
+            try {
+                entry.getValue().send(new BytesMessage(null, bytes));
+
+                long now = System.nanoTime();
+                long totalLatency = 0;
+                long maxLatency = 0;
+                for (PendingEvent pendingEvent : batch) {
+                    long latency = now - pendingEvent.date;
+                    totalLatency += latency;
+                    maxLatency = Math.max(maxLatency, latency);
+                }
+                channelStatistics.sent(batch.size(), bytes.length, totalLatency, maxLatency);
+            } catch (Exception e) {
+                channelStatistics.failed();
+
+                this.logger.error("Failed to send [{}] remote events to the channel [{}]", batch.size(),
+                    entry.getKey(), e);
+            }
+        }
+    }
+
+    private ChannelStatistics getStatistics(String channelId)
+    {
+        return this.statistics.computeIfAbsent(channelId, k -> new ChannelStatistics());
+    }
+
+    private ObjectName getStatisticsObjectName(String channelId) throws MalformedObjectNameException
+    {
+        return new ObjectName("org.xwiki:type=RemoteObservation,channel=" + ObjectName.quote(channelId));
+    }
+
     @Override
     public void startChannel(String channelId) throws RemoteEventException
     {
@@ -122,6 +311,7 @@ public void startChannel(String channelId) throws RemoteEventException
         try {
             MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
             JmxConfigurator.registerChannel(channel, mbs, channel.getClusterName());
+            mbs.registerMBean(new JMXRemoteChannel(getStatistics(channelId)), getStatisticsObjectName(channelId));
         } catch (Exception e) {
             this.logger.warn("Failed to register channel [" + channelId + "] against the JMX Server", e);
         }
@@ -146,6 +336,7 @@ public void stopChannel(String channelId) throws RemoteEventException
         try {
             MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
             JmxConfigurator.unregister(channel, mbs, channel.getClusterName());
+            mbs.unregisterMBean(getStatisticsObjectName(channelId));
         } catch (Exception e) {
             this.logger.warn("Failed to unregister channel [{}] from the JMX Server", channelId, e);
         }
@@ -176,7 +367,7 @@ private JChannel createChannel(String channelId) throws Exception
         // create channel
         JChannel channel = new JChannel(channelConf);
 
-        channel.setReceiver(channelReceiver);
+        channel.setReceiver(new StatisticsReceiver(channelReceiver, getStatistics(channelId)));
         channel.setDiscardOwnMessages(true);
 
         return channel;
@@ -226,6 +417,9 @@ private InputStream getChannelConfiguration(String channelId) throws IOException
     @Override
     public void stopAllChannels() throws RemoteEventException
     {
+        // Make sure all the events produced so far are sent before closing the channels
+        stopSender();
+
         for (Map.Entry<String, JChannel> channelEntry : this.channels.entrySet()) {
             channelEntry.getValue().close();
         }
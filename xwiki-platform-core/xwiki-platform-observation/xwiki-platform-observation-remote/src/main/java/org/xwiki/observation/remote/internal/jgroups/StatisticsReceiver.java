@@ -0,0 +1,79 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.jgroups;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.jgroups.Message;
+import org.jgroups.Receiver;
+import org.jgroups.View;
+
+/**
+ * Wrap the {@link Receiver} of a channel to collect statistics about the received messages.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class StatisticsReceiver implements Receiver
+{
+    private final Receiver receiver;
+
+    private final ChannelStatistics statistics;
+
+    /**
+     * @param receiver the actual receiver
+     * @param statistics the statistics of the channel
+     */
+    public StatisticsReceiver(Receiver receiver, ChannelStatistics statistics)
+    {
+        this.receiver = receiver;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void receive(Message msg)
+    {
+        long start = System.nanoTime();
+        try {
+            this.receiver.receive(msg);
+        } finally {
+            this.statistics.received(msg.getLength(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void viewAccepted(View newView)
+    {
+        this.receiver.viewAccepted(newView);
+    }
+
+    @Override
+    public void getState(OutputStream output) throws Exception
+    {
+        this.receiver.getState(output);
+    }
+
+    @Override
+    public void setState(InputStream input) throws Exception
+    {
+        this.receiver.setState(input);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.jmx;
+
+import org.xwiki.observation.remote.internal.jgroups.ChannelStatistics;
+
+/**
+ * Default implementation of {@link JMXRemoteChannelMBean}.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class JMXRemoteChannel implements JMXRemoteChannelMBean
+{
+    private final ChannelStatistics statistics;
+
+    /**
+     * @param statistics the statistics of the channel
+     */
+    public JMXRemoteChannel(ChannelStatistics statistics)
+    {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public long getSentMessages()
+    {
+        return this.statistics.getSentMessages();
+    }
+
+    @Override
+    public long getSentEvents()
+    {
+        return this.statistics.getSentEvents();
+    }
+
+    @Override
+    public long getSentBytes()
+    {
+        return this.statistics.getSentBytes();
+    }
+
+    @Override
+    public long getSendFailures()
+    {
+        return this.statistics.getSendFailures();
+    }
+
+    @Override
+    public double getAverageSendLatency()
+    {
+        return this.statistics.getAverageSendLatency();
+    }
+
+    @Override
+    public double getMaxSendLatency()
+    {
+        return this.statistics.getMaxSendLatency();
+    }
+
+    @Override
+    public long getReceivedMessages()
+    {
+        return this.statistics.getReceivedMessages();
+    }
+
+    @Override
+    public long getReceivedBytes()
+    {
+        return this.statistics.getReceivedBytes();
+    }
+
+    @Override
+    public double getAverageReceiveTime()
+    {
+        return this.statistics.getAverageReceiveTime();
+    }
+
+    @Override
+    public void reset()
+    {
+        this.statistics.reset();
+    }
+}
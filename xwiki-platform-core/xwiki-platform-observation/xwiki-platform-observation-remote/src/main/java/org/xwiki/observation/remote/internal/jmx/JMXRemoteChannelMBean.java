@@ -0,0 +1,79 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.jmx;
+
+/**
+ * MBean exposing the throughput and latency of a remote events channel.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public interface JMXRemoteChannelMBean
+{
+    /**
+     * @return the number of network messages sent
+     */
+    long getSentMessages();
+
+    /**
+     * @return the number of remote events sent
+     */
+    long getSentEvents();
+
+    /**
+     * @return the number of bytes sent
+     */
+    long getSentBytes();
+
+    /**
+     * @return the number of network messages which could not be sent
+     */
+    long getSendFailures();
+
+    /**
+     * @return the average time in milliseconds between the moment an event is produced and the moment it's sent
+     */
+    double getAverageSendLatency();
+
+    /**
+     * @return the maximum time in milliseconds between the moment an event is produced and the moment it's sent
+     */
+    double getMaxSendLatency();
+
+    /**
+     * @return the number of network messages received
+     */
+    long getReceivedMessages();
+
+    /**
+     * @return the number of bytes received
+     */
+    long getReceivedBytes();
+
+    /**
+     * @return the average time in milliseconds spent handling a received network message
+     */
+    double getAverageReceiveTime();
+
+    /**
+     * Reset all the statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,63 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.invalidation;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Send cache invalidations to the other members of the cluster.
+ * <p>
+ * Invalidated keys are accumulated and deduplicated for a short time and then sent in a single remote event which is
+ * applied on the other members by calling directly the {@link RemoteInvalidationHandler} registered with the same
+ * identifier (without going through the whole chain of listeners of the document events, for example).
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Role
+@Unstable
+public interface RemoteInvalidationManager
+{
+    /**
+     * @param id the identifier of the invalidated cache, it must be the same on all the members of the cluster
+     * @param handler the handler in charge of applying the invalidations received from the other members
+     */
+    void addHandler(String id, RemoteInvalidationHandler handler);
+
+    /**
+     * @param id the identifier of the invalidated cache
+     */
+    void removeHandler(String id);
+
+    /**
+     * Indicate that an entry should be invalidated on the other members of the cluster. Invalidations produced while
+     * handling a remote event are ignored since all the members received the same event.
+     *
+     * @param id the identifier of the invalidated cache
+     * @param key the invalidated key
+     */
+    void invalidate(String id, String key);
+
+    /**
+     * Immediately send the pending invalidations.
+     */
+    void flush();
+}
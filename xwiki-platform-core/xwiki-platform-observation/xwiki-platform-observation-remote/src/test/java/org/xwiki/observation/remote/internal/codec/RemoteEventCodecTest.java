@@ -0,0 +1,140 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.codec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.logging.event.LogEvent;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.test.TestEvent;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link RemoteEventCodec}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@ComponentList({EventFilterRemoteValueCodec.class, EventRemoteValueCodec.class})
+class RemoteEventCodecTest
+{
+    @InjectMockComponents
+    private RemoteEventCodec codec;
+
+    private List<RemoteEventData> roundTrip(RemoteEventData... events) throws IOException
+    {
+        byte[] bytes = this.codec.encode(Arrays.asList(events));
+
+        assertTrue(this.codec.isEncoded(bytes, 0, bytes.length));
+
+        return this.codec.decode(bytes, 0, bytes.length, getClass().getClassLoader());
+    }
+
+    @Test
+    void encodeDecode() throws IOException
+    {
+        HashMap<String, Object> source = new HashMap<>();
+        source.put("string", "value");
+        source.put("integer", 42);
+        source.put("long", -42L);
+        source.put("boolean", true);
+        source.put("locale", Locale.FRANCE);
+        source.put("null", null);
+        source.put("list", new ArrayList<>(Arrays.asList("value", 1, null)));
+
+        List<RemoteEventData> events =
+            roundTrip(new RemoteEventData(new TestEvent(), source, "value"), new RemoteEventData(null, null, null));
+
+        assertEquals(2, events.size());
+
+        RemoteEventData event = events.get(0);
+        assertInstanceOf(TestEvent.class, event.getEvent());
+        assertEquals(source, event.getSource());
+        assertEquals("value", event.getData());
+
+        event = events.get(1);
+        assertNull(event.getEvent());
+        assertNull(event.getSource());
+        assertNull(event.getData());
+    }
+
+    @Test
+    void encodeDecodeSerializable() throws IOException
+    {
+        // LogEvent holds some state so it cannot be handled by the event codec and is serialized
+        LogEvent logEvent = new LogEvent();
+
+        RemoteEventData event = roundTrip(new RemoteEventData(logEvent, null, null)).get(0);
+
+        assertInstanceOf(LogEvent.class, event.getEvent());
+    }
+
+    @Test
+    void encodeIsSmallerThanSerialization() throws IOException
+    {
+        Map<String, String> source = new HashMap<>();
+        source.put("key", "value");
+
+        byte[] bytes = this.codec.encode(List.of(new RemoteEventData(new TestEvent(), new HashMap<>(source), null)));
+
+        // Java serialization of the same event takes several hundreds of bytes
+        assertTrue(bytes.length < 100, "Unexpected size: " + bytes.length);
+    }
+
+    @Test
+    void stringsAreWrittenOnce() throws IOException
+    {
+        String value = "a long enough string to make a difference in the message size";
+
+        int once = this.codec.encode(List.of(new RemoteEventData(null, value, null))).length;
+        int twice = this.codec.encode(List.of(new RemoteEventData(null, value, value))).length;
+
+        assertTrue(twice - once < 5);
+    }
+
+    @Test
+    void decodeInvalid()
+    {
+        byte[] bytes = new byte[] {'X', 'R', 'E', 1, 1, 42};
+
+        assertThrows(IOException.class, () -> this.codec.decode(bytes, 0, bytes.length, null));
+
+        byte[] serialized = new byte[] {1, 2, 3, 4};
+
+        assertFalse(this.codec.isEncoded(serialized, 0, serialized.length));
+        assertThrows(IOException.class, () -> this.codec.decode(serialized, 0, serialized.length, null));
+    }
+}
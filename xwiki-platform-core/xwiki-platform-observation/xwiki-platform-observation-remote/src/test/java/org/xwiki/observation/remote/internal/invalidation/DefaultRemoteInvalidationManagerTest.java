@@ -0,0 +1,157 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.invalidation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.remote.LocalEventData;
+import org.xwiki.observation.remote.RemoteObservationManager;
+import org.xwiki.observation.remote.RemoteObservationManagerConfiguration;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationHandler;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DefaultRemoteInvalidationManager}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultRemoteInvalidationManagerTest
+{
+    @InjectMockComponents
+    private DefaultRemoteInvalidationManager manager;
+
+    @MockComponent
+    private RemoteObservationManagerConfiguration configuration;
+
+    @MockComponent
+    private RemoteObservationManagerContext remoteContext;
+
+    @MockComponent
+    private RemoteObservationManager remoteObservationManager;
+
+    @MockComponent
+    private ObservationManager observationManager;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(this.configuration.isEnabled()).thenReturn(true);
+        when(this.configuration.getInvalidationMaxDelay()).thenReturn(60000L);
+        when(this.configuration.getInvalidationMaxSize()).thenReturn(3);
+    }
+
+    private RemoteInvalidationEvent captureSentEvent()
+    {
+        ArgumentCaptor<LocalEventData> captor = ArgumentCaptor.forClass(LocalEventData.class);
+        verify(this.remoteObservationManager).notify(captor.capture());
+
+        return (RemoteInvalidationEvent) captor.getValue().getEvent();
+    }
+
+    @Test
+    void invalidateIsDeduplicatedAndFlushedWhenFull()
+    {
+        this.manager.invalidate("cache1", "key1");
+        this.manager.invalidate("cache1", "key1");
+        this.manager.invalidate("cache2", "key1");
+
+        verify(this.remoteObservationManager, never()).notify(any(LocalEventData.class));
+
+        this.manager.invalidate("cache1", "key2");
+
+        Map<String, List<String>> expected = new HashMap<>();
+        expected.put("cache1", List.of("key1", "key2"));
+        expected.put("cache2", List.of("key1"));
+        assertEquals(expected, captureSentEvent().getInvalidations());
+    }
+
+    @Test
+    void flush()
+    {
+        this.manager.flush();
+
+        verify(this.remoteObservationManager, never()).notify(any(LocalEventData.class));
+
+        this.manager.invalidate("cache", "key");
+        this.manager.flush();
+
+        assertEquals(Map.of("cache", List.of("key")), captureSentEvent().getInvalidations());
+    }
+
+    @Test
+    void invalidateInRemoteState()
+    {
+        when(this.remoteContext.isRemoteState()).thenReturn(true);
+
+        this.manager.invalidate("cache", "key");
+        this.manager.flush();
+
+        verify(this.remoteObservationManager, never()).notify(any(LocalEventData.class));
+    }
+
+    @Test
+    void receive()
+    {
+        ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+        verify(this.observationManager).addListener(listenerCaptor.capture(), anyInt());
+        EventListener listener = listenerCaptor.getValue();
+
+        RemoteInvalidationHandler handler = mock(RemoteInvalidationHandler.class);
+        this.manager.addHandler("cache", handler);
+
+        HashMap<String, ArrayList<String>> invalidations = new HashMap<>();
+        invalidations.put("cache", new ArrayList<>(List.of("key1", "key2")));
+        invalidations.put("unknown", new ArrayList<>(List.of("key")));
+        RemoteInvalidationEvent event = new RemoteInvalidationEvent(invalidations);
+
+        // Local events are ignored
+        listener.onEvent(event, null, null);
+        verify(handler, never()).invalidate(any());
+
+        when(this.remoteContext.isRemoteState()).thenReturn(true);
+        listener.onEvent(event, null, null);
+        verify(handler, times(1)).invalidate(List.of("key1", "key2"));
+
+        this.manager.removeHandler("cache");
+        listener.onEvent(event, null, null);
+        verify(handler, times(1)).invalidate(any());
+    }
+}
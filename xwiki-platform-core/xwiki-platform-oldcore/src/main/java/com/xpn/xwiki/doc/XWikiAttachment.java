@@ -24,10 +24,12 @@
 import java.io.InputStream;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ObjectUtils;
@@ -59,6 +61,7 @@
 import org.xwiki.model.reference.EntityReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.WikiReference;
+import org.xwiki.stability.Unstable;
 import org.xwiki.text.XWikiToStringBuilder;
 import org.xwiki.tika.internal.TikaUtils;
 
@@ -917,6 +920,26 @@ public InputStream getContentInputStream(XWikiContext xcontext) throws XWikiExce
         return getContentInputStream();
     }
 
+    /**
+     * Retrieve the file holding the content of this attachment, when the store keeps it in a file which can be read
+     * directly. Reading the file instead of {@link #getContentInputStream(XWikiContext)} allows transferring large
+     * contents without copying them in memory.
+     *
+     * @param xcontext current XWikiContext
+     * @return the file containing the content of this attachment, empty if the content is not available as a file
+     * @throws XWikiException when an error occurs during wiki operation
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    public Optional<Path> getContentPath(XWikiContext xcontext) throws XWikiException
+    {
+        if (this.content == null && xcontext != null) {
+            reloadAttachmentContent(xcontext);
+        }
+
+        return this.content != null ? this.content.getContentPath() : Optional.empty();
+    }
+
     private InputStream getContentInputStream()
     {
         return this.content != null ? this.content.getContentInputStream() : null;
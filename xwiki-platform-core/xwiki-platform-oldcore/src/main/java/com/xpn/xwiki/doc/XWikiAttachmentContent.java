@@ -24,6 +24,8 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Optional;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.disk.DiskFileItem;
@@ -32,6 +34,7 @@
 import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.io.output.ProxyOutputStream;
 import org.xwiki.environment.Environment;
+import org.xwiki.stability.Unstable;
 import org.xwiki.store.UnexpectedException;
 
 import com.xpn.xwiki.web.Utils;
@@ -343,6 +346,24 @@ public int getSize()
         return longSize > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) longSize;
     }
 
+    /**
+     * Give access to the file holding the content, when there is one, so that it can be read without going through an
+     * {@link InputStream} (for example to transfer it directly from the file system).
+     *
+     * @return the file containing exactly the content of the attachment, empty if the content is not stored in a file
+     *         which can be read directly
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    public Optional<Path> getContentPath()
+    {
+        if (this.file instanceof DiskFileItem && !this.file.isInMemory()) {
+            return Optional.of(((DiskFileItem) this.file).getStoreLocation().toPath());
+        }
+
+        return Optional.empty();
+    }
+
     /**
      * @return the true size of the content of the attachment. -1 if the size is unknown.
      * @since 9.0RC1
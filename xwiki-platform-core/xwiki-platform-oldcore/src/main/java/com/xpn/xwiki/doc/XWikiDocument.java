@@ -554,6 +554,13 @@ private static Transformation getMacroTransformation()
      */
     private Map<DocumentReference, BaseObjects> xObjects = new ConcurrentSkipListMap<>();
 
+    /**
+     * The objects of the cached document from which this document was cloned, as they were when it was cloned, and
+     * which still need to be cloned. The objects are cloned the first time they are accessed to avoid cloning them when
+     * they are not needed.
+     */
+    private volatile Map<DocumentReference, BaseObjects> xObjectsToClone;
+
     /**
      * The publicly exposed Map.
      */
@@ -563,7 +570,8 @@ private static Transformation getMacroTransformation()
         public List<BaseObject> put(DocumentReference key, List<BaseObject> value)
         {
             // Makes sure to always insert BaseObjects
-            return xObjects.put(key, value instanceof BaseObjects ? (BaseObjects) value : new BaseObjects(value));
+            return getInternalXObjects().put(key,
+                value instanceof BaseObjects ? (BaseObjects) value : new BaseObjects(value));
         }
 
         @Override
@@ -575,61 +583,61 @@ public void putAll(Map<? extends DocumentReference, ? extends List<BaseObject>>
         @Override
         public int size()
         {
-            return xObjects.size();
+            return getInternalXObjects().size();
         }
 
         @Override
         public boolean isEmpty()
         {
-            return xObjects.isEmpty();
+            return getInternalXObjects().isEmpty();
         }
 
         @Override
         public boolean containsKey(Object key)
         {
-            return xObjects.containsKey(key);
+            return getInternalXObjects().containsKey(key);
         }
 
         @Override
         public boolean containsValue(Object value)
         {
-            return xObjects.containsValue(value);
+            return getInternalXObjects().containsValue(value);
         }
 
         @Override
         public List<BaseObject> get(Object key)
         {
-            return xObjects.get(key);
+            return getInternalXObjects().get(key);
         }
 
         @Override
         public List<BaseObject> remove(Object key)
         {
-            return xObjects.remove(key);
+            return getInternalXObjects().remove(key);
         }
 
         @Override
         public void clear()
         {
-            xObjects.clear();
+            getInternalXObjects().clear();
         }
 
         @Override
         public Set<DocumentReference> keySet()
         {
-            return xObjects.keySet();
+            return getInternalXObjects().keySet();
         }
 
         @Override
         public Collection<List<BaseObject>> values()
         {
-            return (Collection) xObjects.values();
+            return (Collection) getInternalXObjects().values();
         }
 
         @Override
         public Set<Entry<DocumentReference, List<BaseObject>>> entrySet()
         {
-            return (Set) xObjects.entrySet();
+            return (Set) getInternalXObjects().entrySet();
         }
     };
 
@@ -2840,6 +2848,7 @@ public void setXObjects(Map<DocumentReference, List<BaseObject>> objects)
         Map<DocumentReference, BaseObjects> objectsCopy = new ConcurrentSkipListMap<>();
         objects.forEach((k, v) -> objectsCopy.put(k, new BaseObjects(v)));
         this.xObjects = objectsCopy;
+        this.xObjectsToClone = null;
     }
 
     /**
@@ -2903,10 +2912,10 @@ public int createXObject(EntityReference classReference, XWikiContext context) t
         BaseObject object = BaseClass.newCustomClassInstance(absoluteClassReference, context);
         object.setOwnerDocument(this);
         object.setXClassReference(classReference);
-        BaseObjects objects = this.xObjects.get(absoluteClassReference);
+        BaseObjects objects = getInternalXObjects().get(absoluteClassReference);
         if (objects == null) {
             objects = new BaseObjects();
-            this.xObjects.put(absoluteClassReference, objects);
+            getInternalXObjects().put(absoluteClassReference, objects);
         }
         objects.add(object);
         int nb = objects.size() - 1;
@@ -3005,7 +3014,7 @@ public List<BaseObject> getXObjects(EntityReference reference)
     @Deprecated(since = "2.2M1")
     public Vector<BaseObject> getObjects(String className)
     {
-        List<BaseObject> result = this.xObjects.get(resolveClassReference(className));
+        List<BaseObject> result = getInternalXObjects().get(resolveClassReference(className));
         return result == null ? null : new Vector<BaseObject>(result);
     }
 
@@ -3015,7 +3024,7 @@ public Vector<BaseObject> getObjects(String className)
     public void setXObjects(DocumentReference classReference, List<BaseObject> objects)
     {
         // Remove existing objects
-        List<BaseObject> existingbjects = this.xObjects.get(classReference);
+        List<BaseObject> existingbjects = getInternalXObjects().get(classReference);
         if (existingbjects != null) {
             existingbjects.clear();
         }
@@ -3025,7 +3034,7 @@ public void setXObjects(DocumentReference classReference, List<BaseObject> objec
         }
 
         // Add new objects
-        this.xObjects.put(classReference, new BaseObjects(objects));
+        getInternalXObjects().put(classReference, new BaseObjects(objects));
 
         setMetaDataDirty(true);
     }
@@ -3303,7 +3312,7 @@ public BaseObject getObject(String className, String key, String value, boolean
     @Deprecated
     public void addXObject(DocumentReference classReference, BaseObject object)
     {
-        List<BaseObject> vobj = this.xObjects.get(classReference);
+        List<BaseObject> vobj = getInternalXObjects().get(classReference);
         if (vobj == null) {
             setXObject(classReference, 0, object);
         } else {
@@ -3323,7 +3332,7 @@ public void addXObject(BaseObject object)
     {
         object.setOwnerDocument(this);
 
-        BaseObjects vobj = this.xObjects.get(object.getXClassReference());
+        BaseObjects vobj = getInternalXObjects().get(object.getXClassReference());
         if (vobj == null) {
             setXObject(0, object);
         } else {
@@ -3352,7 +3361,7 @@ public void setXObject(DocumentReference classReference, int nb, BaseObject obje
             object.setNumber(nb);
         }
 
-        BaseObjects objects = this.xObjects.computeIfAbsent(classReference, k -> new BaseObjects());
+        BaseObjects objects = getInternalXObjects().computeIfAbsent(classReference, k -> new BaseObjects());
         objects.put(nb, object);
 
         setMetaDataDirty(true);
@@ -3372,7 +3381,8 @@ public void setXObject(int nb, BaseObject object)
         object.setOwnerDocument(this);
         object.setNumber(nb);
 
-        BaseObjects objects = this.xObjects.computeIfAbsent(object.getXClassReference(), k -> new BaseObjects());
+        BaseObjects objects =
+            getInternalXObjects().computeIfAbsent(object.getXClassReference(), k -> new BaseObjects());
         objects.put(nb, object);
 
         setMetaDataDirty(true);
@@ -3483,12 +3493,17 @@ public void duplicateXObjects(XWikiDocument templatedoc)
      *            values
      */
     private void cloneXObjects(XWikiDocument templateDocument, boolean keepsIdentity)
+    {
+        cloneXObjects(templateDocument.getInternalXObjects(), keepsIdentity);
+    }
+
+    private void cloneXObjects(Map<DocumentReference, BaseObjects> templateObjects, boolean keepsIdentity)
     {
         // clean map
         this.xObjects.clear();
 
         // fill map
-        for (Map.Entry<DocumentReference, BaseObjects> entry : templateDocument.xObjects.entrySet()) {
+        for (Map.Entry<DocumentReference, BaseObjects> entry : templateObjects.entrySet()) {
             BaseObjects tobjects = entry.getValue();
 
             if (CollectionUtils.isNotEmpty(tobjects)) {
@@ -3507,6 +3522,42 @@ private void cloneXObjects(XWikiDocument templateDocument, boolean keepsIdentity
                 }
             }
         }
+
+        // The objects don't need to be cloned from another document anymore
+        this.xObjectsToClone = null;
+    }
+
+    /**
+     * @return the objects of the document, after cloning them from the cached document this document was cloned from
+     *         if it's not already done
+     */
+    private Map<DocumentReference, BaseObjects> getInternalXObjects()
+    {
+        if (this.xObjectsToClone != null) {
+            synchronized (this) {
+                Map<DocumentReference, BaseObjects> objects = this.xObjectsToClone;
+                if (objects != null) {
+                    // Cloning the objects is what #clone() would have done right away so it should not make the
+                    // document dirty (the cloned properties set their owner document dirty)
+                    boolean metaDataDirty = isMetaDataDirty();
+                    cloneXObjects(objects, true);
+                    setMetaDataDirty(metaDataDirty);
+                }
+            }
+        }
+
+        return this.xObjects;
+    }
+
+    /**
+     * @return a copy of the objects lists which is not impacted by objects later added or removed from this document
+     */
+    private Map<DocumentReference, BaseObjects> snapshotXObjects()
+    {
+        Map<DocumentReference, BaseObjects> snapshot = new HashMap<>(this.xObjects.size());
+        this.xObjects.forEach((classReference, objects) -> snapshot.put(classReference, new BaseObjects(objects)));
+
+        return snapshot;
     }
 
     /**
@@ -4646,7 +4697,22 @@ private XWikiDocument cloneInternal(DocumentReference newDocumentReference, bool
                 doc.getXClass().setCustomMapping(null);
                 doc.copyAttachments(this);
             }
-            doc.cloneXObjects(this, keepsIdentity);
+            boolean sameDocument = keepsIdentity && newDocumentReference.equals(getDocumentReference());
+            if (sameDocument && isCached()) {
+                // The objects of a cached document are not supposed to be modified so there is no need to clone them
+                // right away (it's quite expensive for documents with many objects): they will be cloned the first time
+                // they are accessed, if ever. Only the lists are copied so that objects added to or removed from the
+                // cached document after this point are not visible in the clone.
+                doc.xObjectsToClone = this.xObjectsToClone != null ? this.xObjectsToClone : snapshotXObjects();
+            } else {
+                doc.cloneXObjects(this, keepsIdentity);
+            }
+
+            if (sameDocument) {
+                // The cached XDOM is never modified (only clones of it are returned) so it can be shared
+                doc.xdomCache = this.xdomCache;
+                doc.xdomCachePrepareDate = this.xdomCachePrepareDate;
+            }
 
             doc.setContentDirty(isContentDirty());
             doc.setMetaDataDirty(isMetaDataDirty());
@@ -6014,7 +6080,7 @@ public List<String> getChildren(int nb, int start, XWikiContext context) throws
      */
     public void renameProperties(DocumentReference classReference, Map<String, String> fieldsToRename)
     {
-        List<BaseObject> objects = this.xObjects.get(classReference);
+        List<BaseObject> objects = getInternalXObjects().get(classReference);
         if (objects == null) {
             return;
         }
@@ -8178,7 +8244,7 @@ public boolean isProgrammaticContent()
      */
     public boolean removeXObject(BaseObject object)
     {
-        List<BaseObject> objects = this.xObjects.get(object.getXClassReference());
+        List<BaseObject> objects = getInternalXObjects().get(object.getXClassReference());
         // No objects at all, nothing to remove
         if (objects == null) {
             return false;
@@ -8235,7 +8301,7 @@ public boolean removeObject(BaseObject object)
      */
     public boolean removeXObjects(DocumentReference classReference)
     {
-        List<BaseObject> objects = this.xObjects.get(classReference);
+        List<BaseObject> objects = getInternalXObjects().get(classReference);
         // No objects at all, nothing to remove
         if (objects == null) {
             return false;
@@ -41,8 +41,10 @@
 import org.xwiki.observation.EventListener;
 import org.xwiki.observation.ObservationManager;
 import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
 
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
 
 /**
  * Specialized cache component related to documents. It automatically clean the cache when the document is related.
@@ -86,7 +88,12 @@ public List<Event> getEvents()
         public void onEvent(Event event, Object source, Object data)
         {
             XWikiDocument doc = (XWikiDocument) source;
-            removeAll(doc.getDocumentReference());
+            String documentReferenceString = serializer.serialize(doc.getDocumentReference());
+
+            removeAll(documentReferenceString);
+
+            // Make sure the other members of the cluster forget about it when they don't receive the document event
+            remoteDocumentInvalidator.invalidate(name, documentReferenceString);
         }
     }
 
@@ -113,6 +120,18 @@ public void onEvent(Event event, Object source, Object data)
     @Inject
     private ObservationManager observationManager;
 
+    /**
+     * Used to send and receive the invalidations of the other members of the cluster.
+     */
+    @Inject
+    private RemoteInvalidationManager remoteInvalidationManager;
+
+    /**
+     * Used to send the invalidations which are not already covered by the replay of the document events.
+     */
+    @Inject
+    private RemoteDocumentInvalidator remoteDocumentInvalidator;
+
     /**
      * The actual cache object.
      */
@@ -141,6 +160,7 @@ public void create(CacheConfiguration cacheConfiguration) throws CacheException
         this.mappingCache = this.cacheManager.createNewCache(mappingCacheConfiguration);
 
         this.observationManager.addListener(this.listener, EventListener.CACHE_INVALIDATION_DEFAULT_PRIORITY);
+        this.remoteInvalidationManager.addHandler(this.name, keys -> keys.forEach(this::removeAll));
     }
 
     // cache
@@ -233,8 +253,11 @@ public void removeAll()
     @Override
     public void removeAll(DocumentReference documentReference)
     {
-        String documentReferenceString = this.serializer.serialize(documentReference);
+        removeAll(this.serializer.serialize(documentReference));
+    }
 
+    private void removeAll(String documentReferenceString)
+    {
         Collection<String> keys = this.mappingCache.get(documentReferenceString);
 
         if (keys != null) {
@@ -249,6 +272,8 @@ public void removeAll(DocumentReference documentReference)
     @Override
     public void dispose()
     {
+        this.remoteInvalidationManager.removeHandler(this.name);
+
         this.cache.dispose();
         this.mappingCache.dispose();
     }
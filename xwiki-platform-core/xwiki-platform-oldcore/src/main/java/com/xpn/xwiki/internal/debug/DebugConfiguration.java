@@ -59,4 +59,23 @@ public boolean isMinify()
 
         return this.properties.getProperty("debug.minify", true);
     }
+
+    /**
+     * @return true if the time spent in the various stages of the requests should be recorded
+     * @since 17.0.0RC1
+     */
+    public boolean isTracing()
+    {
+        return this.properties.getProperty("debug.tracing", false);
+    }
+
+    /**
+     * @return true if the time spent in the various stages of a request should be sent to the client in a
+     *         {@code Server-Timing} header (only when {@link #isTracing()} is enabled)
+     * @since 17.0.0RC1
+     */
+    public boolean isServerTiming()
+    {
+        return this.properties.getProperty("debug.tracing.serverTiming", false);
+    }
 }
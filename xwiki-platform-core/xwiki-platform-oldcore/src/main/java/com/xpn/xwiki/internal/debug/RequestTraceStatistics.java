@@ -0,0 +1,154 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.debug;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.management.JMXBeanRegistration;
+import org.xwiki.tracing.RequestTrace;
+import org.xwiki.tracing.TraceTiming;
+
+import com.xpn.xwiki.internal.debug.jmx.JMXRequestTraces;
+
+/**
+ * Aggregate the traces of the requests handled since the start (or the last reset) and expose them through JMX.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component(roles = RequestTraceStatistics.class)
+@Singleton
+public class RequestTraceStatistics implements Initializable, Disposable
+{
+    private static final String MBEAN_NAME = "name=requesttraces";
+
+    private static final int SLOWEST_REQUESTS_SIZE = 20;
+
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
+    private final LongAdder requestCount = new LongAdder();
+
+    private final LongAdder requestDuration = new LongAdder();
+
+    private final Map<String, TraceTiming> timings = new ConcurrentHashMap<>();
+
+    /**
+     * The slowest requests, sorted from the slowest.
+     */
+    private final List<RequestTrace> slowestRequests = new ArrayList<>(SLOWEST_REQUESTS_SIZE + 1);
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.jmxRegistration.registerMBean(new JMXRequestTraces(this.requestCount::sum,
+            () -> TimeUnit.NANOSECONDS.toMillis(this.requestDuration.sum()), this::getCategoryDurations,
+            this::getCategoryCounts, this::getSlowestRequests, this::reset), MBEAN_NAME);
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
+    }
+
+    /**
+     * @param trace the ended trace of a request
+     */
+    public void add(RequestTrace trace)
+    {
+        long duration = trace.getDuration();
+
+        this.requestCount.increment();
+        this.requestDuration.add(duration);
+
+        for (Map.Entry<String, TraceTiming> entry : trace.getTimings().entrySet()) {
+            TraceTiming timing = this.timings.computeIfAbsent(entry.getKey(), c -> new TraceTiming());
+            // Add the spans of the request as a single one, the count is only used to compute an average
+            timing.add(entry.getValue().getDuration());
+        }
+
+        synchronized (this.slowestRequests) {
+            if (this.slowestRequests.size() < SLOWEST_REQUESTS_SIZE
+                || this.slowestRequests.get(this.slowestRequests.size() - 1).getDuration() < duration) {
+                this.slowestRequests.add(trace);
+                this.slowestRequests.sort(Comparator.comparingLong(RequestTrace::getDuration).reversed());
+                if (this.slowestRequests.size() > SLOWEST_REQUESTS_SIZE) {
+                    this.slowestRequests.remove(SLOWEST_REQUESTS_SIZE);
+                }
+            }
+        }
+    }
+
+    private Map<String, Long> getCategoryDurations()
+    {
+        Map<String, Long> durations = new HashMap<>();
+        this.timings.forEach((category, timing) -> durations.put(category,
+            TimeUnit.NANOSECONDS.toMillis(timing.getDuration())));
+
+        return durations;
+    }
+
+    private Map<String, Long> getCategoryCounts()
+    {
+        Map<String, Long> counts = new HashMap<>();
+        this.timings.forEach((category, timing) -> counts.put(category, timing.getCount()));
+
+        return counts;
+    }
+
+    private List<String> getSlowestRequests()
+    {
+        List<String> requests = new ArrayList<>(SLOWEST_REQUESTS_SIZE);
+
+        synchronized (this.slowestRequests) {
+            for (RequestTrace trace : this.slowestRequests) {
+                requests.add(String.format("%s: %s", trace.getName(), trace.toServerTiming()));
+            }
+        }
+
+        return requests;
+    }
+
+    private void reset()
+    {
+        this.requestCount.reset();
+        this.requestDuration.reset();
+        this.timings.clear();
+        synchronized (this.slowestRequests) {
+            this.slowestRequests.clear();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.debug.jmx;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of the JMXRequestTraces MBean.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class JMXRequestTraces implements JMXRequestTracesMBean
+{
+    private final LongSupplier requestCount;
+
+    private final LongSupplier requestDuration;
+
+    private final Supplier<Map<String, Long>> categoryDurations;
+
+    private final Supplier<Map<String, Long>> categoryCounts;
+
+    private final Supplier<List<String>> slowestRequests;
+
+    private final Runnable reset;
+
+    /**
+     * Default constructor, let the method initializing the MBean provide the suppliers for the MBean operations.
+     *
+     * @param requestCount the traced requests counter supplier
+     * @param requestDuration the traced requests total duration supplier
+     * @param categoryDurations the duration per category supplier
+     * @param categoryCounts the count per category supplier
+     * @param slowestRequests the slowest requests supplier
+     * @param reset the action resetting the statistics
+     */
+    public JMXRequestTraces(LongSupplier requestCount, LongSupplier requestDuration,
+        Supplier<Map<String, Long>> categoryDurations, Supplier<Map<String, Long>> categoryCounts,
+        Supplier<List<String>> slowestRequests, Runnable reset)
+    {
+        this.requestCount = requestCount;
+        this.requestDuration = requestDuration;
+        this.categoryDurations = categoryDurations;
+        this.categoryCounts = categoryCounts;
+        this.slowestRequests = slowestRequests;
+        this.reset = reset;
+    }
+
+    @Override
+    public long getRequestCount()
+    {
+        return this.requestCount.getAsLong();
+    }
+
+    @Override
+    public long getRequestDuration()
+    {
+        return this.requestDuration.getAsLong();
+    }
+
+    @Override
+    public Map<String, Long> getCategoryDurations()
+    {
+        return this.categoryDurations.get();
+    }
+
+    @Override
+    public Map<String, Long> getCategoryCounts()
+    {
+        return this.categoryCounts.get();
+    }
+
+    @Override
+    public List<String> getSlowestRequests()
+    {
+        return this.slowestRequests.get();
+    }
+
+    @Override
+    public void reset()
+    {
+        this.reset.run();
+    }
+}
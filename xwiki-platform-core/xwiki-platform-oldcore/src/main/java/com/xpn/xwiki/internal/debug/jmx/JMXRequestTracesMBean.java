@@ -0,0 +1,62 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.debug.jmx;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface of the {@link JMXRequestTraces} MBean.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public interface JMXRequestTracesMBean
+{
+    /**
+     * @return the number of traced requests
+     */
+    long getRequestCount();
+
+    /**
+     * @return the total duration of the traced requests, in milliseconds
+     */
+    long getRequestDuration();
+
+    /**
+     * @return the total time spent in each category of work (store, security, velocity, etc.), in milliseconds
+     */
+    Map<String, Long> getCategoryDurations();
+
+    /**
+     * @return the number of traced requests which did some work of each category
+     */
+    Map<String, Long> getCategoryCounts();
+
+    /**
+     * @return the slowest traced requests with the time spent in each category of work
+     */
+    List<String> getSlowestRequests();
+
+    /**
+     * Forget all the traced requests.
+     */
+    void reset();
+}
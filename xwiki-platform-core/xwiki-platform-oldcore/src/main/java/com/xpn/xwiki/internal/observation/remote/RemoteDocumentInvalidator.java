@@ -0,0 +1,88 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.observation.ObservationContext;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
+
+import com.xpn.xwiki.internal.event.XARImportingEvent;
+
+/**
+ * Decide how the other members of the cluster learn about a document modification.
+ * <p>
+ * By default the document events are replayed on the other members, so that all their listeners (caches,
+ * notifications, indexing, etc.) react as if the modification happened locally, and sending a
+ * {@link RemoteInvalidationManager remote invalidation} on top of that would only duplicate the work. When
+ * {@code observation.remote.xarImport.invalidationOnly} is enabled, the document events produced by a XAR import are
+ * not sent anymore and the caches built from documents rely on their remote invalidation instead. The trade-off is that
+ * only the listeners registered as {@link RemoteInvalidationManager} handlers are informed: anything else computed on
+ * the other members from the document events (e.g. a local index) is not updated by the import.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component(roles = RemoteDocumentInvalidator.class)
+@Singleton
+public class RemoteDocumentInvalidator
+{
+    private static final XARImportingEvent XAR_IMPORTING = new XARImportingEvent();
+
+    @Inject
+    @Named("xwikiproperties")
+    private Provider<ConfigurationSource> configurationProvider;
+
+    @Inject
+    private Provider<ObservationContext> observationContextProvider;
+
+    @Inject
+    private Provider<RemoteInvalidationManager> remoteInvalidationManagerProvider;
+
+    /**
+     * @return {@code true} if the document events produced in the current context are sent to the other members of the
+     *         cluster
+     */
+    public boolean isReplayed()
+    {
+        return !this.configurationProvider.get().getProperty("observation.remote.xarImport.invalidationOnly", false)
+            || !this.observationContextProvider.get().isIn(XAR_IMPORTING);
+    }
+
+    /**
+     * Make sure the other members of the cluster invalidate the passed key when they won't receive the document event
+     * which triggered the local invalidation.
+     *
+     * @param id the identifier of the invalidation handler
+     * @param key the invalidated key
+     * @see RemoteInvalidationManager#invalidate(String, String)
+     */
+    public void invalidate(String id, String key)
+    {
+        if (!isReplayed()) {
+            this.remoteInvalidationManagerProvider.get().invalidate(id, key);
+        }
+    }
+}
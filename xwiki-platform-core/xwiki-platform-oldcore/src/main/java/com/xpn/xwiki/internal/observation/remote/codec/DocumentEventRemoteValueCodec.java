@@ -0,0 +1,176 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote.codec;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.AbstractDocumentEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.event.filter.EventFilter;
+import org.xwiki.observation.remote.codec.RemoteValueCodec;
+import org.xwiki.observation.remote.codec.RemoteValueInput;
+import org.xwiki.observation.remote.codec.RemoteValueOutput;
+import org.xwiki.observation.remote.internal.codec.EventFilterRemoteValueCodec;
+
+/**
+ * Encode the document events (which hold the reference of the document in addition to their filter) as their class
+ * name, the reference of the document (or the filter when there is no reference) and their cancel state.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component
+@Named("document")
+@Singleton
+public class DocumentEventRemoteValueCodec implements RemoteValueCodec
+{
+    @Inject
+    @Named("reference")
+    private RemoteValueCodec referenceCodec;
+
+    @Inject
+    @Named(EventFilterRemoteValueCodec.HINT)
+    private RemoteValueCodec filterCodec;
+
+    private final Map<Class<?>, Boolean> supportedClasses = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean canEncode(Object value)
+    {
+        if (!(value instanceof AbstractDocumentEvent) || !isSupported(value.getClass())) {
+            return false;
+        }
+
+        AbstractDocumentEvent event = (AbstractDocumentEvent) value;
+
+        // The filter of an event created from a document reference is derived from that reference
+        return event.getDocumentReference() != null ? this.referenceCodec.canEncode(event.getDocumentReference())
+            : this.filterCodec.canEncode(event.getEventFilter());
+    }
+
+    @Override
+    public void encode(Object value, RemoteValueOutput output) throws IOException
+    {
+        AbstractDocumentEvent event = (AbstractDocumentEvent) value;
+
+        output.writeString(value.getClass().getName());
+
+        DocumentReference documentReference = event.getDocumentReference();
+        output.writeBoolean(documentReference != null);
+        if (documentReference != null) {
+            this.referenceCodec.encode(documentReference, output);
+        } else {
+            this.filterCodec.encode(event.getEventFilter(), output);
+        }
+
+        output.writeBoolean(event.isCanceled());
+        if (event.isCanceled()) {
+            output.writeString(event.getReason());
+        }
+    }
+
+    @Override
+    public Object decode(RemoteValueInput input) throws IOException
+    {
+        String className = input.readString();
+
+        Class<?> eventClass;
+        try {
+            eventClass = Class.forName(className, true, input.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Failed to load event class [" + className + "]", e);
+        }
+
+        // Make sure to not instantiate anything else than a supported event
+        if (!AbstractDocumentEvent.class.isAssignableFrom(eventClass) || !isSupported(eventClass)) {
+            throw new IOException("Unsupported document event class [" + className + "]");
+        }
+
+        AbstractDocumentEvent event;
+        if (input.readBoolean()) {
+            Object documentReference = this.referenceCodec.decode(input);
+            event = newInstance(eventClass, DocumentReference.class, documentReference);
+        } else {
+            Object filter = this.filterCodec.decode(input);
+            event = newInstance(eventClass, EventFilter.class, filter);
+        }
+
+        if (input.readBoolean()) {
+            event.cancel(input.readString());
+        }
+
+        return event;
+    }
+
+    private AbstractDocumentEvent newInstance(Class<?> eventClass, Class<?> parameterClass, Object parameter)
+        throws IOException
+    {
+        if (!parameterClass.isInstance(parameter)) {
+            throw new IOException("Unexpected document event parameter [" + parameter + "]");
+        }
+
+        try {
+            return (AbstractDocumentEvent) eventClass.getConstructor(parameterClass).newInstance(parameter);
+        } catch (Exception e) {
+            throw new IOException("Failed to create an instance of event class [" + eventClass.getName() + "]", e);
+        }
+    }
+
+    private boolean isSupported(Class<?> eventClass)
+    {
+        return this.supportedClasses.computeIfAbsent(eventClass, this::computeSupported);
+    }
+
+    private boolean computeSupported(Class<?> eventClass)
+    {
+        if (!Modifier.isPublic(eventClass.getModifiers()) || Modifier.isAbstract(eventClass.getModifiers())) {
+            return false;
+        }
+
+        // Make sure the event does not hold any state other than the one of AbstractDocumentEvent
+        for (Class<?> current = eventClass; current != AbstractDocumentEvent.class;
+            current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    return false;
+                }
+            }
+        }
+
+        try {
+            eventClass.getConstructor(DocumentReference.class);
+            eventClass.getConstructor(EventFilter.class);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote.codec;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.observation.remote.codec.RemoteValueCodec;
+import org.xwiki.observation.remote.codec.RemoteValueInput;
+import org.xwiki.observation.remote.codec.RemoteValueOutput;
+
+/**
+ * Encode the standard entity references as their type and the type, name and parameters of each element of the
+ * reference chain (which is a lot more compact than the Java serialization of the reference).
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component
+@Named("reference")
+@Singleton
+public class EntityReferenceRemoteValueCodec implements RemoteValueCodec
+{
+    private static final String REFERENCE_PACKAGE = EntityReference.class.getPackageName();
+
+    private static final EntityType[] TYPES = EntityType.values();
+
+    private final Map<String, Constructor<? extends EntityReference>> constructors = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean canEncode(Object value)
+    {
+        if (!(value instanceof EntityReference)) {
+            return false;
+        }
+
+        if (value.getClass() == EntityReference.class) {
+            return true;
+        }
+
+        // Only the standard references providing a copy constructor are supported
+        try {
+            getConstructor(value.getClass().getName());
+
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void encode(Object value, RemoteValueOutput output) throws IOException
+    {
+        EntityReference reference = (EntityReference) value;
+
+        output.writeString(value.getClass() != EntityReference.class ? value.getClass().getName() : null);
+
+        List<EntityReference> chain = reference.getReversedReferenceChain();
+        output.writeNumber(chain.size());
+        for (EntityReference element : chain) {
+            output.writeNumber(element.getType().ordinal());
+            output.writeString(element.getName());
+
+            Map<String, Serializable> parameters = element.getParameters();
+            output.writeNumber(parameters.size());
+            for (Map.Entry<String, Serializable> parameter : parameters.entrySet()) {
+                output.writeString(parameter.getKey());
+                output.writeValue(parameter.getValue());
+            }
+        }
+    }
+
+    @Override
+    public Object decode(RemoteValueInput input) throws IOException
+    {
+        String className = input.readString();
+
+        EntityReference reference = null;
+        long size = input.readNumber();
+        for (long i = 0; i < size; ++i) {
+            EntityType type = getType(input.readNumber());
+            String name = input.readString();
+
+            long parameterCount = input.readNumber();
+            Map<String, Serializable> parameters = null;
+            if (parameterCount > 0) {
+                parameters = new LinkedHashMap<>();
+                for (long j = 0; j < parameterCount; ++j) {
+                    parameters.put(input.readString(), (Serializable) input.readValue());
+                }
+            }
+
+            reference = new EntityReference(name, type, reference, parameters);
+        }
+
+        if (reference == null) {
+            throw new IOException("Empty entity reference");
+        }
+
+        if (className == null) {
+            return reference;
+        }
+
+        try {
+            return getConstructor(className).newInstance(reference);
+        } catch (Exception e) {
+            throw new IOException("Failed to create entity reference of type [" + className + "]", e);
+        }
+    }
+
+    private EntityType getType(long ordinal) throws IOException
+    {
+        if (ordinal < 0 || ordinal >= TYPES.length) {
+            throw new IOException("Unknown entity type [" + ordinal + "]");
+        }
+
+        return TYPES[(int) ordinal];
+    }
+
+    private Constructor<? extends EntityReference> getConstructor(String className) throws IOException
+    {
+        Constructor<? extends EntityReference> constructor = this.constructors.get(className);
+
+        if (constructor == null) {
+            // Make sure to not instantiate anything else than a standard reference
+            if (!className.startsWith(REFERENCE_PACKAGE) || className.lastIndexOf('.') != REFERENCE_PACKAGE.length()) {
+                throw new IOException("Unsupported entity reference type [" + className + "]");
+            }
+
+            try {
+                Class<? extends EntityReference> referenceClass =
+                    Class.forName(className, true, EntityReference.class.getClassLoader())
+                        .asSubclass(EntityReference.class);
+                constructor = referenceClass.getConstructor(EntityReference.class);
+            } catch (Exception e) {
+                throw new IOException("Unsupported entity reference type [" + className + "]", e);
+            }
+
+            this.constructors.put(className, constructor);
+        }
+
+        return constructor;
+    }
+}
@@ -25,7 +25,9 @@
 import java.util.Map;
 import java.util.Set;
 
+import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.xwiki.bridge.event.DocumentCreatedEvent;
@@ -44,6 +46,7 @@
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDeletedDocument;
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
 import com.xpn.xwiki.store.XWikiCacheStore;
 import com.xpn.xwiki.store.XWikiRecycleBinStoreInterface;
 
@@ -73,10 +76,19 @@ public class DocumentEventConverter extends AbstractXWikiEventConverter
         }
     };
 
+    @Inject
+    private Provider<RemoteDocumentInvalidator> remoteDocumentInvalidatorProvider;
+
     @Override
     public boolean toRemote(LocalEventData localEvent, RemoteEventData remoteEvent)
     {
         if (EVENTS.contains(localEvent.getEvent().getClass())) {
+            if (!this.remoteDocumentInvalidatorProvider.get().isReplayed()) {
+                // Leave the remote event empty so that it's not sent: the other members of the cluster only receive
+                // the invalidations of the caches
+                return true;
+            }
+
             // fill the remote event
             remoteEvent.setEvent((Serializable) localEvent.getEvent());
             remoteEvent.setSource(serializeXWikiDocument((XWikiDocument) localEvent.getSource()));
@@ -0,0 +1,130 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.query;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.management.JMXBeanRegistration;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
+import org.xwiki.query.internal.QueryResultCache;
+import org.xwiki.query.internal.jmx.JMXQueryResultCache;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
+
+/**
+ * Invalidate the cached query results impacted by the modified documents. The listener is located in oldcore since
+ * the classes of the objects held by the document are needed to invalidate the queries depending on a class.
+ * <p>
+ * When the other members of the cluster don't receive the document events (e.g. during a XAR import with
+ * {@code observation.remote.xarImport.invalidationOnly} enabled), they invalidate all the cached results of the wiki
+ * of the modified documents instead: the classes of the objects are not known anymore, and a whole wiki is a single
+ * key to send for all the documents of an import.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component
+@Named(QueryResultCacheListener.NAME)
+@Singleton
+public class QueryResultCacheListener extends AbstractEventListener implements Initializable, Disposable
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "com.xpn.xwiki.internal.query.QueryResultCacheListener";
+
+    private static final String MBEAN_NAME = "name=queryresults";
+
+    private static final String INVALIDATION_ID = "query.results";
+
+    @Inject
+    private QueryResultCache cache;
+
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
+    @Inject
+    private RemoteInvalidationManager remoteInvalidationManager;
+
+    @Inject
+    private RemoteDocumentInvalidator remoteDocumentInvalidator;
+
+    /**
+     * Setup the listener.
+     */
+    public QueryResultCacheListener()
+    {
+        super(NAME, new DocumentCreatedEvent(), new DocumentUpdatedEvent(), new DocumentDeletedEvent(),
+            new WikiDeletedEvent());
+    }
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.jmxRegistration.registerMBean(new JMXQueryResultCache(this.cache), MBEAN_NAME);
+        this.remoteInvalidationManager.addHandler(INVALIDATION_ID, wikis -> wikis.forEach(this.cache::invalidate));
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
+        this.remoteInvalidationManager.removeHandler(INVALIDATION_ID);
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (event instanceof WikiDeletedEvent) {
+            this.cache.invalidate(((WikiDeletedEvent) event).getWikiId());
+        } else {
+            XWikiDocument document = (XWikiDocument) source;
+
+            // A query depending on a class is impacted by objects being added or removed
+            Set<DocumentReference> classReferences = new HashSet<>(document.getXObjects().keySet());
+            if (document.getOriginalDocument() != null) {
+                classReferences.addAll(document.getOriginalDocument().getXObjects().keySet());
+            }
+
+            this.cache.invalidate(document.getDocumentReference(), classReferences);
+
+            this.remoteDocumentInvalidator.invalidate(INVALIDATION_ID,
+                document.getDocumentReference().getWikiReference().getName());
+        }
+    }
+}
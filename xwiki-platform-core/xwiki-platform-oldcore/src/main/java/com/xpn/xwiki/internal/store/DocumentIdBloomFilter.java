@@ -0,0 +1,170 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe Bloom filter of document identifiers (as returned by {@link com.xpn.xwiki.doc.XWikiDocument#getId()})
+ * used to answer most "this document does not exist" questions without asking the database.
+ * <p>
+ * A negative answer of {@link #mightContain(long)} is definitive while a positive one can be wrong with a probability
+ * close to the configured false positive probability, as long as the number of insertions stays below the expected
+ * number of insertions the filter was created for (see {@link #isSaturated()}). It's not possible to remove an entry
+ * from a Bloom filter so deleted documents stay in it as false positives until the filter is rebuilt.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class DocumentIdBloomFilter
+{
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    private final long expectedInsertions;
+
+    private final AtomicLong insertions = new AtomicLong();
+
+    private volatile boolean ready;
+
+    /**
+     * @param expectedInsertions the number of identifiers expected to be inserted in the filter
+     * @param falsePositiveProbability the wanted probability for {@link #mightContain(long)} to wrongly return
+     *            {@code true}, between 0 and 1 (excluded)
+     */
+    public DocumentIdBloomFilter(long expectedInsertions, double falsePositiveProbability)
+    {
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException(
+                "The false positive probability must be between 0 and 1 but was " + falsePositiveProbability);
+        }
+
+        this.expectedInsertions = Math.max(expectedInsertions, 1);
+
+        // Optimal number of bits and hash functions for the wanted false positive probability
+        long optimalBitSize =
+            (long) Math.ceil(-this.expectedInsertions * Math.log(falsePositiveProbability) / (LN2 * LN2));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8L, Math.max(1, (optimalBitSize + Long.SIZE - 1) / Long.SIZE));
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) this.bitSize / this.expectedInsertions * LN2));
+    }
+
+    /**
+     * @param id the identifier of the document to add to the filter
+     */
+    public void put(long id)
+    {
+        long hash1 = mix(id);
+        long hash2 = mix(hash1);
+
+        boolean changed = false;
+        for (int i = 0; i < this.hashFunctions; ++i) {
+            long index = Math.floorMod(hash1 + i * hash2, this.bitSize);
+            changed |= setBit(index);
+        }
+
+        if (changed) {
+            this.insertions.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param id the identifier of the document
+     * @return {@code false} if the document was never added to the filter, {@code true} if it might have been
+     */
+    public boolean mightContain(long id)
+    {
+        long hash1 = mix(id);
+        long hash2 = mix(hash1);
+
+        for (int i = 0; i < this.hashFunctions; ++i) {
+            long index = Math.floorMod(hash1 + i * hash2, this.bitSize);
+            if ((this.bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return {@code true} when the filter was fed with all the identifiers it's supposed to know and can be trusted
+     */
+    public boolean isReady()
+    {
+        return this.ready;
+    }
+
+    /**
+     * Indicate that the filter was fed with all the identifiers it's supposed to know.
+     */
+    public void setReady()
+    {
+        this.ready = true;
+    }
+
+    /**
+     * @return {@code true} if more identifiers than expected were added to the filter, in which case the false positive
+     *         probability is not respected anymore and the filter should be rebuilt
+     */
+    public boolean isSaturated()
+    {
+        return this.insertions.get() > this.expectedInsertions;
+    }
+
+    private boolean setBit(long index)
+    {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+
+        long value;
+        do {
+            value = this.bits.get(word);
+            if ((value & mask) != 0) {
+                return false;
+            }
+        } while (!this.bits.compareAndSet(word, value, value | mask));
+
+        return true;
+    }
+
+    /**
+     * The finalization mix of MurmurHash3, to spread the document identifiers (which are themselves a hash, but a weak
+     * one) over the whole 64 bits.
+     */
+    private static long mix(long value)
+    {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
@@ -536,6 +536,15 @@ public void set(String propertyName, Object value)
         {
             this.properties.put(propertyName, value);
         }
+
+        /**
+         * @return true if the compiled content can be shared with other instances of the same template content
+         * @since 17.0.0RC1
+         */
+        protected boolean isCompiledContentShared()
+        {
+            return false;
+        }
     }
 
     private class FilesystemTemplateContent extends DefaultTemplateContent
@@ -548,6 +557,13 @@ public FilesystemTemplateContent(String content)
             setPrivileged(true);
         }
 
+        @Override
+        protected boolean isCompiledContentShared()
+        {
+            // The content of filesystem and classloader templates only changes when the resource instant changes
+            return true;
+        }
+
         /**
          * {@inheritDoc}
          * <p>
@@ -0,0 +1,226 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.template;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheControl;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.management.JMXBeanRegistration;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
+import org.xwiki.template.event.TemplateDeletedEvent;
+import org.xwiki.template.event.TemplateEvent;
+import org.xwiki.template.event.TemplateUpdatedEvent;
+import org.xwiki.velocity.VelocityTemplate;
+
+import com.xpn.xwiki.internal.template.jmx.JMXVelocityTemplateCache;
+
+/**
+ * Share the parsed Velocity of the filesystem and classloader templates between all the
+ * {@link org.xwiki.template.TemplateContent} instances of the same template, so that it's parsed only once as long as
+ * the template does not change.
+ * 
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component(roles = VelocityTemplateCache.class)
+@Singleton
+public class VelocityTemplateCache implements Initializable, Disposable
+{
+    private static final String MBEAN_NAME = "name=velocitytemplates";
+
+    private static final List<Event> EVENTS = Arrays.asList(new TemplateUpdatedEvent(), new TemplateDeletedEvent());
+
+    private static final class CompiledTemplate
+    {
+        private final Instant instant;
+
+        private final String content;
+
+        private final VelocityTemplate velocityTemplate;
+
+        CompiledTemplate(Instant instant, String content, VelocityTemplate velocityTemplate)
+        {
+            this.instant = instant;
+            this.content = content;
+            this.velocityTemplate = velocityTemplate;
+        }
+    }
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private CacheControl cacheControl;
+
+    @Inject
+    private ObservationManager observation;
+
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
+    @Inject
+    private Logger logger;
+
+    private Cache<CompiledTemplate> cache;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final EventListener listener = new EventListener()
+    {
+        @Override
+        public void onEvent(Event event, Object source, Object data)
+        {
+            // The skin template has been modified
+            remove(((TemplateEvent) event).getId());
+        }
+
+        @Override
+        public String getName()
+        {
+            return VelocityTemplateCache.class.getName();
+        }
+
+        @Override
+        public List<Event> getEvents()
+        {
+            return EVENTS;
+        }
+    };
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager.createNewCache(new LRUCacheConfiguration("templates.velocity", 500));
+        } catch (CacheException e) {
+            this.logger.error("Failed to create the Velocity templates cache", e);
+        }
+
+        this.observation.addListener(this.listener);
+
+        this.jmxRegistration.registerMBean(
+            new JMXVelocityTemplateCache(this.hits::sum, this.misses::sum, this::getHitRate, this::reset),
+            MBEAN_NAME);
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
+
+        this.observation.removeListener(this.listener.getName());
+
+        if (this.cache != null) {
+            this.cache.dispose();
+        }
+    }
+
+    /**
+     * @param id the identifier of the template
+     * @param instant the last modification date of the template content
+     * @param content the content of the template
+     * @return the parsed template, or {@code null} if it's not in the cache or if the cached version does not match the
+     *         passed content
+     */
+    public VelocityTemplate get(String id, Instant instant, String content)
+    {
+        VelocityTemplate velocityTemplate = null;
+
+        if (this.cache != null && id != null && instant != null) {
+            CompiledTemplate compiledTemplate = this.cache.get(id);
+
+            if (compiledTemplate != null && compiledTemplate.instant.equals(instant)
+                && Objects.equals(compiledTemplate.content, content)
+                && this.cacheControl.isCacheReadAllowed(Date.from(instant))) {
+                velocityTemplate = compiledTemplate.velocityTemplate;
+            }
+        }
+
+        if (velocityTemplate != null) {
+            this.hits.increment();
+        } else {
+            this.misses.increment();
+        }
+
+        return velocityTemplate;
+    }
+
+    /**
+     * @param id the identifier of the template
+     * @param instant the last modification date of the template content
+     * @param content the content of the template
+     * @param velocityTemplate the parsed template
+     */
+    public void set(String id, Instant instant, String content, VelocityTemplate velocityTemplate)
+    {
+        if (this.cache != null && id != null && instant != null) {
+            this.cache.set(id, new CompiledTemplate(instant, content, velocityTemplate));
+        }
+    }
+
+    /**
+     * @param id the identifier of the template to forget
+     */
+    public void remove(String id)
+    {
+        if (this.cache != null && id != null) {
+            this.cache.remove(id);
+        }
+    }
+
+    /**
+     * @return the ratio of lookups which found a parsed template in the cache
+     */
+    public double getHitRate()
+    {
+        long hitCount = this.hits.sum();
+        long total = hitCount + this.misses.sum();
+
+        return total > 0 ? (double) hitCount / total : 0;
+    }
+
+    private void reset()
+    {
+        this.hits.reset();
+        this.misses.reset();
+    }
+}
@@ -35,6 +35,8 @@
 import org.xwiki.security.authorization.Right;
 import org.xwiki.template.Template;
 import org.xwiki.template.TemplateContent;
+import org.xwiki.tracing.RequestTracer;
+import org.xwiki.tracing.TraceSpan;
 import org.xwiki.velocity.VelocityEngine;
 import org.xwiki.velocity.VelocityManager;
 import org.xwiki.velocity.VelocityTemplate;
@@ -64,6 +66,12 @@
     @Inject
     private VelocityManager velocityManager;
 
+    @Inject
+    private RequestTracer tracer;
+
+    @Inject
+    private VelocityTemplateCache velocityTemplateCache;
+
     /**
      * @param template the template to execute
      * @param content the template content to execute
@@ -99,7 +107,7 @@ public void evaluateContent(Template template, TemplateContent content, Writer w
         this.progress.startStep(template, "template.evaluateContent.message",
             "Evaluate content of template with id [{}]", template.getId());
 
-        try {
+        try (TraceSpan span = this.tracer.startSpan(RequestTracer.VELOCITY)) {
             VelocityTemplate velocityTemplate = getVelocityTemplate(template, content);
 
             VelocityEngine velocityEngine = this.velocityManager.getVelocityEngine();
@@ -127,12 +135,26 @@ private VelocityTemplate getVelocityTemplate(Template template, TemplateContent
 
             // Check if the content already been compiled
             if (!(templateContent.compiledContent instanceof VelocityTemplate)) {
-                // Velocity is not a fan of null template name
-                String templateId = Objects.toString(template.getId(), "unknown template");
-
-                // Compile the Velocity
-                templateContent.compiledContent =
-                    this.velocityManager.compile(templateId, new StringReader(content.getContent()));
+                if (templateContent.isCompiledContentShared()) {
+                    // Check if another instance of the same template content has already been compiled
+                    templateContent.compiledContent = this.velocityTemplateCache.get(template.getId(),
+                        template.getInstant(), content.getContent());
+                }
+
+                if (templateContent.compiledContent == null) {
+                    // Velocity is not a fan of null template name
+                    String templateId = Objects.toString(template.getId(), "unknown template");
+
+                    // Compile the Velocity
+                    VelocityTemplate velocityTemplate =
+                        this.velocityManager.compile(templateId, new StringReader(content.getContent()));
+                    templateContent.compiledContent = velocityTemplate;
+
+                    if (templateContent.isCompiledContentShared()) {
+                        this.velocityTemplateCache.set(template.getId(), template.getInstant(),
+                            content.getContent(), velocityTemplate);
+                    }
+                }
             }
 
             return (VelocityTemplate) templateContent.compiledContent;
@@ -0,0 +1,81 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.template.jmx;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Implementation of the JMXVelocityTemplateCache MBean.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class JMXVelocityTemplateCache implements JMXVelocityTemplateCacheMBean
+{
+    private final LongSupplier hitCount;
+
+    private final LongSupplier missCount;
+
+    private final DoubleSupplier hitRate;
+
+    private final Runnable reset;
+
+    /**
+     * Default constructor, let the method initializing the MBean provide the suppliers for the MBean operations.
+     *
+     * @param hitCount the cache hits counter supplier
+     * @param missCount the cache misses counter supplier
+     * @param hitRate the hit rate supplier
+     * @param reset the action resetting the statistics
+     */
+    public JMXVelocityTemplateCache(LongSupplier hitCount, LongSupplier missCount, DoubleSupplier hitRate,
+        Runnable reset)
+    {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRate = hitRate;
+        this.reset = reset;
+    }
+
+    @Override
+    public long getHitCount()
+    {
+        return this.hitCount.getAsLong();
+    }
+
+    @Override
+    public long getMissCount()
+    {
+        return this.missCount.getAsLong();
+    }
+
+    @Override
+    public double getHitRate()
+    {
+        return this.hitRate.getAsDouble();
+    }
+
+    @Override
+    public void reset()
+    {
+        this.reset.run();
+    }
+}
@@ -19,12 +19,23 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.apache.commons.lang3.LocaleUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xwiki.bridge.event.WikiDeletedEvent;
@@ -42,20 +53,26 @@
 import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.model.reference.AttachmentReference;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.observation.EventListener;
 import org.xwiki.observation.ObservationManager;
 import org.xwiki.observation.event.Event;
 import org.xwiki.observation.remote.RemoteObservationManagerContext;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
 import org.xwiki.query.QueryManager;
+import org.xwiki.tracing.RequestTracer;
+import org.xwiki.tracing.TraceSpan;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.doc.XWikiLink;
 import com.xpn.xwiki.doc.XWikiLock;
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
 import com.xpn.xwiki.internal.store.AbstractXWikiStore;
+import com.xpn.xwiki.internal.store.DocumentIdBloomFilter;
 import com.xpn.xwiki.objects.classes.BaseClass;
 import com.xpn.xwiki.web.Utils;
 
@@ -74,6 +91,10 @@ public class XWikiCacheStore extends AbstractXWikiStore
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(XWikiCacheStore.class);
 
+    private static final String INVALIDATION_ID = "xwiki.store.pagecache";
+
+    private static final char INVALIDATION_SEPARATOR = ':';
+
     /**
      * Used to know if a received event is a local or remote one.
      */
@@ -90,6 +111,24 @@ public class XWikiCacheStore extends AbstractXWikiStore
     @Inject
     private ObservationManager observationManager;
 
+    /**
+     * Used to send the keys of the modified documents to the other members of the cluster.
+     */
+    @Inject
+    private RemoteInvalidationManager remoteInvalidationManager;
+
+    /**
+     * Used to know if the other members of the cluster already receive the document events.
+     */
+    @Inject
+    private RemoteDocumentInvalidator remoteDocumentInvalidator;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
     @Inject
     private CacheManager cacheManager;
 
@@ -97,6 +136,9 @@ public class XWikiCacheStore extends AbstractXWikiStore
     @Named("xwikicfg")
     private ConfigurationSource configuration;
 
+    @Inject
+    private RequestTracer tracer;
+
     private XWikiStoreInterface store;
 
     private Cache<XWikiDocument> cache;
@@ -108,6 +150,27 @@ public class XWikiCacheStore extends AbstractXWikiStore
      */
     private Cache<Integer> limitSizePropertyCache;
 
+    private boolean pageExistFilterEnabled;
+
+    private double pageExistFilterFalsePositiveProbability;
+
+    private int pageExistFilterBatchSize;
+
+    /**
+     * The Bloom filters of existing document identifiers, indexed by wiki.
+     */
+    private final Map<String, DocumentIdBloomFilter> pageExistFilters = new ConcurrentHashMap<>();
+
+    /**
+     * The wikis for which a Bloom filter is currently being built.
+     */
+    private final Set<String> pageExistFiltersBuilding = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The identifier of the last document loaded in the Bloom filters which are not ready yet, indexed by wiki.
+     */
+    private final Map<String, Long> pageExistFiltersProgress = new ConcurrentHashMap<>();
+
     /**
      * Default constructor generally used by the Component Manager.
      */
@@ -125,9 +188,14 @@ public XWikiCacheStore(XWikiStoreInterface store, XWikiContext context) throws X
 
         this.remoteObservationManagerContext = Utils.getComponent(RemoteObservationManagerContext.class);
         this.observationManager = Utils.getComponent(ObservationManager.class);
+        this.remoteInvalidationManager = Utils.getComponent(RemoteInvalidationManager.class);
+        this.remoteDocumentInvalidator = Utils.getComponent(RemoteDocumentInvalidator.class);
+        this.entityReferenceSerializer = Utils.getComponent(EntityReferenceSerializer.TYPE_STRING);
+        this.documentReferenceResolver = Utils.getComponent(DocumentReferenceResolver.TYPE_STRING);
         this.uidStringEntityReferenceSerializer = Utils.getComponent(EntityReferenceSerializer.TYPE_STRING, "uid");
         this.cacheManager = Utils.getComponent(CacheManager.class);
         this.configuration = Utils.getComponent(ConfigurationSource.class, "xwikicfg");
+        this.tracer = Utils.getComponent(RequestTracer.class);
 
         initCache(context);
 
@@ -180,6 +248,9 @@ private void initListener()
     {
         // register XWikiCacheStore as listener to remote document events
         this.observationManager.addListener(this, EventListener.CACHE_INVALIDATION_DEFAULT_PRIORITY);
+
+        // receive the keys of the documents modified on other members of the cluster
+        this.remoteInvalidationManager.addHandler(INVALIDATION_ID, this::invalidate);
     }
 
     private void initCache() throws CacheException
@@ -197,6 +268,12 @@ private void initCache() throws CacheException
         int limitSizePropertyCacheCapacity = 10;
         this.limitSizePropertyCache = this.cacheManager.createNewCache(
             new LRUCacheConfiguration("xwiki.store.limitsizepropertycache", limitSizePropertyCacheCapacity));
+
+        this.pageExistFilterEnabled = this.configuration.getProperty("xwiki.store.cache.pageexistfilter", false);
+        this.pageExistFilterFalsePositiveProbability =
+            this.configuration.getProperty("xwiki.store.cache.pageexistfilter.fpp", 0.01D);
+        this.pageExistFilterBatchSize =
+            this.configuration.getProperty("xwiki.store.cache.pageexistfilter.batchsize", 10000);
     }
 
     @Deprecated
@@ -248,6 +325,7 @@ public void renameXWikiDoc(XWikiDocument doc, DocumentReference newReference, XW
             String key = getKey(doc, context);
             getCache().remove(key);
             getPageExistCache().remove(key);
+            sendInvalidation(doc, context);
 
             WikiReference originalWikiReference = doc.getDocumentReference().getWikiReference();
             // Flushing the cache for new document
@@ -258,6 +336,8 @@ public void renameXWikiDoc(XWikiDocument doc, DocumentReference newReference, XW
             key = getKey(newDoc, context);
             getCache().remove(key);
             getPageExistCache().remove(key);
+            putInPageExistFilter(newDoc, context.getWikiId());
+            sendInvalidation(newDoc, context);
             context.setWikiReference(originalWikiReference);
 
             // Restore the previous XWikiContext
@@ -281,6 +361,11 @@ public void saveXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext, boolean
             getCache().remove(key);
             getPageExistCache().remove(key);
 
+            // Even if the save failed, it's safer to assume the document might exist
+            putInPageExistFilter(doc, context.getWikiId());
+
+            sendInvalidation(doc, context);
+
             /*
              * We do not want to save the document in the cache at this time. If we did, this would introduce the
              * possibility for cache incoherence if the document is not saved in the database properly.
@@ -297,6 +382,8 @@ public void flushCache()
         getCache().removeAll();
         getPageExistCache().removeAll();
         getLimitSizePropertyCache().removeAll();
+        this.pageExistFilters.clear();
+        this.pageExistFiltersProgress.clear();
     }
 
     @Override
@@ -326,6 +413,42 @@ public void invalidate(XWikiDocument document)
         if (getPageExistCache() != null) {
             getPageExistCache().remove(key);
         }
+
+        // The document might have been created on another cluster member
+        putInPageExistFilter(document, document.getDocumentReference().getWikiReference().getName());
+    }
+
+    private void invalidate(Collection<String> keys)
+    {
+        for (String key : keys) {
+            int index = key.indexOf(INVALIDATION_SEPARATOR);
+            Locale locale = LocaleUtils.toLocale(StringUtils.defaultIfEmpty(key.substring(0, index), null));
+            DocumentReference reference = this.documentReferenceResolver.resolve(key.substring(index + 1));
+
+            invalidate(new XWikiDocument(reference, locale));
+        }
+    }
+
+    /**
+     * Tell the other members of the cluster to forget the cached version of the passed document, unless they already
+     * do it when receiving the document event.
+     */
+    private void sendInvalidation(XWikiDocument doc, XWikiContext context)
+    {
+        if (this.remoteDocumentInvalidator.isReplayed()) {
+            return;
+        }
+
+        DocumentReference reference = doc.getDocumentReference();
+        if (!reference.getWikiReference().equals(context.getWikiReference())) {
+            reference = reference.setWikiReference(context.getWikiReference());
+        }
+
+        Locale locale = doc.getLocale();
+        String key = (locale != null ? locale.toString() : "") + INVALIDATION_SEPARATOR
+            + this.entityReferenceSerializer.serialize(reference);
+
+        this.remoteInvalidationManager.invalidate(INVALIDATION_ID, key);
     }
 
     /**
@@ -402,7 +525,7 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
             } else {
                 Boolean result = getPageExistCache().get(key);
 
-                if (result == Boolean.FALSE) {
+                if (result == Boolean.FALSE || (result == null && !mightExist(doc, context.getWikiId(), context))) {
                     LOGGER.debug("Document [{}] doesn't exist in cache, returning an empty one", key);
 
                     cachedoc = doc;
@@ -415,7 +538,9 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
                 } else {
                     LOGGER.debug("Trying to get Document [{}] from persistent storage", key);
 
-                    cachedoc = this.store.loadXWikiDoc(doc, context);
+                    try (TraceSpan span = this.tracer.startSpan(RequestTracer.STORE)) {
+                        cachedoc = this.store.loadXWikiDoc(doc, context);
+                    }
 
                     LOGGER.debug("Document [{}] was retrieved from persistent storage", key);
 
@@ -426,6 +551,7 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
 
                         // Also update exist cache
                         getPageExistCache().set(key, Boolean.TRUE);
+                        putInPageExistFilter(cachedoc, context.getWikiId());
                     }
 
                     LOGGER.debug("Document [{}] was put in cache", key);
@@ -441,6 +567,220 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
         }
     }
 
+    @Override
+    public List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        // Make sure to use the right XWikiContext instance to avoid issues
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        try {
+            List<XWikiDocument> documents = new ArrayList<>(references.size());
+
+            // The documents to load from the persistent storage, indexed by position in the result
+            Map<Integer, DocumentReference> missingReferences = new LinkedHashMap<>();
+            for (DocumentReference reference : references) {
+                XWikiDocument doc = new XWikiDocument(
+                    reference.getLocale() != null ? new DocumentReference(reference, (Locale) null) : reference,
+                    reference.getLocale());
+                String key = getKey(doc.getDocumentReferenceWithLocale());
+
+                XWikiDocument cachedoc;
+                try {
+                    cachedoc = getCache().get(key);
+                } catch (Exception e) {
+                    LOGGER.error("Failed to get document [{}] from cache", key, e);
+
+                    cachedoc = null;
+                }
+
+                Boolean exists = cachedoc == null ? getPageExistCache().get(key) : null;
+                if (cachedoc != null) {
+                    cachedoc.setFromCache(true);
+                } else if (exists == Boolean.FALSE
+                    || (exists == null && !mightExist(doc, reference.getWikiReference().getName(), context))) {
+                    cachedoc = doc;
+                    cachedoc.setNew(true);
+
+                    // Make sure to always return a document with an original version, even for one that does not
+                    // exist.
+                    cachedoc
+                        .setOriginalDocument(new XWikiDocument(cachedoc.getDocumentReference(), cachedoc.getLocale()));
+                } else {
+                    missingReferences.put(documents.size(), doc.getDocumentReferenceWithLocale());
+                }
+
+                documents.add(cachedoc);
+            }
+
+            if (!missingReferences.isEmpty()) {
+                LOGGER.debug("Trying to get [{}] documents from persistent storage", missingReferences.size());
+
+                List<XWikiDocument> loadedDocumentList;
+                try (TraceSpan span = this.tracer.startSpan(RequestTracer.STORE)) {
+                    loadedDocumentList =
+                        this.store.loadXWikiDocs(new ArrayList<>(missingReferences.values()), context);
+                }
+
+                Iterator<XWikiDocument> loadedDocuments = loadedDocumentList.iterator();
+                for (Integer index : missingReferences.keySet()) {
+                    XWikiDocument loadedDocument = loadedDocuments.next();
+                    String key = getKey(loadedDocument.getDocumentReferenceWithLocale());
+
+                    if (loadedDocument.isNew()) {
+                        getPageExistCache().set(key, Boolean.FALSE);
+                    } else {
+                        getCache().set(key, loadedDocument);
+
+                        // Also update exist cache
+                        getPageExistCache().set(key, Boolean.TRUE);
+                        putInPageExistFilter(loadedDocument,
+                            loadedDocument.getDocumentReference().getWikiReference().getName());
+                    }
+
+                    documents.set(index, loadedDocument);
+                }
+            }
+
+            documents.forEach(document -> document.setStore(this));
+
+            return documents;
+        } finally {
+            restoreExecutionXContext();
+        }
+    }
+
+    private String getKey(DocumentReference referenceWithLocale)
+    {
+        return this.uidStringEntityReferenceSerializer.serialize(referenceWithLocale, referenceWithLocale);
+    }
+
+    /**
+     * @param doc the document
+     * @param wikiId the identifier of the wiki where to look for the document
+     * @param context the XWiki context
+     * @return {@code false} if the Bloom filter of the wiki is sure that the document does not exist, {@code true}
+     *         otherwise (including when there is no usable filter for the wiki)
+     */
+    private boolean mightExist(XWikiDocument doc, String wikiId, XWikiContext context)
+    {
+        DocumentIdBloomFilter filter = getPageExistFilter(wikiId, context);
+
+        return filter == null || filter.mightContain(doc.getId());
+    }
+
+    private void putInPageExistFilter(XWikiDocument doc, String wikiId)
+    {
+        if (wikiId != null) {
+            DocumentIdBloomFilter filter = this.pageExistFilters.get(wikiId);
+            if (filter != null) {
+                filter.put(doc.getId());
+            }
+        }
+    }
+
+    private DocumentIdBloomFilter getPageExistFilter(String wikiId, XWikiContext context)
+    {
+        if (!this.pageExistFilterEnabled || wikiId == null) {
+            return null;
+        }
+
+        DocumentIdBloomFilter filter = this.pageExistFilters.get(wikiId);
+
+        if (filter == null || filter.isSaturated() || !filter.isReady()) {
+            // Only one thread builds the filter of a given wiki, the others continue without it in the meantime
+            if (this.pageExistFiltersBuilding.add(wikiId)) {
+                try {
+                    filter = buildPageExistFilter(wikiId, context);
+                } finally {
+                    this.pageExistFiltersBuilding.remove(wikiId);
+                }
+            } else {
+                return null;
+            }
+        }
+
+        return filter != null && filter.isReady() ? filter : null;
+    }
+
+    /**
+     * Load the next batch of document identifiers in the Bloom filter of the wiki, creating it first when needed. The
+     * filter is built over several calls so that a single request never loads all the identifiers of a large wiki.
+     */
+    private DocumentIdBloomFilter buildPageExistFilter(String wikiId, XWikiContext context)
+    {
+        String currentWikiId = context.getWikiId();
+        context.setWikiId(wikiId);
+
+        try {
+            DocumentIdBloomFilter filter = this.pageExistFilters.get(wikiId);
+            if (filter == null || filter.isSaturated()) {
+                filter = createPageExistFilter(wikiId, context);
+            }
+
+            if (!filter.isReady()) {
+                loadPageExistFilter(filter, wikiId, context);
+            }
+
+            return filter;
+        } catch (Exception e) {
+            LOGGER.warn("Failed to build the Bloom filter of existing documents for wiki [{}]: {}", wikiId,
+                ExceptionUtils.getRootCauseMessage(e));
+
+            this.pageExistFilters.remove(wikiId);
+            this.pageExistFiltersProgress.remove(wikiId);
+
+            return null;
+        } finally {
+            context.setWikiId(currentWikiId);
+        }
+    }
+
+    private DocumentIdBloomFilter createPageExistFilter(String wikiId, XWikiContext context) throws XWikiException
+    {
+        List<Number> count = this.store.search("select count(doc.id) from XWikiDocument as doc", 0, 0, context);
+        long documents = count.isEmpty() || count.get(0) == null ? 0 : count.get(0).longValue();
+
+        // Keep some room for the documents which are going to be created
+        DocumentIdBloomFilter filter = new DocumentIdBloomFilter(documents + Math.max(documents / 2, 1000),
+            this.pageExistFilterFalsePositiveProbability);
+
+        // Register the filter before loading the identifiers so that the documents saved in the meantime are not
+        // missed
+        this.pageExistFilters.put(wikiId, filter);
+        this.pageExistFiltersProgress.remove(wikiId);
+
+        return filter;
+    }
+
+    private void loadPageExistFilter(DocumentIdBloomFilter filter, String wikiId, XWikiContext context)
+        throws XWikiException
+    {
+        // Iterate over the identifiers instead of using an offset to keep each query cheap
+        Long lastId = this.pageExistFiltersProgress.get(wikiId);
+        List<Number> ids;
+        if (lastId == null) {
+            ids = this.store.search("select doc.id from XWikiDocument as doc order by doc.id",
+                this.pageExistFilterBatchSize, 0, context);
+        } else {
+            ids = this.store.search("select doc.id from XWikiDocument as doc where doc.id > ?1 order by doc.id",
+                this.pageExistFilterBatchSize, 0, List.of(lastId), context);
+        }
+
+        for (Number id : ids) {
+            filter.put(id.longValue());
+        }
+
+        if (this.pageExistFilterBatchSize <= 0 || ids.size() < this.pageExistFilterBatchSize) {
+            filter.setReady();
+            this.pageExistFiltersProgress.remove(wikiId);
+
+            LOGGER.debug("Built the Bloom filter of existing documents for wiki [{}]", wikiId);
+        } else {
+            this.pageExistFiltersProgress.put(wikiId, ids.get(ids.size() - 1).longValue());
+        }
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
@@ -456,6 +796,8 @@ public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws
             getCache().remove(key);
             getPageExistCache().remove(key);
             getPageExistCache().set(key, Boolean.FALSE);
+
+            sendInvalidation(doc, context);
         } finally {
             restoreExecutionXContext();
         }
@@ -791,6 +1133,10 @@ public boolean exists(XWikiDocument doc, XWikiContext inputxcontext) throws XWik
             } catch (Exception e) {
             }
 
+            if (!mightExist(doc, context.getWikiId(), context)) {
+                return false;
+            }
+
             boolean result = this.store.exists(doc, context);
             getPageExistCache().set(key, Boolean.valueOf(result));
 
@@ -31,6 +31,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -48,6 +49,7 @@
 import javax.inject.Singleton;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.collections4.map.ReferenceMap;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -106,6 +108,7 @@
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.BaseProperty;
 import com.xpn.xwiki.objects.BaseStringProperty;
+import com.xpn.xwiki.objects.DBStringListProperty;
 import com.xpn.xwiki.objects.LargeStringProperty;
 import com.xpn.xwiki.objects.ListProperty;
 import com.xpn.xwiki.objects.PropertyInterface;
@@ -127,6 +130,16 @@
 @Singleton
 public class XWikiHibernateStore extends XWikiHibernateBaseStore implements XWikiStoreInterface, Initializable
 {
+    /**
+     * The maximum number of values passed to a single "in" clause when loading several documents at once.
+     */
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private static final EntityReference GROUPS_CLASS_REFERENCE = new EntityReference("XWikiGroups",
+        EntityType.DOCUMENT, new EntityReference("XWiki", EntityType.SPACE));
+
+    private static final String IDS = "ids";
+
     @Inject
     private Logger logger;
 
@@ -1055,31 +1068,14 @@ public XWikiDocument loadXWikiDoc(XWikiDocument defaultDocument, XWikiContext in
                         return defaultDocument;
                     }
 
-                    doc.setStore(this);
-                    doc.setNew(false);
-                    doc.setMostRecent(true);
-                    // Fix for XWIKI-1651
-                    doc.setDate(new Date(doc.getDate().getTime()));
-                    doc.setCreationDate(new Date(doc.getCreationDate().getTime()));
-                    doc.setContentUpdateDate(new Date(doc.getContentUpdateDate().getTime()));
+                    prepareLoadedDocument(doc);
 
                     // Loading the attachment list
                     if (doc.hasElement(XWikiDocument.HAS_ATTACHMENTS)) {
                         loadAttachmentList(doc, context, false);
                     }
 
-                    // TODO: handle the case where there are no xWikiClass and xWikiObject in the Database
-                    BaseClass bclass = new BaseClass();
-                    String cxml = doc.getXClassXML();
-                    if (cxml != null) {
-                        bclass.fromXML(cxml);
-                        doc.setXClass(bclass);
-                        bclass.setDirty(false);
-                    }
-
-                    // Store this XWikiClass in the context so that we can use it in case of recursive usage
-                    // of classes
-                    context.addBaseClass(bclass);
+                    BaseClass bclass = loadXClass(doc, context);
 
                     if (doc.hasElement(XWikiDocument.HAS_OBJECTS)) {
                         Query<BaseObject> query = session.createQuery(
@@ -1087,79 +1083,11 @@ public XWikiDocument loadXWikiDoc(XWikiDocument defaultDocument, XWikiContext in
                             BaseObject.class);
                         query.setParameter("name", doc.getFullName());
 
-                        Iterator<BaseObject> it = query.list().iterator();
-
-                        EntityReference localGroupEntityReference = new EntityReference("XWikiGroups",
-                            EntityType.DOCUMENT, new EntityReference("XWiki", EntityType.SPACE));
-                        DocumentReference groupsDocumentReference = new DocumentReference(context.getWikiId(),
-                            localGroupEntityReference.getParent().getName(), localGroupEntityReference.getName());
-
-                        boolean hasGroups = false;
-                        while (it.hasNext()) {
-                            BaseObject object = it.next();
-                            DocumentReference classReference = object.getXClassReference();
-
-                            if (classReference == null) {
-                                continue;
-                            }
-
-                            // It seems to search before is case insensitive. And this would break the loading if we get
-                            // an
-                            // object which doesn't really belong to this document
-                            if (!object.getDocumentReference().equals(doc.getDocumentReference())) {
-                                continue;
-                            }
-
-                            BaseObject newobject;
-                            if (classReference.equals(doc.getDocumentReference())) {
-                                newobject = bclass.newCustomClassInstance(true);
-                            } else {
-                                newobject = BaseClass.newCustomClassInstance(classReference, true, context);
-                            }
-                            if (newobject != null) {
-                                newobject.setId(object.getId());
-                                newobject.setXClassReference(object.getRelativeXClassReference());
-                                newobject.setDocumentReference(object.getDocumentReference());
-                                newobject.setNumber(object.getNumber());
-                                newobject.setGuid(object.getGuid());
-                                object = newobject;
-                            }
-
-                            if (classReference.equals(groupsDocumentReference)) {
-                                // Groups objects are handled differently.
-                                hasGroups = true;
-                            } else {
-                                loadXWikiCollectionInternal(object, doc, context, false, true);
-                            }
-                            doc.setXObject(object.getNumber(), object);
-                        }
-
-                        // AFAICT this was added as an emergency patch because loading of objects has proven
-                        // too slow and the objects which cause the most overhead are the XWikiGroups objects
-                        // as each group object (each group member) would otherwise cost 2 database queries.
-                        // This will do every group member in a single query.
-                        if (hasGroups) {
-                            Query<Object[]> query2 = session.createQuery(
-                                "select bobject.number, prop.value from StringProperty as prop,"
-                                    + "BaseObject as bobject where bobject.name = :name and bobject.className='XWiki.XWikiGroups' "
-                                    + "and bobject.id=prop.id.id and prop.id.name='member' order by bobject.number",
-                                Object[].class);
-                            query2.setParameter("name", doc.getFullName());
-
-                            Iterator<Object[]> it2 = query2.list().iterator();
-                            while (it2.hasNext()) {
-                                Object[] result = it2.next();
-                                Integer number = (Integer) result[0];
-                                String member = (String) result[1];
-                                BaseObject obj =
-                                    BaseClass.newCustomClassInstance(groupsDocumentReference, true, context);
-                                obj.setDocumentReference(doc.getDocumentReference());
-                                obj.setXClassReference(localGroupEntityReference);
-                                obj.setNumber(number.intValue());
-                                obj.setStringValue("member", member);
-                                doc.setXObject(obj.getNumber(), obj);
-                            }
+                        List<BaseObject> objects = new ArrayList<>();
+                        if (createXObjects(doc, bclass, query.list(), objects, context)) {
+                            loadXWikiGroups(Collections.singletonList(doc), session, context);
                         }
+                        loadXObjectsProperties(objects, session, context);
                     }
 
                     doc.setContentDirty(false);
@@ -1199,6 +1127,441 @@ public XWikiDocument loadXWikiDoc(XWikiDocument defaultDocument, XWikiContext in
         }
     }
 
+    @Override
+    public List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        try {
+            List<XWikiDocument> defaultDocuments = new ArrayList<>(references.size());
+            // Each wiki has its own database
+            Map<String, List<XWikiDocument>> wikiDocuments = new LinkedHashMap<>();
+            for (DocumentReference reference : references) {
+                XWikiDocument defaultDocument = new XWikiDocument(
+                    reference.getLocale() != null ? new DocumentReference(reference, (Locale) null) : reference,
+                    reference.getLocale());
+                defaultDocuments.add(defaultDocument);
+                wikiDocuments.computeIfAbsent(reference.getWikiReference().getName(), k -> new ArrayList<>())
+                    .add(defaultDocument);
+            }
+
+            // Document ids are only unique inside a wiki
+            Map<String, Map<Long, XWikiDocument>> loadedDocuments = new HashMap<>();
+            String currentWiki = context.getWikiId();
+            try {
+                for (Map.Entry<String, List<XWikiDocument>> entry : wikiDocuments.entrySet()) {
+                    context.setWikiId(entry.getKey());
+
+                    loadedDocuments.put(entry.getKey(), loadXWikiDocs(entry.getValue(), context));
+                }
+            } finally {
+                context.setWikiId(currentWiki);
+            }
+
+            List<XWikiDocument> documents = new ArrayList<>(defaultDocuments.size());
+            for (XWikiDocument defaultDocument : defaultDocuments) {
+                XWikiDocument document = loadedDocuments
+                    .get(defaultDocument.getDocumentReference().getWikiReference().getName())
+                    .get(defaultDocument.getId());
+                if (document == null) {
+                    document = defaultDocument;
+                    document.setNew(true);
+
+                    // Make sure to always return a document with an original version, even for one that does not
+                    // exist.
+                    document.setOriginalDocument(
+                        new XWikiDocument(document.getDocumentReference(), document.getLocale()));
+                }
+                documents.add(document);
+            }
+
+            return documents;
+        } finally {
+            restoreExecutionXContext();
+        }
+    }
+
+    /**
+     * Load the documents of the current wiki using a few queries for all of them instead of a few queries for each of
+     * them.
+     * 
+     * @param defaultDocuments the documents to load
+     * @param context the XWiki context
+     * @return the documents which exist, indexed by id
+     */
+    private Map<Long, XWikiDocument> loadXWikiDocs(List<XWikiDocument> defaultDocuments, XWikiContext context)
+        throws XWikiException
+    {
+        Map<Long, XWikiDocument> documents = new HashMap<>();
+
+        MonitorPlugin monitor = Util.getMonitorPlugin(context);
+        try {
+            // Start monitoring timer
+            if (monitor != null) {
+                monitor.startTimer(HINT);
+            }
+            checkHibernate(context);
+
+            SessionFactory sfactory = getSessionFactory();
+            for (XWikiDocument defaultDocument : defaultDocuments) {
+                SessionFactory documentFactory = injectCustomMappingsInSessionFactory(defaultDocument, context);
+                if (documentFactory != getSessionFactory()) {
+                    sfactory = documentFactory;
+                }
+            }
+
+            boolean bTransaction = beginTransaction(sfactory, context);
+            try {
+                Session session = getSession(context);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+
+                // Documents
+                Set<Long> ids = new LinkedHashSet<>();
+                defaultDocuments.forEach(document -> ids.add(document.getId()));
+                for (List<Long> idsChunk : ListUtils.partition(new ArrayList<>(ids), LOAD_BATCH_SIZE)) {
+                    Query<XWikiDocument> query = session
+                        .createQuery("from XWikiDocument as doc where doc.id in (:ids)", XWikiDocument.class);
+                    query.setParameterList(IDS, idsChunk);
+                    for (XWikiDocument document : query.list()) {
+                        prepareLoadedDocument(document);
+                        documents.put(document.getId(), document);
+                    }
+                }
+
+                // Attachments
+                List<Long> attachmentDocumentIds = new ArrayList<>();
+                // Objects are associated to the document name (without the locale)
+                Map<String, List<XWikiDocument>> objectDocuments = new HashMap<>();
+                for (XWikiDocument document : documents.values()) {
+                    if (document.hasElement(XWikiDocument.HAS_ATTACHMENTS)) {
+                        attachmentDocumentIds.add(document.getId());
+                    }
+                    if (document.hasElement(XWikiDocument.HAS_OBJECTS)) {
+                        objectDocuments.computeIfAbsent(document.getFullName(), k -> new ArrayList<>()).add(document);
+                    }
+                }
+                for (List<Long> idsChunk : ListUtils.partition(attachmentDocumentIds, LOAD_BATCH_SIZE)) {
+                    Query<XWikiAttachment> query = session.createQuery(
+                        "from XWikiAttachment as attach where attach.docId in (:docids)", XWikiAttachment.class);
+                    query.setParameterList("docids", idsChunk);
+                    for (XWikiAttachment attachment : query.list()) {
+                        documents.get(attachment.getDocId()).setAttachment(attachment);
+                    }
+                }
+
+                // Objects
+                Map<String, List<BaseObject>> objects = new HashMap<>();
+                for (List<String> namesChunk : ListUtils.partition(new ArrayList<>(objectDocuments.keySet()),
+                    LOAD_BATCH_SIZE)) {
+                    Query<BaseObject> query = session.createQuery(
+                        "from BaseObject as bobject where bobject.name in (:names) order by bobject.number",
+                        BaseObject.class);
+                    query.setParameterList("names", namesChunk);
+                    for (BaseObject object : query.list()) {
+                        objects.computeIfAbsent(object.getName(), k -> new ArrayList<>()).add(object);
+                    }
+                }
+
+                List<BaseObject> loadedObjects = new ArrayList<>();
+                List<XWikiDocument> groupDocuments = new ArrayList<>();
+                for (XWikiDocument document : documents.values()) {
+                    BaseClass bclass = loadXClass(document, context);
+
+                    if (document.hasElement(XWikiDocument.HAS_OBJECTS) && createXObjects(document, bclass,
+                        objects.getOrDefault(document.getFullName(), Collections.emptyList()), loadedObjects,
+                        context)) {
+                        groupDocuments.add(document);
+                    }
+                }
+
+                // Load the properties and the group members of all the documents at once
+                loadXObjectsProperties(loadedObjects, session, context);
+                loadXWikiGroups(groupDocuments, session, context);
+
+                for (XWikiDocument document : documents.values()) {
+                    document.setContentDirty(false);
+                    document.setMetaDataDirty(false);
+
+                    // We need to ensure that the loaded document becomes the original document
+                    document.setOriginalDocument(document.clone());
+                }
+
+                if (bTransaction) {
+                    endTransaction(context, false);
+                }
+            } finally {
+                if (bTransaction) {
+                    try {
+                        endTransaction(context, false);
+                    } catch (Exception e) {
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                XWikiException.ERROR_XWIKI_STORE_HIBERNATE_READING_DOC, "Exception while reading documents", e);
+        } finally {
+            // End monitoring timer
+            if (monitor != null) {
+                monitor.endTimer(HINT);
+            }
+        }
+
+        this.logger.debug("Loaded [{}] XWikiDocuments from wiki [{}]", documents.size(), context.getWikiId());
+
+        return documents;
+    }
+
+    private void prepareLoadedDocument(XWikiDocument doc)
+    {
+        doc.setStore(this);
+        doc.setNew(false);
+        doc.setMostRecent(true);
+        // Fix for XWIKI-1651
+        doc.setDate(new Date(doc.getDate().getTime()));
+        doc.setCreationDate(new Date(doc.getCreationDate().getTime()));
+        doc.setContentUpdateDate(new Date(doc.getContentUpdateDate().getTime()));
+    }
+
+    private BaseClass loadXClass(XWikiDocument doc, XWikiContext context) throws XWikiException
+    {
+        // TODO: handle the case where there are no xWikiClass and xWikiObject in the Database
+        BaseClass bclass = new BaseClass();
+        String cxml = doc.getXClassXML();
+        if (cxml != null) {
+            bclass.fromXML(cxml);
+            doc.setXClass(bclass);
+            bclass.setDirty(false);
+        }
+
+        // Store this XWikiClass in the context so that we can use it in case of recursive usage
+        // of classes
+        context.addBaseClass(bclass);
+
+        return bclass;
+    }
+
+    private DocumentReference getGroupsClassReference(XWikiContext context)
+    {
+        return new DocumentReference(context.getWikiId(), GROUPS_CLASS_REFERENCE.getParent().getName(),
+            GROUPS_CLASS_REFERENCE.getName());
+    }
+
+    /**
+     * Create the objects of the passed document, without their properties.
+     *
+     * @param doc the document
+     * @param bclass the class of the document
+     * @param objects the objects stored in the database for the document
+     * @param loadedObjects the created objects whose properties need to be loaded
+     * @param context the XWiki context
+     * @return true if the document holds group members, false otherwise
+     */
+    private boolean createXObjects(XWikiDocument doc, BaseClass bclass, List<BaseObject> objects,
+        List<BaseObject> loadedObjects, XWikiContext context) throws XWikiException
+    {
+        DocumentReference groupsDocumentReference = getGroupsClassReference(context);
+
+        boolean hasGroups = false;
+        for (BaseObject loadedObject : objects) {
+            BaseObject object = loadedObject;
+            DocumentReference classReference = object.getXClassReference();
+
+            if (classReference == null) {
+                continue;
+            }
+
+            // It seems to search before is case insensitive. And this would break the loading if we get an
+            // object which doesn't really belong to this document
+            if (!object.getDocumentReference().equals(doc.getDocumentReference())) {
+                continue;
+            }
+
+            BaseObject newobject;
+            if (classReference.equals(doc.getDocumentReference())) {
+                newobject = bclass.newCustomClassInstance(true);
+            } else {
+                newobject = BaseClass.newCustomClassInstance(classReference, true, context);
+            }
+            if (newobject != null) {
+                newobject.setId(object.getId());
+                newobject.setXClassReference(object.getRelativeXClassReference());
+                newobject.setDocumentReference(object.getDocumentReference());
+                newobject.setNumber(object.getNumber());
+                newobject.setGuid(object.getGuid());
+                object = newobject;
+            }
+
+            if (classReference.equals(groupsDocumentReference)) {
+                // Groups objects are handled differently.
+                hasGroups = true;
+            } else {
+                loadedObjects.add(object);
+            }
+            doc.setXObject(object.getNumber(), object);
+        }
+
+        return hasGroups;
+    }
+
+    /**
+     * Load the properties of the passed objects with one query per property table for all of them, instead of one
+     * query per property.
+     *
+     * @param objects the objects to load, already associated with their document
+     * @param session the Hibernate session
+     * @param context the XWiki context
+     */
+    private void loadXObjectsProperties(List<BaseObject> objects, Session session, XWikiContext context)
+        throws XWikiException
+    {
+        // The same object is shared by the documents having the same name (i.e. the translations)
+        Map<Long, List<BaseObject>> objectsById = new LinkedHashMap<>();
+        for (BaseObject object : objects) {
+            if (hasCustomMapping(object, context)) {
+                loadXWikiCollectionInternal(object, object.getOwnerDocument(), context, false, true);
+            } else {
+                objectsById.computeIfAbsent(object.getId(), k -> new ArrayList<>()).add(object);
+            }
+        }
+
+        // Find the name and the type of all the properties
+        List<Object[]> properties = new ArrayList<>();
+        Map<String, Set<Long>> idsByType = new HashMap<>();
+        for (List<Long> idsChunk : ListUtils.partition(new ArrayList<>(objectsById.keySet()), LOAD_BATCH_SIZE)) {
+            Query<Object[]> query = session.createQuery(
+                "select prop.id.id, prop.name, prop.classType from BaseProperty as prop where prop.id.id in (:ids)",
+                Object[].class);
+            query.setParameterList(IDS, idsChunk);
+            for (Object[] result : query.list()) {
+                properties.add(result);
+                String classType = (String) result[2];
+                if (isMappedProperty(classType)) {
+                    idsByType.computeIfAbsent(classType, k -> new LinkedHashSet<>()).add((Long) result[0]);
+                }
+            }
+        }
+
+        // Load the values from each property table
+        Map<Long, Map<String, BaseProperty>> values = new HashMap<>();
+        for (Map.Entry<String, Set<Long>> entry : idsByType.entrySet()) {
+            String classType = entry.getKey();
+            // Fetch the list items in the same query instead of one query per list
+            String statement = "select prop from " + classType + " as prop "
+                + (DBStringListProperty.class.getName().equals(classType) ? "left join fetch prop.list " : "")
+                // Several property types can be stored in the same table
+                + "where prop.id.id in (:ids) and prop.classType = :classType";
+            for (List<Long> idsChunk : ListUtils.partition(new ArrayList<>(entry.getValue()), LOAD_BATCH_SIZE)) {
+                Query<BaseProperty> query = session.createQuery(statement, BaseProperty.class);
+                query.setParameterList(IDS, idsChunk);
+                query.setParameter("classType", classType);
+                // A fetched list returns the same property once per item
+                for (BaseProperty property : query.list()) {
+                    values.computeIfAbsent(property.getId(), k -> new HashMap<>()).put(property.getName(), property);
+                }
+            }
+        }
+
+        for (Object[] result : properties) {
+            Long id = (Long) result[0];
+            String name = (String) result[1];
+            String classType = (String) result[2];
+
+            BaseProperty value = values.getOrDefault(id, Collections.emptyMap()).get(name);
+            for (BaseObject object : objectsById.get(id)) {
+                BaseProperty property;
+                if (value == null) {
+                    // The value is not where the type says it is, go through the slow path which knows how to
+                    // recover from that
+                    property = loadXWikiCollectionProperty(object, getXClass(object, context), name, classType,
+                        context);
+                } else {
+                    property = value.getObject() == null ? value : value.clone();
+                    property.setObject(object);
+                    prepareLoadedProperty(property);
+                }
+                object.addField(name, property);
+            }
+        }
+    }
+
+    private boolean isMappedProperty(String classType)
+    {
+        Metadata metadata = this.store.getConfigurationMetadata();
+
+        return metadata != null && metadata.getEntityBinding(classType) != null;
+    }
+
+    private boolean hasCustomMapping(BaseCollection object, XWikiContext context)
+    {
+        if (!context.getWiki().hasCustomMappings()) {
+            return false;
+        }
+
+        BaseClass bclass = getXClass(object, context);
+
+        return bclass != null && bclass.hasCustomMapping();
+    }
+
+    private BaseClass getXClass(BaseCollection object, XWikiContext context)
+    {
+        if (!object.getXClassReference().equals(object.getDocumentReference())) {
+            return object.getXClass(context);
+        }
+
+        // We need to get it from the document otherwise we will go in an endless loop
+        XWikiDocument doc = object.getOwnerDocument();
+
+        return doc != null ? doc.getXClass() : null;
+    }
+
+    /**
+     * Load the members of the passed groups with a single query for all of them.
+     *
+     * @param documents the documents holding group members
+     * @param session the Hibernate session
+     * @param context the XWiki context
+     */
+    private void loadXWikiGroups(List<XWikiDocument> documents, Session session, XWikiContext context)
+        throws XWikiException
+    {
+        DocumentReference groupsDocumentReference = getGroupsClassReference(context);
+
+        Map<String, List<XWikiDocument>> documentsByName = new LinkedHashMap<>();
+        for (XWikiDocument document : documents) {
+            documentsByName.computeIfAbsent(document.getFullName(), k -> new ArrayList<>()).add(document);
+        }
+
+        // AFAICT this was added as an emergency patch because loading of objects has proven
+        // too slow and the objects which cause the most overhead are the XWikiGroups objects
+        // as each group object (each group member) would otherwise cost 2 database queries.
+        // This will do every group member in a single query.
+        for (List<String> namesChunk : ListUtils.partition(new ArrayList<>(documentsByName.keySet()),
+            LOAD_BATCH_SIZE)) {
+            Query<Object[]> query = session.createQuery(
+                "select bobject.name, bobject.number, prop.value from StringProperty as prop,"
+                    + "BaseObject as bobject where bobject.name in (:names) and bobject.className='XWiki.XWikiGroups' "
+                    + "and bobject.id=prop.id.id and prop.id.name='member' order by bobject.number",
+                Object[].class);
+            query.setParameterList("names", namesChunk);
+
+            for (Object[] result : query.list()) {
+                Integer number = (Integer) result[1];
+                String member = (String) result[2];
+                // The name comparison of the database might be case insensitive
+                for (XWikiDocument doc : documentsByName.getOrDefault(result[0], Collections.emptyList())) {
+                    BaseObject obj = BaseClass.newCustomClassInstance(groupsDocumentReference, true, context);
+                    obj.setDocumentReference(doc.getDocumentReference());
+                    obj.setXClassReference(GROUPS_CLASS_REFERENCE);
+                    obj.setNumber(number.intValue());
+                    obj.setStringValue("member", member);
+                    doc.setXObject(obj.getNumber(), obj);
+                }
+            }
+        }
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
@@ -1579,55 +1942,8 @@ private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument d
                             continue;
                         }
                         String classType = (String) result[1];
-                        BaseProperty property = null;
-
-                        try {
-                            property = (BaseProperty) Class.forName(classType).newInstance();
-                            property.setObject(object);
-                            property.setName(name);
-                            loadXWikiProperty(property, context, false);
-                        } catch (Exception e) {
-                            // WORKAROUND IN CASE OF MIXMATCH BETWEEN STRING AND LARGESTRING
-                            try {
-                                if (property instanceof StringProperty) {
-                                    LargeStringProperty property2 = new LargeStringProperty();
-                                    property2.setObject(object);
-                                    property2.setName(name);
-                                    loadXWikiProperty(property2, context, false);
-                                    property.setValue(property2.getValue());
-
-                                    if (bclass != null) {
-                                        if (bclass.get(name) instanceof TextAreaClass) {
-                                            property = property2;
-                                        }
-                                    }
-
-                                } else if (property instanceof LargeStringProperty) {
-                                    StringProperty property2 = new StringProperty();
-                                    property2.setObject(object);
-                                    property2.setName(name);
-                                    loadXWikiProperty(property2, context, false);
-                                    property.setValue(property2.getValue());
-
-                                    if (bclass != null) {
-                                        if (bclass.get(name) instanceof StringClass) {
-                                            property = property2;
-                                        }
-                                    }
-                                } else {
-                                    throw e;
-                                }
-                            } catch (Throwable e2) {
-                                Object[] args = {object.getName(), object.getClass(),
-                                    Integer.valueOf(object.getNumber() + ""), name};
-                                throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
-                                    XWikiException.ERROR_XWIKI_STORE_HIBERNATE_LOADING_OBJECT,
-                                    "Exception while loading object [{0}] of class [{1}], number [{2}] and property [{3}]",
-                                    e, args);
-                            }
-                        }
 
-                        object.addField(name, property);
+                        object.addField(name, loadXWikiCollectionProperty(object, bclass, name, classType, context));
                     }
                 }
 
@@ -1654,6 +1970,60 @@ private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument d
 
     }
 
+    private BaseProperty loadXWikiCollectionProperty(BaseCollection object, BaseClass bclass, String name,
+        String classType, XWikiContext context) throws XWikiException
+    {
+        BaseProperty property = null;
+
+        try {
+            property = (BaseProperty) Class.forName(classType).newInstance();
+            property.setObject(object);
+            property.setName(name);
+            loadXWikiProperty(property, context, false);
+        } catch (Exception e) {
+            // WORKAROUND IN CASE OF MIXMATCH BETWEEN STRING AND LARGESTRING
+            try {
+                if (property instanceof StringProperty) {
+                    LargeStringProperty property2 = new LargeStringProperty();
+                    property2.setObject(object);
+                    property2.setName(name);
+                    loadXWikiProperty(property2, context, false);
+                    property.setValue(property2.getValue());
+
+                    if (bclass != null) {
+                        if (bclass.get(name) instanceof TextAreaClass) {
+                            property = property2;
+                        }
+                    }
+
+                } else if (property instanceof LargeStringProperty) {
+                    StringProperty property2 = new StringProperty();
+                    property2.setObject(object);
+                    property2.setName(name);
+                    loadXWikiProperty(property2, context, false);
+                    property.setValue(property2.getValue());
+
+                    if (bclass != null) {
+                        if (bclass.get(name) instanceof StringClass) {
+                            property = property2;
+                        }
+                    }
+                } else {
+                    throw e;
+                }
+            } catch (Throwable e2) {
+                Object[] args = {object.getName(), object.getClass(),
+                    Integer.valueOf(object.getNumber() + ""), name};
+                throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                    XWikiException.ERROR_XWIKI_STORE_HIBERNATE_LOADING_OBJECT,
+                    "Exception while loading object [{0}] of class [{1}], number [{2}] and property [{3}]",
+                    e, args);
+            }
+        }
+
+        return property;
+    }
+
     /**
      * @deprecated This is internal to XWikiHibernateStore and may be removed in the future.
      */
@@ -1751,16 +2121,7 @@ private void loadXWikiProperty(PropertyInterface property, XWikiContext context,
             try {
                 try {
                     session.load(property, (Serializable) property);
-                    // In Oracle, empty string are converted to NULL. Since an undefined property is not found at all,
-                    // it is
-                    // safe to assume that a retrieved NULL value should actually be an empty string.
-                    if (property instanceof BaseStringProperty) {
-                        BaseStringProperty stringProperty = (BaseStringProperty) property;
-                        if (stringProperty.getValue() == null) {
-                            stringProperty.setValue("");
-                        }
-                    }
-                    ((BaseProperty) property).setValueDirty(false);
+                    prepareLoadedProperty((BaseProperty) property);
                 } catch (ObjectNotFoundException e) {
                     // Let's accept that there is no data in property tables but log it
                     this.logger.error("No data for property [{}] of object id [{}]", property.getName(),
@@ -1787,6 +2148,19 @@ private void loadXWikiProperty(PropertyInterface property, XWikiContext context,
         });
     }
 
+    private void prepareLoadedProperty(BaseProperty property)
+    {
+        // In Oracle, empty string are converted to NULL. Since an undefined property is not found at all, it is
+        // safe to assume that a retrieved NULL value should actually be an empty string.
+        if (property instanceof BaseStringProperty) {
+            BaseStringProperty stringProperty = (BaseStringProperty) property;
+            if (stringProperty.getValue() == null) {
+                stringProperty.setValue("");
+            }
+        }
+        property.setValueDirty(false);
+    }
+
     private void saveXWikiPropertyInternal(final PropertyInterface property, final XWikiContext context,
         final boolean runInOwnTransaction) throws XWikiException
     {
@@ -53,6 +53,7 @@
 import org.xwiki.query.SecureQuery;
 import org.xwiki.query.WrappingQuery;
 import org.xwiki.query.hql.internal.HQLStatementValidator;
+import org.xwiki.query.internal.KeysetQuery;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
 
@@ -225,6 +226,11 @@ protected Query filterQuery(Query query)
 
             // Execute filters
             filteredQuery = filterQuery(filteredQuery, Query.HQL);
+
+            // Start after the passed sort key values (keyset pagination)
+            if (!filteredQuery.getAfter().isEmpty()) {
+                filteredQuery = new KeysetQuery(filteredQuery);
+            }
         }
 
         return filteredQuery;
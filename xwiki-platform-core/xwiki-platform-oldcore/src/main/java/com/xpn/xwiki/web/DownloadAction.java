@@ -21,6 +21,11 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -106,6 +111,18 @@ public class DownloadAction extends XWikiAction
     /** The format of a valid range header. */
     private static final Pattern RANGE_HEADER_PATTERN = Pattern.compile("bytes=([0-9]+)?-([0-9]+)?");
 
+    /** The request attribute set by the servlet container when it can send files itself. */
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+    /** The request attribute holding the path of the file the servlet container should send. */
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+    /** The request attribute holding the position of the first byte the servlet container should send. */
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+    /** The request attribute holding the position after the last byte the servlet container should send. */
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
     @Inject
     private TemporaryAttachmentSessionsManager temporaryAttachmentSessionsManager;
 
@@ -271,17 +288,26 @@ private void writeByteRange(final XWikiAttachment attachment, Long start, Long e
         final XWikiResponse response, final XWikiContext context) throws XWikiException, IOException
     {
         if (start >= 0 && start < attachment.getContentLongSize(context)) {
-            InputStream data = attachment.getContentInputStream(context);
-            data = new BoundedInputStream(data, end + 1);
-            data.skip(start);
+            Optional<Path> path = attachment.getContentPath(context);
+            InputStream data = null;
+            if (path.isEmpty()) {
+                data = attachment.getContentInputStream(context);
+                data = new BoundedInputStream(data, end + 1);
+                data.skip(start);
+            }
             setCommonHeaders(attachment, request, response, context);
             response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-            if ((end - start + 1L) < Integer.MAX_VALUE) {
+            // The content length is mandatory when the servlet container sends the file itself
+            if (path.isPresent() || (end - start + 1L) < Integer.MAX_VALUE) {
                 setContentLength(response, end - start + 1);
             }
             response.setHeader("Content-Range",
                 "bytes " + start + "-" + end + SEPARATOR + attachment.getContentLongSize(context));
-            IOUtils.copyLarge(data, response.getOutputStream());
+            if (path.isPresent()) {
+                transferContent(path.get(), start, end - start + 1, request, response);
+            } else {
+                IOUtils.copyLarge(data, response.getOutputStream());
+            }
         } else {
             response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
         }
@@ -303,8 +329,13 @@ protected void sendContent(final XWikiAttachment attachment, final XWikiRequest
         try {
             setCommonHeaders(attachment, request, response, context);
             setContentLength(response, attachment.getContentLongSize(context));
-            stream = attachment.getContentInputStream(context);
-            IOUtils.copy(stream, response.getOutputStream());
+            Optional<Path> path = attachment.getContentPath(context);
+            if (path.isPresent()) {
+                transferContent(path.get(), 0, attachment.getContentLongSize(context), request, response);
+            } else {
+                stream = attachment.getContentInputStream(context);
+                IOUtils.copy(stream, response.getOutputStream());
+            }
         } catch (IOException e) {
             throw new XWikiException(XWikiException.MODULE_XWIKI_APP,
                 XWikiException.ERROR_XWIKI_APP_SEND_RESPONSE_EXCEPTION, "Exception while sending response", e);
@@ -315,6 +346,49 @@ protected void sendContent(final XWikiAttachment attachment, final XWikiRequest
         }
     }
 
+    /**
+     * Transfer a portion of a file to the response. When the servlet container supports it (e.g. Tomcat with NIO or
+     * APR connectors), the file is sent by the container itself using the operating system sendfile support, which
+     * avoids copying the content through the JVM. Otherwise the content is read from a {@link FileChannel}, positioned
+     * directly at the requested range, and copied to the response output stream.
+     *
+     * @param path the file containing the attachment content
+     * @param start the first byte to write
+     * @param length the number of bytes to write
+     * @param request the current client request
+     * @param response the response to write to
+     * @throws IOException if the file cannot be read or the response cannot be written
+     */
+    private void transferContent(Path path, long start, long length, final XWikiRequest request,
+        final XWikiResponse response) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long remaining = Math.max(0, Math.min(length, channel.size() - start));
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+                // The container reads the file after the action returns
+                request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, path.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+                request.setAttribute(SENDFILE_END_ATTRIBUTE, start + remaining);
+
+                return;
+            }
+
+            // Don't close the output channel, it would close the response output stream
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, output);
+                if (transferred <= 0) {
+                    // The file was truncated in the meantime
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
     /**
      * @return the filename of the attachment or null if the URL didn't point to an attachment
      */
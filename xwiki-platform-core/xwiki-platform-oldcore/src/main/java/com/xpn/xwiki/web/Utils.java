@@ -47,11 +47,15 @@
 import org.xwiki.attachment.validation.AttachmentValidationException;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.stability.Unstable;
+import org.xwiki.tracing.RequestTrace;
+import org.xwiki.tracing.RequestTracer;
 import org.xwiki.xml.XMLUtils;
 
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.internal.debug.DebugConfiguration;
 import com.xpn.xwiki.plugin.fileupload.FileUploadPlugin;
 import com.xpn.xwiki.util.Util;
 
@@ -205,6 +209,8 @@ public static void parseTemplate(String template, boolean write, XWikiContext co
                 }
             }
 
+            setServerTimingHeader(response);
+
             // We only write if the caller has asked.
             // We also make sure to verify that there hasn't been a call to sendRedirect before since it would mean the
             // response has already been written to and we shouldn't try to write in it.
@@ -233,6 +239,23 @@ public static void parseTemplate(String template, boolean write, XWikiContext co
         }
     }
 
+    /**
+     * Add a {@code Server-Timing} header indicating the time spent so far in the various stages of the current request,
+     * when request tracing is enabled. It must be called before the response is committed.
+     *
+     * @param response the response to add the header to
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    public static void setServerTimingHeader(XWikiResponse response)
+    {
+        RequestTrace trace = getComponent(RequestTracer.class).getCurrentTrace();
+
+        if (trace != null && !response.isCommitted() && getComponent(DebugConfiguration.class).isServerTiming()) {
+            response.setHeader("Server-Timing", trace.toServerTiming());
+        }
+    }
+
     /**
      * Retrieve the URL to which the client should be redirected after the successful completion of the requested
      * action. This is taken from the {@code xredirect} parameter in the query string. If this parameter is not set, or
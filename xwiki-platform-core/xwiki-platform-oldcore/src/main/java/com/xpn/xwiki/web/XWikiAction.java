@@ -87,6 +87,8 @@
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
 import org.xwiki.template.TemplateManager;
+import org.xwiki.tracing.RequestTrace;
+import org.xwiki.tracing.RequestTracer;
 import org.xwiki.user.UserReference;
 import org.xwiki.user.UserReferenceResolver;
 import org.xwiki.velocity.VelocityManager;
@@ -98,6 +100,8 @@
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.DocumentRevisionProvider;
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.debug.DebugConfiguration;
+import com.xpn.xwiki.internal.debug.RequestTraceStatistics;
 import com.xpn.xwiki.internal.web.LegacyAction;
 import com.xpn.xwiki.monitor.api.MonitorPlugin;
 import com.xpn.xwiki.objects.BaseObject;
@@ -182,6 +186,8 @@ public abstract class XWikiAction implements LegacyAction
 
     private JobProgressManager progress;
 
+    private RequestTracer tracer;
+
     private ScriptContextManager scriptContextManager;
 
     private EntityNameValidationManager entityNameValidationManager;
@@ -282,6 +288,15 @@ protected JobProgressManager getProgress()
         return this.progress;
     }
 
+    private RequestTracer getTracer()
+    {
+        if (this.tracer == null) {
+            this.tracer = Utils.getComponent(RequestTracer.class);
+        }
+
+        return this.tracer;
+    }
+
     protected EntityNameValidationManager getEntityNameValidationManager()
     {
         if (this.entityNameValidationManager == null) {
@@ -391,6 +406,7 @@ public void execute(XWikiContext context) throws Exception
         MonitorPlugin monitor = null;
         FileUploadPlugin fileupload = null;
         DefaultJobProgress actionProgress = null;
+        RequestTrace trace = null;
         String docName = "";
 
         boolean debug = StringUtils.equals(context.getRequest().get("debug"), "true");
@@ -400,6 +416,11 @@ public void execute(XWikiContext context) throws Exception
         try {
             String action = context.getAction();
 
+            // Start tracing
+            if (Utils.getComponent(DebugConfiguration.class).isTracing()) {
+                trace = getTracer().startTrace(context.getURL().getPath());
+            }
+
             // Start progress
             if (debug) {
                 actionProgress = new DefaultJobProgress(context.getURL().toExternalForm());
@@ -775,6 +796,12 @@ public void execute(XWikiContext context) throws Exception
             if (fileupload != null) {
                 fileupload.cleanFileList(context);
             }
+
+            // Stop tracing
+            if (trace != null) {
+                getTracer().endTrace();
+                Utils.getComponent(RequestTraceStatistics.class).add(trace);
+            }
         }
     }
 
@@ -626,6 +626,49 @@ void testCloneSaveVersions()
         assertEquals(doc1.getVersion(), doc2.getVersion());
     }
 
+    @Test
+    void cloneCachedDocument()
+    {
+        this.document.setCached(true);
+
+        XWikiDocument clonedDocument = this.document.clone();
+
+        // Modifying the clone does not impact the cached document
+        clonedDocument.getXObject(CLASS_REFERENCE).setStringValue("string", "modified");
+        assertEquals("string", this.document.getXObject(CLASS_REFERENCE).getStringValue("string"));
+        assertEquals("modified", clonedDocument.getXObject(CLASS_REFERENCE).getStringValue("string"));
+
+        // The clone has its own objects
+        assertEquals(2, clonedDocument.getXObjects(CLASS_REFERENCE).size());
+        for (BaseObject clonedObject : clonedDocument.getXObjects(CLASS_REFERENCE)) {
+            assertSame(clonedDocument, clonedObject.getOwnerDocument());
+            assertNotSame(this.document.getXObject(CLASS_REFERENCE, clonedObject.getNumber()), clonedObject);
+        }
+
+        // Cloning a clone of a cached document
+        XWikiDocument clonedClonedDocument = this.document.clone().clone();
+        assertEquals(this.document.getXObjects(), clonedClonedDocument.getXObjects());
+        assertSame(clonedClonedDocument, clonedClonedDocument.getXObject(CLASS_REFERENCE).getOwnerDocument());
+    }
+
+    @Test
+    void cloneCachedDocumentIsIsolatedAndNotDirty()
+    {
+        // Make sure the properties are dirty, which is what sets the owner document dirty
+        this.document.getXObject(CLASS_REFERENCE).setStringValue("string", "dirty");
+        this.document.setMetaDataDirty(false);
+        this.document.setCached(true);
+
+        XWikiDocument clonedDocument = this.document.clone();
+
+        // Objects removed from the cached document after the clone are not removed from the clone
+        this.document.removeXObject(this.document.getXObject(CLASS_REFERENCE, 1));
+        assertNotNull(clonedDocument.getXObject(CLASS_REFERENCE, 1));
+
+        // Reading the objects does not make the clone dirty
+        assertFalse(clonedDocument.isMetaDataDirty());
+    }
+
     @Test
     void testAddObject() throws XWikiException
     {
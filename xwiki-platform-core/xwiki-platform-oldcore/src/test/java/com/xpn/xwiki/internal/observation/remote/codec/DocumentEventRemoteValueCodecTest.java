@@ -0,0 +1,159 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.AbstractDocumentEvent;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.DocumentUpdatingEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.filter.RegexEventFilter;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.codec.RemoteValueCodec;
+import org.xwiki.observation.remote.internal.codec.EventFilterRemoteValueCodec;
+import org.xwiki.observation.remote.internal.codec.EventRemoteValueCodec;
+import org.xwiki.observation.remote.internal.codec.RemoteEventCodec;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link DocumentEventRemoteValueCodec}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@ComponentList({EntityReferenceRemoteValueCodec.class, EventFilterRemoteValueCodec.class,
+    EventRemoteValueCodec.class, DocumentEventRemoteValueCodec.class})
+class DocumentEventRemoteValueCodecTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE =
+        new DocumentReference("wiki", List.of("space1", "space2"), "page", Locale.FRENCH);
+
+    @InjectMockComponents
+    private RemoteEventCodec codec;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    private byte[] encode(Event event) throws IOException
+    {
+        return this.codec.encode(List.of(new RemoteEventData(event, null, null)));
+    }
+
+    private Event roundTrip(Event event) throws IOException
+    {
+        byte[] bytes = encode(event);
+
+        return this.codec.decode(bytes, 0, bytes.length, getClass().getClassLoader()).get(0).getEvent();
+    }
+
+    @Test
+    void encodeDecodeEventWithReference() throws IOException
+    {
+        for (AbstractDocumentEvent event : List.of(new DocumentCreatedEvent(DOCUMENT_REFERENCE),
+            new DocumentUpdatedEvent(DOCUMENT_REFERENCE), new DocumentDeletedEvent(DOCUMENT_REFERENCE))) {
+            AbstractDocumentEvent decoded = (AbstractDocumentEvent) roundTrip(event);
+
+            assertSame(event.getClass(), decoded.getClass());
+            assertEquals(DOCUMENT_REFERENCE, decoded.getDocumentReference());
+            assertEquals(Locale.FRENCH, decoded.getDocumentReference().getLocale());
+            assertEquals(event.getEventFilter().getFilter(), decoded.getEventFilter().getFilter());
+            assertTrue(decoded.matches(event));
+            assertFalse(decoded.matches(new DocumentUpdatedEvent(new DocumentReference("wiki", "space", "other"))));
+        }
+    }
+
+    @Test
+    void encodeDecodeEventWithFilter() throws IOException
+    {
+        DocumentUpdatedEvent decoded =
+            (DocumentUpdatedEvent) roundTrip(new DocumentUpdatedEvent(new RegexEventFilter("wiki:space\\..*")));
+
+        assertNull(decoded.getDocumentReference());
+        assertSame(RegexEventFilter.class, decoded.getEventFilter().getClass());
+        assertEquals("wiki:space\\..*", decoded.getEventFilter().getFilter());
+
+        decoded = (DocumentUpdatedEvent) roundTrip(new DocumentUpdatedEvent());
+
+        assertNull(decoded.getDocumentReference());
+        assertTrue(decoded.matches(new DocumentUpdatedEvent(DOCUMENT_REFERENCE)));
+    }
+
+    @Test
+    void encodeDecodeCanceledEvent() throws IOException
+    {
+        DocumentUpdatingEvent event = new DocumentUpdatingEvent(DOCUMENT_REFERENCE);
+        event.cancel("reason");
+
+        DocumentUpdatingEvent decoded = (DocumentUpdatingEvent) roundTrip(event);
+
+        assertTrue(decoded.isCanceled());
+        assertEquals("reason", decoded.getReason());
+        assertFalse(((DocumentUpdatingEvent) roundTrip(new DocumentUpdatingEvent(DOCUMENT_REFERENCE))).isCanceled());
+    }
+
+    @Test
+    void encodeIsSmallerThanSerialization() throws IOException
+    {
+        DocumentUpdatedEvent event = new DocumentUpdatedEvent(DOCUMENT_REFERENCE);
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(serialized)) {
+            stream.writeObject(event);
+        }
+
+        // The event is handled by the document event codec and not serialized
+        assertTrue(encode(event).length * 4 < serialized.size());
+    }
+
+    @Test
+    void canEncode() throws Exception
+    {
+        DocumentEventRemoteValueCodec documentCodec =
+            this.componentManager.getInstance(RemoteValueCodec.class, "document");
+
+        assertTrue(documentCodec.canEncode(new DocumentUpdatedEvent(DOCUMENT_REFERENCE)));
+        assertTrue(documentCodec.canEncode(new DocumentUpdatedEvent()));
+        // Only the public event classes can be instantiated when decoding
+        assertFalse(documentCodec.canEncode(new DocumentUpdatedEvent(DOCUMENT_REFERENCE)
+        {
+            private static final long serialVersionUID = 1L;
+        }));
+        assertFalse(documentCodec.canEncode("document"));
+    }
+}
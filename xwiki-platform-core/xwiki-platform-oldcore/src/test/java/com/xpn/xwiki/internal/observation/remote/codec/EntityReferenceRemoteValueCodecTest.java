@@ -0,0 +1,125 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote.codec;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.ObjectPropertyReference;
+import org.xwiki.model.reference.ObjectReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.internal.codec.EventFilterRemoteValueCodec;
+import org.xwiki.observation.remote.internal.codec.EventRemoteValueCodec;
+import org.xwiki.observation.remote.internal.codec.RemoteEventCodec;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link EntityReferenceRemoteValueCodec}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@ComponentList({EntityReferenceRemoteValueCodec.class, EventFilterRemoteValueCodec.class,
+    EventRemoteValueCodec.class, DocumentEventRemoteValueCodec.class})
+class EntityReferenceRemoteValueCodecTest
+{
+    @InjectMockComponents
+    private RemoteEventCodec codec;
+
+    private Object roundTrip(Object value) throws IOException
+    {
+        byte[] bytes = this.codec.encode(List.of(new RemoteEventData(null, null, (Serializable) value)));
+
+        return this.codec.decode(bytes, 0, bytes.length, getClass().getClassLoader()).get(0).getData();
+    }
+
+    @Test
+    void encodeDecodeReferences() throws IOException
+    {
+        DocumentReference documentReference = new DocumentReference("wiki", List.of("space1", "space2"), "page");
+        DocumentReference localizedReference = new DocumentReference(documentReference, Locale.FRENCH);
+        EntityReference entityReference = new EntityReference("page", EntityType.DOCUMENT);
+        AttachmentReference attachmentReference = new AttachmentReference("file.txt", documentReference);
+        ObjectPropertyReference propertyReference =
+            new ObjectPropertyReference("property", new ObjectReference("Space.Class[0]", documentReference));
+
+        for (Object reference : List.of(new WikiReference("wiki"), documentReference, localizedReference,
+            entityReference, attachmentReference, propertyReference)) {
+            Object decoded = roundTrip(reference);
+
+            assertEquals(reference, decoded);
+            assertSame(reference.getClass(), decoded.getClass());
+        }
+
+        assertEquals(Locale.FRENCH, ((DocumentReference) roundTrip(localizedReference)).getLocale());
+    }
+
+    @Test
+    void encodeDecodeDocumentEvent() throws IOException
+    {
+        DocumentReference documentReference = new DocumentReference("wiki", "space", "page");
+
+        HashMap<String, Object> source = new HashMap<>();
+        source.put("docname", documentReference);
+        source.put("docversion", "1.1");
+        source.put("doclanguage", "");
+
+        byte[] bytes = this.codec
+            .encode(List.of(new RemoteEventData(new DocumentUpdatedEvent(documentReference), source, null)));
+
+        RemoteEventData event = this.codec.decode(bytes, 0, bytes.length, getClass().getClassLoader()).get(0);
+
+        assertTrue(event.getEvent() instanceof DocumentUpdatedEvent);
+        assertTrue(((DocumentUpdatedEvent) event.getEvent()).matches(new DocumentUpdatedEvent(documentReference)));
+        assertFalse(((DocumentUpdatedEvent) event.getEvent())
+            .matches(new DocumentUpdatedEvent(new DocumentReference("wiki", "space", "other"))));
+        assertEquals(source, event.getSource());
+    }
+
+    @Test
+    void canEncode()
+    {
+        EntityReferenceRemoteValueCodec referenceCodec = new EntityReferenceRemoteValueCodec();
+
+        assertTrue(referenceCodec.canEncode(new WikiReference("wiki")));
+        assertFalse(referenceCodec.canEncode(new EntityReference("wiki", EntityType.WIKI)
+        {
+            private static final long serialVersionUID = 1L;
+        }));
+        assertFalse(referenceCodec.canEncode("wiki"));
+    }
+}
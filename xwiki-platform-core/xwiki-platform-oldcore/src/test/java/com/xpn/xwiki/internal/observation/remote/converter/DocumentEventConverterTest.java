@@ -27,6 +27,7 @@
 import org.junit.jupiter.api.Test;
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.ObservationContext;
 import org.xwiki.observation.remote.LocalEventData;
 import org.xwiki.observation.remote.RemoteEventData;
 import org.xwiki.observation.remote.internal.converter.DefaultEventConverterManager;
@@ -37,14 +38,20 @@
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.XARImportingEvent;
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
 import com.xpn.xwiki.test.MockitoOldcore;
 import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
 
 /**
  * Validate {@link DocumentEventConverter};
@@ -52,7 +59,7 @@
  * @version $Id$
  */
 @OldcoreTest
-@ComponentList(DocumentEventConverter.class)
+@ComponentList({ DocumentEventConverter.class, RemoteDocumentInvalidator.class })
 class DocumentEventConverterTest
 {
     @InjectMockitoOldcore
@@ -148,4 +155,24 @@ void testConvertWithOriginalDocNull() throws Exception
         assertNotSame(this.oldcore.getSpyXWiki().getDocument(documentReference, this.oldcore.getXWikiContext()),
             localEvent2.getSource());
     }
+
+    @Test
+    void testInvalidationOnlyDuringXARImport() throws Exception
+    {
+        ObservationContext observationContext =
+            this.componentManager.registerMockComponent(ObservationContext.class);
+        when(observationContext.isIn(any(XARImportingEvent.class))).thenReturn(true);
+
+        LocalEventData localEvent = new LocalEventData();
+        localEvent.setEvent(new DocumentUpdatedEvent());
+        localEvent.setSource(new XWikiDocument(new DocumentReference("wiki", "space", "page")));
+        localEvent.setData(this.oldcore.getXWikiContext());
+
+        // Disabled by default
+        assertNotNull(this.converterManager.createRemoteEventData(localEvent));
+
+        this.oldcore.getConfigurationSource().setProperty("observation.remote.xarImport.invalidationOnly", true);
+
+        assertNull(this.converterManager.createRemoteEventData(localEvent));
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link DocumentIdBloomFilter}.
+ *
+ * @version $Id$
+ */
+class DocumentIdBloomFilterTest
+{
+    @Test
+    void putAndMightContain()
+    {
+        DocumentIdBloomFilter filter = new DocumentIdBloomFilter(10000, 0.01);
+
+        Random random = new Random(42);
+        long[] ids = new long[10000];
+        for (int i = 0; i < ids.length; ++i) {
+            ids[i] = random.nextLong();
+            filter.put(ids[i]);
+        }
+
+        // No false negative
+        for (long id : ids) {
+            assertTrue(filter.mightContain(id));
+        }
+
+        // Around 1% of false positives
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; ++i) {
+            if (filter.mightContain(random.nextLong())) {
+                ++falsePositives;
+            }
+        }
+        assertTrue(falsePositives < 2000, "Too many false positives: " + falsePositives);
+
+        assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    void saturated()
+    {
+        DocumentIdBloomFilter filter = new DocumentIdBloomFilter(10, 0.01);
+
+        for (long id = 0; id < 10; ++id) {
+            filter.put(id);
+        }
+        assertFalse(filter.isSaturated());
+
+        // Adding the same identifiers again does not change anything
+        for (long id = 0; id < 10; ++id) {
+            filter.put(id);
+        }
+        assertFalse(filter.isSaturated());
+
+        for (long id = 10; id < 20; ++id) {
+            filter.put(id);
+        }
+        assertTrue(filter.isSaturated());
+    }
+
+    @Test
+    void ready()
+    {
+        DocumentIdBloomFilter filter = new DocumentIdBloomFilter(10, 0.01);
+
+        assertFalse(filter.isReady());
+
+        filter.setReady();
+
+        assertTrue(filter.isReady());
+    }
+
+    @Test
+    void invalidFalsePositiveProbability()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new DocumentIdBloomFilter(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentIdBloomFilter(10, 1));
+    }
+}
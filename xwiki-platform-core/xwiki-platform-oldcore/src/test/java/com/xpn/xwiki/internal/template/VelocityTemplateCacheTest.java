@@ -0,0 +1,120 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.template;
+
+import java.time.Instant;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheControl;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.velocity.VelocityTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link VelocityTemplateCache}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+class VelocityTemplateCacheTest
+{
+    private static final String ID = "templates/view.vm";
+
+    private static final Instant INSTANT = Instant.ofEpochMilli(42);
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private CacheControl cacheControl;
+
+    @InjectMockComponents
+    private VelocityTemplateCache velocityTemplateCache;
+
+    private Cache<Object> cache;
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        this.cache = mock();
+        when(this.cacheManager.createNewCache(any(CacheConfiguration.class))).thenReturn((Cache) this.cache);
+        when(this.cacheControl.isCacheReadAllowed(any(Date.class))).thenReturn(true);
+
+        this.velocityTemplateCache.initialize();
+    }
+
+    private VelocityTemplate setAndCapture(String content)
+    {
+        VelocityTemplate velocityTemplate = mock();
+
+        this.velocityTemplateCache.set(ID, INSTANT, content, velocityTemplate);
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(this.cache).set(eq(ID), captor.capture());
+        when(this.cache.get(ID)).thenReturn(captor.getValue());
+
+        return velocityTemplate;
+    }
+
+    @Test
+    void getSet()
+    {
+        assertNull(this.velocityTemplateCache.get(ID, INSTANT, "content"));
+
+        VelocityTemplate velocityTemplate = setAndCapture("content");
+
+        assertSame(velocityTemplate, this.velocityTemplateCache.get(ID, INSTANT, "content"));
+        assertEquals(0.5, this.velocityTemplateCache.getHitRate());
+
+        // The template changed
+        assertNull(this.velocityTemplateCache.get(ID, Instant.ofEpochMilli(43), "content"));
+        assertNull(this.velocityTemplateCache.get(ID, INSTANT, "other content"));
+
+        // The cache has been flushed since the template was parsed
+        when(this.cacheControl.isCacheReadAllowed(any(Date.class))).thenReturn(false);
+        assertNull(this.velocityTemplateCache.get(ID, INSTANT, "content"));
+    }
+
+    @Test
+    void unknownInstant()
+    {
+        this.velocityTemplateCache.set(ID, null, "content", mock());
+
+        verify(this.cache, never()).set(any(), any());
+        assertNull(this.velocityTemplateCache.get(ID, null, "content"));
+    }
+}
@@ -19,30 +19,45 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.xwiki.cache.Cache;
 import org.xwiki.cache.CacheManager;
 import org.xwiki.cache.internal.MapCache;
 import org.xwiki.model.internal.reference.UidStringEntityReferenceSerializer;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.observation.ObservationManager;
 import org.xwiki.observation.remote.RemoteObservationManagerContext;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationHandler;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
 import org.xwiki.test.annotation.ComponentList;
 
+import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
 import com.xpn.xwiki.test.MockitoOldcore;
 import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 
 import static com.xpn.xwiki.test.mockito.OldcoreMatchers.isCacheConfiguration;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -61,11 +76,26 @@
 
     private Cache<Boolean> existCache;
 
+    private RemoteInvalidationManager remoteInvalidationManager;
+
+    private RemoteDocumentInvalidator remoteDocumentInvalidator;
+
+    private EntityReferenceSerializer<String> serializer;
+
+    private DocumentReferenceResolver<String> resolver;
+
     @BeforeEach
     void beforeEach() throws Exception
     {
         this.oldcore.getMocker().registerMockComponent(RemoteObservationManagerContext.class);
         this.oldcore.getMocker().registerMockComponent(ObservationManager.class);
+        this.remoteInvalidationManager =
+            this.oldcore.getMocker().registerMockComponent(RemoteInvalidationManager.class);
+        this.remoteDocumentInvalidator =
+            this.oldcore.getMocker().registerMockComponent(RemoteDocumentInvalidator.class);
+        when(this.remoteDocumentInvalidator.isReplayed()).thenReturn(true);
+        this.serializer = this.oldcore.getMocker().registerMockComponent(EntityReferenceSerializer.TYPE_STRING);
+        this.resolver = this.oldcore.getMocker().registerMockComponent(DocumentReferenceResolver.TYPE_STRING);
 
         CacheManager cacheManager = this.oldcore.getMocker().registerMockComponent(CacheManager.class);
         this.cache = new MapCache<>();
@@ -113,6 +143,85 @@ void loadXWikiDoc() throws Exception
         assertFalse(existingDocument.isCached());
     }
 
+    @Test
+    void loadXWikiDocs() throws Exception
+    {
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+        this.oldcore.getSpyXWiki().saveDocument(new XWikiDocument(new DocumentReference("wiki", "space", "page")),
+            this.oldcore.getXWikiContext());
+        this.oldcore.getSpyXWiki().saveDocument(new XWikiDocument(new DocumentReference("wiki", "space", "cached")),
+            this.oldcore.getXWikiContext());
+
+        XWikiCacheStore store = new XWikiCacheStore(this.oldcore.getMockStore(), this.oldcore.getXWikiContext());
+
+        XWikiDocument cachedDocument = store.loadXWikiDoc(
+            new XWikiDocument(new DocumentReference("wiki", "space", "cached")), this.oldcore.getXWikiContext());
+
+        List<XWikiDocument> documents = store.loadXWikiDocs(
+            List.of(new DocumentReference("wiki", "space", "page"), new DocumentReference("wiki", "space", "cached"),
+                new DocumentReference("wiki", "space", "nopage")),
+            this.oldcore.getXWikiContext());
+
+        assertEquals(3, documents.size());
+        assertEquals(new DocumentReference("wiki", "space", "page"), documents.get(0).getDocumentReference());
+        assertFalse(documents.get(0).isNew());
+        assertSame(documents.get(0), this.cache.get("4:wiki5:space4:page0:"));
+        assertTrue(this.existCache.get("4:wiki5:space4:page0:"));
+        assertSame(cachedDocument, documents.get(1));
+        assertTrue(documents.get(2).isNew());
+        assertNull(this.cache.get("4:wiki5:space6:nopage0:"));
+        assertFalse(this.existCache.get("4:wiki5:space6:nopage0:"));
+
+        // Only the documents which were not in the cache are loaded from the store
+        verify(this.oldcore.getMockStore()).loadXWikiDocs(
+            List.of(new DocumentReference("wiki", "space", "page"), new DocumentReference("wiki", "space", "nopage")),
+            this.oldcore.getXWikiContext());
+    }
+
+    @Test
+    void pageExistFilter() throws Exception
+    {
+        this.oldcore.getMockXWikiCfg().setProperty("xwiki.store.cache.pageexistfilter", true);
+        this.oldcore.getMockXWikiCfg().setProperty("xwiki.store.cache.pageexistfilter.batchsize", 1);
+
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+        XWikiDocument existingDocument = new XWikiDocument(new DocumentReference("wiki", "space", "page"));
+        this.oldcore.getSpyXWiki().saveDocument(existingDocument, this.oldcore.getXWikiContext());
+
+        doReturn(List.of(1L)).when(this.oldcore.getMockStore()).search(
+            eq("select count(doc.id) from XWikiDocument as doc"), eq(0), eq(0), any(XWikiContext.class));
+        doReturn(List.of(existingDocument.getId())).when(this.oldcore.getMockStore()).search(
+            eq("select doc.id from XWikiDocument as doc order by doc.id"), eq(1), eq(0), any(XWikiContext.class));
+        doReturn(List.of()).when(this.oldcore.getMockStore()).search(
+            eq("select doc.id from XWikiDocument as doc where doc.id > ?1 order by doc.id"), eq(1), eq(0),
+            eq(List.of(existingDocument.getId())), any(XWikiContext.class));
+
+        XWikiCacheStore store = new XWikiCacheStore(this.oldcore.getMockStore(), this.oldcore.getXWikiContext());
+
+        // The filter is loaded one batch at a time and is not used until all the identifiers are loaded
+        XWikiDocument otherDocument = new XWikiDocument(new DocumentReference("wiki", "space", "otherpage"));
+        assertFalse(store.exists(otherDocument, this.oldcore.getXWikiContext()));
+        verify(this.oldcore.getMockStore()).exists(otherDocument, this.oldcore.getXWikiContext());
+
+        XWikiDocument notExistingDocument = new XWikiDocument(new DocumentReference("wiki", "space", "nopage"));
+        assertFalse(store.exists(notExistingDocument, this.oldcore.getXWikiContext()));
+        assertTrue(store.loadXWikiDoc(notExistingDocument, this.oldcore.getXWikiContext()).isNew());
+
+        // The database was not asked about the document which does not exist
+        verify(this.oldcore.getMockStore(), never()).exists(notExistingDocument, this.oldcore.getXWikiContext());
+        verify(this.oldcore.getMockStore(), never()).loadXWikiDoc(notExistingDocument,
+            this.oldcore.getXWikiContext());
+
+        assertTrue(store.exists(new XWikiDocument(new DocumentReference("wiki", "space", "page")),
+            this.oldcore.getXWikiContext()));
+
+        // A saved document is added to the filter
+        XWikiDocument newDocument = new XWikiDocument(new DocumentReference("wiki", "space", "newpage"));
+        store.saveXWikiDoc(newDocument, this.oldcore.getXWikiContext());
+        assertTrue(store.exists(new XWikiDocument(new DocumentReference("wiki", "space", "newpage")),
+            this.oldcore.getXWikiContext()));
+    }
+
     @Test
     void saveXWikiDocumentFailing() throws XWikiException
     {
@@ -125,12 +234,45 @@ void saveXWikiDocumentFailing() throws XWikiException
         XWikiCacheStore store = new XWikiCacheStore(this.oldcore.getMockStore(), this.oldcore.getXWikiContext());
 
         XWikiDocument document = new XWikiDocument(reference);
+        when(this.serializer.serialize(reference)).thenReturn("wiki:space.page");
 
         doThrow(XWikiException.class).when(this.oldcore.getMockStore()).saveXWikiDoc(document,
             this.oldcore.getXWikiContext(), true);
 
         assertThrows(XWikiException.class, () -> store.saveXWikiDoc(document, this.oldcore.getXWikiContext(), true));
 
+        assertNull(this.cache.get("4:wiki5:space4:page0:"));
+        assertNull(this.existCache.get("4:wiki5:space4:page0:"));
+        // The other members of the cluster receive the document event
+        verify(this.remoteInvalidationManager, never()).invalidate(any(), any());
+
+        when(this.remoteDocumentInvalidator.isReplayed()).thenReturn(false);
+
+        assertThrows(XWikiException.class, () -> store.saveXWikiDoc(document, this.oldcore.getXWikiContext(), true));
+
+        verify(this.remoteInvalidationManager).invalidate("xwiki.store.pagecache", ":wiki:space.page");
+    }
+
+    @Test
+    void remoteInvalidation() throws XWikiException
+    {
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+
+        DocumentReference reference = new DocumentReference("wiki", "space", "page");
+        when(this.resolver.resolve("wiki:space.page")).thenReturn(reference);
+
+        XWikiCacheStore store = new XWikiCacheStore(this.oldcore.getMockStore(), this.oldcore.getXWikiContext());
+
+        ArgumentCaptor<RemoteInvalidationHandler> handlerCaptor =
+            ArgumentCaptor.forClass(RemoteInvalidationHandler.class);
+        verify(this.remoteInvalidationManager).addHandler(eq("xwiki.store.pagecache"), handlerCaptor.capture());
+
+        XWikiDocument document = new XWikiDocument(reference);
+        this.cache.set("4:wiki5:space4:page0:", document);
+        this.existCache.set("4:wiki5:space4:page0:", Boolean.TRUE);
+
+        handlerCaptor.getValue().invalidate(List.of(":wiki:space.page"));
+
         assertNull(this.cache.get("4:wiki5:space4:page0:"));
         assertNull(this.existCache.get("4:wiki5:space4:page0:"));
     }
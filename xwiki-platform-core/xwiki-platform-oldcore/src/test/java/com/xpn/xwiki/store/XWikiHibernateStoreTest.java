@@ -25,6 +25,7 @@
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -78,6 +79,7 @@
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -492,4 +494,41 @@ void loadBacklinksFromSubwiki() throws Exception
         verify(this.hibernateStore).beginTransaction();
         verify(this.hibernateStore).endTransaction(false);
     }
+
+    @Test
+    void loadXWikiDocsFromSeveralWikisWithSameLocalReference() throws Exception
+    {
+        DocumentReference referenceA = new DocumentReference("wikia", "Space", "Page");
+        DocumentReference referenceB = new DocumentReference("wikib", "Space", "Page");
+        // The document id does not depend on the wiki
+        assertEquals(new XWikiDocument(referenceA).getId(), new XWikiDocument(referenceB).getId());
+
+        AtomicReference<String> currentWiki = new AtomicReference<>("xwiki");
+        doAnswer(invocation -> {
+            currentWiki.set(invocation.getArgument(0));
+            return null;
+        }).when(this.xcontext).setWikiId(anyString());
+        when(this.xcontext.getWikiId()).thenAnswer(invocation -> currentWiki.get());
+
+        Query<XWikiDocument> query = mock(Query.class);
+        when(this.session.createQuery("from XWikiDocument as doc where doc.id in (:ids)", XWikiDocument.class))
+            .thenReturn(query);
+        when(query.list()).thenAnswer(invocation -> {
+            XWikiDocument document = new XWikiDocument(new DocumentReference(currentWiki.get(), "Space", "Page"));
+            document.setContent(currentWiki.get());
+            document.setElements(0);
+            return List.of(document);
+        });
+
+        List<XWikiDocument> documents = this.store.loadXWikiDocs(List.of(referenceA, referenceB), this.xcontext);
+
+        assertEquals(2, documents.size());
+        assertEquals(referenceA, documents.get(0).getDocumentReference());
+        assertEquals("wikia", documents.get(0).getContent());
+        assertFalse(documents.get(0).isNew());
+        assertEquals(referenceB, documents.get(1).getDocumentReference());
+        assertEquals("wikib", documents.get(1).getContent());
+        assertFalse(documents.get(1).isNew());
+        assertEquals("xwiki", currentWiki.get());
+    }
 }
@@ -85,6 +85,8 @@
 import org.xwiki.test.annotation.AllComponents;
 import org.xwiki.test.internal.MockConfigurationSource;
 import org.xwiki.test.mockito.MockitoComponentManager;
+import org.xwiki.tracing.RequestTracer;
+import org.xwiki.tracing.TraceSpan;
 import org.xwiki.url.URLConfiguration;
 import org.xwiki.user.CurrentUserReference;
 import org.xwiki.user.UserPropertiesResolver;
@@ -394,6 +396,12 @@ public void before(Class<?> testClass) throws Exception
             when(cacheControl.isCacheReadAllowed((ChronoLocalDateTime) any())).thenReturn(true);
         }
 
+        // Make sure a RequestTracer is available by default
+        if (!getMocker().hasComponent(RequestTracer.class)) {
+            RequestTracer tracer = getMocker().registerMockComponent(RequestTracer.class);
+            when(tracer.startSpan(any())).thenReturn(TraceSpan.NOOP);
+        }
+
         // Expose a XWikiStubContextProvider if none is exist
         if (!getMocker().hasComponent(XWikiStubContextProvider.class)) {
             XWikiStubContextProvider conetxtProvider =
@@ -667,6 +675,31 @@ public XWikiDocument answer(InvocationOnMock invocation) throws Throwable
                 return document;
             }
         });
+        when(getMockStore().loadXWikiDocs(any(), anyXWikiContext())).then(new Answer<List<XWikiDocument>>()
+        {
+            @Override
+            public List<XWikiDocument> answer(InvocationOnMock invocation) throws Throwable
+            {
+                Collection<DocumentReference> references = invocation.getArgument(0);
+                XWikiContext xcontext = invocation.getArgument(1);
+
+                List<XWikiDocument> result = new ArrayList<>(references.size());
+                WikiReference currentWiki = xcontext.getWikiReference();
+                try {
+                    for (DocumentReference reference : references) {
+                        // Each document is loaded from the store of its wiki
+                        xcontext.setWikiReference(reference.getWikiReference());
+                        result.add(getMockStore().loadXWikiDoc(
+                            new XWikiDocument(new DocumentReference(reference, (Locale) null), reference.getLocale()),
+                            xcontext));
+                    }
+                } finally {
+                    xcontext.setWikiReference(currentWiki);
+                }
+
+                return result;
+            }
+        });
         when(getMockStore().exists(anyXWikiDocument(), anyXWikiContext())).then(new Answer<Boolean>()
         {
             @Override
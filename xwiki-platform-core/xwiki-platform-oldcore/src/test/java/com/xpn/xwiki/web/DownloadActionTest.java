@@ -21,11 +21,15 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Optional;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
@@ -62,10 +66,12 @@
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -84,6 +90,14 @@
     /** The URI requested in most of the tests. */
     private static final String DEFAULT_URI = "/xwiki/bin/download/space/page/file.txt";
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @InjectMockitoOldcore
     private MockitoOldcore oldcore;
 
@@ -551,6 +565,92 @@ void downloadWhenNameWithNonAsciiChars() throws XWikiException, IOException
         verifyOutputExpectations(0, this.fileContent.length);
     }
 
+    private Path getFilePath()
+    {
+        return new File(this.oldcore.getTemporaryDirectory(), "download.txt").toPath();
+    }
+
+    private void createFileAttachment(Date d, String name) throws IOException
+    {
+        Path path = getFilePath();
+        Files.createDirectories(path.getParent());
+        Files.write(path, this.fileContent);
+
+        XWikiAttachment filetxt = new XWikiAttachment(this.document, name);
+        XWikiAttachmentContent content = mock(XWikiAttachmentContent.class);
+        when(content.getAttachment()).thenReturn(filetxt);
+        when(content.getContentPath()).thenReturn(Optional.of(path));
+        when(content.getLongSize()).thenReturn((long) this.fileContent.length);
+        filetxt.setAttachment_content(content);
+        filetxt.setDate(d);
+        this.document.getAttachmentList().add(filetxt);
+    }
+
+    @Test
+    void downloadFromFile() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createFileAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, null, -1l, DEFAULT_FILE_NAME);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verifyResponseExpectations(d.getTime(), this.fileContent.length);
+        verifyOutputExpectations(0, this.fileContent.length);
+    }
+
+    @Test
+    void downloadRangeFromFile() throws XWikiException, IOException
+    {
+        // This test expects bytes 3, 4 and 5 from the file.
+        Date d = new Date();
+        createFileAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=3-5", -1l, DEFAULT_FILE_NAME);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(this.response).setHeader("Content-Range", "bytes 3-5/" + DownloadActionTest.this.fileContent.length);
+        verifyResponseExpectations(d.getTime(), 3);
+        verifyOutputExpectations(3, 6);
+    }
+
+    @Test
+    void downloadFromFileWithSendfile() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createFileAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, null, -1l, DEFAULT_FILE_NAME);
+        when(this.request.getAttribute(SENDFILE_SUPPORT)).thenReturn(Boolean.TRUE);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verifyResponseExpectations(d.getTime(), this.fileContent.length);
+        verify(this.request).setAttribute(SENDFILE_FILENAME, getFilePath().toAbsolutePath().toString());
+        verify(this.request).setAttribute(SENDFILE_START, 0L);
+        verify(this.request).setAttribute(SENDFILE_END, (long) this.fileContent.length);
+        // The content is sent by the servlet container
+        verify(this.out, never()).write(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    void downloadRangeFromFileWithSendfile() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createFileAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=3-5", -1l, DEFAULT_FILE_NAME);
+        when(this.request.getAttribute(SENDFILE_SUPPORT)).thenReturn(Boolean.TRUE);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verifyResponseExpectations(d.getTime(), 3);
+        verify(this.request).setAttribute(SENDFILE_FILENAME, getFilePath().toAbsolutePath().toString());
+        verify(this.request).setAttribute(SENDFILE_START, 3L);
+        verify(this.request).setAttribute(SENDFILE_END, 6L);
+        verify(this.out, never()).write(any(byte[].class), anyInt(), anyInt());
+    }
+
     @Test
     void downloadWhenValidStartRange() throws XWikiException, IOException
     {
@@ -19,8 +19,13 @@
  */
 package org.xwiki.query;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.stability.Unstable;
 
 /**
  * This is a Query interface, representing all queries in various languages for various stores.
@@ -192,4 +197,96 @@ default QueryParameter bindValue(String variable)
      * @throws QueryException if something goes wrong.
      */
     <T> List<T> execute() throws QueryException;
+
+    /**
+     * Indicate if the result of the query can be reused by the next executions of the same query (same statement,
+     * bound values, wiki, limit, offset and filters). The cached result is discarded as soon as a document of the
+     * query wiki is created, modified or deleted, unless the invalidation was restricted with
+     * {@link #addCacheDependency(EntityReference)}.
+     * <p>
+     * Only results made of simple values (strings, numbers, booleans, dates and arrays of those) are cached: queries
+     * returning entities (documents, objects, etc.) are always executed. The results of queries with filters are cached
+     * per user.
+     *
+     * @param cacheable true if the result of the query can be cached
+     * @return this query
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default Query setCacheable(boolean cacheable)
+    {
+        return this;
+    }
+
+    /**
+     * @return true if the result of the query can be cached
+     * @see #setCacheable(boolean)
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default boolean isCacheable()
+    {
+        return false;
+    }
+
+    /**
+     * Restrict the documents which invalidate the cached result of the query (see {@link #setCacheable(boolean)}) to
+     * the ones matching the passed reference.
+     *
+     * @param reference the reference of a space (the documents located in this space or in one of its children) or of
+     *            a class (the class itself and the documents holding an object of this class before or after the
+     *            modification)
+     * @return this query
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default Query addCacheDependency(EntityReference reference)
+    {
+        return this;
+    }
+
+    /**
+     * @return the references of the spaces and classes which invalidate the cached result of the query, empty if any
+     *         document of the wiki does
+     * @see #addCacheDependency(EntityReference)
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default Set<EntityReference> getCacheDependencies()
+    {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Start the result right after the row having the passed sort key values (also known as keyset or "seek"
+     * pagination). The values are matched, in the same order, against the expressions of the {@code order by} clause
+     * of the statement which must thus identify a row in a unique way (typically by ending with the id of the
+     * entity). Contrary to {@link #setOffset(int)} the database does not have to read and discard the previous rows
+     * so the cost of reading a page does not depend on its position in the result.
+     * <p>
+     * Should be combined with {@link #setLimit(int)}, the values to pass to get the next page being the sort key values
+     * of the last row of the current page.
+     *
+     * @param values the values of the {@code order by} expressions of the last row of the previous page, an empty list
+     *            to start from the first row
+     * @return this query
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default Query setAfter(List<?> values)
+    {
+        throw new RuntimeException("Not implemented");
+    }
+
+    /**
+     * @return the sort key values of the row after which the result starts, empty if the result starts from the first
+     *         row
+     * @see #setAfter(List)
+     * @since 17.0.0RC1
+     */
+    @Unstable
+    default List<Object> getAfter()
+    {
+        return Collections.emptyList();
+    }
 }
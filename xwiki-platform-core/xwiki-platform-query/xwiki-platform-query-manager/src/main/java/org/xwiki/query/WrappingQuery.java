@@ -21,6 +21,9 @@
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.xwiki.model.reference.EntityReference;
 
 /**
  * Make it simple to change the behavior of a {@link Query} by extending this class and overriding only the behavior
@@ -162,6 +165,42 @@ public int getOffset()
         return getWrappedQuery().getOffset();
     }
 
+    @Override
+    public Query setCacheable(boolean cacheable)
+    {
+        return getWrappedQuery().setCacheable(cacheable);
+    }
+
+    @Override
+    public boolean isCacheable()
+    {
+        return getWrappedQuery().isCacheable();
+    }
+
+    @Override
+    public Query addCacheDependency(EntityReference reference)
+    {
+        return getWrappedQuery().addCacheDependency(reference);
+    }
+
+    @Override
+    public Set<EntityReference> getCacheDependencies()
+    {
+        return getWrappedQuery().getCacheDependencies();
+    }
+
+    @Override
+    public Query setAfter(List<?> values)
+    {
+        return getWrappedQuery().setAfter(values);
+    }
+
+    @Override
+    public List<Object> getAfter()
+    {
+        return getWrappedQuery().getAfter();
+    }
+
     @Override
     public <T> List<T> execute() throws QueryException
     {
@@ -20,13 +20,17 @@
 package org.xwiki.query.internal;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xwiki.model.reference.EntityReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryExecutor;
@@ -104,6 +108,21 @@ public class DefaultQuery implements SecureQuery
      */
     private final List<QueryFilter> filters = new ArrayList<QueryFilter>();
 
+    /**
+     * field for {@link #isCacheable()}.
+     */
+    private boolean cacheable;
+
+    /**
+     * field for {@link #getCacheDependencies()}.
+     */
+    private final Set<EntityReference> cacheDependencies = new LinkedHashSet<>();
+
+    /**
+     * field for {@link #getAfter()}.
+     */
+    private List<Object> after = Collections.emptyList();
+
     /**
      * field for {@link #getExecuter()}.
      */
@@ -300,6 +319,45 @@ public Query addFilter(QueryFilter filter)
         return this;
     }
 
+    @Override
+    public Query setCacheable(boolean cacheable)
+    {
+        this.cacheable = cacheable;
+        return this;
+    }
+
+    @Override
+    public boolean isCacheable()
+    {
+        return this.cacheable;
+    }
+
+    @Override
+    public Query addCacheDependency(EntityReference reference)
+    {
+        this.cacheDependencies.add(reference);
+        return this;
+    }
+
+    @Override
+    public Set<EntityReference> getCacheDependencies()
+    {
+        return this.cacheDependencies;
+    }
+
+    @Override
+    public Query setAfter(List<?> values)
+    {
+        this.after = values != null ? new ArrayList<>(values) : Collections.emptyList();
+        return this;
+    }
+
+    @Override
+    public List<Object> getAfter()
+    {
+        return this.after;
+    }
+
     @Override
     public <T> List<T> execute() throws QueryException
     {
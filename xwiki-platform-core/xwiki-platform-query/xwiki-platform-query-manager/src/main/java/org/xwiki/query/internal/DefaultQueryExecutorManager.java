@@ -61,8 +61,23 @@ public class DefaultQueryExecutorManager implements QueryExecutorManager
     @Inject
     private Provider<QueryExecutor> namedQueryExecutorProvider;
 
+    /**
+     * Lazily loaded since only needed for cacheable queries.
+     */
+    @Inject
+    private Provider<QueryResultCache> resultCacheProvider;
+
     @Override
     public <T> List<T> execute(Query query) throws QueryException
+    {
+        if (query.isCacheable()) {
+            return this.resultCacheProvider.get().execute(query, () -> executeQuery(query));
+        }
+
+        return executeQuery(query);
+    }
+
+    private <T> List<T> executeQuery(Query query) throws QueryException
     {
         if (query.isNamed()) {
             return this.namedQueryExecutorProvider.get().execute(query);
@@ -0,0 +1,248 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.query.Query;
+import org.xwiki.query.WrappingQuery;
+
+/**
+ * Translate the sort key values passed to {@link Query#setAfter(List)} into a condition on the {@code order by}
+ * expressions of the statement (keyset pagination). For example {@code order by doc.date desc, doc.id} with the values
+ * {@code [date, 42]} becomes
+ * {@code where (doc.date < :keysetValue0 or (doc.date = :keysetValue0 and doc.id > :keysetValue1))}.
+ * <p>
+ * Work with HQL, XWQL and SQL statements. The {@code order by} expressions must be usable in the {@code where} clause
+ * (no aggregate or select alias) and must not contain {@code nulls first} or {@code nulls last}.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class KeysetQuery extends WrappingQuery
+{
+    /**
+     * The prefix of the named parameters used to bind the sort key values.
+     */
+    public static final String PARAMETER_PREFIX = "keysetValue";
+
+    private static final String ORDER_BY = "order by";
+
+    private static final String GROUP_BY = "group by";
+
+    private static final String WHERE = "where";
+
+    private static final String DESC = "desc";
+
+    private static final String ASC = "asc";
+
+    private static final String AND = " and ";
+
+    private static final String OR = " or ";
+
+    private final String statement;
+
+    private final Map<String, Object> namedParameters;
+
+    /**
+     * @param query the query to paginate, with at least one sort key value (see {@link Query#getAfter()})
+     * @throws IllegalArgumentException when the statement does not have an {@code order by} clause matching the sort
+     *             key values
+     */
+    public KeysetQuery(Query query)
+    {
+        super(query);
+
+        List<Object> values = query.getAfter();
+        String originalStatement = query.getStatement().trim();
+
+        int orderByIndex = lastIndexOfKeyword(originalStatement, ORDER_BY);
+        if (orderByIndex < 0) {
+            throw new IllegalArgumentException(
+                String.format("Keyset pagination requires an order by clause in statement [%s]", originalStatement));
+        }
+
+        List<String> orderBy = splitTopLevel(originalStatement.substring(orderByIndex + ORDER_BY.length()));
+        if (orderBy.size() != values.size()) {
+            throw new IllegalArgumentException(String.format(
+                "The number of sort key values [%d] does not match the order by clause of statement [%s]",
+                values.size(), originalStatement));
+        }
+
+        this.namedParameters = new LinkedHashMap<>(query.getNamedParameters());
+        for (int i = 0; i < values.size(); ++i) {
+            if (values.get(i) == null) {
+                throw new IllegalArgumentException("Sort key values cannot be null");
+            }
+            this.namedParameters.put(PARAMETER_PREFIX + i, values.get(i));
+        }
+
+        this.statement = insertCondition(originalStatement, '(' + getCondition(orderBy, 0) + ')', orderByIndex);
+    }
+
+    /**
+     * @return the condition matching the rows located after the sort key values, starting with the passed order by
+     *         expression
+     */
+    private static String getCondition(List<String> orderBy, int index)
+    {
+        String[] comparison = getComparison(orderBy.get(index));
+        String parameter = ':' + PARAMETER_PREFIX + index;
+
+        String condition = comparison[0] + comparison[1] + parameter;
+        if (index < orderBy.size() - 1) {
+            condition += OR + '(' + comparison[0] + " = " + parameter + AND + '(' + getCondition(orderBy, index + 1)
+                + "))";
+        }
+
+        return condition;
+    }
+
+    private static String[] getComparison(String orderByItem)
+    {
+        String expression = orderByItem;
+        String operator = " > ";
+
+        String lowerExpression = expression.toLowerCase();
+        if (lowerExpression.contains(" nulls ")) {
+            throw new IllegalArgumentException(
+                String.format("Keyset pagination does not support null ordering in [%s]", orderByItem));
+        }
+        if (lowerExpression.endsWith(' ' + DESC)) {
+            expression = expression.substring(0, expression.length() - DESC.length()).trim();
+            operator = " < ";
+        } else if (lowerExpression.endsWith(' ' + ASC)) {
+            expression = expression.substring(0, expression.length() - ASC.length()).trim();
+        }
+
+        return new String[] {expression, operator};
+    }
+
+    private static String insertCondition(String statement, String condition, int orderByIndex)
+    {
+        int endIndex = lastIndexOfKeyword(statement, GROUP_BY);
+        if (endIndex < 0) {
+            endIndex = orderByIndex;
+        }
+
+        String head = statement.substring(0, endIndex).trim();
+        String tail = statement.substring(endIndex);
+
+        int whereIndex = lastIndexOfKeyword(head, WHERE);
+        if (whereIndex < 0) {
+            return head + ' ' + WHERE + ' ' + condition + ' ' + tail;
+        }
+
+        String where = head.substring(whereIndex + WHERE.length()).trim();
+        return head.substring(0, whereIndex) + WHERE + " (" + where + ')' + AND + condition + ' ' + tail;
+    }
+
+    /**
+     * @return the index of the last occurrence of the keyword which is not located in a sub query or a literal, -1 if
+     *         there is none
+     */
+    private static int lastIndexOfKeyword(String statement, String keyword)
+    {
+        int result = -1;
+
+        int depth = 0;
+        boolean literal = false;
+        for (int i = 0; i < statement.length(); ++i) {
+            char c = statement.charAt(i);
+            if (c == '\'') {
+                literal = !literal;
+            } else if (!literal) {
+                if (c == '(') {
+                    ++depth;
+                } else if (c == ')') {
+                    --depth;
+                } else if (depth == 0 && isKeywordAt(statement, keyword, i)) {
+                    result = i;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean isKeywordAt(String statement, String keyword, int index)
+    {
+        if (index == 0 || !Character.isWhitespace(statement.charAt(index - 1))) {
+            return false;
+        }
+
+        // Accept any whitespace between the words of the keyword
+        int position = index;
+        for (String word : StringUtils.split(keyword)) {
+            while (position < statement.length() && Character.isWhitespace(statement.charAt(position))) {
+                ++position;
+            }
+            if (!statement.regionMatches(true, position, word, 0, word.length())) {
+                return false;
+            }
+            position += word.length();
+        }
+
+        return position < statement.length() && Character.isWhitespace(statement.charAt(position));
+    }
+
+    private static List<String> splitTopLevel(String orderBy)
+    {
+        List<String> items = new ArrayList<>();
+
+        int depth = 0;
+        boolean literal = false;
+        int start = 0;
+        for (int i = 0; i < orderBy.length(); ++i) {
+            char c = orderBy.charAt(i);
+            if (c == '\'') {
+                literal = !literal;
+            } else if (!literal) {
+                if (c == '(') {
+                    ++depth;
+                } else if (c == ')') {
+                    --depth;
+                } else if (c == ',' && depth == 0) {
+                    items.add(orderBy.substring(start, i).trim());
+                    start = i + 1;
+                }
+            }
+        }
+        items.add(orderBy.substring(start).trim());
+
+        return items;
+    }
+
+    @Override
+    public String getStatement()
+    {
+        return this.statement;
+    }
+
+    @Override
+    public Map<String, Object> getNamedParameters()
+    {
+        return this.namedParameters;
+    }
+}
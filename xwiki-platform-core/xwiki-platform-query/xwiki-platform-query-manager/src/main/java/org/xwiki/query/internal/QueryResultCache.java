@@ -0,0 +1,507 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.ModelContext;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.SecureQuery;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+
+/**
+ * Keep the result of the queries marked as {@link Query#isCacheable() cacheable} until a matching document is modified.
+ * <p>
+ * Instead of tracking the cached entries to remove when a document is modified, each wiki and each declared
+ * {@link Query#getCacheDependencies() dependency} is associated with a generation counter which is incremented when a
+ * matching document is modified. A cached result remembers the generations of its dependencies at the time the query
+ * was executed and is ignored as soon as one of them changed. The counters take their values from a global clock so
+ * that a counter which is forgotten (to limit the memory used by the counters) and recreated later never goes back to
+ * a value remembered by an existing cached result.
+ * <p>
+ * The key of a cached result contains the wiki, the user and everything defining the query, so only the filters whose
+ * behavior does not depend on anything else are supported (the queries using any other filter, for example the
+ * current language one, are not cached).
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component(roles = QueryResultCache.class)
+@Singleton
+public class QueryResultCache implements Initializable, Disposable
+{
+    private static final String WIKI_PREFIX = "wiki:";
+
+    private static final String RESET_PREFIX = "reset:";
+
+    private static final char SEPARATOR = '\n';
+
+    /**
+     * The maximum number of generation counters to keep. The cached results depending on forgotten counters are just
+     * considered invalid.
+     */
+    static final int MAX_GENERATIONS = 10000;
+
+    /**
+     * The filters whose behavior only depends on the query, the wiki and the current user (which are all part of the
+     * key).
+     */
+    private static final Set<Class<?>> SUPPORTED_FILTERS =
+        Set.of(NoOpQueryFilter.class, CountDocumentFilter.class, UniqueDocumentFilter.class,
+            EscapeLikeParametersFilter.class, TextQueryFilter.class, LanguageQueryFilter.class,
+            HiddenDocumentFilter.class, HiddenSpaceFilter.class, ViewableQueryFilter.class);
+
+    /**
+     * Execute the actual query.
+     *
+     * @param <T> the type of the results
+     * @version $Id$
+     */
+    @FunctionalInterface
+    public interface QueryResultSupplier<T>
+    {
+        /**
+         * @return the result of the query
+         * @throws QueryException when failing to execute the query
+         */
+        List<T> get() throws QueryException;
+    }
+
+    private static final class CachedResult
+    {
+        private final List<Object> result;
+
+        private final Map<String, Long> generations;
+
+        CachedResult(List<Object> result, Map<String, Long> generations)
+        {
+            this.result = result;
+            this.generations = generations;
+        }
+    }
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private ModelContext modelContext;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private DocumentAccessBridge documentAccessBridge;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    private Logger logger;
+
+    private Cache<CachedResult> cache;
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder uncacheable = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager.createNewCache(new LRUCacheConfiguration("query.results", 1000));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the query results cache", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.cache.dispose();
+    }
+
+    /**
+     * Return the cached result of the query if it's still valid, or execute it and cache its result.
+     *
+     * @param <T> the type of the results
+     * @param query the query to execute
+     * @param supplier execute the actual query
+     * @return the result of the query
+     * @throws QueryException when failing to execute the query
+     */
+    public <T> List<T> execute(Query query, QueryResultSupplier<T> supplier) throws QueryException
+    {
+        String wiki = query.getWiki() != null ? query.getWiki() : getCurrentWiki();
+        String key = wiki != null ? getKey(query, wiki) : null;
+
+        if (key == null) {
+            this.uncacheable.increment();
+
+            return supplier.get();
+        }
+
+        CachedResult cachedResult = this.cache.get(key);
+        if (cachedResult != null && isValid(cachedResult)) {
+            this.hits.increment();
+
+            return copy(cachedResult.result);
+        }
+
+        this.misses.increment();
+
+        // Remember the generations before executing the query so that any modification happening in the meantime
+        // invalidates the result
+        Map<String, Long> snapshot = new HashMap<>();
+        snapshot.put(RESET_PREFIX + wiki, getGeneration(RESET_PREFIX + wiki));
+        if (query.getCacheDependencies().isEmpty()) {
+            snapshot.put(WIKI_PREFIX + wiki, getGeneration(WIKI_PREFIX + wiki));
+        } else {
+            for (EntityReference dependency : query.getCacheDependencies()) {
+                String dependencyKey = toDependencyKey(resolve(dependency, wiki));
+                snapshot.put(dependencyKey, getGeneration(dependencyKey));
+            }
+        }
+
+        List<T> result = supplier.get();
+
+        if (isCacheable(result)) {
+            this.cache.set(key, new CachedResult(copy(result), snapshot));
+
+            return result;
+        }
+
+        this.logger.debug("The result of query [{}] contains entities and won't be cached", query.getStatement());
+        this.uncacheable.increment();
+
+        return result;
+    }
+
+    /**
+     * Invalidate the cached results which might be impacted by the modification of a document.
+     *
+     * @param documentReference the reference of the modified document
+     * @param classReferences the references of the classes of the objects held by the document before and after its
+     *            modification
+     */
+    public void invalidate(DocumentReference documentReference, Collection<DocumentReference> classReferences)
+    {
+        this.invalidations.increment();
+
+        String wiki = documentReference.getWikiReference().getName();
+        increment(WIKI_PREFIX + wiki);
+
+        // The document might be a class
+        increment(toDependencyKey(new DocumentReference(documentReference, (Locale) null)));
+        for (DocumentReference classReference : classReferences) {
+            increment(toDependencyKey(classReference));
+        }
+
+        for (EntityReference space = documentReference.getParent(); space.getType() == EntityType.SPACE;
+            space = space.getParent()) {
+            increment(toDependencyKey(space));
+        }
+    }
+
+    /**
+     * Invalidate all the cached results of a wiki.
+     *
+     * @param wiki the identifier of the wiki
+     */
+    public void invalidate(String wiki)
+    {
+        this.invalidations.increment();
+
+        increment(RESET_PREFIX + wiki);
+    }
+
+    /**
+     * @return the number of executions which reused a cached result
+     */
+    public long getHits()
+    {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return the number of executions of cacheable queries which had to execute the query
+     */
+    public long getMisses()
+    {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return the number of executions of cacheable queries whose parameters or result could not be cached
+     */
+    public long getUncacheable()
+    {
+        return this.uncacheable.sum();
+    }
+
+    /**
+     * @return the number of document or wiki modifications which invalidated cached results
+     */
+    public long getInvalidations()
+    {
+        return this.invalidations.sum();
+    }
+
+    /**
+     * @return the ratio of cacheable query executions which reused a cached result
+     */
+    public double getHitRate()
+    {
+        long hitCount = this.hits.sum();
+        long total = hitCount + this.misses.sum();
+
+        return total > 0 ? (double) hitCount / total : 0;
+    }
+
+    /**
+     * Forget all the cached results and reset the statistics.
+     */
+    public void reset()
+    {
+        this.cache.removeAll();
+
+        this.hits.reset();
+        this.misses.reset();
+        this.uncacheable.reset();
+        this.invalidations.reset();
+    }
+
+    private String getCurrentWiki()
+    {
+        EntityReference currentReference = this.modelContext.getCurrentEntityReference();
+
+        return currentReference != null ? currentReference.extractReference(EntityType.WIKI).getName() : null;
+    }
+
+    private String getKey(Query query, String wiki)
+    {
+        StringBuilder key = new StringBuilder();
+
+        key.append(query.getLanguage()).append(SEPARATOR);
+        key.append(query.isNamed()).append(SEPARATOR);
+        key.append(query.getStatement()).append(SEPARATOR);
+        key.append(wiki).append(SEPARATOR);
+        key.append(query.getLimit()).append(SEPARATOR);
+        key.append(query.getOffset()).append(SEPARATOR);
+        if (!appendValue(key, query.getAfter())) {
+            return null;
+        }
+
+        for (Map.Entry<String, Object> entry : new TreeMap<>(query.getNamedParameters()).entrySet()) {
+            if (!appendValue(key.append(entry.getKey()).append('='), entry.getValue())) {
+                return null;
+            }
+        }
+        for (Map.Entry<Integer, Object> entry : new TreeMap<>(query.getPositionalParameters()).entrySet()) {
+            if (!appendValue(key.append(entry.getKey()).append('='), entry.getValue())) {
+                return null;
+            }
+        }
+
+        for (QueryFilter filter : query.getFilters()) {
+            if (!SUPPORTED_FILTERS.contains(filter.getClass())) {
+                return null;
+            }
+
+            key.append(filter.getClass().getName()).append(SEPARATOR);
+        }
+
+        TreeSet<String> dependencies = new TreeSet<>();
+        for (EntityReference dependency : query.getCacheDependencies()) {
+            dependencies.add(toDependencyKey(resolve(dependency, wiki)));
+        }
+        key.append(dependencies).append(SEPARATOR);
+
+        // The result might depend on the rights of the author and the user
+        if (query instanceof SecureQuery) {
+            SecureQuery secureQuery = (SecureQuery) query;
+
+            if (secureQuery.isCurrentAuthorChecked()) {
+                key.append(this.authorization.hasAccess(Right.PROGRAM)).append(SEPARATOR);
+            }
+            if (secureQuery.isCurrentUserChecked() || !query.getFilters().isEmpty()) {
+                key.append(this.documentAccessBridge.getCurrentUserReference()).append(SEPARATOR);
+            }
+        } else if (!query.getFilters().isEmpty()) {
+            key.append(this.documentAccessBridge.getCurrentUserReference()).append(SEPARATOR);
+        }
+
+        return key.toString();
+    }
+
+    private boolean appendValue(StringBuilder key, Object value)
+    {
+        if (value instanceof Collection) {
+            key.append('[');
+            for (Object element : (Collection<?>) value) {
+                if (!appendValue(key, element)) {
+                    return false;
+                }
+            }
+            key.append(']');
+        } else if (value instanceof DefaultQueryParameter) {
+            for (ParameterPart part : ((DefaultQueryParameter) value).getParts()) {
+                key.append(part.getClass().getSimpleName()).append(':').append(part.getValue()).append(',');
+            }
+        } else if (isSimpleValue(value)) {
+            key.append(value != null ? value.getClass().getSimpleName() : null).append(':').append(value);
+        } else {
+            // Don't take the risk of relying on an unknown toString() implementation
+            return false;
+        }
+
+        key.append(SEPARATOR);
+
+        return true;
+    }
+
+    private boolean isSimpleValue(Object value)
+    {
+        return value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+            || value instanceof Character || value instanceof Date || value instanceof Locale;
+    }
+
+    private boolean isCacheable(List<?> result)
+    {
+        for (Object element : result) {
+            if (element instanceof Object[]) {
+                for (Object field : (Object[]) element) {
+                    if (!isSimpleValue(field)) {
+                        return false;
+                    }
+                }
+            } else if (!isSimpleValue(element)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> copy(List<?> result)
+    {
+        // Protect the cached result from modifications made by the caller
+        List<T> copy = new ArrayList<>(result.size());
+        for (Object element : result) {
+            copy.add((T) (element instanceof Object[] ? ((Object[]) element).clone() : element));
+        }
+
+        return copy;
+    }
+
+    private boolean isValid(CachedResult cachedResult)
+    {
+        for (Map.Entry<String, Long> entry : cachedResult.generations.entrySet()) {
+            if (getGeneration(entry.getKey()) != entry.getValue()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private long getGeneration(String key)
+    {
+        AtomicLong generation = this.generations.get(key);
+
+        if (generation == null) {
+            if (this.generations.size() >= MAX_GENERATIONS) {
+                this.logger.debug("Forget the query result cache generations");
+
+                this.generations.clear();
+            }
+
+            generation = this.generations.computeIfAbsent(key, k -> new AtomicLong(this.clock.incrementAndGet()));
+        }
+
+        return generation.get();
+    }
+
+    private void increment(String key)
+    {
+        // Only the counters which are used by cached results need to exist
+        AtomicLong generation = this.generations.get(key);
+        if (generation != null) {
+            generation.set(this.clock.incrementAndGet());
+        }
+    }
+
+    private EntityReference resolve(EntityReference reference, String wiki)
+    {
+        if (reference.extractReference(EntityType.WIKI) == null) {
+            return reference.appendParent(new WikiReference(wiki));
+        }
+
+        return reference;
+    }
+
+    private String toDependencyKey(EntityReference reference)
+    {
+        return reference.getType() + ":" + this.serializer.serialize(reference);
+    }
+}
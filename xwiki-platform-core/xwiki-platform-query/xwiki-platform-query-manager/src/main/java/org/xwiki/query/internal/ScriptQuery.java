@@ -21,6 +21,7 @@
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import org.apache.commons.lang3.StringUtils;
@@ -32,6 +33,7 @@
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryFilter;
@@ -262,6 +264,45 @@ public int getOffset()
         return this.query.getOffset();
     }
 
+    @Override
+    public Query setCacheable(boolean cacheable)
+    {
+        this.query.setCacheable(cacheable);
+        return this;
+    }
+
+    @Override
+    public boolean isCacheable()
+    {
+        return this.query.isCacheable();
+    }
+
+    @Override
+    public Query addCacheDependency(EntityReference reference)
+    {
+        this.query.addCacheDependency(reference);
+        return this;
+    }
+
+    @Override
+    public Set<EntityReference> getCacheDependencies()
+    {
+        return this.query.getCacheDependencies();
+    }
+
+    @Override
+    public Query setAfter(List<?> values)
+    {
+        this.query.setAfter(values);
+        return this;
+    }
+
+    @Override
+    public List<Object> getAfter()
+    {
+        return this.query.getAfter();
+    }
+
     @Override
     public <T> List<T> execute() throws QueryException
     {
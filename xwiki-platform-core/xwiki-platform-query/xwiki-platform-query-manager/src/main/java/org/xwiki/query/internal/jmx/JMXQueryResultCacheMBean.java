@@ -0,0 +1,59 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.internal.jmx;
+
+/**
+ * MBean exposing the efficiency of the query result cache.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public interface JMXQueryResultCacheMBean
+{
+    /**
+     * @return the number of executions which reused a cached result
+     */
+    long getHits();
+
+    /**
+     * @return the number of executions of cacheable queries which had to execute the query
+     */
+    long getMisses();
+
+    /**
+     * @return the number of executions of cacheable queries whose parameters or result could not be cached
+     */
+    long getUncacheable();
+
+    /**
+     * @return the number of document or wiki modifications which invalidated cached results
+     */
+    long getInvalidations();
+
+    /**
+     * @return the ratio of cacheable query executions which reused a cached result
+     */
+    double getHitRate();
+
+    /**
+     * Forget all the cached results and reset the statistics.
+     */
+    void reset();
+}
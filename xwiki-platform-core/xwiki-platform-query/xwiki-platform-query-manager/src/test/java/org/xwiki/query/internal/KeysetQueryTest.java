@@ -0,0 +1,93 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.query.Query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Validate {@link KeysetQuery}.
+ *
+ * @version $Id$
+ */
+class KeysetQueryTest
+{
+    private KeysetQuery keyset(String statement, Object... values)
+    {
+        return new KeysetQuery(new DefaultQuery(statement, Query.HQL, null).setAfter(Arrays.asList(values)));
+    }
+
+    @Test
+    void withoutWhere()
+    {
+        KeysetQuery query = keyset("select doc.fullName from XWikiDocument doc order by doc.id", 42L);
+
+        assertEquals("select doc.fullName from XWikiDocument doc where (doc.id > :keysetValue0) order by doc.id",
+            query.getStatement());
+        assertEquals(Map.of("keysetValue0", 42L), query.getNamedParameters());
+    }
+
+    @Test
+    void withWhereAndSeveralKeys()
+    {
+        Query original = new DefaultQuery("select doc.fullName from XWikiDocument doc where doc.space = :space or "
+            + "doc.hidden = true ORDER BY doc.date desc, doc.id asc", Query.HQL, null);
+        original.bindValue("space", "Space");
+        original.setAfter(List.of("date", 42L));
+
+        KeysetQuery query = new KeysetQuery(original);
+
+        assertEquals("select doc.fullName from XWikiDocument doc where (doc.space = :space or doc.hidden = true) and "
+            + "(doc.date < :keysetValue0 or (doc.date = :keysetValue0 and (doc.id > :keysetValue1))) "
+            + "ORDER BY doc.date desc, doc.id asc", query.getStatement());
+        assertEquals(Map.of("space", "Space", "keysetValue0", "date", "keysetValue1", 42L),
+            query.getNamedParameters());
+        // The original query is not modified
+        assertEquals(Map.of("space", "Space"), original.getNamedParameters());
+    }
+
+    @Test
+    void withSubQueryAndGroupBy()
+    {
+        KeysetQuery query = keyset("select doc.space from XWikiDocument doc where doc.name in (select obj.name from "
+            + "BaseObject obj where obj.className = 'where order by') group by doc.space order by doc.space", "A");
+
+        assertEquals("select doc.space from XWikiDocument doc where (doc.name in (select obj.name from BaseObject obj "
+            + "where obj.className = 'where order by')) and (doc.space > :keysetValue0) group by doc.space "
+            + "order by doc.space", query.getStatement());
+    }
+
+    @Test
+    void withInvalidValues()
+    {
+        assertThrows(IllegalArgumentException.class, () -> keyset("select doc.id from XWikiDocument doc", 42L));
+        assertThrows(IllegalArgumentException.class,
+            () -> keyset("select doc.id from XWikiDocument doc order by doc.date, doc.id", 42L));
+        assertThrows(IllegalArgumentException.class,
+            () -> keyset("select doc.id from XWikiDocument doc order by doc.id", (Object) null));
+    }
+}
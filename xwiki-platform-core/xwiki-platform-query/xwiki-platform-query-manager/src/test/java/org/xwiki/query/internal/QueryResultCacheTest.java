@@ -0,0 +1,269 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.model.ModelContext;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link QueryResultCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class QueryResultCacheTest
+{
+    private static final DocumentReference CLASS = new DocumentReference("wiki", "XWiki", "MyClass");
+
+    private static final DocumentReference DOCUMENT = new DocumentReference("wiki", "Space", "Page");
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private ModelContext modelContext;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    private DocumentAccessBridge documentAccessBridge;
+
+    @InjectMockComponents
+    private QueryResultCache cache;
+
+    private final Map<String, Object> cacheContent = new HashMap<>();
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeComponent
+    void beforeComponent() throws Exception
+    {
+        Cache<Object> mockCache = mock(Cache.class);
+        when(mockCache.get(anyString())).then(invocation -> this.cacheContent.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.cacheContent.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(mockCache).set(anyString(), any());
+        when(this.cacheManager.createNewCache(any())).thenReturn(mockCache);
+
+        when(this.serializer.serialize(any())).then(invocation -> invocation.getArgument(0).toString());
+        when(this.modelContext.getCurrentEntityReference()).thenReturn(new WikiReference("wiki"));
+    }
+
+    private List<Object> execute(Query query) throws QueryException
+    {
+        return this.cache.execute(query, () -> {
+            this.executions.incrementAndGet();
+            return new ArrayList<>(List.of("result"));
+        });
+    }
+
+    private Query query(String statement)
+    {
+        return new DefaultQuery(statement, Query.XWQL, null).setCacheable(true);
+    }
+
+    @Test
+    void executeTwice() throws QueryException
+    {
+        Query query = query("select doc.fullName from Document doc").bindValue("value", List.of("a", 1));
+
+        assertEquals(List.of("result"), execute(query));
+        assertEquals(List.of("result"), execute(query));
+        assertEquals(1, this.executions.get());
+
+        // Different bound values
+        execute(query("select doc.fullName from Document doc").bindValue("value", List.of("b", 1)));
+        assertEquals(2, this.executions.get());
+
+        // Different wiki
+        execute(query("select doc.fullName from Document doc").bindValue("value", List.of("a", 1)).setWiki("other"));
+        assertEquals(3, this.executions.get());
+
+        assertEquals(1, this.cache.getHits());
+        assertEquals(3, this.cache.getMisses());
+        assertEquals(0.25, this.cache.getHitRate());
+    }
+
+    @Test
+    void invalidateWiki() throws QueryException
+    {
+        Query query = query("select doc.fullName from Document doc");
+
+        execute(query);
+        this.cache.invalidate(new DocumentReference("other", "Space", "Page"), Set.of());
+        execute(query);
+        assertEquals(1, this.executions.get());
+
+        this.cache.invalidate(DOCUMENT, Set.of());
+        execute(query);
+        assertEquals(2, this.executions.get());
+
+        this.cache.invalidate("wiki");
+        execute(query);
+        assertEquals(3, this.executions.get());
+    }
+
+    @Test
+    void invalidateDependencies() throws QueryException
+    {
+        Query classQuery = query("from doc.object(XWiki.MyClass) as obj").addCacheDependency(CLASS);
+        Query spaceQuery = query("where doc.space = 'Space'").addCacheDependency(new SpaceReference("wiki", "Space"));
+
+        execute(classQuery);
+        execute(spaceQuery);
+        assertEquals(2, this.executions.get());
+
+        // Document without object outside of the space
+        this.cache.invalidate(new DocumentReference("wiki", "Other", "Page"), Set.of());
+        execute(classQuery);
+        execute(spaceQuery);
+        assertEquals(2, this.executions.get());
+
+        // Document with an object of the class
+        this.cache.invalidate(new DocumentReference("wiki", "Other", "Page"), Set.of(CLASS));
+        execute(classQuery);
+        execute(spaceQuery);
+        assertEquals(3, this.executions.get());
+
+        // Document in a child of the space
+        this.cache.invalidate(new DocumentReference("wiki", List.of("Space", "Child"), "Page"), Set.of());
+        execute(classQuery);
+        execute(spaceQuery);
+        assertEquals(4, this.executions.get());
+
+        // The class itself
+        this.cache.invalidate(CLASS, Set.of());
+        execute(classQuery);
+        assertEquals(5, this.executions.get());
+    }
+
+    @Test
+    void filters() throws QueryException
+    {
+        when(this.documentAccessBridge.getCurrentUserReference()).thenReturn(DOCUMENT);
+
+        execute(query("select doc.fullName from Document doc").addFilter(new NoOpQueryFilter()));
+        execute(query("select doc.fullName from Document doc").addFilter(new NoOpQueryFilter()));
+        assertEquals(1, this.executions.get());
+
+        // Different user
+        when(this.documentAccessBridge.getCurrentUserReference())
+            .thenReturn(new DocumentReference("wiki", "XWiki", "Other"));
+        execute(query("select doc.fullName from Document doc").addFilter(new NoOpQueryFilter()));
+        assertEquals(2, this.executions.get());
+
+        // The result of an unknown filter might depend on the context
+        QueryFilter filter = mock(QueryFilter.class);
+        execute(query("select doc.fullName from Document doc").addFilter(filter));
+        execute(query("select doc.fullName from Document doc").addFilter(filter));
+        assertEquals(4, this.executions.get());
+        assertEquals(2, this.cache.getUncacheable());
+    }
+
+    @Test
+    void generationsAreBounded() throws QueryException
+    {
+        Query classQuery = query("from doc.object(XWiki.MyClass) as obj").addCacheDependency(CLASS);
+
+        execute(classQuery);
+        execute(classQuery);
+        assertEquals(1, this.executions.get());
+
+        for (int i = 0; i < QueryResultCache.MAX_GENERATIONS; i++) {
+            this.cache.execute(query("where doc.name = 'Page" + i + "'")
+                .addCacheDependency(new DocumentReference("wiki", "Space", "Page" + i)), List::of);
+        }
+
+        // The generations of the query were forgotten so its cached result cannot be trusted anymore
+        execute(classQuery);
+        assertEquals(2, this.executions.get());
+
+        // The recreated generations are still invalidated
+        execute(classQuery);
+        this.cache.invalidate(DOCUMENT, Set.of(CLASS));
+        execute(classQuery);
+        assertEquals(3, this.executions.get());
+    }
+
+    @Test
+    void entitiesAreNotCached() throws QueryException
+    {
+        Query query = query("select doc from Document doc");
+
+        for (int i = 0; i < 2; i++) {
+            this.cache.execute(query, () -> {
+                this.executions.incrementAndGet();
+                return List.of(new Object());
+            });
+        }
+
+        assertEquals(2, this.executions.get());
+        assertEquals(2, this.cache.getUncacheable());
+    }
+
+    @Test
+    void resultIsCopied() throws QueryException
+    {
+        Query query = query("select doc.fullName, doc.version from Document doc");
+
+        for (int i = 0; i < 2; i++) {
+            List<Object[]> result = this.cache.execute(query, () -> {
+                this.executions.incrementAndGet();
+                List<Object[]> rows = new ArrayList<>();
+                rows.add(new Object[] {"Space.Page", "1.1"});
+                return rows;
+            });
+
+            assertEquals("1.1", result.get(0)[1]);
+            result.get(0)[1] = "modified";
+            result.clear();
+        }
+
+        assertEquals(1, this.executions.get());
+    }
+}
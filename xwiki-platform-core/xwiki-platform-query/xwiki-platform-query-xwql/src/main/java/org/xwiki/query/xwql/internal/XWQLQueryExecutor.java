@@ -91,6 +91,7 @@ public <T> List<T> execute(Query query) throws QueryException
                 this.translator.getOutputLanguage());
             nativeQuery.setLimit(query.getLimit());
             nativeQuery.setOffset(query.getOffset());
+            nativeQuery.setAfter(query.getAfter());
             nativeQuery.setWiki(query.getWiki());
             if (query.getFilters() != null) {
                 for (QueryFilter filter : query.getFilters()) {
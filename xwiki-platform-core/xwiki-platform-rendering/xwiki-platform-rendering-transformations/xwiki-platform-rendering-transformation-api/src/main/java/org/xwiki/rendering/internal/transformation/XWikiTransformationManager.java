@@ -28,11 +28,16 @@
 import org.apache.commons.lang3.StringUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.container.Container;
+import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.transformation.Transformation;
+import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.transformation.TransformationException;
+import org.xwiki.tracing.RequestTracer;
+import org.xwiki.tracing.TraceSpan;
 
 /**
  * Override the default component implementation to be able to define the list of transformations to execute defined
- * in the query string using the {@code transformations} parameter.
+ * in the query string using the {@code transformations} parameter and to record the time spent executing them.
  *
  * @version $Id$
  * @since 12.10.4
@@ -45,6 +50,17 @@ public class XWikiTransformationManager extends DefaultTransformationManager
     @Inject
     private Container container;
 
+    @Inject
+    private RequestTracer tracer;
+
+    @Override
+    public void performTransformations(Block block, TransformationContext context) throws TransformationException
+    {
+        try (TraceSpan span = this.tracer.startSpan(RequestTracer.TRANSFORMATION)) {
+            super.performTransformations(block, context);
+        }
+    }
+
     /**
      * @return the ordered list of Transformations to execute
      */
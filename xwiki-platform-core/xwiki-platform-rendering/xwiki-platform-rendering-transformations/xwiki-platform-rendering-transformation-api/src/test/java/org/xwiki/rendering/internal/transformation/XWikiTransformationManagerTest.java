@@ -20,6 +20,7 @@
 package org.xwiki.rendering.internal.transformation;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import javax.inject.Provider;
@@ -30,17 +31,23 @@
 import org.xwiki.component.util.DefaultParameterizedType;
 import org.xwiki.container.Container;
 import org.xwiki.container.Request;
+import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.configuration.RenderingConfiguration;
 import org.xwiki.rendering.transformation.Transformation;
+import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.test.annotation.BeforeComponent;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectComponentManager;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 import org.xwiki.test.mockito.MockitoComponentManager;
+import org.xwiki.tracing.RequestTracer;
+import org.xwiki.tracing.TraceSpan;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -60,6 +67,9 @@
     @MockComponent
     private RenderingConfiguration configuration;
 
+    @MockComponent
+    private RequestTracer tracer;
+
     @InjectComponentManager
     private MockitoComponentManager componentManager;
 
@@ -124,4 +134,17 @@ void getTransformationsWhenNoRequest()
         List<Transformation> transformations = this.transformationManager.getTransformations();
         assertEquals(0, transformations.size());
     }
+
+    @Test
+    void performTransformationsIsTraced() throws Exception
+    {
+        when(this.container.getRequest()).thenReturn(null);
+        TraceSpan span = mock(TraceSpan.class);
+        when(this.tracer.startSpan(RequestTracer.TRANSFORMATION)).thenReturn(span);
+
+        this.transformationManager.performTransformations(new XDOM(Collections.emptyList()),
+            new TransformationContext());
+
+        verify(span).close();
+    }
 }
@@ -177,6 +177,13 @@
      */
     public static final String CLIENT = "http://www.xwiki.org/rel/client";
 
+    /**
+     * Relation for links pointing to the next page of a collection.
+     *
+     * @since 17.0.0RC1
+     */
+    public static final String NEXT = "next";
+
     /**
      * Avoid instantiation.
      */
@@ -0,0 +1,112 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.Date;
+import java.util.Objects;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.Response.Status;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.rest.internal.DocumentVersionIndex.Version;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Handle the conditional requests ({@code If-None-Match}, {@code If-Modified-Since}, etc.) based on the version of the
+ * requested entity, and add the corresponding {@code ETag} and {@code Last-Modified} headers to the response.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component(roles = ConditionalRequests.class)
+@Singleton
+public class ConditionalRequests
+{
+    private static final String CONTEXT_KEY = "rest.conditional.validators";
+
+    private static final class Validators
+    {
+        private final EntityTag tag;
+
+        private final Date lastModified;
+
+        Validators(EntityTag tag, Date lastModified)
+        {
+            this.tag = tag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    /**
+     * Evaluate the preconditions of the current request against the passed version of the requested entity.
+     *
+     * @param request the current request
+     * @param version the current version of the requested entity
+     * @param variant the elements which impact the representation of the entity besides its version (query string,
+     *            accepted media types, existing translations, etc.); the representation must not depend on other
+     *            entities since their modifications don't change the version
+     * @throws WebApplicationException with a 304 (Not Modified) or 412 (Precondition Failed) response when the request
+     *             preconditions are not met
+     */
+    public void evaluatePreconditions(Request request, Version version, Object... variant)
+    {
+        // Different representations of the same version of an entity must have different strong entity tags
+        EntityTag tag = new EntityTag(version.getVersion() + '-' + Integer.toHexString(Objects.hash(variant)));
+        // HTTP dates don't have sub-second precision
+        Date lastModified = new Date(version.getDate().getTime() / 1000 * 1000);
+
+        ResponseBuilder builder = request.evaluatePreconditions(lastModified, tag);
+        if (builder != null) {
+            throw new WebApplicationException(builder.tag(tag).lastModified(lastModified).build());
+        }
+
+        // Remember the validators so that they are sent with the response
+        this.xcontextProvider.get().put(CONTEXT_KEY, new Validators(tag, lastModified));
+    }
+
+    /**
+     * Add the validators of the requested entity, if any, to a successful response.
+     *
+     * @param responseContext the response
+     */
+    public void addValidators(ContainerResponseContext responseContext)
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        Validators validators = xcontext != null ? (Validators) xcontext.remove(CONTEXT_KEY) : null;
+        if (validators != null && responseContext.getStatus() == Status.OK.getStatusCode()) {
+            responseContext.getHeaders().putSingle(HttpHeaders.ETAG, validators.tag);
+            responseContext.getHeaders().putSingle(HttpHeaders.LAST_MODIFIED, validators.lastModified);
+        }
+    }
+}
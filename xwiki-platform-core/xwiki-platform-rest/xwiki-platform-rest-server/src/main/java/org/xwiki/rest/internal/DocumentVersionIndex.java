@@ -0,0 +1,400 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
+
+/**
+ * Lightweight index of the current version of the documents and attachments, used to answer conditional requests
+ * without loading the full {@link XWikiDocument}. The versions are read from the store with a projection query and
+ * kept until the document is modified. The version of the default translation of a document also holds the list of
+ * its translations since they are part of its REST representation.
+ * <p>
+ * On the other members of a cluster the index relies on the replayed document events and, when they are not sent
+ * (e.g. during a XAR import with {@code observation.remote.xarImport.invalidationOnly} enabled), on the remote
+ * invalidation of the modified documents.
+ * <p>
+ * A version read from the store is only kept if no invalidation happened while it was being read, since it might
+ * otherwise be older than the invalidation and would never be removed.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component(roles = DocumentVersionIndex.class)
+@Singleton
+public class DocumentVersionIndex implements Initializable, Disposable
+{
+    private static final List<Event> EVENTS = Arrays.asList(new DocumentCreatedEvent(), new DocumentUpdatedEvent(),
+        new DocumentDeletedEvent(), new WikiDeletedEvent());
+
+    private static final String FULLNAME = "fullName";
+
+    private static final String LANGUAGE = "language";
+
+    private static final String FILENAME = "filename";
+
+    private static final String CACHE_ID = "rest.versions";
+
+    /**
+     * The version of an entity.
+     *
+     * @version $Id$
+     */
+    public static final class Version
+    {
+        private final String version;
+
+        private final Date date;
+
+        private final List<String> translations;
+
+        Version(String version, Date date)
+        {
+            this(version, date, Collections.emptyList());
+        }
+
+        Version(String version, Date date, List<String> translations)
+        {
+            this.version = version;
+            this.date = date;
+            this.translations = translations;
+        }
+
+        /**
+         * @return the version of the entity
+         */
+        public String getVersion()
+        {
+            return this.version;
+        }
+
+        /**
+         * @return the date of the last modification of the entity
+         */
+        public Date getDate()
+        {
+            return this.date;
+        }
+
+        /**
+         * @return the locales of the existing translations of the document, empty for a translation or an attachment
+         */
+        public List<String> getTranslations()
+        {
+            return this.translations;
+        }
+    }
+
+    private static final class DocumentVersion
+    {
+        private final Version version;
+
+        private final Map<String, Version> attachments = new ConcurrentHashMap<>();
+
+        DocumentVersion(Version version)
+        {
+            this.version = version;
+        }
+    }
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @Inject
+    private ObservationManager observation;
+
+    @Inject
+    private RemoteInvalidationManager remoteInvalidationManager;
+
+    @Inject
+    private RemoteDocumentInvalidator remoteDocumentInvalidator;
+
+    @Inject
+    private Logger logger;
+
+    private Cache<DocumentVersion> cache;
+
+    /**
+     * Incremented before each removal from the index.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final EventListener listener = new EventListener()
+    {
+        @Override
+        public void onEvent(Event event, Object source, Object data)
+        {
+            if (event instanceof WikiDeletedEvent) {
+                DocumentVersionIndex.this.invalidations.incrementAndGet();
+                DocumentVersionIndex.this.cache.removeAll();
+            } else {
+                DocumentReference reference = ((XWikiDocument) source).getDocumentReferenceWithLocale();
+                remove(reference);
+
+                Locale locale = reference.getLocale();
+                if (locale != null && !locale.equals(Locale.ROOT)) {
+                    // The default translation holds the list of translations
+                    remove(new DocumentReference(reference, Locale.ROOT));
+                }
+            }
+        }
+
+        @Override
+        public String getName()
+        {
+            return DocumentVersionIndex.class.getName();
+        }
+
+        @Override
+        public List<Event> getEvents()
+        {
+            return EVENTS;
+        }
+    };
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager.createNewCache(new LRUCacheConfiguration(CACHE_ID, 10000));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the document versions cache", e);
+        }
+
+        this.observation.addListener(this.listener);
+        this.remoteInvalidationManager.addHandler(CACHE_ID, keys -> keys.forEach(this::removeKey));
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.observation.removeListener(this.listener.getName());
+        this.remoteInvalidationManager.removeHandler(CACHE_ID);
+
+        this.cache.dispose();
+    }
+
+    /**
+     * @param reference the reference of the document, with the locale of the translation
+     * @return the current version of the document or {@code null} if it does not exist; for the default translation
+     *         the date is the most recent modification date of all the translations of the document
+     * @throws QueryException when failing to read the version from the store
+     */
+    public Version getDocumentVersion(DocumentReference reference) throws QueryException
+    {
+        DocumentVersion documentVersion = getDocument(reference);
+
+        return documentVersion != null ? documentVersion.version : null;
+    }
+
+    /**
+     * @param reference the reference of the attachment
+     * @return the current version of the attachment or {@code null} if it does not exist
+     * @throws QueryException when failing to read the version from the store
+     */
+    public Version getAttachmentVersion(AttachmentReference reference) throws QueryException
+    {
+        // Attachments are stored in the default translation of the document
+        DocumentVersion documentVersion = getDocument(new DocumentReference(reference.getDocumentReference(), null));
+
+        if (documentVersion == null) {
+            return null;
+        }
+
+        Version version = documentVersion.attachments.get(reference.getName());
+        if (version == null) {
+            long generation = this.invalidations.get();
+
+            version = toVersion(this.queryManager
+                .createQuery("select attach.version, attach.date from XWikiAttachment as attach, XWikiDocument as doc "
+                    + "where attach.docId = doc.id and doc.fullName = :fullName "
+                    + "and (doc.language = '' or doc.language is null) and attach.filename = :filename", Query.HQL)
+                .setWiki(reference.getDocumentReference().getWikiReference().getName())
+                .bindValue(FULLNAME, this.localSerializer.serialize(reference.getDocumentReference()))
+                .bindValue(FILENAME, reference.getName()).setLimit(1).execute());
+
+            if (version != null) {
+                documentVersion.attachments.put(reference.getName(), version);
+
+                if (this.invalidations.get() != generation) {
+                    // The version might be older than the invalidation
+                    documentVersion.attachments.remove(reference.getName(), version);
+                }
+            }
+        }
+
+        return version;
+    }
+
+    private DocumentVersion getDocument(DocumentReference reference) throws QueryException
+    {
+        String key = toKey(reference);
+
+        DocumentVersion documentVersion = this.cache.get(key);
+        if (documentVersion == null) {
+            long generation = this.invalidations.get();
+
+            Version version;
+            Locale locale = reference.getLocale();
+            if (locale == null || locale.equals(Locale.ROOT)) {
+                version = toDefaultVersion(this.queryManager
+                    .createQuery("select doc.language, doc.version, doc.date from XWikiDocument as doc "
+                        + "where doc.fullName = :fullName", Query.HQL)
+                    .setWiki(reference.getWikiReference().getName())
+                    .bindValue(FULLNAME, this.localSerializer.serialize(reference)).execute());
+            } else {
+                version = toVersion(this.queryManager
+                    .createQuery("select doc.version, doc.date from XWikiDocument as doc "
+                        + "where doc.fullName = :fullName and doc.language = :language", Query.HQL)
+                    .bindValue(LANGUAGE, locale.toString()).setWiki(reference.getWikiReference().getName())
+                    .bindValue(FULLNAME, this.localSerializer.serialize(reference)).setLimit(1).execute());
+            }
+
+            if (version == null) {
+                // Don't remember documents which don't exist
+                return null;
+            }
+
+            documentVersion = new DocumentVersion(version);
+            this.cache.set(key, documentVersion);
+
+            // Check after storing the version (and not before) so that an invalidation happening in the meantime is
+            // either seen here or removes the stored version
+            if (this.invalidations.get() != generation) {
+                this.cache.remove(key);
+            }
+        }
+
+        return documentVersion;
+    }
+
+    private void remove(DocumentReference reference)
+    {
+        String key = toKey(reference);
+
+        removeKey(key);
+        this.remoteDocumentInvalidator.invalidate(CACHE_ID, key);
+
+        this.logger.debug("Removed version of document [{}] from the index", reference);
+    }
+
+    private void removeKey(String key)
+    {
+        // Increment before removing so that a version being read at the same time is not kept
+        this.invalidations.incrementAndGet();
+        this.cache.remove(key);
+    }
+
+    private String toKey(DocumentReference reference)
+    {
+        Locale locale = reference.getLocale();
+
+        return this.serializer.serialize(reference) + '/' + (locale != null ? locale : Locale.ROOT);
+    }
+
+    private Version toVersion(List<Object[]> results)
+    {
+        if (results.isEmpty()) {
+            return null;
+        }
+
+        Object[] result = results.get(0);
+
+        return new Version((String) result[0], (Date) result[1]);
+    }
+
+    private Version toDefaultVersion(List<Object[]> results)
+    {
+        Object[] defaultResult = null;
+        Date date = null;
+        List<String> translations = new ArrayList<>();
+        for (Object[] result : results) {
+            String language = (String) result[0];
+            if (language == null || language.isEmpty()) {
+                defaultResult = result;
+            } else {
+                translations.add(language);
+            }
+
+            Date resultDate = (Date) result[2];
+            if (date == null || (resultDate != null && resultDate.after(date))) {
+                date = resultDate;
+            }
+        }
+
+        if (defaultResult == null) {
+            return null;
+        }
+
+        Collections.sort(translations);
+
+        return new Version((String) defaultResult[1], date, translations);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.rest.Relations;
+import org.xwiki.rest.model.jaxb.Link;
+import org.xwiki.rest.model.jaxb.ObjectFactory;
+
+/**
+ * Helpers to paginate a collection resource with a cursor based on the (unique and indexed) identifier of the last
+ * returned entity instead of an offset. The database is then able to seek directly to the next page instead of
+ * scanning and discarding all the previous entries, and the store is read in chunks so that only a limited number of
+ * entities are loaded at the same time.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public final class KeysetPagination
+{
+    /**
+     * The name of the query parameter holding the cursor.
+     */
+    public static final String PARAMETER = "after";
+
+    /**
+     * The maximum number of entities to read from the store in a single query.
+     */
+    public static final int CHUNK_SIZE = 100;
+
+    private KeysetPagination()
+    {
+        // Utility class
+    }
+
+    /**
+     * @param after the value of the cursor query parameter, empty to start from the beginning of the collection
+     * @return the identifier after which to start reading the collection
+     * @throws WebApplicationException when the cursor is not valid
+     */
+    public static long parseCursor(String after)
+    {
+        // Entity identifiers are hashes so they can be negative
+        if (StringUtils.isEmpty(after)) {
+            return Long.MIN_VALUE;
+        }
+
+        try {
+            return Long.parseLong(after);
+        } catch (NumberFormatException e) {
+            throw new WebApplicationException(e, Status.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * @param remaining the number of entities still to read, negative for no limit
+     * @return the number of entities to read in the next chunk
+     */
+    public static int getChunkSize(int remaining)
+    {
+        return remaining < 0 ? CHUNK_SIZE : Math.min(remaining, CHUNK_SIZE);
+    }
+
+    /**
+     * @param objectFactory the factory used to create the link
+     * @param uriInfo the information about the current request
+     * @param cursor the identifier of the last entity read from the store
+     * @return the link to the next page of the collection
+     */
+    public static Link createNextLink(ObjectFactory objectFactory, UriInfo uriInfo, long cursor)
+    {
+        Link link = objectFactory.createLink();
+        link.setHref(uriInfo.getRequestUriBuilder().replaceQueryParam("start").replaceQueryParam(PARAMETER, cursor)
+            .build().toString());
+        link.setRel(Relations.NEXT);
+
+        return link;
+    }
+}
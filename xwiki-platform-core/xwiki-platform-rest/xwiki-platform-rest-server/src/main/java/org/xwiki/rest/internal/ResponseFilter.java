@@ -42,6 +42,7 @@
  * <li>Set in user in the response header. The user is expected to be authenticate in a preceding filter along with the
  * XWikiContext initialization</li>
  * <li>Make sure a CRSF is provided for form based requests</li>
+ * <li>Set the validators of the requested entity (see {@link ConditionalRequests})</li>
  * </ul>
  * 
  * @version $Id$
@@ -64,6 +65,9 @@ public class ResponseFilter implements ContainerResponseFilter, XWikiRestCompone
     @Inject
     private CSRFToken csrfToken;
 
+    @Inject
+    private ConditionalRequests conditionalRequests;
+
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
         throws IOException
@@ -76,5 +80,7 @@ public void filter(ContainerRequestContext requestContext, ContainerResponseCont
         if (this.csrfToken != null) {
             responseContext.getHeaders().addFirst(FORM_TOKEN_HEADER, this.csrfToken.getToken());
         }
+
+        this.conditionalRequests.addValidators(responseContext);
     }
 }
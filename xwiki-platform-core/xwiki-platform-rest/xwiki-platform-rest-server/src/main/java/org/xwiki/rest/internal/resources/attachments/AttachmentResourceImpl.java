@@ -22,14 +22,22 @@
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import org.xwiki.attachment.validation.AttachmentValidationException;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.query.QueryException;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequests;
+import org.xwiki.rest.internal.DocumentVersionIndex;
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.internal.resources.BaseAttachmentsResource;
 import org.xwiki.rest.resources.attachments.AttachmentResource;
@@ -47,11 +55,23 @@
 @Named("org.xwiki.rest.internal.resources.attachments.AttachmentResourceImpl")
 public class AttachmentResourceImpl extends BaseAttachmentsResource implements AttachmentResource
 {
+    @Context
+    private Request request;
+
+    @Inject
+    private DocumentVersionIndex versionIndex;
+
+    @Inject
+    private ConditionalRequests conditionalRequests;
+
     @Override
     public Response getAttachment(String wikiName, String spaceName, String pageName, String attachmentName)
         throws XWikiRestException
     {
         try {
+            evaluatePreconditions(new AttachmentReference(attachmentName,
+                new DocumentReference(wikiName, parseSpaceSegments(spaceName), pageName)));
+
             DocumentInfo documentInfo = getDocumentInfo(wikiName, spaceName, pageName, null, null, true, false);
             Document doc = documentInfo.getDocument();
 
@@ -61,11 +81,24 @@ public Response getAttachment(String wikiName, String spaceName, String pageName
             }
 
             return Response.ok().type(xwikiAttachment.getMimeType()).entity(xwikiAttachment.getContent()).build();
-        } catch (XWikiException e) {
+        } catch (XWikiException | QueryException e) {
             throw new XWikiRestException(e);
         }
     }
 
+    private void evaluatePreconditions(AttachmentReference reference) throws QueryException
+    {
+        // Check the version before loading the document, but only when the answer would be the same as when loading
+        // it (otherwise the standard code path takes care of the error)
+        if (this.authorization.hasAccess(Right.VIEW, reference.getDocumentReference())) {
+            DocumentVersionIndex.Version version = this.versionIndex.getAttachmentVersion(reference);
+
+            if (version != null) {
+                this.conditionalRequests.evaluatePreconditions(this.request, version);
+            }
+        }
+    }
+
     @Override
     public Response putAttachment(String wikiName, String spaceName, String pageName, String attachmentName,
         byte[] content) throws XWikiRestException, AttachmentValidationException
@@ -26,9 +26,11 @@
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
 import org.xwiki.rest.internal.DomainObjectFactory;
+import org.xwiki.rest.internal.KeysetPagination;
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.model.jaxb.ObjectSummary;
 import org.xwiki.rest.model.jaxb.Objects;
@@ -36,6 +38,7 @@
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
 
+import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.api.Document;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.objects.BaseObject;
@@ -52,7 +55,7 @@ public class AllObjectsForClassNameResourceImpl extends XWikiResource implements
 
     @Override
     public Objects getObjects(String wikiName, String className, Integer start, Integer number, String order,
-            Boolean withPrettyNames) throws XWikiRestException
+            Boolean withPrettyNames, String after) throws XWikiRestException
     {
         String database = Utils.getXWikiContext(componentManager).getWikiId();
 
@@ -63,32 +66,24 @@ public Objects getObjects(String wikiName, String className, Integer start, Inte
 
             String query = "select doc, obj from BaseObject as obj, XWikiDocument as doc "
                 + "where obj.name=doc.fullName and obj.className=:className";
-            if ("date".equals(order)) {
-                query += " order by doc.date desc";
-            }
+            if (after != null) {
+                // The keyset pagination requires a stable order on an unique key so the requested order is ignored
+                query += " order by obj.id";
+
+                getObjects(queryManager.createQuery(query, Query.XWQL).bindValue("className", className),
+                    KeysetPagination.parseCursor(after), number, wikiName, withPrettyNames, objects);
+            } else {
+                if ("date".equals(order)) {
+                    query += " order by doc.date desc";
+                }
 
-            List<Object> queryResult = null;
-            queryResult =
+                List<Object> queryResult = null;
+                queryResult =
                     queryManager.createQuery(query, Query.XWQL).bindValue("className", className).setLimit(number)
-                            .setOffset(start).execute();
-
-            for (Object object : queryResult) {
-                Object[] fields = (Object[]) object;
-                XWikiDocument xwikiDocument = (XWikiDocument) fields[0];
-                xwikiDocument.setDatabase(wikiName);
-
-                if (authorization.hasAccess(Right.VIEW, xwikiDocument.getDocumentReference())) {
-
-                    Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
-
-                    BaseObject xwikiObject = (BaseObject) fields[1];
-
-                    ObjectSummary objectSummary = DomainObjectFactory
-                        .createObjectSummary(objectFactory, uriInfo.getBaseUri(), Utils.getXWikiContext(
-                            componentManager), doc, xwikiObject, false, Utils.getXWikiApi(componentManager),
-                            withPrettyNames);
+                        .setOffset(start).execute();
 
-                    objects.getObjectSummaries().add(objectSummary);
+                for (Object object : queryResult) {
+                    addObjectSummary((Object[]) object, wikiName, withPrettyNames, objects);
                 }
             }
 
@@ -99,4 +94,54 @@ public Objects getObjects(String wikiName, String className, Integer start, Inte
             Utils.getXWikiContext(componentManager).setWikiId(database);
         }
     }
+
+    private void getObjects(Query query, long after, int number, String wikiName, Boolean withPrettyNames,
+        Objects objects) throws QueryException, XWikiException
+    {
+        // Read the store in limited chunks, seeking after the last read object, so that only a bounded number of
+        // documents and objects is loaded at the same time whatever the requested number of objects
+        long cursor = after;
+        int remaining = number;
+        while (remaining != 0) {
+            int limit = KeysetPagination.getChunkSize(remaining);
+            List<Object[]> chunk = query.setAfter(List.of(cursor)).setLimit(limit).execute();
+
+            for (Object[] fields : chunk) {
+                cursor = ((BaseObject) fields[1]).getId();
+                addObjectSummary(fields, wikiName, withPrettyNames, objects);
+            }
+
+            if (chunk.size() < limit) {
+                // No more objects
+                return;
+            }
+
+            if (remaining > 0) {
+                remaining -= chunk.size();
+            }
+        }
+
+        objects.getLinks().add(KeysetPagination.createNextLink(objectFactory, uriInfo, cursor));
+    }
+
+    private void addObjectSummary(Object[] fields, String wikiName, Boolean withPrettyNames, Objects objects)
+        throws XWikiException
+    {
+        XWikiDocument xwikiDocument = (XWikiDocument) fields[0];
+        xwikiDocument.setDatabase(wikiName);
+
+        if (authorization.hasAccess(Right.VIEW, xwikiDocument.getDocumentReference())) {
+
+            Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
+
+            BaseObject xwikiObject = (BaseObject) fields[1];
+
+            ObjectSummary objectSummary = DomainObjectFactory
+                .createObjectSummary(objectFactory, uriInfo.getBaseUri(), Utils.getXWikiContext(
+                    componentManager), doc, xwikiObject, false, Utils.getXWikiApi(componentManager),
+                    withPrettyNames);
+
+            objects.getObjectSummaries().add(objectSummary);
+        }
+    }
 }
@@ -21,14 +21,25 @@
 
 import java.net.URI;
 
+import javax.inject.Inject;
 import javax.inject.Named;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.query.QueryException;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequests;
+import org.xwiki.rest.internal.DocumentVersionIndex;
 import org.xwiki.rest.model.jaxb.Page;
 import org.xwiki.rest.resources.pages.PageResource;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
 
+import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.api.Document;
 
@@ -39,11 +50,32 @@
 @Named("org.xwiki.rest.internal.resources.pages.PageResourceImpl")
 public class PageResourceImpl extends ModifiablePageResource implements PageResource
 {
+    @Context
+    private Request request;
+
+    @Context
+    private HttpHeaders headers;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    private DocumentVersionIndex versionIndex;
+
+    @Inject
+    private ConditionalRequests conditionalRequests;
+
     @Override
     public Page getPage(String wikiName, String spaceName, String pageName, Boolean withPrettyNames,
         Boolean withObjects, Boolean withXClass, Boolean withAttachments) throws XWikiRestException
     {
         try {
+            // The pretty names, the objects and the class are computed from other documents (user profiles, parent
+            // spaces, class definitions, etc.) whose modifications are not reflected in the version of the page
+            if (!withPrettyNames && !withObjects && !withXClass) {
+                evaluatePreconditions(new DocumentReference(wikiName, parseSpaceSegments(spaceName), pageName));
+            }
+
             DocumentInfo documentInfo = getDocumentInfo(wikiName, spaceName, pageName, null, null, true, false);
 
             Document doc = documentInfo.getDocument();
@@ -55,11 +87,28 @@ public Page getPage(String wikiName, String spaceName, String pageName, Boolean
                     withXClass, withAttachments);
 
             return page;
-        } catch (XWikiException e) {
+        } catch (XWikiException | QueryException e) {
             throw new XWikiRestException(e);
         }
     }
 
+    private void evaluatePreconditions(DocumentReference reference) throws QueryException
+    {
+        // Check the version before loading the document, but only when the answer would be the same as when loading
+        // it (otherwise the standard code path takes care of the error)
+        if (this.authorization.hasAccess(Right.VIEW, reference)) {
+            DocumentVersionIndex.Version version = this.versionIndex.getDocumentVersion(reference);
+
+            if (version != null) {
+                XWikiContext xcontext = getXWikiContext();
+
+                this.conditionalRequests.evaluatePreconditions(this.request, version,
+                    this.uriInfo.getRequestUri().getRawQuery(), this.headers.getAcceptableMediaTypes(),
+                    xcontext.getUserReference(), xcontext.getLocale(), version.getTranslations());
+            }
+        }
+    }
+
     @Override
     public Response putPage(String wikiName, String spaceName, String pageName, Boolean minorRevision, Page page)
             throws XWikiRestException
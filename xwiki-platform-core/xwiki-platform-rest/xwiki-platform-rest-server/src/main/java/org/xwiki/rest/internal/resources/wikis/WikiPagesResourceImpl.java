@@ -35,6 +35,7 @@
 import org.xwiki.rest.Relations;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.KeysetPagination;
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.model.jaxb.Link;
 import org.xwiki.rest.model.jaxb.PageSummary;
@@ -60,8 +61,8 @@ public class WikiPagesResourceImpl extends XWikiResource implements WikiPagesRes
     private ContextualAuthorizationManager contextualAuthorizationManager;
 
     @Override
-    public Pages getPages(String wikiName, Integer start, String name, String space, String author, Integer number)
-            throws XWikiRestException
+    public Pages getPages(String wikiName, Integer start, String name, String space, String author, Integer number,
+        String after) throws XWikiRestException
     {
         XWikiContext context = Utils.getXWikiContext(componentManager);
         WikiReference wikiReference = context.getWikiReference();
@@ -107,59 +108,26 @@ public Pages getPages(String wikiName, Integer start, String name, String space,
                 stringBuilder.append(")");
             }
 
+            if (after != null) {
+                stringBuilder.append(" order by doc.id");
+            }
+
             String queryString = stringBuilder.toString();
 
             /* Execute the query by filling the parameters */
-            List<Object> queryResult = null;
-            Query query = queryManager.createQuery(queryString, Query.XWQL)
-                .setWiki(wikiName)
-                .setLimit(number)
-                .setOffset(start);
+            Query query = queryManager.createQuery(queryString, Query.XWQL).setWiki(wikiName);
 
             for (Map.Entry<String, String> filterEntry : filters.entrySet()) {
                 query.bindValue(filterEntry.getKey(), String.format("%%%s%%", filterEntry.getValue().toUpperCase()));
             }
 
-            queryResult = query.execute();
-            XWikiURLFactory urlFactory = context.getURLFactory();
-
-            /* Get the results and populate the returned representation */
-            for (Object object : queryResult) {
-                XWikiDocument xwikiDocument = (XWikiDocument) object;
+            if (after != null) {
+                getPages(query, KeysetPagination.parseCursor(after), number, wikiName, pages, context);
+            } else {
+                query.setLimit(number).setOffset(start);
 
-                Document doc = new Document(xwikiDocument, context);
-                if (this.contextualAuthorizationManager.hasAccess(Right.VIEW, doc.getDocumentReference())) {
-                    /*
-                     * We manufacture page summaries in place because we don't have all the data for calling the
-                     * DomainObjectFactory method (doing so would require to retrieve an actual Document)
-                     */
-                    PageSummary pageSummary = objectFactory.createPageSummary();
-                    pageSummary.setId(doc.getPrefixedFullName());
-                    pageSummary.setFullName(doc.getFullName());
-                    pageSummary.setWiki(wikiName);
-                    pageSummary.setSpace(doc.getSpace());
-                    pageSummary.setName(doc.getDocumentReference().getName());
-                    pageSummary.setTitle(doc.getTitle());
-                    pageSummary.setParent(doc.getParent());
-
-                    URL absoluteUrl = urlFactory.createExternalURL(
-                        doc.getSpace(), doc.getDocumentReference().getName(), "view", null, null,
-                        context);
-                    pageSummary.setXwikiAbsoluteUrl(absoluteUrl.toString());
-                    pageSummary.setXwikiRelativeUrl(urlFactory.getURL(
-                        absoluteUrl, context));
-
-                    String pageUri = Utils
-                        .createURI(uriInfo.getBaseUri(), PageResource.class, doc.getWiki(),
-                            Utils.getSpacesURLElements(doc.getDocumentReference()),
-                            doc.getDocumentReference().getName())
-                        .toString();
-                    Link pageLink = objectFactory.createLink();
-                    pageLink.setHref(pageUri);
-                    pageLink.setRel(Relations.PAGE);
-                    pageSummary.getLinks().add(pageLink);
-
-                    pages.getPageSummaries().add(pageSummary);
+                for (Object object : query.execute()) {
+                    addPageSummary((XWikiDocument) object, wikiName, pages, context);
                 }
             }
         } catch (QueryException e) {
@@ -170,4 +138,75 @@ public Pages getPages(String wikiName, Integer start, String name, String space,
 
         return pages;
     }
+
+    private void getPages(Query query, long after, int number, String wikiName, Pages pages,
+        XWikiContext context)
+        throws QueryException
+    {
+        // Read the store in limited chunks, seeking after the last read document, so that only a bounded number of
+        // documents is loaded at the same time whatever the requested number of pages
+        long cursor = after;
+        int remaining = number;
+        while (remaining != 0) {
+            int limit = KeysetPagination.getChunkSize(remaining);
+            List<Object> chunk = query.setAfter(List.of(cursor)).setLimit(limit).execute();
+
+            for (Object object : chunk) {
+                XWikiDocument xwikiDocument = (XWikiDocument) object;
+                cursor = xwikiDocument.getId();
+                addPageSummary(xwikiDocument, wikiName, pages, context);
+            }
+
+            if (chunk.size() < limit) {
+                // No more documents
+                return;
+            }
+
+            if (remaining > 0) {
+                remaining -= chunk.size();
+            }
+        }
+
+        pages.getLinks().add(KeysetPagination.createNextLink(objectFactory, uriInfo, cursor));
+    }
+
+    private void addPageSummary(XWikiDocument xwikiDocument, String wikiName, Pages pages, XWikiContext context)
+    {
+        Document doc = new Document(xwikiDocument, context);
+        if (this.contextualAuthorizationManager.hasAccess(Right.VIEW, doc.getDocumentReference())) {
+            XWikiURLFactory urlFactory = context.getURLFactory();
+
+            /*
+             * We manufacture page summaries in place because we don't have all the data for calling the
+             * DomainObjectFactory method (doing so would require to retrieve an actual Document)
+             */
+            PageSummary pageSummary = objectFactory.createPageSummary();
+            pageSummary.setId(doc.getPrefixedFullName());
+            pageSummary.setFullName(doc.getFullName());
+            pageSummary.setWiki(wikiName);
+            pageSummary.setSpace(doc.getSpace());
+            pageSummary.setName(doc.getDocumentReference().getName());
+            pageSummary.setTitle(doc.getTitle());
+            pageSummary.setParent(doc.getParent());
+
+            URL absoluteUrl = urlFactory.createExternalURL(
+                doc.getSpace(), doc.getDocumentReference().getName(), "view", null, null,
+                context);
+            pageSummary.setXwikiAbsoluteUrl(absoluteUrl.toString());
+            pageSummary.setXwikiRelativeUrl(urlFactory.getURL(
+                absoluteUrl, context));
+
+            String pageUri = Utils
+                .createURI(uriInfo.getBaseUri(), PageResource.class, doc.getWiki(),
+                    Utils.getSpacesURLElements(doc.getDocumentReference()),
+                    doc.getDocumentReference().getName())
+                .toString();
+            Link pageLink = objectFactory.createLink();
+            pageLink.setHref(pageUri);
+            pageLink.setRel(Relations.PAGE);
+            pageSummary.getLinks().add(pageLink);
+
+            pages.getPageSummaries().add(pageSummary);
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.Date;
+
+import javax.inject.Provider;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.rest.internal.DocumentVersionIndex.Version;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link ConditionalRequests}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class ConditionalRequestsTest
+{
+    private static final Version VERSION = new Version("4.2", new Date(1234567));
+
+    @InjectMockComponents
+    private ConditionalRequests conditionalRequests;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    private XWikiContext xcontext = new XWikiContext();
+
+    private Request request = mock(Request.class);
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+    }
+
+    private ContainerResponseContext response(int status)
+    {
+        ContainerResponseContext response = mock(ContainerResponseContext.class);
+        when(response.getStatus()).thenReturn(status);
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        when(response.getHeaders()).thenReturn(headers);
+
+        return response;
+    }
+
+    @Test
+    void evaluatePreconditionsModified()
+    {
+        this.conditionalRequests.evaluatePreconditions(this.request, VERSION, "query");
+
+        verify(this.request).evaluatePreconditions(eq(new Date(1234000)), any(EntityTag.class));
+
+        ContainerResponseContext response = response(200);
+        this.conditionalRequests.addValidators(response);
+
+        EntityTag tag = (EntityTag) response.getHeaders().getFirst(HttpHeaders.ETAG);
+        assertTrue(tag.getValue().startsWith("4.2-"));
+        assertEquals(new Date(1234000), response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+
+        // The validators are only sent once
+        response = response(200);
+        this.conditionalRequests.addValidators(response);
+        assertTrue(response.getHeaders().isEmpty());
+    }
+
+    @Test
+    void evaluatePreconditionsNotModified()
+    {
+        when(this.request.evaluatePreconditions(any(Date.class), any(EntityTag.class)))
+            .thenReturn(Response.notModified());
+
+        WebApplicationException exception = assertThrows(WebApplicationException.class,
+            () -> this.conditionalRequests.evaluatePreconditions(this.request, VERSION));
+
+        assertEquals(304, exception.getResponse().getStatus());
+        assertEquals(new Date(1234000), exception.getResponse().getLastModified());
+    }
+
+    @Test
+    void variantsHaveDifferentTags()
+    {
+        this.conditionalRequests.evaluatePreconditions(this.request, VERSION, "media=json");
+        ContainerResponseContext response = response(200);
+        this.conditionalRequests.addValidators(response);
+
+        this.conditionalRequests.evaluatePreconditions(this.request, VERSION, "media=xml");
+        ContainerResponseContext otherResponse = response(200);
+        this.conditionalRequests.addValidators(otherResponse);
+
+        assertNotEquals(response.getHeaders().getFirst(HttpHeaders.ETAG),
+            otherResponse.getHeaders().getFirst(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void addValidatorsOnError()
+    {
+        this.conditionalRequests.evaluatePreconditions(this.request, VERSION);
+
+        ContainerResponseContext response = response(500);
+        this.conditionalRequests.addValidators(response);
+
+        assertTrue(response.getHeaders().isEmpty());
+    }
+}
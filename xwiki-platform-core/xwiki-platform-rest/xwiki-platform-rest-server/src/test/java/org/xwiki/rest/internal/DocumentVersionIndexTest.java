@@ -0,0 +1,288 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationHandler;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rest.internal.DocumentVersionIndex.Version;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DocumentVersionIndex}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DocumentVersionIndexTest
+{
+    private static final DocumentReference DOCUMENT = new DocumentReference("wiki", "Space", "Page");
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private ObservationManager observation;
+
+    @MockComponent
+    private RemoteInvalidationManager remoteInvalidationManager;
+
+    @MockComponent
+    private RemoteDocumentInvalidator remoteDocumentInvalidator;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @InjectMockComponents
+    private DocumentVersionIndex index;
+
+    private Map<String, Object> cacheContent = new HashMap<>();
+
+    private Query query = mock(Query.class);
+
+    @BeforeComponent
+    void beforeComponent() throws Exception
+    {
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(anyString())).then(invocation -> this.cacheContent.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.cacheContent.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(cache).set(anyString(), any());
+        doAnswer(invocation -> this.cacheContent.remove(invocation.getArgument(0))).when(cache)
+            .remove(anyString());
+        when(this.cacheManager.createNewCache(any())).thenReturn(cache);
+
+        when(this.serializer.serialize(any())).thenReturn("wiki:Space.Page");
+        when(this.localSerializer.serialize(any())).thenReturn("Space.Page");
+
+        when(this.queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(this.query);
+        when(this.query.setWiki(any())).thenReturn(this.query);
+        when(this.query.bindValue(anyString(), any())).thenReturn(this.query);
+        when(this.query.setLimit(anyInt())).thenReturn(this.query);
+    }
+
+    @Test
+    void getDocumentVersion() throws Exception
+    {
+        Date date = new Date();
+        when(this.query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] {"", "1.1", date}));
+
+        Version version = this.index.getDocumentVersion(DOCUMENT);
+
+        assertEquals("1.1", version.getVersion());
+        assertEquals(date, version.getDate());
+        verify(this.query).setWiki("wiki");
+        verify(this.query).bindValue("fullName", "Space.Page");
+
+        // The version is not read again from the store
+        assertEquals("1.1", this.index.getDocumentVersion(DOCUMENT).getVersion());
+        verify(this.query).execute();
+
+        // Until the document is modified
+        ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+        verify(this.observation).addListener(listenerCaptor.capture());
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReferenceWithLocale()).thenReturn(new DocumentReference(DOCUMENT, Locale.ROOT));
+        listenerCaptor.getValue().onEvent(new DocumentUpdatedEvent(), document, null);
+
+        when(this.query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] {"", "1.2", date}));
+
+        assertEquals("1.2", this.index.getDocumentVersion(DOCUMENT).getVersion());
+        verify(this.query, times(2)).execute();
+        verify(this.remoteDocumentInvalidator).invalidate("rest.versions", "wiki:Space.Page/");
+    }
+
+    @Test
+    void remoteInvalidation() throws Exception
+    {
+        when(this.query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] {"", "1.1", new Date()}));
+
+        assertEquals("1.1", this.index.getDocumentVersion(DOCUMENT).getVersion());
+
+        ArgumentCaptor<RemoteInvalidationHandler> handlerCaptor =
+            ArgumentCaptor.forClass(RemoteInvalidationHandler.class);
+        verify(this.remoteInvalidationManager).addHandler(eq("rest.versions"), handlerCaptor.capture());
+        handlerCaptor.getValue().invalidate(List.of("wiki:Space.Page/"));
+
+        when(this.query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] {"", "1.2", new Date()}));
+
+        assertEquals("1.2", this.index.getDocumentVersion(DOCUMENT).getVersion());
+    }
+
+    @Test
+    void invalidationDuringRead() throws Exception
+    {
+        ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+        verify(this.observation).addListener(listenerCaptor.capture());
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReferenceWithLocale()).thenReturn(new DocumentReference(DOCUMENT, Locale.ROOT));
+
+        // The document is modified after the version was read from the store but before it's stored in the index
+        when(this.query.execute()).then(invocation -> {
+            listenerCaptor.getValue().onEvent(new DocumentUpdatedEvent(), document, null);
+            return Collections.<Object>singletonList(new Object[] {"", "1.1", new Date()});
+        });
+
+        assertEquals("1.1", this.index.getDocumentVersion(DOCUMENT).getVersion());
+
+        when(this.query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] {"", "1.2", new Date()}));
+
+        // The outdated version was not kept
+        assertEquals("1.2", this.index.getDocumentVersion(DOCUMENT).getVersion());
+        assertEquals("1.2", this.index.getDocumentVersion(DOCUMENT).getVersion());
+        verify(this.query, times(2)).execute();
+    }
+
+    @Test
+    void remoteInvalidationDuringAttachmentRead() throws Exception
+    {
+        ArgumentCaptor<RemoteInvalidationHandler> handlerCaptor =
+            ArgumentCaptor.forClass(RemoteInvalidationHandler.class);
+        verify(this.remoteInvalidationManager).addHandler(eq("rest.versions"), handlerCaptor.capture());
+
+        when(this.query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] {"", "1.1", new Date()}));
+
+        AttachmentReference attachment = new AttachmentReference("file.txt", DOCUMENT);
+        this.index.getDocumentVersion(DOCUMENT);
+
+        // The attachment is modified on another member of the cluster while its version is being read
+        when(this.query.execute()).then(invocation -> {
+            handlerCaptor.getValue().invalidate(List.of("wiki:Space.Page/"));
+            return Collections.<Object>singletonList(new Object[] {"3.1", new Date()});
+        });
+
+        assertEquals("3.1", this.index.getAttachmentVersion(attachment).getVersion());
+
+        when(this.query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] {"", "1.2", new Date()}),
+            Collections.<Object>singletonList(new Object[] {"3.2", new Date()}));
+
+        assertEquals("3.2", this.index.getAttachmentVersion(attachment).getVersion());
+        assertEquals("3.2", this.index.getAttachmentVersion(attachment).getVersion());
+        verify(this.query, times(4)).execute();
+    }
+
+    @Test
+    void getDocumentVersionWithTranslations() throws Exception
+    {
+        Date date = new Date(1000);
+        Date translationDate = new Date(2000);
+        when(this.query.execute()).thenReturn(Arrays.<Object>asList(new Object[] {"fr", "2.1", translationDate},
+            new Object[] {"", "1.1", date}, new Object[] {"de", "1.3", date}));
+
+        Version version = this.index.getDocumentVersion(DOCUMENT);
+
+        assertEquals("1.1", version.getVersion());
+        assertEquals(translationDate, version.getDate());
+        assertEquals(List.of("de", "fr"), version.getTranslations());
+
+        // Modifying a translation changes the list of translations of the default translation
+        ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+        verify(this.observation).addListener(listenerCaptor.capture());
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReferenceWithLocale()).thenReturn(new DocumentReference(DOCUMENT, Locale.GERMAN));
+        listenerCaptor.getValue().onEvent(new DocumentUpdatedEvent(), document, null);
+
+        when(this.query.execute())
+            .thenReturn(Collections.<Object>singletonList(new Object[] {"", "1.1", date}));
+
+        assertEquals(List.of(), this.index.getDocumentVersion(DOCUMENT).getTranslations());
+        verify(this.query, times(2)).execute();
+        verify(this.remoteDocumentInvalidator).invalidate("rest.versions", "wiki:Space.Page/de");
+        verify(this.remoteDocumentInvalidator).invalidate("rest.versions", "wiki:Space.Page/");
+    }
+
+    @Test
+    void getDocumentVersionTranslation() throws Exception
+    {
+        when(this.query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] {"2.1", new Date()}));
+
+        assertEquals("2.1", this.index.getDocumentVersion(new DocumentReference(DOCUMENT, Locale.FRENCH)).getVersion());
+
+        verify(this.query).bindValue("language", "fr");
+    }
+
+    @Test
+    void getDocumentVersionWhenMissing() throws Exception
+    {
+        when(this.query.execute()).thenReturn(List.of());
+
+        assertNull(this.index.getDocumentVersion(DOCUMENT));
+        assertNull(this.index.getAttachmentVersion(new AttachmentReference("file.txt", DOCUMENT)));
+    }
+
+    @Test
+    void getAttachmentVersion() throws Exception
+    {
+        when(this.query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] {"", "1.1", new Date()}),
+            Collections.<Object>singletonList(new Object[] {"3.1", new Date()}));
+
+        AttachmentReference attachment = new AttachmentReference("file.txt", DOCUMENT);
+        assertEquals("3.1", this.index.getAttachmentVersion(attachment).getVersion());
+        assertEquals("3.1", this.index.getAttachmentVersion(attachment).getVersion());
+
+        verify(this.query).bindValue("filename", "file.txt");
+        verify(this.query, times(2)).execute();
+    }
+}
@@ -27,6 +27,8 @@
 
 import javax.inject.Named;
 import javax.inject.Provider;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -40,6 +42,7 @@
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryManager;
+import org.xwiki.rest.Relations;
 import org.xwiki.rest.XWikiRestException;
 import org.xwiki.rest.model.jaxb.PageSummary;
 import org.xwiki.rest.model.jaxb.Pages;
@@ -56,10 +59,12 @@
 import com.xpn.xwiki.web.XWikiURLFactory;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -189,7 +194,7 @@ void getPages() throws QueryException, MalformedURLException, XWikiRestException
             .thenReturn(doc3AbsoluteURL);
         when(this.urlFactory.getURL(doc3AbsoluteURL, this.context)).thenReturn(doc3RelativeURL);
 
-        Pages pages = this.wikiPagesResource.getPages(wikiName, start, name, space, author, number);
+        Pages pages = this.wikiPagesResource.getPages(wikiName, start, name, space, author, number, null);
         List<PageSummary> pageSummaries = pages.getPageSummaries();
         assertEquals(2, pageSummaries.size());
 
@@ -223,4 +228,72 @@ void getPages() throws QueryException, MalformedURLException, XWikiRestException
         verify(mockQuery).bindValue("name", "%BAR%");
         verify(mockQuery).bindValue("author", "%BUZ%");
     }
+
+    @Test
+    void getPagesAfterCursor() throws Exception
+    {
+        when(this.uriInfo.getRequestUriBuilder())
+            .thenAnswer(invocation -> UriBuilder.fromUri("https://test/rest/wikis/foo/pages?start=3&after=42"));
+
+        Query mockQuery = mock(Query.class);
+        when(this.queryManager.createQuery(any(), eq(Query.XWQL))).thenReturn(mockQuery);
+        when(mockQuery.setLimit(anyInt())).thenReturn(mockQuery);
+        when(mockQuery.setWiki(any())).thenReturn(mockQuery);
+        when(mockQuery.setAfter(any())).thenReturn(mockQuery);
+
+        XWikiDocument mockDoc1 = mock(XWikiDocument.class, "doc1");
+        XWikiDocument mockDoc2 = mock(XWikiDocument.class, "doc2");
+        when(mockDoc1.getId()).thenReturn(43L);
+        when(mockDoc2.getId()).thenReturn(44L);
+        when(mockDoc1.getDocumentReference()).thenReturn(new DocumentReference("foo", "Space1", "Doc1"));
+        when(mockDoc2.getDocumentReference()).thenReturn(new DocumentReference("foo", "Space2", "Doc2"));
+        when(mockQuery.execute()).thenReturn(List.of(mockDoc1, mockDoc2));
+
+        Pages pages = this.wikiPagesResource.getPages("foo", 3, "", "", "", 2, "42");
+
+        // The view right is not granted, but the cursor still moves forward
+        assertEquals(0, pages.getPageSummaries().size());
+        assertEquals(1, pages.getLinks().size());
+        assertEquals(Relations.NEXT, pages.getLinks().get(0).getRel());
+        assertEquals("https://test/rest/wikis/foo/pages?after=44", pages.getLinks().get(0).getHref());
+
+        verify(this.queryManager)
+            .createQuery("select doc from XWikiDocument as doc order by doc.id", Query.XWQL);
+        verify(mockQuery).setAfter(List.of(42L));
+        verify(mockQuery).setLimit(2);
+        verify(mockQuery, never()).setOffset(anyInt());
+    }
+
+    @Test
+    void getPagesLastChunk() throws Exception
+    {
+        Query mockQuery = mock(Query.class);
+        when(this.queryManager.createQuery(any(), eq(Query.XWQL))).thenReturn(mockQuery);
+        when(mockQuery.setLimit(anyInt())).thenReturn(mockQuery);
+        when(mockQuery.setWiki(any())).thenReturn(mockQuery);
+        when(mockQuery.bindValue(any(), any())).thenReturn(mockQuery);
+        when(mockQuery.setAfter(any())).thenReturn(mockQuery);
+        when(mockQuery.execute()).thenReturn(List.of());
+
+        Pages pages = this.wikiPagesResource.getPages("foo", 0, "Bar", "", "", 25, "");
+
+        assertEquals(0, pages.getPageSummaries().size());
+        assertEquals(0, pages.getLinks().size());
+
+        verify(this.queryManager).createQuery("select doc from XWikiDocument as doc where (upper(doc.fullName) "
+            + "like :name ) order by doc.id", Query.XWQL);
+        verify(mockQuery).setAfter(List.of(Long.MIN_VALUE));
+    }
+
+    @Test
+    void getPagesWithInvalidCursor()
+    {
+        Query mockQuery = mock(Query.class);
+        when(this.queryManager.createQuery(any(), eq(Query.XWQL))).thenReturn(mockQuery);
+        when(mockQuery.setWiki(any())).thenReturn(mockQuery);
+
+        WebApplicationException exception = assertThrows(WebApplicationException.class,
+            () -> this.wikiPagesResource.getPages("foo", 0, "", "", "", 25, "notanumber"));
+        assertEquals(400, exception.getResponse().getStatus());
+    }
 }
\ No newline at end of file
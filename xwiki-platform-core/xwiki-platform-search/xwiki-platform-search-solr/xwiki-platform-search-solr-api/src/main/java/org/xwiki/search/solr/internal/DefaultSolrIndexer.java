@@ -22,13 +22,21 @@
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.common.SolrInputDocument;
 import org.slf4j.Logger;
@@ -48,6 +56,7 @@
 import org.xwiki.index.IndexException;
 import org.xwiki.job.JobException;
 import org.xwiki.job.JobExecutor;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.search.solr.internal.api.IndexingUserConfig;
@@ -56,6 +65,7 @@
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
 import org.xwiki.search.solr.internal.api.SolrInstance;
 import org.xwiki.search.solr.internal.job.IndexerJob;
+import org.xwiki.search.solr.internal.jmx.JMXSolrIndexer;
 import org.xwiki.search.solr.internal.job.IndexerRequest;
 import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
 import org.xwiki.search.solr.internal.metadata.SolrMetadataExtractor;
@@ -72,6 +82,10 @@
  * This implementation does not directly process the given leaf-references, but adds them to a processing queue, in the
  * order they were received. The {@link Runnable} part of this implementation is the one that sequentially reads and
  * processes the queue.
+ * <p>
+ * When more than one extraction thread is configured, the metadata of the entities to index is extracted in parallel by
+ * a pool of threads as soon as the references are resolved, and the index thread only sends the extracted documents to
+ * the Solr server, still in the order in which they were queued.
  * 
  * @version $Id$
  * @since 5.1M2
@@ -110,6 +124,11 @@ public class DefaultSolrIndexer implements SolrIndexer, Initializable, Disposabl
          */
         private SolrIndexerReadyIndicator readyIndicator;
 
+        /**
+         * The result of the metadata extraction when it's delegated to the extraction threads.
+         */
+        private Future<LengthSolrInputDocument> extraction;
+
         /**
          * @param indexReference the reference of the entity to index.
          * @param operation the indexing operation to perform.
@@ -241,7 +260,7 @@ public void runInternal()
                             Iterable<EntityReference> references = retrieveReferences(queueEntry);
 
                             for (EntityReference reference : references) {
-                                indexQueue.put(new IndexQueueEntry(reference, queueEntry.operation));
+                                indexQueue.put(createIndexEntry(reference));
                             }
                             break;
                         default:
@@ -286,6 +305,11 @@ private ResolveQueueEntry getQueueEntry()
         }
     }
 
+    /**
+     * The name of the JMX bean exposing the state of the indexer.
+     */
+    private static final String MBEAN_NAME = "name=solrindexer";
+
     /**
      * Stop resolver thread.
      */
@@ -349,6 +373,9 @@ private ResolveQueueEntry getQueueEntry()
     @Inject
     private Provider<XWikiContext> xWikiContextProvider;
 
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
     /**
      * The queue of index operation to perform.
      */
@@ -369,6 +396,32 @@ private ResolveQueueEntry getQueueEntry()
      */
     private Thread resolveThread;
 
+    /**
+     * The threads in which the metadata of the entities to index is extracted, {@code null} if the extraction is done
+     * by the index thread.
+     */
+    private ExecutorService extractionExecutor;
+
+    /**
+     * Limit the number of extracted entities waiting for the index thread.
+     */
+    private Semaphore extractionPermits;
+
+    /**
+     * The maximum number of extracted entities waiting for the index thread.
+     */
+    private int extractionQueueCapacity;
+
+    /**
+     * A counter that tracks how many entities have been extracted since the start.
+     */
+    private final AtomicLong extractionCounter = new AtomicLong();
+
+    /**
+     * A counter that tracks how many commits have been sent to the Solr server since the start.
+     */
+    private final AtomicLong commitCounter = new AtomicLong();
+
     /**
      * A counter that tracks how many items have been removed from the index queue since the start.
      * Used to track progress in the index queue.
@@ -398,6 +451,20 @@ public void initialize() throws InitializationException
         this.resolveQueue = new LinkedBlockingQueue<>();
         this.indexQueue = new LinkedBlockingQueue<>(this.configuration.getIndexerQueueCapacity());
 
+        // Initialize the extraction threads, if the extraction is not done by the index thread
+        int extractionThreads = this.configuration.getIndexerExtractionThreads();
+        if (extractionThreads > 1) {
+            this.extractionQueueCapacity = Math.max(this.configuration.getIndexerExtractionQueueCapacity(), 1);
+            this.extractionPermits = new Semaphore(this.extractionQueueCapacity);
+
+            BasicThreadFactory factory = new BasicThreadFactory.Builder()
+                .namingPattern("XWiki Solr extraction thread %d").daemon(true).priority(Thread.NORM_PRIORITY - 1)
+                .build();
+            // The size of the queue is controlled by the extraction permits
+            this.extractionExecutor = new ThreadPoolExecutor(extractionThreads, extractionThreads, 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), factory);
+        }
+
         // Launch the resolve thread
         this.resolveThread = new Thread(new Resolver());
         this.resolveThread.setName("XWiki Solr resolve thread");
@@ -411,6 +478,10 @@ public void initialize() throws InitializationException
         this.indexThread.setDaemon(true);
         this.indexThread.start();
         this.indexThread.setPriority(Thread.NORM_PRIORITY - 1);
+
+        this.jmxRegistration.registerMBean(new JMXSolrIndexer(this.resolveQueue::size, this::getExtractionQueueSize,
+            this.indexQueue::size, () -> this.batchSize, this.extractionCounter::get, this.commitCounter::get),
+            MBEAN_NAME);
     }
 
     @Override
@@ -433,6 +504,14 @@ public void dispose() throws ComponentLifecycleException
         // greater than 1. In the worse case, the clear call will unblock the resolve thread (which was waiting because
         // the index queue was full) and just one entry will be added to the queue before the special stop entry.
         stopIndexerThread();
+
+        // Stop the extraction threads. The extractions which are running are not interrupted but their result will be
+        // discarded.
+        if (this.extractionExecutor != null) {
+            this.extractionExecutor.shutdown();
+        }
+
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
     }
 
     private void stopIndexerThread()
@@ -440,11 +519,44 @@ private void stopIndexerThread()
         for (IndexQueueEntry entry = this.indexQueue.poll(); entry != null; entry = this.indexQueue.poll()) {
             if (entry.operation == IndexOperation.READY_MARKER && entry.readyIndicator != null) {
                 entry.readyIndicator.completeExceptionally(new IndexException("Indexing stopped."));
+            } else if (entry.extraction != null) {
+                entry.extraction.cancel(false);
+                this.extractionPermits.release();
             }
         }
         this.indexQueue.offer(INDEX_QUEUE_ENTRY_STOP);
     }
 
+    /**
+     * @param reference the reference of the entity to index
+     * @return the index queue entry, with the metadata extraction started if it's delegated to the extraction threads
+     * @throws InterruptedException if interrupted while waiting for the extraction queue to have some room
+     */
+    private IndexQueueEntry createIndexEntry(EntityReference reference) throws InterruptedException
+    {
+        IndexQueueEntry entry = new IndexQueueEntry(reference, IndexOperation.INDEX);
+
+        if (this.extractionExecutor != null) {
+            // Block until the index thread consumed enough extracted entities to not accumulate them in memory
+            this.extractionPermits.acquire();
+            try {
+                entry.extraction = this.extractionExecutor.submit(() -> extractSolrDocument(reference));
+            } catch (RejectedExecutionException e) {
+                this.extractionPermits.release();
+
+                throw e;
+            }
+        }
+
+        return entry;
+    }
+
+    private int getExtractionQueueSize()
+    {
+        return this.extractionPermits != null
+            ? this.extractionQueueCapacity - this.extractionPermits.availablePermits() : 0;
+    }
+
     @Override
     public void run()
     {
@@ -494,14 +606,15 @@ private boolean processBatch(IndexQueueEntry queueEntry)
 
             // For the current contiguous operations queue, group the changes
             try {
-                ExecutionContext executionContext = new ExecutionContext();
-                this.ecim.initialize(executionContext);
-                XWikiContext xcontext = (XWikiContext) executionContext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY);
-                xcontext.setUserReference(indexingUserConfig.getIndexingUserReference());
+                // The entries extracted by the extraction threads don't need any context to be sent to Solr
+                if (batchEntry.extraction == null) {
+                    initializeExecutionContext();
+                }
 
                 switch (operation) {
                     case INDEX:
-                        LengthSolrInputDocument solrDocument = getSolrDocument(batchEntry.reference);
+                        LengthSolrInputDocument solrDocument = batchEntry.extraction != null
+                            ? getExtractedSolrDocument(batchEntry) : getSolrDocument(batchEntry.reference);
                         if (solrDocument != null) {
                             solrInstance.add(solrDocument);
                             length += solrDocument.getLength();
@@ -524,7 +637,9 @@ private boolean processBatch(IndexQueueEntry queueEntry)
             } catch (Throwable e) {
                 this.logger.error("Failed to process entry [{}]", batchEntry, e);
             } finally {
-                this.execution.removeContext();
+                if (batchEntry.extraction == null) {
+                    this.execution.removeContext();
+                }
             }
 
             // Commit the index changes so that they become available to queries. This is a costly operation and that is
@@ -543,6 +658,54 @@ private boolean processBatch(IndexQueueEntry queueEntry)
         return true;
     }
 
+    private void initializeExecutionContext() throws ExecutionContextException
+    {
+        ExecutionContext executionContext = new ExecutionContext();
+        this.ecim.initialize(executionContext);
+        XWikiContext xcontext = (XWikiContext) executionContext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY);
+        xcontext.setUserReference(this.indexingUserConfig.getIndexingUserReference());
+    }
+
+    /**
+     * Extract the metadata of the passed entity in a dedicated execution context. Called from the extraction threads.
+     * 
+     * @param reference the reference to extract metadata from
+     * @return the extracted document or {@code null} if the reference type is not supported
+     * @throws Exception when failing to extract the metadata
+     */
+    private LengthSolrInputDocument extractSolrDocument(EntityReference reference) throws Exception
+    {
+        try {
+            initializeExecutionContext();
+
+            return getSolrDocument(reference);
+        } finally {
+            this.execution.removeContext();
+        }
+    }
+
+    /**
+     * Wait for the end of the metadata extraction done by the extraction threads.
+     * 
+     * @param queueEntry the index entry
+     * @return the extracted document or {@code null} if the reference type is not supported
+     * @throws Exception when the extraction failed
+     */
+    private LengthSolrInputDocument getExtractedSolrDocument(IndexQueueEntry queueEntry) throws Exception
+    {
+        try {
+            return queueEntry.extraction.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+
+            throw e;
+        } finally {
+            this.extractionPermits.release();
+        }
+    }
+
     private void applyDeletion(IndexQueueEntry queueEntry) throws SolrServerException, IOException, SolrIndexerException
     {
         if (queueEntry.reference == null) {
@@ -559,6 +722,7 @@ private void commit()
     {
         try {
             solrInstance.commit();
+            this.commitCounter.incrementAndGet();
         } catch (Exception e) {
             this.logger.error("Failed to commit index changes to the Solr server. Rolling back.", e);
 
@@ -606,6 +770,8 @@ private LengthSolrInputDocument getSolrDocument(EntityReference reference)
 
         // If the entity type is supported, use the extractor to get the SolrInputDocuent.
         if (metadataExtractor != null) {
+            this.extractionCounter.incrementAndGet();
+
             // Set the document that belongs to the entity reference as context document to ensure that the correct
             // settings are loaded for the current document/wiki.
             XWikiContext context = this.xWikiContextProvider.get();
@@ -130,6 +130,8 @@ public void onEvent(Event event, Object source, Object data)
                 }
 
                 if (request != null) {
+                    request.setIncremental(this.configuration.synchronizeAtStartupIncremental());
+
                     this.solrIndexer.get().startIndex(request);
                 }
             } catch (SolrIndexerException | WikiManagerException e) {
@@ -172,6 +172,15 @@
      */
     public static final String VERSION = "version";
 
+    /**
+     * Checksum of the identifier and version of the document, summed by space to find the spaces which are not up to
+     * date in the index. It's stored in a single valued long dynamic field so that the schema does not need to be
+     * updated.
+     * 
+     * @since 17.0.0RC1
+     */
+    public static final String VERSION_CHECKSUM = "versionchecksum_sortLong";
+
     /**
      * For storing the comment associated to the version.
      * <p>
@@ -98,6 +98,26 @@
      */
     int getIndexerQueueCapacity();
 
+    /**
+     * @return the number of threads used to extract the metadata of the entities to index, {@code 1} meaning that the
+     *         extraction is done by the index thread itself
+     * @since 17.0.0RC1
+     */
+    default int getIndexerExtractionThreads()
+    {
+        return 1;
+    }
+
+    /**
+     * @return the maximum number of extracted entities waiting to be sent to the Solr server, above which the
+     *         extraction is paused
+     * @since 17.0.0RC1
+     */
+    default int getIndexerExtractionQueueCapacity()
+    {
+        return 100;
+    }
+
     /**
      * @return true if a full synchronization job between the database and SOLR index should be run when XWiki starts
      * @since 6.1M2
@@ -121,4 +141,15 @@
      * @since 12.5RC1
      */
     SynchronizeAtStartupMode synchronizeAtStartupMode();
+
+    /**
+     * @return true if the synchronization at startup should only compare document by document the spaces for which the
+     *         number of documents, the last modification date or the checksum of the versions is different between the
+     *         database and the Solr index
+     * @since 17.0.0RC1
+     */
+    default boolean synchronizeAtStartupIncremental()
+    {
+        return false;
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Implementation of the JMXSolrIndexer MBean.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class JMXSolrIndexer implements JMXSolrIndexerMBean
+{
+    private final IntSupplier resolveQueueSize;
+
+    private final IntSupplier extractionQueueSize;
+
+    private final IntSupplier indexQueueSize;
+
+    private final IntSupplier batchSize;
+
+    private final LongSupplier extractedCount;
+
+    private final LongSupplier commitCount;
+
+    /**
+     * Default constructor, let the method initializing the MBean provide the suppliers for the MBean operations.
+     *
+     * @param resolveQueueSize the resolve queue size supplier
+     * @param extractionQueueSize the extraction queue size supplier
+     * @param indexQueueSize the index queue size supplier
+     * @param batchSize the current batch size supplier
+     * @param extractedCount the extracted entities counter supplier
+     * @param commitCount the commits counter supplier
+     */
+    public JMXSolrIndexer(IntSupplier resolveQueueSize, IntSupplier extractionQueueSize, IntSupplier indexQueueSize,
+        IntSupplier batchSize, LongSupplier extractedCount, LongSupplier commitCount)
+    {
+        this.resolveQueueSize = resolveQueueSize;
+        this.extractionQueueSize = extractionQueueSize;
+        this.indexQueueSize = indexQueueSize;
+        this.batchSize = batchSize;
+        this.extractedCount = extractedCount;
+        this.commitCount = commitCount;
+    }
+
+    @Override
+    public int getResolveQueueSize()
+    {
+        return this.resolveQueueSize.getAsInt();
+    }
+
+    @Override
+    public int getExtractionQueueSize()
+    {
+        return this.extractionQueueSize.getAsInt();
+    }
+
+    @Override
+    public int getIndexQueueSize()
+    {
+        return this.indexQueueSize.getAsInt();
+    }
+
+    @Override
+    public int getBatchSize()
+    {
+        return this.batchSize.getAsInt();
+    }
+
+    @Override
+    public long getExtractedCount()
+    {
+        return this.extractedCount.getAsLong();
+    }
+
+    @Override
+    public long getCommitCount()
+    {
+        return this.commitCount.getAsLong();
+    }
+}
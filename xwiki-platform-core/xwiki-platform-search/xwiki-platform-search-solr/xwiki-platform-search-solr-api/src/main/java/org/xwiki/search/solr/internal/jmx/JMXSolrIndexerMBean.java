@@ -0,0 +1,59 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+/**
+ * Interface of the {@link JMXSolrIndexer} MBean.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public interface JMXSolrIndexerMBean
+{
+    /**
+     * @return the number of entries waiting to be resolved into entities to index or delete
+     */
+    int getResolveQueueSize();
+
+    /**
+     * @return the number of entities whose metadata is being extracted or waiting to be sent to the Solr server
+     */
+    int getExtractionQueueSize();
+
+    /**
+     * @return the number of entries waiting to be sent to the Solr server
+     */
+    int getIndexQueueSize();
+
+    /**
+     * @return the number of entries sent to the Solr server but not yet committed
+     */
+    int getBatchSize();
+
+    /**
+     * @return the number of entities whose metadata has been extracted since the start
+     */
+    long getExtractedCount();
+
+    /**
+     * @return the number of commits sent to the Solr server since the start
+     */
+    long getCommitCount();
+}
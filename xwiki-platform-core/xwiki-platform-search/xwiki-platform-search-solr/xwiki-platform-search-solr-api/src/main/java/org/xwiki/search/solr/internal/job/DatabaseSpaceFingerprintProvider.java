@@ -0,0 +1,120 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
+
+/**
+ * Compute the {@link SpaceFingerprint}s from the database. Only the identifier, space, version and date of the
+ * documents are read, by batches ordered by identifier.
+ * 
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component
+@Singleton
+@Named("database")
+public class DatabaseSpaceFingerprintProvider implements SpaceFingerprintProvider
+{
+    private static final String QUERY = "select doc.id, doc.space, doc.version, doc.date from XWikiDocument doc "
+        + "where doc.id > :id order by doc.id";
+
+    private static final String ID = "id";
+
+    private static final int BATCH_SIZE = 10000;
+
+    private static final class Accumulator
+    {
+        private long count;
+
+        private long lastModified;
+
+        private long checksum;
+    }
+
+    @Inject
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Override
+    public Collection<String> getWikis()
+    {
+        try {
+            return this.wikiDescriptorManager.getAllIds();
+        } catch (WikiManagerException e) {
+            throw new IllegalStateException("Failed to get the list of available wikis.", e);
+        }
+    }
+
+    @Override
+    public Map<String, SpaceFingerprint> getFingerprints(String wiki)
+    {
+        Map<String, Accumulator> spaces = new HashMap<>();
+
+        // Paginate on the (indexed) identifier, which is cheaper than an offset for big wikis
+        long lastId = Long.MIN_VALUE;
+        List<Object[]> results;
+        do {
+            try {
+                results = this.queryManager.createQuery(QUERY, Query.HQL).setWiki(wiki).bindValue(ID, lastId)
+                    .setLimit(BATCH_SIZE).execute();
+            } catch (QueryException e) {
+                throw new IllegalStateException("Failed to query the database.", e);
+            }
+
+            for (Object[] result : results) {
+                lastId = ((Number) result[0]).longValue();
+                Date date = (Date) result[3];
+
+                Accumulator space = spaces.computeIfAbsent((String) result[1], key -> new Accumulator());
+                space.count++;
+                if (date != null) {
+                    space.lastModified = Math.max(space.lastModified, date.getTime());
+                }
+                space.checksum += SpaceFingerprint.getChecksum(lastId, (String) result[2]);
+            }
+        } while (results.size() == BATCH_SIZE);
+
+        Map<String, SpaceFingerprint> fingerprints = new HashMap<>(spaces.size());
+        for (Map.Entry<String, Accumulator> entry : spaces.entrySet()) {
+            Accumulator space = entry.getValue();
+            fingerprints.put(entry.getKey(), new SpaceFingerprint(space.count, space.lastModified, space.checksum));
+        }
+
+        return fingerprints;
+    }
+}
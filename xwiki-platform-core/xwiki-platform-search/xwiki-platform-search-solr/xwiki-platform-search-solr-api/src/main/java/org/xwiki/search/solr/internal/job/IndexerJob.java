@@ -19,10 +19,17 @@
  */
 package org.xwiki.search.solr.internal.job;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.xwiki.component.annotation.Component;
@@ -32,9 +39,12 @@
 import org.xwiki.job.DefaultJobStatus;
 import org.xwiki.job.GroupedJob;
 import org.xwiki.job.JobGroupPath;
+import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
 import org.xwiki.search.solr.internal.job.DiffDocumentIterator.Action;
 
@@ -73,9 +83,29 @@ public class IndexerJob extends AbstractJob<IndexerRequest, DefaultJobStatus<Ind
     @Named("solr")
     private transient DocumentIterator<String> solrIterator;
 
+    @Inject
+    @Named("database")
+    private transient Provider<DocumentIterator<String>> databaseIteratorProvider;
+
+    @Inject
+    @Named("solr")
+    private transient Provider<DocumentIterator<String>> solrIteratorProvider;
+
+    @Inject
+    @Named("database")
+    private transient SpaceFingerprintProvider databaseFingerprints;
+
+    @Inject
+    @Named("solr")
+    private transient SpaceFingerprintProvider solrFingerprints;
+
     @Inject
     private EntityReferenceSerializer<String> entityReferenceSerializer;
 
+    @Inject
+    @Named("explicit")
+    private EntityReferenceResolver<String> explicitEntityReferenceResolver;
+
     @Override
     public String getType()
     {
@@ -109,8 +139,95 @@ protected void runInternal() throws Exception
      */
     private void updateSolrIndex()
     {
-        DiffDocumentIterator<String> iterator = new DiffDocumentIterator<>(this.solrIterator, this.databaseIterator);
-        iterator.setRootReference(getRequest().getRootReference());
+        EntityReference rootReference = getRequest().getRootReference();
+
+        long[] counter = new long[Action.values().length];
+
+        if (getRequest().isIncremental()
+            && (rootReference == null || rootReference.getType() == EntityType.WIKI)) {
+            updateSolrIndexIncrementally(rootReference, counter);
+        } else {
+            updateSolrIndex(rootReference, this.solrIterator, this.databaseIterator, counter);
+        }
+
+        this.logger.info("{} documents added, {} deleted and {} updated during the synchronization of the Solr index.",
+            counter[Action.ADD.ordinal()], counter[Action.DELETE.ordinal()], counter[Action.UPDATE.ordinal()]);
+    }
+
+    /**
+     * Compare the fingerprint of each space in the database and the Solr index and synchronize only the spaces for
+     * which it's different.
+     */
+    private void updateSolrIndexIncrementally(EntityReference rootReference, long[] counter)
+    {
+        Set<String> wikis = new TreeSet<>();
+        if (rootReference != null) {
+            wikis.add(rootReference.getName());
+        } else {
+            wikis.addAll(this.databaseFingerprints.getWikis());
+            // Make sure to also clean the wikis which don't exist anymore
+            wikis.addAll(this.solrFingerprints.getWikis());
+        }
+
+        this.progressManager.pushLevelProgress(wikis.size(), this);
+
+        try {
+            for (String wiki : wikis) {
+                this.progressManager.startStep(this);
+
+                Map<String, SpaceFingerprint> databaseSpaces = this.databaseFingerprints.getFingerprints(wiki);
+                Map<String, SpaceFingerprint> solrSpaces = this.solrFingerprints.getFingerprints(wiki);
+
+                Set<String> spaces = new TreeSet<>(databaseSpaces.keySet());
+                spaces.addAll(solrSpaces.keySet());
+                List<String> modifiedSpaces = new ArrayList<>();
+                for (String space : spaces) {
+                    if (!Objects.equals(databaseSpaces.get(space), solrSpaces.get(space))) {
+                        modifiedSpaces.add(space);
+                    }
+                }
+
+                this.logger.info("{} spaces out of {} need to be synchronized in wiki [{}].", modifiedSpaces.size(),
+                    spaces.size(), wiki);
+
+                updateSpaces(new WikiReference(wiki), modifiedSpaces, counter);
+
+                this.progressManager.endStep(this);
+            }
+        } finally {
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    private void updateSpaces(WikiReference wikiReference, List<String> spaces, long[] counter)
+    {
+        this.progressManager.pushLevelProgress(spaces.size(), this);
+
+        try {
+            for (String space : spaces) {
+                this.progressManager.startStep(this);
+
+                EntityReference spaceReference =
+                    this.explicitEntityReferenceResolver.resolve(space, EntityType.SPACE, wikiReference);
+                DocumentIterator<String> spaceSolrIterator = this.solrIteratorProvider.get();
+                if (spaceSolrIterator instanceof SolrDocumentIterator) {
+                    // Otherwise the documents indexed without checksum would keep their space out of sync forever
+                    ((SolrDocumentIterator) spaceSolrIterator).setChecksumRequired(true);
+                }
+                updateSolrIndex(spaceReference, spaceSolrIterator, this.databaseIteratorProvider.get(), counter);
+
+                this.progressManager.endStep(this);
+            }
+        } finally {
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    private void updateSolrIndex(EntityReference rootReference, DocumentIterator<String> previous,
+        DocumentIterator<String> next, long[] counter)
+    {
+        DiffDocumentIterator<String> iterator = new DiffDocumentIterator<>(previous, next);
+        iterator.setRootReference(rootReference);
 
         this.progressManager.pushLevelProgress(2, this);
 
@@ -124,20 +241,18 @@ private void updateSolrIndex()
             // Index
 
             this.progressManager.startStep(this);
-            updateSolrIndex(progressSize, iterator);
+            updateSolrIndex(progressSize, iterator, counter);
             this.progressManager.endStep(this);
         } finally {
             this.progressManager.popLevelProgress(this);
         }
     }
 
-    private void updateSolrIndex(int progressSize, DiffDocumentIterator<String> iterator)
+    private void updateSolrIndex(int progressSize, DiffDocumentIterator<String> iterator, long[] counter)
     {
         this.progressManager.pushLevelProgress(progressSize, this);
 
         try {
-            long[] counter = new long[Action.values().length];
-
             while (iterator.hasNext()) {
                 this.progressManager.startStep(this);
 
@@ -156,10 +271,6 @@ private void updateSolrIndex(int progressSize, DiffDocumentIterator<String> iter
 
                 this.progressManager.endStep(this);
             }
-
-            this.logger.info(
-                "{} documents added, {} deleted and {} updated during the synchronization of the Solr index.",
-                counter[Action.ADD.ordinal()], counter[Action.DELETE.ordinal()], counter[Action.UPDATE.ordinal()]);
         } finally {
             this.progressManager.popLevelProgress(this);
         }
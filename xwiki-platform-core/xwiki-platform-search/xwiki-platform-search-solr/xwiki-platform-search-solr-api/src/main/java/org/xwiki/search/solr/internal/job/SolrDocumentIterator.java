@@ -85,6 +85,21 @@ public class SolrDocumentIterator extends AbstractDocumentIterator<String>
     @Inject
     private DocumentReferenceResolver<SolrDocument> solrDocumentReferenceResolver;
 
+    /**
+     * @see #setChecksumRequired(boolean)
+     */
+    private boolean checksumRequired;
+
+    /**
+     * @param checksumRequired {@code true} if the documents indexed without {@link FieldUtils#VERSION_CHECKSUM} should
+     *            be returned without version, so that they are considered outdated and indexed again
+     * @since 17.0.0RC1
+     */
+    public void setChecksumRequired(boolean checksumRequired)
+    {
+        this.checksumRequired = checksumRequired;
+    }
+
     @Override
     public boolean hasNext()
     {
@@ -97,6 +112,11 @@ public Pair<DocumentReference, String> next()
         SolrDocument result = getResults().get(index++);
         DocumentReference documentReference = this.solrDocumentReferenceResolver.resolve(result);
         String version = (String) result.get(FieldUtils.VERSION);
+        if (this.checksumRequired && result.get(FieldUtils.VERSION_CHECKSUM) == null) {
+            // Indexed before the checksum was introduced: the checksum of its space can't match until it's indexed
+            // again
+            version = null;
+        }
         return new ImmutablePair<DocumentReference, String>(documentReference, version);
     }
 
@@ -143,6 +163,10 @@ private SolrQuery getQuery() throws SolrIndexerException
             query = new SolrQuery(solrReferenceResolver.getQuery(rootReference));
             query.setFields(FieldUtils.WIKI, FieldUtils.SPACES, FieldUtils.NAME, FieldUtils.DOCUMENT_LOCALE,
                 FieldUtils.VERSION);
+            if (this.checksumRequired) {
+                // Not stored but returned from its doc values
+                query.addField(FieldUtils.VERSION_CHECKSUM);
+            }
             query.addFilterQuery(FieldUtils.TYPE + ':' + EntityType.DOCUMENT.name());
             // This iterator must have the same order as the database iterator, otherwise the synchronization fails.
             // Note that we had two options:
@@ -0,0 +1,151 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.json.BucketBasedJsonFacet;
+import org.apache.solr.client.solrj.response.json.BucketJsonFacet;
+import org.apache.solr.client.solrj.response.json.NestableJsonFacet;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.search.solr.internal.api.FieldUtils;
+import org.xwiki.search.solr.internal.api.SolrIndexerException;
+import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
+
+/**
+ * Compute the {@link SpaceFingerprint}s from the Solr index, using a JSON facet on the space of the indexed documents.
+ * The checksum of a space is the sum of the {@link FieldUtils#VERSION_CHECKSUM} of its documents.
+ * 
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component
+@Singleton
+@Named("solr")
+public class SolrSpaceFingerprintProvider implements SpaceFingerprintProvider
+{
+    private static final String FACET = "buckets";
+
+    private static final String FACET_DATE = "date";
+
+    private static final String FACET_CHECKSUM = "checksum";
+
+    @Inject
+    private SolrInstance solrInstance;
+
+    @Inject
+    private SolrReferenceResolver solrReferenceResolver;
+
+    @Override
+    public Collection<String> getWikis()
+    {
+        List<String> wikis = new ArrayList<>();
+        for (BucketJsonFacet bucket : getBuckets(new SolrQuery("*:*"), FieldUtils.WIKI, false)) {
+            wikis.add((String) bucket.getVal());
+        }
+
+        return wikis;
+    }
+
+    @Override
+    public Map<String, SpaceFingerprint> getFingerprints(String wiki)
+    {
+        SolrQuery query;
+        try {
+            query = new SolrQuery(this.solrReferenceResolver.getQuery(new WikiReference(wiki)));
+        } catch (SolrIndexerException e) {
+            throw new IllegalStateException("Failed to create the Solr query for wiki [" + wiki + "].", e);
+        }
+
+        List<BucketJsonFacet> buckets = getBuckets(query, FieldUtils.SPACE_EXACT, true);
+
+        Map<String, SpaceFingerprint> fingerprints = new HashMap<>(buckets.size());
+        for (BucketJsonFacet bucket : buckets) {
+            fingerprints.put((String) bucket.getVal(), new SpaceFingerprint(bucket.getCount(),
+                toTime(bucket.getStatValue(FACET_DATE)), toLong(bucket.getStatValue(FACET_CHECKSUM))));
+        }
+
+        return fingerprints;
+    }
+
+    private long toTime(Object date)
+    {
+        if (date instanceof Date) {
+            return ((Date) date).getTime();
+        } else if (date instanceof Number) {
+            return ((Number) date).longValue();
+        }
+
+        return 0;
+    }
+
+    private long toLong(Object value)
+    {
+        // Solr computes the sum as a double
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private List<BucketJsonFacet> getBuckets(SolrQuery query, String field, boolean withStats)
+    {
+        query.addFilterQuery(FieldUtils.TYPE + ':' + EntityType.DOCUMENT.name());
+        query.setRows(0);
+
+        StringBuilder facet = new StringBuilder();
+        facet.append('{').append(FACET).append(":{type:terms,field:").append(field).append(",limit:-1");
+        if (withStats) {
+            facet.append(",facet:{").append(FACET_DATE).append(":\"max(").append(FieldUtils.DATE).append(")\",")
+                .append(FACET_CHECKSUM).append(":\"sum(").append(FieldUtils.VERSION_CHECKSUM).append(")\"}");
+        }
+        facet.append("}}");
+        query.set("json.facet", facet.toString());
+
+        QueryResponse response;
+        try {
+            response = this.solrInstance.query(query);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to query the Solr index.", e);
+        }
+
+        NestableJsonFacet facets = response.getJsonFacetingResponse();
+        if (facets != null) {
+            BucketBasedJsonFacet bucketFacet = facets.getBucketBasedFacets(FACET);
+            if (bucketFacet != null) {
+                return bucketFacet.getBuckets();
+            }
+        }
+
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.util.Objects;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+/**
+ * A cheap summary of the documents of a space, used to find which spaces need to be compared document by document
+ * during the synchronization between the database and the Solr index.
+ * <p>
+ * Besides the number of documents and the most recent modification date, the fingerprint contains the sum of a
+ * checksum of the identifier and version of each document (see {@link #getChecksum(long, String)}). The sum does not
+ * depend on the order in which the documents are read and detects a document whose version differs without changing
+ * the count or the most recent date of its space.
+ * 
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class SpaceFingerprint
+{
+    private final long count;
+
+    private final long lastModified;
+
+    private final long checksum;
+
+    /**
+     * @param count the number of documents (including translations) in the space
+     * @param lastModified the date of the most recent modification of a document of the space, in milliseconds since
+     *            the epoch
+     * @param checksum the sum of the {@link #getChecksum(long, String) checksums} of the documents of the space
+     */
+    public SpaceFingerprint(long count, long lastModified, long checksum)
+    {
+        this.count = count;
+        // Some databases don't store the milliseconds
+        this.lastModified = lastModified / 1000;
+        this.checksum = checksum;
+    }
+
+    /**
+     * The checksum is kept on 31 bits so that the sum computed by Solr, which is a double, stays exact for any
+     * realistic number of documents in a space.
+     *
+     * @param documentId the identifier of the document (including its locale) in the database
+     * @param version the version of the document
+     * @return the checksum of the document, to be added to the checksum of its space
+     */
+    public static long getChecksum(long documentId, String version)
+    {
+        return Objects.hash(documentId, version) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return the number of documents (including translations) in the space
+     */
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * @return the date of the most recent modification of a document of the space, in seconds since the epoch
+     */
+    public long getLastModified()
+    {
+        return this.lastModified;
+    }
+
+    /**
+     * @return the sum of the {@link #getChecksum(long, String) checksums} of the documents of the space
+     */
+    public long getChecksum()
+    {
+        return this.checksum;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+
+        SpaceFingerprint other = (SpaceFingerprint) obj;
+
+        return new EqualsBuilder().append(this.count, other.count).append(this.lastModified, other.lastModified)
+            .append(this.checksum, other.checksum).isEquals();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return new HashCodeBuilder(5, 37).append(this.count).append(this.lastModified).append(this.checksum)
+            .toHashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.valueOf(this.count) + '/' + this.lastModified + '/' + this.checksum;
+    }
+}
@@ -43,6 +43,7 @@
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.search.solr.internal.api.FieldUtils;
 import org.xwiki.search.solr.internal.api.SolrFieldNameEncoder;
+import org.xwiki.search.solr.internal.job.SpaceFingerprint;
 import org.xwiki.user.UserReference;
 import org.xwiki.user.UserReferenceSerializer;
 
@@ -128,6 +129,8 @@ public boolean setFieldsInternal(LengthSolrInputDocument solrDocument, EntityRef
             plainContentPrinter.toString());
 
         solrDocument.setField(FieldUtils.VERSION, translatedDocument.getVersion());
+        solrDocument.setField(FieldUtils.VERSION_CHECKSUM,
+            SpaceFingerprint.getChecksum(translatedDocument.getId(), translatedDocument.getVersion()));
         solrDocument.setField(FieldUtils.COMMENT, translatedDocument.getComment());
 
         solrDocument.setField(FieldUtils.DOCUMENT_LOCALE, translatedDocument.getLocale().toString());
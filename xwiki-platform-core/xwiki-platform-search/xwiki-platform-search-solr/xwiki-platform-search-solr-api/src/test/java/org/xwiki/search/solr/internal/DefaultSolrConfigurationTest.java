@@ -85,6 +85,24 @@ public void getIndexerQueueCapacity()
 
     }
 
+    @Test
+    void getIndexerExtractionThreads()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_EXTRACTION_THREADS_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_EXTRACTION_THREADS_DEFAULT)).thenReturn(4);
+
+        assertEquals(4, this.configuration.getIndexerExtractionThreads());
+    }
+
+    @Test
+    void getIndexerExtractionQueueCapacity()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_EXTRACTION_QUEUE_CAPACITY_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_EXTRACTION_QUEUE_CAPACITY_DEFAULT)).thenReturn(42);
+
+        assertEquals(42, this.configuration.getIndexerExtractionQueueCapacity());
+    }
+
     @Test
     public void synchronizeAtStartup()
     {
@@ -99,6 +117,15 @@ public void synchronizeAtStartup()
         assertFalse(this.configuration.synchronizeAtStartup());
     }
 
+    @Test
+    void synchronizeAtStartupIncremental()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_SYNCHRONIZE_AT_STARTUP_INCREMENTAL,
+            DefaultSolrConfiguration.SOLR_SYNCHRONIZE_AT_STARTUP_INCREMENTAL_DEFAULT)).thenReturn(true);
+
+        assertTrue(this.configuration.synchronizeAtStartupIncremental());
+    }
+
     @Test
     public void synchronizeAtStartupMode()
     {
@@ -0,0 +1,180 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.InOrder;
+import org.xwiki.bridge.internal.DocumentContextExecutor;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.search.solr.internal.api.SolrIndexerException;
+import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
+import org.xwiki.search.solr.internal.metadata.SolrMetadataExtractor;
+import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultSolrIndexer}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultSolrIndexerTest
+{
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @InjectMockComponents
+    private DefaultSolrIndexer indexer;
+
+    @MockComponent
+    private SolrConfiguration configuration;
+
+    @MockComponent
+    private SolrInstance solrInstance;
+
+    @MockComponent
+    private SolrReferenceResolver solrReferenceResolver;
+
+    @MockComponent
+    private ExecutionContextManager ecim;
+
+    @MockComponent
+    private DocumentContextExecutor documentContextExecutor;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    @Named("document")
+    private SolrMetadataExtractor documentExtractor;
+
+    private XWikiContext xcontext;
+
+    @BeforeComponent
+    void beforeComponent()
+    {
+        when(this.configuration.getIndexerQueueCapacity()).thenReturn(100);
+        when(this.configuration.getIndexerBatchSize()).thenReturn(50);
+        when(this.configuration.getIndexerBatchMaxLengh()).thenReturn(10000);
+        when(this.configuration.getIndexerExtractionThreads()).thenReturn(3);
+        when(this.configuration.getIndexerExtractionQueueCapacity()).thenReturn(10);
+    }
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        this.xcontext = mock(XWikiContext.class);
+        when(this.xcontext.getWiki()).thenReturn(mock(XWiki.class));
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        doAnswer(invocation -> {
+            invocation.<ExecutionContext>getArgument(0).setProperty(XWikiContext.EXECUTIONCONTEXT_KEY, this.xcontext);
+            return null;
+        }).when(this.ecim).initialize(any());
+        when(this.documentContextExecutor.call(any(), any()))
+            .thenAnswer(invocation -> invocation.<Callable<?>>getArgument(0).call());
+    }
+
+    private LengthSolrInputDocument createSolrDocument(DocumentReference reference) throws Exception
+    {
+        LengthSolrInputDocument solrDocument = new LengthSolrInputDocument();
+        solrDocument.setField("id", reference.getName());
+        when(this.documentExtractor.getSolrDocument(reference)).thenReturn(solrDocument);
+        return solrDocument;
+    }
+
+    @Test
+    void indexInSubmissionOrderWithParallelExtraction() throws Exception
+    {
+        DocumentReference slowReference = new DocumentReference("wiki", "Space", "Slow");
+        DocumentReference fastReference = new DocumentReference("wiki", "Space", "Fast");
+        DocumentReference deletedReference = new DocumentReference("wiki", "Space", "Deleted");
+        DocumentReference failingReference = new DocumentReference("wiki", "Space", "Failing");
+        DocumentReference lastReference = new DocumentReference("wiki", "Space", "Last");
+
+        // The first extraction only finishes once the second one is done, which requires several extraction threads
+        CountDownLatch fastExtracted = new CountDownLatch(1);
+        LengthSolrInputDocument slowDocument = new LengthSolrInputDocument();
+        when(this.documentExtractor.getSolrDocument(slowReference)).thenAnswer(invocation -> {
+            if (!fastExtracted.await(10, TimeUnit.SECONDS)) {
+                throw new SolrIndexerException("The other documents are not extracted in parallel");
+            }
+            return slowDocument;
+        });
+        LengthSolrInputDocument fastDocument = new LengthSolrInputDocument();
+        when(this.documentExtractor.getSolrDocument(fastReference)).thenAnswer(invocation -> {
+            fastExtracted.countDown();
+            return fastDocument;
+        });
+        when(this.documentExtractor.getSolrDocument(failingReference))
+            .thenThrow(new SolrIndexerException("Extraction failure"));
+        LengthSolrInputDocument lastDocument = createSolrDocument(lastReference);
+        when(this.solrReferenceResolver.getId(deletedReference)).thenReturn("deletedId");
+
+        this.indexer.index(slowReference, false);
+        this.indexer.index(fastReference, false);
+        this.indexer.delete(deletedReference, false);
+        this.indexer.index(failingReference, false);
+        this.indexer.index(lastReference, false);
+        this.indexer.waitReady().get(20, TimeUnit.SECONDS);
+
+        // The documents are sent in the order in which they were submitted, whatever the extraction order, and the
+        // extraction failure doesn't prevent the next documents from being indexed
+        InOrder inOrder = inOrder(this.solrInstance);
+        inOrder.verify(this.solrInstance).add(slowDocument);
+        inOrder.verify(this.solrInstance).add(fastDocument);
+        inOrder.verify(this.solrInstance).delete("deletedId");
+        inOrder.verify(this.solrInstance).add(lastDocument);
+        inOrder.verify(this.solrInstance).commit();
+        verify(this.solrInstance, never()).rollback();
+
+        assertEquals("Failed to process entry [INDEX wiki:Space.Failing]", this.logCapture.getMessage(0));
+        assertEquals(0, this.indexer.getQueueSize());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DatabaseSpaceFingerprintProvider}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+class DatabaseSpaceFingerprintProviderTest
+{
+    @MockComponent
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @InjectMockComponents
+    private DatabaseSpaceFingerprintProvider provider;
+
+    @Test
+    void getFingerprints() throws Exception
+    {
+        Query query = mock(Query.class);
+        when(this.queryManager.createQuery("select doc.id, doc.space, doc.version, doc.date from XWikiDocument doc "
+            + "where doc.id > :id order by doc.id", Query.HQL)).thenReturn(query);
+        when(query.setWiki("wiki")).thenReturn(query);
+        when(query.bindValue(eq("id"), any())).thenReturn(query);
+        when(query.setLimit(10000)).thenReturn(query);
+        when(query.execute()).thenReturn(Arrays.asList(new Object[] { 1L, "Main", "1.1", new Date(1000) },
+            new Object[] { 2L, "A.B", "2.1", new Date(1000) }, new Object[] { 3L, "Main", "1.1", new Date(42123) },
+            new Object[] { 4L, "Main", "3.2", new Date(2000) }));
+
+        Map<String, SpaceFingerprint> fingerprints = this.provider.getFingerprints("wiki");
+
+        assertEquals(2, fingerprints.size());
+        assertEquals(new SpaceFingerprint(3, 42000, SpaceFingerprint.getChecksum(1, "1.1")
+            + SpaceFingerprint.getChecksum(3, "1.1") + SpaceFingerprint.getChecksum(4, "3.2")),
+            fingerprints.get("Main"));
+        assertEquals(new SpaceFingerprint(1, 1999, SpaceFingerprint.getChecksum(2, "2.1")), fingerprints.get("A.B"));
+        assertNotEquals(new SpaceFingerprint(2, 1000, SpaceFingerprint.getChecksum(2, "2.1")),
+            fingerprints.get("A.B"));
+        assertNotEquals(new SpaceFingerprint(1, 2000, SpaceFingerprint.getChecksum(2, "2.1")),
+            fingerprints.get("A.B"));
+        // Same number of documents and date, but a different version
+        assertNotEquals(new SpaceFingerprint(1, 1000, SpaceFingerprint.getChecksum(2, "2.2")),
+            fingerprints.get("A.B"));
+
+        // A single batch was needed
+        verify(query).bindValue("id", Long.MIN_VALUE);
+        verify(query).execute();
+    }
+
+    @Test
+    void getFingerprintsByBatch() throws Exception
+    {
+        Query query = mock(Query.class);
+        when(this.queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(query);
+        when(query.setWiki("wiki")).thenReturn(query);
+        when(query.bindValue(eq("id"), any())).thenReturn(query);
+        when(query.setLimit(anyInt())).thenReturn(query);
+
+        List<Object> batch = new ArrayList<>();
+        for (long id = 1; id <= 10000; id++) {
+            batch.add(new Object[] { id, "Main", "1.1", new Date(1000) });
+        }
+        when(query.execute()).thenReturn(batch,
+            Collections.<Object>singletonList(new Object[] { 10001L, "Main", "1.1", null }));
+
+        assertEquals(10001, this.provider.getFingerprints("wiki").get("Main").getCount());
+
+        verify(query).bindValue("id", Long.MIN_VALUE);
+        verify(query).bindValue("id", 10000L);
+    }
+}
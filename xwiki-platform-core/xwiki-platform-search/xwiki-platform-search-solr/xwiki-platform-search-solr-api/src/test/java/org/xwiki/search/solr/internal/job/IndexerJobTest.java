@@ -0,0 +1,130 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceResolver;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.search.solr.internal.api.SolrIndexer;
+import org.xwiki.search.solr.internal.job.DiffDocumentIteratorTest.DocumentIteratorStub;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link IndexerJob}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+class IndexerJobTest
+{
+    private static final String WIKI = "wiki";
+
+    private static final String SPACE = "Space";
+
+    @MockComponent
+    private SolrIndexer indexer;
+
+    @MockComponent
+    @Named("database")
+    private SpaceFingerprintProvider databaseFingerprints;
+
+    @MockComponent
+    @Named("solr")
+    private SpaceFingerprintProvider solrFingerprints;
+
+    @MockComponent
+    @Named("database")
+    private Provider<DocumentIterator<String>> databaseIteratorProvider;
+
+    @MockComponent
+    @Named("solr")
+    private Provider<DocumentIterator<String>> solrIteratorProvider;
+
+    @MockComponent
+    @Named("explicit")
+    private EntityReferenceResolver<String> explicitEntityReferenceResolver;
+
+    @InjectMockComponents
+    private IndexerJob job;
+
+    @Test
+    void updateSolrIndexIncrementallyWhenOnlyTheVersionIsDifferent()
+    {
+        when(this.databaseFingerprints.getWikis()).thenReturn(Collections.singletonList(WIKI));
+        when(this.solrFingerprints.getWikis()).thenReturn(Collections.singletonList(WIKI));
+
+        // Same number of documents and same last modification date, only the version of a document is different
+        Map<String, SpaceFingerprint> databaseSpaces = Map.of(SPACE, new SpaceFingerprint(2, 42000, 1234),
+            "Same", new SpaceFingerprint(1, 1000, 56));
+        Map<String, SpaceFingerprint> solrSpaces = Map.of(SPACE, new SpaceFingerprint(2, 42000, 4321),
+            "Same", new SpaceFingerprint(1, 1000, 56));
+        when(this.databaseFingerprints.getFingerprints(WIKI)).thenReturn(databaseSpaces);
+        when(this.solrFingerprints.getFingerprints(WIKI)).thenReturn(solrSpaces);
+
+        WikiReference wikiReference = new WikiReference(WIKI);
+        SpaceReference spaceReference = new SpaceReference(SPACE, wikiReference);
+        when(this.explicitEntityReferenceResolver.resolve(SPACE, EntityType.SPACE, wikiReference))
+            .thenReturn(spaceReference);
+
+        DocumentReference modified = new DocumentReference("Modified", spaceReference);
+        DocumentReference unchanged = new DocumentReference("Unchanged", spaceReference);
+        when(this.databaseIteratorProvider.get()).thenReturn(new DocumentIteratorStub<>(Arrays
+            .<Pair<DocumentReference, String>>asList(new ImmutablePair<>(modified, "1.2"),
+                new ImmutablePair<>(unchanged, "3.1"))));
+        when(this.solrIteratorProvider.get()).thenReturn(new DocumentIteratorStub<>(Arrays
+            .<Pair<DocumentReference, String>>asList(new ImmutablePair<>(modified, "1.1"),
+                new ImmutablePair<>(unchanged, "3.1"))));
+
+        IndexerRequest request = new IndexerRequest();
+        request.setIncremental(true);
+        request.setVerbose(false);
+
+        this.job.initialize(request);
+        this.job.run();
+
+        // Only the space having a different checksum is synchronized
+        verify(this.databaseIteratorProvider).get();
+        verify(this.solrIteratorProvider).get();
+
+        verify(this.indexer).index(modified, true);
+        verify(this.indexer, never()).index(unchanged, true);
+        verify(this.indexer, never()).delete(any(), anyBoolean());
+    }
+}
@@ -32,6 +32,7 @@
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.xwiki.localization.LocaleUtils;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
@@ -45,7 +46,9 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -141,6 +144,37 @@ void iterate() throws Exception
         assertEquals(expectedResult, actualResult);
     }
 
+    @Test
+    void iterateWithChecksumRequired() throws Exception
+    {
+        SolrDocumentList results = new SolrDocumentList();
+        results.add(createSolrDocument("wiki", Arrays.asList("Space"), "Old", "", "1.1"));
+        SolrDocument document = createSolrDocument("wiki", Arrays.asList("Space"), "New", "", "2.1");
+        document.setField(FieldUtils.VERSION_CHECKSUM, 42L);
+        results.add(document);
+
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getNextCursorMark()).thenReturn("foo", "foo");
+        when(response.getResults()).thenReturn(results);
+
+        when(this.solrInstance.query(any(SolrQuery.class))).thenReturn(response);
+
+        this.solrIterator.setChecksumRequired(true);
+
+        List<Pair<DocumentReference, String>> actualResult = new ArrayList<>();
+        while (this.solrIterator.hasNext()) {
+            actualResult.add(this.solrIterator.next());
+        }
+
+        // The document indexed without checksum is reported without version so that it's indexed again
+        assertEquals(Arrays.asList(new ImmutablePair<>(new DocumentReference("wiki", "Space", "Old"), null),
+            new ImmutablePair<>(new DocumentReference("wiki", "Space", "New"), "2.1")), actualResult);
+
+        ArgumentCaptor<SolrQuery> queryCaptor = ArgumentCaptor.forClass(SolrQuery.class);
+        verify(this.solrInstance, atLeastOnce()).query(queryCaptor.capture());
+        assertTrue(queryCaptor.getValue().getFields().contains(FieldUtils.VERSION_CHECKSUM));
+    }
+
     private SolrDocument createSolrDocument(String wiki, List<String> spaces, String name, String locale,
         String version)
     {
@@ -0,0 +1,128 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.json.NestableJsonFacet;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link SolrSpaceFingerprintProvider}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+class SolrSpaceFingerprintProviderTest
+{
+    @MockComponent
+    private SolrInstance solrInstance;
+
+    @MockComponent
+    private SolrReferenceResolver solrReferenceResolver;
+
+    @InjectMockComponents
+    private SolrSpaceFingerprintProvider provider;
+
+    private NamedList<Object> bucket(String value, long count, Object... stats)
+    {
+        NamedList<Object> bucket = new SimpleOrderedMap<>();
+        bucket.add("val", value);
+        bucket.add("count", count);
+        for (int i = 0; i < stats.length; i += 2) {
+            bucket.add((String) stats[i], stats[i + 1]);
+        }
+
+        return bucket;
+    }
+
+    private void mockResponse(List<NamedList<Object>> buckets) throws Exception
+    {
+        NamedList<Object> facet = new SimpleOrderedMap<>();
+        facet.add("buckets", buckets);
+        NamedList<Object> facets = new SimpleOrderedMap<>();
+        facets.add("count", 42L);
+        facets.add("buckets", facet);
+
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getJsonFacetingResponse()).thenReturn(new NestableJsonFacet(facets));
+        when(this.solrInstance.query(any(SolrQuery.class))).thenReturn(response);
+    }
+
+    @Test
+    void getFingerprints() throws Exception
+    {
+        when(this.solrReferenceResolver.getQuery(new WikiReference("wiki"))).thenReturn("wiki:wiki");
+
+        mockResponse(Arrays.asList(bucket("Main", 3, "date", new Date(42123), "checksum", 1234.0),
+            bucket("A.B", 1, "date", new Date(1000), "checksum", 56.0),
+            // Only contains documents indexed before the checksum was introduced
+            bucket("Old", 2, "date", new Date(1000))));
+
+        Map<String, SpaceFingerprint> fingerprints = this.provider.getFingerprints("wiki");
+
+        assertEquals(3, fingerprints.size());
+        assertEquals(new SpaceFingerprint(3, 42000, 1234), fingerprints.get("Main"));
+        assertEquals(new SpaceFingerprint(1, 1000, 56), fingerprints.get("A.B"));
+        assertEquals(new SpaceFingerprint(2, 1000, 0), fingerprints.get("Old"));
+
+        ArgumentCaptor<SolrQuery> queryCaptor = ArgumentCaptor.forClass(SolrQuery.class);
+        verify(this.solrInstance).query(queryCaptor.capture());
+        SolrQuery query = queryCaptor.getValue();
+        assertEquals("wiki:wiki", query.getQuery());
+        assertTrue(Arrays.asList(query.getFilterQueries()).contains("type:DOCUMENT"));
+        assertEquals(0, query.getRows());
+        assertEquals("{buckets:{type:terms,field:space_exact,limit:-1,facet:{date:\"max(date)\","
+            + "checksum:\"sum(versionchecksum_sortLong)\"}}}", query.get("json.facet"));
+    }
+
+    @Test
+    void getWikis() throws Exception
+    {
+        mockResponse(Arrays.asList(bucket("wiki1", 10), bucket("wiki2", 1)));
+
+        assertEquals(Arrays.asList("wiki1", "wiki2"), this.provider.getWikis());
+
+        ArgumentCaptor<SolrQuery> queryCaptor = ArgumentCaptor.forClass(SolrQuery.class);
+        verify(this.solrInstance).query(queryCaptor.capture());
+        assertEquals("{buckets:{type:terms,field:wiki,limit:-1}}", queryCaptor.getValue().get("json.facet"));
+    }
+}
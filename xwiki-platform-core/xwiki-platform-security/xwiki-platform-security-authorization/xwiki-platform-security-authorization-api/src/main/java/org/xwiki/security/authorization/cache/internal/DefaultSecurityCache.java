@@ -83,7 +83,10 @@ public class DefaultSecurityCache implements SecurityCache, Initializable
     @Inject
     private Logger logger;
 
-    /** Fair read-write lock used for fair scheduling of cache access. */
+    /**
+     * Fair read-write lock used for fair scheduling of cache access. Reading an entry which is in the cache does not
+     * require this lock, see {@link #getInternal(String)}.
+     */
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
 
     /** Fair read lock. */
@@ -153,12 +156,12 @@ public void initialize() throws InitializationException
         /**
          * The cached security entry.
          */
-        private SecurityEntry entry;
+        private volatile SecurityEntry entry;
 
         /**
          * Parents of this cached entry.
          */
-        private Collection<SecurityCacheEntry> parents;
+        private volatile Collection<SecurityCacheEntry> parents;
 
         /**
          * Children of this cached entry.
@@ -166,9 +169,9 @@ public void initialize() throws InitializationException
         private Collection<SecurityCacheEntry> children;
 
         /**
-         * True if this entry has been removed.
+         * True if this entry has been removed. Volatile since it's read without lock by {@link #getInternal(String)}.
          */
-        private boolean disposed;
+        private volatile boolean disposed;
 
         /**
          * Create a new cache entry for a security rule, linking it to its parent.
@@ -662,13 +665,35 @@ private SecurityCacheEntry getShadowEntry(SecurityReference userReference, Secur
 
     /**
      * Get a security cache entry from the cache or the internal map. In the latter case, the entry is re-inserted
-     * into the cache. This method can be called without locking, it uses the read lock internally.
+     * into the cache. This method can be called without locking, it uses the read lock internally when the entry is
+     * not found directly in the cache.
+     * <p>
+     * An entry found in the cache is returned without waiting for the read lock, so that read-heavy right checks are
+     * not blocked by writers inserting unrelated entries. An entry found in the cache while it's being disposed by a
+     * writer is considered as missing, as if the read happened after the removal.
      *
      * @param key the key of the entry to retrieve
      * @throws IllegalStateException if the entry has been disposed (this should never happen)
      * @return the entry corresponding to the given key, null if none is available in the cache
      */
     private SecurityCacheEntry getInternal(String key)
+    {
+        SecurityCacheEntry cachedEntry = cache.get(key);
+        if (cachedEntry != null && !cachedEntry.disposed) {
+            return cachedEntry;
+        }
+
+        return getInternalLocked(key);
+    }
+
+    /**
+     * Get a security cache entry from the cache or the internal map while holding the read lock.
+     *
+     * @param key the key of the entry to retrieve
+     * @throws IllegalStateException if the entry has been disposed (this should never happen)
+     * @return the entry corresponding to the given key, null if none is available in the cache
+     */
+    private SecurityCacheEntry getInternalLocked(String key)
     {
         readLock.lock();
         try {
@@ -28,6 +28,12 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -68,6 +74,7 @@
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -983,4 +990,47 @@ void testAcceptsMainWikiShadowAsUserParent() throws Exception
         // Check that the entry was added
         assertSame(entry, this.securityCache.get(userSecurityReference, documentSecurityReference));
     }
+
+    @Test
+    void getCachedEntryWhileWriting() throws Exception
+    {
+        SecurityReference mainWikiReference = newEntityReference(null);
+        SecurityRuleEntry mainWikiEntry = mockSecurityRuleEntry(mainWikiReference);
+        this.securityCache.add(mainWikiEntry);
+        SecurityRuleEntry subWikiEntry = mockSecurityRuleEntry(newEntityReference(new WikiReference("wiki")));
+
+        CountDownLatch writerStarted = new CountDownLatch(1);
+        CountDownLatch writerReleased = new CountDownLatch(1);
+        this.cache.setBeforeSet(key -> {
+            writerStarted.countDown();
+            try {
+                writerReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Block a writer while it holds the write lock
+            Future<?> writer = executor.submit(() -> {
+                this.securityCache.add(subWikiEntry);
+                return null;
+            });
+            assertTrue(writerStarted.await(10, TimeUnit.SECONDS));
+
+            // Reading an entry which is in the cache should not wait for the writer
+            assertSame(mainWikiEntry, CompletableFuture.supplyAsync(() -> this.securityCache.get(mainWikiReference),
+                executor).get(10, TimeUnit.SECONDS));
+
+            writerReleased.countDown();
+            writer.get(10, TimeUnit.SECONDS);
+        } finally {
+            this.cache.setBeforeSet(null);
+            writerReleased.countDown();
+            executor.shutdownNow();
+        }
+
+        assertSame(subWikiEntry, this.securityCache.get(subWikiEntry.getReference()));
+    }
 }
@@ -20,8 +20,9 @@
 
 package org.xwiki.security.authorization.cache.internal;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.xwiki.cache.Cache;
 import org.xwiki.cache.CacheEntry;
@@ -43,9 +44,10 @@
  */
 public class TestCache<T> implements Cache<T>
 {
-    private Map<String, T> cache = new HashMap<String, T>();
+    private Map<String, T> cache = new ConcurrentHashMap<String, T>();
     private CacheEntryListener<T> listener;
     private String lastInsertedKey;
+    private Consumer<String> beforeSet;
 
     class TestCacheEntry implements CacheEntry<T>
     {
@@ -99,6 +101,9 @@ public Cache<T> getCache()
     @Override
     public void set(String key, T value)
     {
+        if (beforeSet != null) {
+            beforeSet.accept(key);
+        }
         T old = cache.put(key, value);
         if (listener != null && old == null) {
             listener.cacheEntryAdded(getEvent(key, value));
@@ -170,4 +175,12 @@ public String getLastInsertedKey()
     {
         return lastInsertedKey;
     }
+
+    /**
+     * @param beforeSet called with the key before each insertion in the cache, or {@code null} to disable it
+     */
+    public void setBeforeSet(Consumer<String> beforeSet)
+    {
+        this.beforeSet = beforeSet;
+    }
 }
@@ -42,6 +42,8 @@
 import org.xwiki.security.authorization.DocumentAuthorizationManager;
 import org.xwiki.security.authorization.Right;
 import org.xwiki.security.internal.XWikiConstants;
+import org.xwiki.tracing.RequestTracer;
+import org.xwiki.tracing.TraceSpan;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiDocument;
@@ -78,6 +80,9 @@ public class DefaultContextualAuthorizationManager implements ContextualAuthoriz
     @Inject
     private DocumentAuthorizationManager documentAuthorizationManager;
 
+    @Inject
+    private RequestTracer tracer;
+
     @Inject
     private Logger logger;
 
@@ -101,11 +106,13 @@ public void checkAccess(Right right, EntityReference entity) throws AccessDenied
 
     private void checkAccess(Right right, DocumentReference user, EntityReference entity) throws AccessDeniedException
     {
-        if (!checkPreAccess(right)) {
-            throw new AccessDeniedException(right, user, entity);
-        }
+        try (TraceSpan span = this.tracer.startSpan(RequestTracer.SECURITY)) {
+            if (!checkPreAccess(right)) {
+                throw new AccessDeniedException(right, user, entity);
+            }
 
-        this.authorizationManager.checkAccess(right, user, getFullReference(entity));
+            this.authorizationManager.checkAccess(right, user, getFullReference(entity));
+        }
     }
 
     @Override
@@ -128,7 +135,9 @@ public boolean hasAccess(Right right, EntityReference entity)
 
     private boolean hasAccess(Right right, DocumentReference user, EntityReference entity)
     {
-        return checkPreAccess(right) && this.authorizationManager.hasAccess(right, user, getFullReference(entity));
+        try (TraceSpan span = this.tracer.startSpan(RequestTracer.SECURITY)) {
+            return checkPreAccess(right) && this.authorizationManager.hasAccess(right, user, getFullReference(entity));
+        }
     }
 
     private EntityReference getFullReference(EntityReference reference)
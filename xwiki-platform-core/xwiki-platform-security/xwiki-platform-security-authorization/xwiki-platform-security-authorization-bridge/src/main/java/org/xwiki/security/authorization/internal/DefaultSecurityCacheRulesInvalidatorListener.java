@@ -20,6 +20,7 @@
 package org.xwiki.security.authorization.internal;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -35,14 +36,18 @@
 import org.xwiki.bridge.event.DocumentDeletedEvent;
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.LocalDocumentReference;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.observation.AbstractEventListener;
 import org.xwiki.observation.ObservationManager;
 import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
 import org.xwiki.security.SecurityReferenceFactory;
 import org.xwiki.security.authorization.cache.SecurityCache;
 import org.xwiki.security.authorization.event.RightUpdatedEvent;
@@ -51,6 +56,7 @@
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.internal.mandatory.XWikiGroupsDocumentInitializer;
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.ObjectDiff;
 
@@ -64,7 +70,7 @@
 @Named(DefaultSecurityCacheRulesInvalidatorListener.NAME)
 @Singleton
 @Priority(SecurityCache.CACHE_INVALIDATION_PRIORITY)
-public class DefaultSecurityCacheRulesInvalidatorListener extends AbstractEventListener
+public class DefaultSecurityCacheRulesInvalidatorListener extends AbstractEventListener implements Initializable
 {
     /**
      * The name of the listener.
@@ -72,6 +78,12 @@ public class DefaultSecurityCacheRulesInvalidatorListener extends AbstractEventL
     public static final String NAME =
         "org.xwiki.security.authorization.internal.DefaultSecurityCacheRulesInvalidatorListener";
 
+    private static final String INVALIDATION_ID = "security";
+
+    private static final String DOCUMENT_KEY_PREFIX = "document:";
+
+    private static final String USER_KEY_PREFIX = "user:";
+
     private static final LocalDocumentReference XWIKISERVER_CLASS =
         new LocalDocumentReference("XWiki", "XWikiServerClass");
 
@@ -103,6 +115,15 @@ public class DefaultSecurityCacheRulesInvalidatorListener extends AbstractEventL
     @Inject
     private ObservationManager observation;
 
+    @Inject
+    private RemoteInvalidationManager remoteInvalidationManager;
+
+    @Inject
+    private RemoteDocumentInvalidator remoteDocumentInvalidator;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
     /**
      * Default constructor.
      */
@@ -111,6 +132,37 @@ public DefaultSecurityCacheRulesInvalidatorListener()
         super(NAME, new DocumentCreatedEvent(), new DocumentUpdatedEvent(), new DocumentDeletedEvent());
     }
 
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.remoteInvalidationManager.addHandler(INVALIDATION_ID, this::invalidate);
+    }
+
+    /**
+     * Apply the invalidations received from another member of the cluster.
+     *
+     * @param keys the keys of the invalidated entries
+     */
+    private void invalidate(Collection<String> keys)
+    {
+        for (String key : keys) {
+            if (key.startsWith(DOCUMENT_KEY_PREFIX)) {
+                removeDocument(this.resolver.resolve(key.substring(DOCUMENT_KEY_PREFIX.length())));
+            } else if (key.startsWith(USER_KEY_PREFIX)) {
+                this.securityCache.remove(this.securityReferenceFactory
+                    .newUserReference(this.resolver.resolve(key.substring(USER_KEY_PREFIX.length()))));
+            }
+        }
+    }
+
+    private void invalidateUser(DocumentReference userReference)
+    {
+        this.securityCache.remove(this.securityReferenceFactory.newUserReference(userReference));
+
+        this.remoteDocumentInvalidator.invalidate(INVALIDATION_ID,
+            USER_KEY_PREFIX + this.serializer.serialize(userReference));
+    }
+
     /**
      * @param document an xwiki document, that has just been updated.
      * @return true if and only if the xwiki document corresponds to a group.
@@ -141,15 +193,13 @@ private void invalidateNewGroupMembers(XWikiDocument document)
 
                 if (originalMemberObject == null) {
                     // Invalidate new member
-                    DocumentReference memberRefeference = this.userResolver.resolve(newMember, documentReference);
-                    this.securityCache.remove(this.securityReferenceFactory.newUserReference(memberRefeference));
+                    invalidateUser(this.userResolver.resolve(newMember, documentReference));
                 } else {
                     String originalMember = originalMemberObject.getStringValue("member");
 
                     if (!Objects.equals(newMember, originalMember)) {
                         // Invalidate modified member
-                        DocumentReference memberRefeference = this.userResolver.resolve(newMember, documentReference);
-                        this.securityCache.remove(this.securityReferenceFactory.newUserReference(memberRefeference));
+                        invalidateUser(this.userResolver.resolve(newMember, documentReference));
                     }
                 }
             }
@@ -203,6 +253,14 @@ private boolean shouldSendRightUpdatedEvent(XWikiDocument document, XWikiContext
      * @param ref Reference to the document that should be invalidated.
      */
     private void deliverUpdateEvent(DocumentReference ref)
+    {
+        removeDocument(ref);
+
+        this.remoteDocumentInvalidator.invalidate(INVALIDATION_ID,
+            DOCUMENT_KEY_PREFIX + this.serializer.serialize(ref));
+    }
+
+    private void removeDocument(DocumentReference ref)
     {
         if (XWikiConstants.WIKI_DOC_REFERENCE.equals(ref, EntityType.SPACE)) {
             // For XWiki.XWikiPreferences, remove the whole wiki.
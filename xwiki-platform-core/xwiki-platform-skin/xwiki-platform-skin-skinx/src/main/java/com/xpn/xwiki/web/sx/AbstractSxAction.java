@@ -20,11 +20,17 @@
 package com.xpn.xwiki.web.sx;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
+import org.xwiki.skinx.internal.SxContentCache;
+import org.xwiki.skinx.internal.SxContentCache.CompressedContent;
+import org.xwiki.tracing.RequestTracer;
+import org.xwiki.tracing.TraceSpan;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -58,14 +64,33 @@ public abstract class AbstractSxAction extends XWikiAction
     /** What http header parameter is used to specify when the cache should expire. */
     private static final String CACHE_EXPIRES_HEADER = "Expires";
 
-    /** The response will be sent to the browser as a byte array in this character set. */
-    private static final String RESPONSE_CHARACTER_SET = "UTF-8";
+    /** What http header parameter is used to identify the version of the content. */
+    private static final String ETAG_HEADER = "ETag";
+
+    /** What http header parameter is used to send the version of the content known by the client. */
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+    /** What http header parameter is used to list the encodings accepted by the client. */
+    private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+    /** What http header parameter is used to specify the encoding of the content. */
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+    /** What http header parameter is used to list the request headers impacting the content. */
+    private static final String VARY_HEADER = "Vary";
+
+    /** The gzip content encoding. */
+    private static final String GZIP = "gzip";
 
     /** If the user passes this parameter in the URL, we will look for the script in the jar files. */
     private static final String JAR_RESOURCE_REQUEST_PARAMETER = "resource";
 
     private DebugConfiguration debugConfiguration;
 
+    private RequestTracer tracer;
+
+    private SxContentCache contentCache;
+
     /** @return the logging object of the concrete subclass. */
     protected abstract Logger getLogger();
 
@@ -83,7 +108,10 @@ public void renderExtension(SxSource sxSource, Extension sxType, XWikiContext co
     {
         XWikiResponse response = context.getResponse();
 
-        String extensionContent = sxSource.getContent();
+        String extensionContent;
+        try (TraceSpan span = getTracer().startSpan(RequestTracer.SKINX)) {
+            extensionContent = sxSource.getContent();
+        }
 
         response.setContentType(sxType.getContentType());
 
@@ -106,23 +134,155 @@ public void renderExtension(SxSource sxSource, Extension sxType, XWikiContext co
             response.setHeader(CACHE_CONTROL_HEADER, "no-cache, no-store, must-revalidate");
         }
 
-        if (getDebugConfiguration().isMinify()) {
-            extensionContent = compress(extensionContent, sxType.getCompressor(), context);
+        boolean minify = getDebugConfiguration().isMinify();
+        String sourceId = getSourceId(sxSource);
+        byte[] content;
+        if (sourceId != null && cachePolicy != CachePolicy.FORBID) {
+            content = getCachedContent(sourceId, extensionContent, sxType, minify, context);
+            if (content == null) {
+                Utils.setServerTimingHeader(response);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        } else {
+            if (minify) {
+                try (TraceSpan span = getTracer().startSpan(RequestTracer.SKINX)) {
+                    SxCompressor compressor = sxType.getCompressor();
+                    extensionContent = compress(extensionContent, compressor, context);
+                    String sourceMap = getSourceMap(compressor, context);
+                    if (sourceMap != null) {
+                        setSourceMap(sourceMap, context);
+                    }
+                }
+            }
+            content = extensionContent.getBytes(StandardCharsets.UTF_8);
         }
 
+        Utils.setServerTimingHeader(response);
+
         try {
-            response.setContentLength(extensionContent.getBytes(RESPONSE_CHARACTER_SET).length);
-            response.getOutputStream().write(extensionContent.getBytes(RESPONSE_CHARACTER_SET));
+            response.setContentLength(content.length);
+            response.getOutputStream().write(content);
         } catch (IOException ex) {
             getLogger().warn("Failed to send SX content: [{}]", ex.getMessage());
         }
     }
 
+    /**
+     * Get the compressed content from the cache and set the corresponding validator and encoding headers.
+     *
+     * @return the content to send, {@code null} if the client already has it
+     */
+    private byte[] getCachedContent(String sourceId, String extensionContent, Extension sxType, boolean minify,
+        XWikiContext context)
+    {
+        CompressedContent compressedContent;
+        try (TraceSpan span = getTracer().startSpan(RequestTracer.SKINX)) {
+            String variant = sxType.getClassName() + (minify ? "/minified" : "");
+            SxCompressor compressor = sxType.getCompressor();
+            compressedContent = getContentCache().get(sourceId, variant, extensionContent,
+                source -> minify ? compress(source, compressor, context) : source,
+                () -> minify ? getSourceMap(compressor, context) : null);
+        }
+
+        // The source map is needed even when the client already has the content, and it's only generated by the
+        // compression, which is skipped when the content is taken from the cache
+        if (compressedContent.getSourceMap() != null) {
+            setSourceMap(compressedContent.getSourceMap(), context);
+        }
+
+        XWikiResponse response = context.getResponse();
+
+        // The body depends on the accepted encodings
+        response.setHeader(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+        String tag = compressedContent.getTag();
+        byte[] content = compressedContent.getContent();
+        if (compressedContent.getGzippedContent() != null && acceptsGzip(context)) {
+            // Different representations must have different strong entity tags
+            tag += "-" + GZIP;
+            content = compressedContent.getGzippedContent();
+            response.setHeader(CONTENT_ENCODING_HEADER, GZIP);
+        }
+        tag = '"' + tag + '"';
+        response.setHeader(ETAG_HEADER, tag);
+
+        return isNotModified(tag, context) ? null : content;
+    }
+
+    /**
+     * @return the identifier of the source in the {@link SxContentCache}, {@code null} if the source can't be cached
+     */
+    private String getSourceId(SxSource sxSource)
+    {
+        if (sxSource instanceof SxDocumentSource) {
+            return getContentCache().getDocumentSourceId(((SxDocumentSource) sxSource).getDocumentReference());
+        } else if (sxSource instanceof SxResourceSource) {
+            return getContentCache().getResourceSourceId(((SxResourceSource) sxSource).getResourceName());
+        }
+
+        return null;
+    }
+
+    private boolean acceptsGzip(XWikiContext context)
+    {
+        String acceptEncoding = context.getRequest().getHeader(ACCEPT_ENCODING_HEADER);
+        if (acceptEncoding != null) {
+            for (String encoding : StringUtils.split(acceptEncoding, ',')) {
+                String[] parts = StringUtils.split(encoding, ';');
+                if (parts.length > 0 && GZIP.equalsIgnoreCase(parts[0].trim())) {
+                    // Explicitly refused with "gzip;q=0"
+                    return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isNotModified(String tag, XWikiContext context)
+    {
+        String ifNoneMatch = context.getRequest().getHeader(IF_NONE_MATCH_HEADER);
+        if (ifNoneMatch != null) {
+            for (String requestTag : StringUtils.split(ifNoneMatch, ',')) {
+                // If-None-Match uses the weak comparison
+                String value = StringUtils.removeStart(requestTag.trim(), "W/");
+                if (value.equals(tag) || "*".equals(value)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     protected String compress(String source, SxCompressor compressor, XWikiContext context)
     {
         return compressor.compress(source);
     }
 
+    /**
+     * @param compressor the compressor which was used to compress the content of the extension
+     * @param context the XWiki context when rendering the skin extension
+     * @return the source map generated by the last compression, {@code null} if there's none
+     * @since 17.0.0RC1
+     */
+    protected String getSourceMap(SxCompressor compressor, XWikiContext context)
+    {
+        return null;
+    }
+
+    /**
+     * Make the source map of the sent content available to the client.
+     *
+     * @param sourceMap the source map generated when compressing the sent content
+     * @param context the XWiki context when rendering the skin extension
+     * @since 17.0.0RC1
+     */
+    protected void setSourceMap(String sourceMap, XWikiContext context)
+    {
+        // No source map support by default
+    }
+
     @Override
     public String render(XWikiContext context) throws XWikiException
     {
@@ -156,6 +316,24 @@ protected DebugConfiguration getDebugConfiguration()
         return this.debugConfiguration;
     }
 
+    private SxContentCache getContentCache()
+    {
+        if (this.contentCache == null) {
+            this.contentCache = Utils.getComponent(SxContentCache.class);
+        }
+
+        return this.contentCache;
+    }
+
+    private RequestTracer getTracer()
+    {
+        if (this.tracer == null) {
+            this.tracer = Utils.getComponent(RequestTracer.class);
+        }
+
+        return this.tracer;
+    }
+
     /**
      * Get the type of extension, depends on the type of action.
      *
@@ -31,6 +31,7 @@
 import org.xwiki.lesscss.compiler.LESSCompilerException;
 import org.xwiki.lesscss.resources.LESSResourceReference;
 import org.xwiki.lesscss.resources.LESSResourceReferenceFactory;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.ObjectPropertyReference;
 import org.xwiki.velocity.VelocityManager;
 import org.xwiki.velocity.XWikiVelocityException;
@@ -173,4 +174,13 @@ public long getLastModifiedDate()
         return this.document.getDate().getTime();
     }
 
+    /**
+     * @return the reference of the document holding the extension objects
+     * @since 17.0.0RC1
+     */
+    public DocumentReference getDocumentReference()
+    {
+        return this.document.getDocumentReference();
+    }
+
 }
@@ -77,4 +77,13 @@ public long getLastModifiedDate()
         return 0;
     }
 
+    /**
+     * @return the full path of the resource used as extension
+     * @since 17.0.0RC1
+     */
+    public String getResourceName()
+    {
+        return this.resourceName;
+    }
+
 }
@@ -0,0 +1,265 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.zip.GZIPOutputStream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
+
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
+
+/**
+ * Keep the compressed and encoded content of the skin extensions so that the (costly) minification is done only once
+ * per version of the extension instead of once per request. The entries are validated against a digest of the
+ * uncompressed content, so the content of the extensions is still evaluated on each request (it can depend on the
+ * context through Velocity) but is only compressed again when it changes.
+ * <p>
+ * Thanks to the digest a modified extension is never served from an outdated entry, the invalidation of the modified
+ * documents (local or received from the other members of the cluster) only releases the memory sooner.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component(roles = SxContentCache.class)
+@Singleton
+public class SxContentCache implements Initializable, Disposable
+{
+    /**
+     * Smaller contents are not worth compressing with gzip.
+     */
+    private static final int GZIP_MIN_LENGTH = 1024;
+
+    private static final String DOCUMENT_PREFIX = "document:";
+
+    private static final String RESOURCE_PREFIX = "resource:";
+
+    private static final String CACHE_ID = "skinx.content";
+
+    /**
+     * The compressed content of a skin extension, ready to be sent.
+     *
+     * @version $Id$
+     */
+    public static final class CompressedContent
+    {
+        private final String sourceDigest;
+
+        private final byte[] content;
+
+        private final byte[] gzippedContent;
+
+        private final String tag;
+
+        private final String sourceMap;
+
+        CompressedContent(String sourceDigest, String content, String sourceMap)
+        {
+            this.sourceDigest = sourceDigest;
+            this.content = content.getBytes(StandardCharsets.UTF_8);
+            this.gzippedContent = this.content.length >= GZIP_MIN_LENGTH ? gzip(this.content) : null;
+            this.tag = DigestUtils.sha256Hex(this.content);
+            this.sourceMap = sourceMap;
+        }
+
+        private static byte[] gzip(byte[] content)
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 3);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+                gzip.write(content);
+            } catch (IOException e) {
+                // Should never happen when writing in memory
+                return null;
+            }
+
+            return output.toByteArray();
+        }
+
+        /**
+         * @return the compressed content, encoded in UTF-8
+         */
+        public byte[] getContent()
+        {
+            return this.content;
+        }
+
+        /**
+         * @return the gzipped version of {@link #getContent()}, {@code null} if the content is too small to be worth
+         *         it
+         */
+        public byte[] getGzippedContent()
+        {
+            return this.gzippedContent;
+        }
+
+        /**
+         * @return a strong entity tag (without the quotes) identifying {@link #getContent()}
+         */
+        public String getTag()
+        {
+            return this.tag;
+        }
+
+        /**
+         * @return the source map generated when compressing the content, {@code null} if there's none
+         */
+        public String getSourceMap()
+        {
+            return this.sourceMap;
+        }
+    }
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private RemoteInvalidationManager remoteInvalidationManager;
+
+    @Inject
+    private RemoteDocumentInvalidator remoteDocumentInvalidator;
+
+    /**
+     * The compressed contents of each extension source, indexed by variant (extension type, minification, etc.).
+     */
+    private Cache<Map<String, CompressedContent>> cache;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager.createNewCache(new LRUCacheConfiguration(CACHE_ID, 500));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the skin extension content cache", e);
+        }
+
+        this.remoteInvalidationManager.addHandler(CACHE_ID, sourceIds -> sourceIds.forEach(this.cache::remove));
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.remoteInvalidationManager.removeHandler(CACHE_ID);
+        this.cache.dispose();
+    }
+
+    /**
+     * @param documentReference the reference of the document holding the skin extension objects
+     * @return the identifier of the extension source
+     */
+    public String getDocumentSourceId(DocumentReference documentReference)
+    {
+        return DOCUMENT_PREFIX + this.serializer.serialize(documentReference);
+    }
+
+    /**
+     * @param resourceName the path of the skin extension resource
+     * @return the identifier of the extension source
+     */
+    public String getResourceSourceId(String resourceName)
+    {
+        return RESOURCE_PREFIX + resourceName;
+    }
+
+    /**
+     * Return the cached compressed content if the source content did not change since it was compressed, or compress
+     * the source content and cache the result.
+     *
+     * @param sourceId the identifier of the extension source
+     * @param variant the elements other than the source content which impact the compressed content (extension type,
+     *            whether minification is enabled, etc.)
+     * @param sourceContent the current (uncompressed) content of the extension
+     * @param compressor the function used to compress the content
+     * @return the compressed content
+     */
+    public CompressedContent get(String sourceId, String variant, String sourceContent,
+        UnaryOperator<String> compressor)
+    {
+        return get(sourceId, variant, sourceContent, compressor, () -> null);
+    }
+
+    /**
+     * Return the cached compressed content if the source content did not change since it was compressed, or compress
+     * the source content and cache the result along with the source map generated by the compression.
+     *
+     * @param sourceId the identifier of the extension source
+     * @param variant the elements other than the source content which impact the compressed content (extension type,
+     *            whether minification is enabled, etc.)
+     * @param sourceContent the current (uncompressed) content of the extension
+     * @param compressor the function used to compress the content
+     * @param sourceMap provide the source map generated by the last call to the compressor, if any
+     * @return the compressed content
+     */
+    public CompressedContent get(String sourceId, String variant, String sourceContent,
+        UnaryOperator<String> compressor, Supplier<String> sourceMap)
+    {
+        String sourceDigest = DigestUtils.sha256Hex(sourceContent);
+
+        Map<String, CompressedContent> variants = this.cache.get(sourceId);
+        if (variants == null) {
+            variants = new ConcurrentHashMap<>();
+            this.cache.set(sourceId, variants);
+        }
+
+        CompressedContent content = variants.get(variant);
+        if (content == null || !content.sourceDigest.equals(sourceDigest)) {
+            content = new CompressedContent(sourceDigest, compressor.apply(sourceContent), sourceMap.get());
+            variants.put(variant, content);
+        }
+
+        return content;
+    }
+
+    /**
+     * Forget the compressed contents of the skin extensions held by the passed document.
+     *
+     * @param documentReference the reference of the modified document
+     */
+    public void invalidate(DocumentReference documentReference)
+    {
+        String sourceId = getDocumentSourceId(documentReference);
+
+        this.cache.remove(sourceId);
+        this.remoteDocumentInvalidator.invalidate(CACHE_ID, sourceId);
+    }
+}
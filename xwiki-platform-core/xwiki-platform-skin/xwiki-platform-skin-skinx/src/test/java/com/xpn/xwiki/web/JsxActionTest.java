@@ -0,0 +1,308 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.web;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
+import org.xwiki.skinx.internal.SxContentCache;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.internal.debug.DebugConfiguration;
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+import com.xpn.xwiki.web.sx.JsExtension;
+import com.xpn.xwiki.web.sx.JsExtension.JsCompressor;
+import com.xpn.xwiki.web.sx.SxCompressor;
+import com.xpn.xwiki.web.sx.SxDocumentSource;
+import com.xpn.xwiki.web.sx.SxSource.CachePolicy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate the HTTP caching, the content encoding and the source maps of {@link JsxAction}.
+ *
+ * @version $Id$
+ */
+@OldcoreTest
+@ComponentList(SxContentCache.class)
+class JsxActionTest
+{
+    private static final DocumentReference DOCUMENT = new DocumentReference("wiki", "Space", "Page");
+
+    private static final String URL = "http://localhost/xwiki/bin/jsx/Space/Page";
+
+    private static final String SOURCE = StringUtils.repeat("var a = 1;\n", 200);
+
+    private static final String SOURCE_MAP = "{\"version\":3,\"sources\":[\"Page.js\"],\"mappings\":\"\"}";
+
+    private static final String ETAG = "ETag";
+
+    private static final String SOURCE_MAP_URL = URL + "?sourceMap=true&minify=false";
+
+    private static final String X_SOURCE_MAP = "X-SourceMap";
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    @InjectMockitoOldcore
+    private MockitoOldcore oldcore;
+
+    @MockComponent
+    private DebugConfiguration debugConfiguration;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    private RemoteInvalidationManager remoteInvalidationManager;
+
+    @MockComponent
+    private RemoteDocumentInvalidator remoteDocumentInvalidator;
+
+    private final JsxAction action = new JsxAction();
+
+    private final Map<String, Object> cacheContent = new HashMap<>();
+
+    private final Map<String, Object> sessionAttributes = new HashMap<>();
+
+    private final Map<String, String> headers = new HashMap<>();
+
+    private final AtomicInteger compressions = new AtomicInteger();
+
+    private ByteArrayOutputStream body;
+
+    private XWikiContext context;
+
+    private XWikiRequest request;
+
+    private XWikiResponse response;
+
+    private SxDocumentSource source;
+
+    private final JsExtension extension = new JsExtension()
+    {
+        @Override
+        public SxCompressor getCompressor()
+        {
+            JsCompressor compressor = mock(JsCompressor.class);
+            when(compressor.compress(anyString())).then(invocation -> {
+                compressions.incrementAndGet();
+                return invocation.<String>getArgument(0).trim();
+            });
+            when(compressor.getSourceMap()).thenReturn(SOURCE_MAP);
+            return compressor;
+        }
+    };
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(anyString())).then(invocation -> this.cacheContent.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.cacheContent.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(cache).set(anyString(), any());
+        when(this.cacheManager.createNewCache(any())).thenReturn(cache);
+        when(this.serializer.serialize(any())).then(invocation -> invocation.getArgument(0).toString());
+
+        when(this.debugConfiguration.isMinify()).thenReturn(true);
+
+        this.context = this.oldcore.getXWikiContext();
+        this.context.setURL(new URL(URL));
+
+        XWikiURLFactory urlFactory = mock(XWikiURLFactory.class);
+        when(urlFactory.getRequestURL(this.context)).thenReturn(new URL(URL));
+        when(urlFactory.getURL(any(URL.class), any())).thenReturn("/xwiki/bin/jsx/Space/Page?minify=false");
+        this.context.setURLFactory(urlFactory);
+
+        this.request = mock(XWikiRequest.class);
+        HttpSession session = mock(HttpSession.class);
+        when(session.getAttribute(anyString()))
+            .then(invocation -> this.sessionAttributes.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.sessionAttributes.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(session).setAttribute(anyString(), any());
+        when(this.request.getSession()).thenReturn(session);
+        this.context.setRequest(this.request);
+
+        this.response = mock(XWikiResponse.class);
+        doAnswer(invocation -> this.headers.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(this.response).setHeader(anyString(), anyString());
+        when(this.response.getOutputStream()).then(invocation -> new ServletOutputStream()
+        {
+            @Override
+            public void write(int b)
+            {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady()
+            {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener)
+            {
+                // Not needed
+            }
+        });
+        this.context.setResponse(this.response);
+
+        this.source = mock(SxDocumentSource.class);
+        when(this.source.getContent()).thenReturn(SOURCE);
+        when(this.source.getCachePolicy()).thenReturn(CachePolicy.LONG);
+        when(this.source.getDocumentReference()).thenReturn(DOCUMENT);
+    }
+
+    private byte[] render() throws Exception
+    {
+        this.headers.clear();
+        this.body = new ByteArrayOutputStream();
+
+        this.action.renderExtension(this.source, this.extension, this.context);
+
+        return this.body.toByteArray();
+    }
+
+    private String getSavedSourceMap()
+    {
+        @SuppressWarnings("unchecked")
+        Map<String, String> sourceMaps =
+            (Map<String, String>) this.sessionAttributes.get(JsxAction.class.getName() + ".sourceMaps");
+
+        return sourceMaps != null ? sourceMaps.get(URL) : null;
+    }
+
+    @Test
+    void entityTagAndNotModified() throws Exception
+    {
+        assertEquals(SOURCE.trim(), new String(render(), StandardCharsets.UTF_8));
+
+        String tag = this.headers.get(ETAG);
+        assertNotNull(tag);
+        assertTrue(tag.startsWith("\"") && tag.endsWith("\""));
+        assertEquals(ACCEPT_ENCODING, this.headers.get("Vary"));
+        assertNull(this.headers.get(CONTENT_ENCODING));
+        verify(this.response, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+        // The client already has the content
+        when(this.request.getHeader("If-None-Match")).thenReturn("\"other\", W/" + tag);
+
+        assertEquals(0, render().length);
+        assertEquals(tag, this.headers.get(ETAG));
+        verify(this.response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+        // The content is compressed only once
+        assertEquals(1, this.compressions.get());
+    }
+
+    @Test
+    void gzip() throws Exception
+    {
+        render();
+        String tag = this.headers.get(ETAG);
+
+        when(this.request.getHeader(ACCEPT_ENCODING)).thenReturn("deflate, gzip;q=0.8");
+
+        byte[] content = render();
+
+        assertEquals("gzip", this.headers.get(CONTENT_ENCODING));
+        assertEquals(ACCEPT_ENCODING, this.headers.get("Vary"));
+        // Each representation has its own entity tag
+        assertNotEquals(tag, this.headers.get(ETAG));
+        try (GZIPInputStream stream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            assertEquals(SOURCE.trim(), new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        // Explicitly refused
+        when(this.request.getHeader(ACCEPT_ENCODING)).thenReturn("gzip;q=0");
+
+        assertEquals(SOURCE.trim(), new String(render(), StandardCharsets.UTF_8));
+        assertNull(this.headers.get(CONTENT_ENCODING));
+        assertEquals(tag, this.headers.get(ETAG));
+    }
+
+    @Test
+    void sourceMapIsSentWithTheCachedContent() throws Exception
+    {
+        render();
+
+        assertEquals(SOURCE_MAP_URL, this.headers.get(X_SOURCE_MAP));
+        String sourceMap = getSavedSourceMap();
+        assertTrue(sourceMap.contains("/xwiki/bin/jsx/Space/Page?minify=false"));
+
+        // New HTTP session, the content is taken from the cache
+        this.sessionAttributes.clear();
+
+        render();
+
+        assertEquals(1, this.compressions.get());
+        assertEquals(SOURCE_MAP_URL, this.headers.get(X_SOURCE_MAP));
+        assertEquals(sourceMap, getSavedSourceMap());
+
+        // The source map is also needed when the client already has the content
+        this.sessionAttributes.clear();
+        when(this.request.getHeader("If-None-Match")).thenReturn(this.headers.get(ETAG));
+
+        render();
+
+        assertEquals(SOURCE_MAP_URL, this.headers.get(X_SOURCE_MAP));
+        assertEquals(sourceMap, getSavedSourceMap());
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationHandler;
+import org.xwiki.observation.remote.invalidation.RemoteInvalidationManager;
+import org.xwiki.skinx.internal.SxContentCache.CompressedContent;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.internal.observation.remote.RemoteDocumentInvalidator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link SxContentCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class SxContentCacheTest
+{
+    private static final DocumentReference DOCUMENT = new DocumentReference("wiki", "Space", "Page");
+
+    private static final String VARIANT = "XWiki.JavaScriptExtension/minified";
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    private RemoteInvalidationManager remoteInvalidationManager;
+
+    @MockComponent
+    private RemoteDocumentInvalidator remoteDocumentInvalidator;
+
+    @InjectMockComponents
+    private SxContentCache cache;
+
+    private final Map<String, Object> cacheContent = new HashMap<>();
+
+    private final AtomicInteger compressions = new AtomicInteger();
+
+    private final UnaryOperator<String> compressor = source -> {
+        this.compressions.incrementAndGet();
+        return source.trim();
+    };
+
+    @BeforeComponent
+    void beforeComponent() throws Exception
+    {
+        Cache<Object> mockCache = mock(Cache.class);
+        when(mockCache.get(anyString())).then(invocation -> this.cacheContent.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.cacheContent.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(mockCache).set(anyString(), any());
+        doAnswer(invocation -> this.cacheContent.remove(invocation.getArgument(0))).when(mockCache)
+            .remove(anyString());
+        when(this.cacheManager.createNewCache(any())).thenReturn(mockCache);
+
+        when(this.serializer.serialize(any())).then(invocation -> invocation.getArgument(0).toString());
+    }
+
+    @Test
+    void getCompressesOnlyWhenTheSourceChanges()
+    {
+        String sourceId = this.cache.getDocumentSourceId(DOCUMENT);
+
+        CompressedContent content = this.cache.get(sourceId, VARIANT, " var a = 1; ", this.compressor);
+        assertArrayEquals("var a = 1;".getBytes(), content.getContent());
+        assertSame(content, this.cache.get(sourceId, VARIANT, " var a = 1; ", this.compressor));
+        assertEquals(1, this.compressions.get());
+
+        // Other variant of the same source
+        this.cache.get(sourceId, "XWiki.JavaScriptExtension", " var a = 1; ", this.compressor);
+        assertEquals(2, this.compressions.get());
+
+        // The source content changed (e.g. because of some Velocity code)
+        CompressedContent newContent = this.cache.get(sourceId, VARIANT, " var a = 2; ", this.compressor);
+        assertEquals(3, this.compressions.get());
+        assertNotEquals(content.getTag(), newContent.getTag());
+    }
+
+    @Test
+    void getGzipsLargeContents()
+    {
+        String sourceId = this.cache.getResourceSourceId("path/to/script.js");
+
+        assertNull(this.cache.get(sourceId, VARIANT, "var a = 1;", this.compressor).getGzippedContent());
+
+        byte[] gzipped =
+            this.cache.get(sourceId, VARIANT, StringUtils.repeat("var a = 1;\n", 500), this.compressor)
+                .getGzippedContent();
+        assertNotNull(gzipped);
+        assertEquals(0x1f, gzipped[0] & 0xff);
+        assertEquals(0x8b, gzipped[1] & 0xff);
+    }
+
+    @Test
+    void invalidate()
+    {
+        String sourceId = this.cache.getDocumentSourceId(DOCUMENT);
+
+        this.cache.get(sourceId, VARIANT, "var a = 1;", this.compressor);
+        this.cache.invalidate(DOCUMENT);
+        this.cache.get(sourceId, VARIANT, "var a = 1;", this.compressor);
+
+        assertEquals(2, this.compressions.get());
+        verify(this.remoteDocumentInvalidator).invalidate("skinx.content", sourceId);
+    }
+
+    @Test
+    void remoteInvalidation()
+    {
+        String sourceId = this.cache.getDocumentSourceId(DOCUMENT);
+
+        this.cache.get(sourceId, VARIANT, "var a = 1;", this.compressor);
+
+        ArgumentCaptor<RemoteInvalidationHandler> handlerCaptor =
+            ArgumentCaptor.forClass(RemoteInvalidationHandler.class);
+        verify(this.remoteInvalidationManager).addHandler(eq("skinx.content"), handlerCaptor.capture());
+        handlerCaptor.getValue().invalidate(List.of(sourceId));
+
+        this.cache.get(sourceId, VARIANT, "var a = 1;", this.compressor);
+
+        assertEquals(2, this.compressions.get());
+    }
+}
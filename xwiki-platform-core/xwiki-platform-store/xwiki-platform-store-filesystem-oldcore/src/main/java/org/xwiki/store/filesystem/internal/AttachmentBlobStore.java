@@ -0,0 +1,213 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.filesystem.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Content addressed storage of the attachment contents: each distinct content is stored once in a blob named after its
+ * SHA-256 and the attachment files are hard links to those blobs. The number of links of a blob is its reference
+ * count: a blob which is not linked from any attachment file anymore is removed by {@link #collect()}.
+ * <p>
+ * Sharing the same file between several attachments is safe because the filesystem stores never modify an existing
+ * file: a new content is always written to a temporary file which is then renamed.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class AttachmentBlobStore
+{
+    /**
+     * The attribute holding the number of hard links of a file.
+     */
+    private static final String LINK_COUNT = "unix:nlink";
+
+    /**
+     * The file system view providing {@link #LINK_COUNT}.
+     */
+    private static final String UNIX_VIEW = "unix";
+
+    /**
+     * The suffix of the link created next to a file before replacing it.
+     */
+    private static final String LINK_SUFFIX = "~blob";
+
+    /**
+     * The root directory of the filesystem store, only the files located in it can be shared.
+     */
+    private final Path storeRootDirectory;
+
+    /**
+     * The directory containing the blobs.
+     */
+    private final Path blobsDirectory;
+
+    /**
+     * Make sure a blob is not removed while a new link to it is being created.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param storeRootDirectory the root directory of the filesystem store
+     * @param blobsDirectory the directory where to store the blobs, must be located on the same file system as the
+     *            store root directory
+     */
+    public AttachmentBlobStore(File storeRootDirectory, File blobsDirectory)
+    {
+        this.storeRootDirectory = storeRootDirectory.toPath().toAbsolutePath().normalize();
+        this.blobsDirectory = blobsDirectory.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * @param directory the directory where the blobs would be stored
+     * @return true if the file system supports hard links and exposes their count
+     */
+    public static boolean isSupported(File directory)
+    {
+        return directory.toPath().getFileSystem().supportedFileAttributeViews().contains(UNIX_VIEW);
+    }
+
+    /**
+     * @param source a file containing some attachment content
+     * @return true if the passed file is located in the store and can be shared with {@link #share(File, File)}
+     */
+    public boolean isShareable(Path source)
+    {
+        Path path = source.toAbsolutePath().normalize();
+
+        return path.startsWith(this.storeRootDirectory) && !path.startsWith(this.blobsDirectory)
+            && Files.isRegularFile(path);
+    }
+
+    /**
+     * Make the target file share the content of the source file, without copying it.
+     *
+     * @param source an existing file of the store, see {@link #isShareable(Path)}
+     * @param target the file to create
+     * @throws IOException when failing to create the link
+     */
+    public void share(File source, File target) throws IOException
+    {
+        Files.createLink(target.toPath(), source.toPath());
+    }
+
+    /**
+     * Replace the passed file with a link to the blob having the same content, the blob being created from the file if
+     * this content was never stored before.
+     *
+     * @param file the file to deduplicate
+     * @throws IOException when failing to read the file or to link it
+     */
+    public void store(File file) throws IOException
+    {
+        Path path = file.toPath();
+
+        String hash;
+        try (InputStream stream = Files.newInputStream(path)) {
+            hash = DigestUtils.sha256Hex(stream);
+        }
+
+        Path blob = getBlob(hash);
+        Files.createDirectories(blob.getParent());
+
+        this.lock.readLock().lock();
+        try {
+            try {
+                // First time this content is stored: the file becomes the blob
+                Files.createLink(blob, path);
+            } catch (FileAlreadyExistsException e) {
+                if (!Files.isSameFile(blob, path)) {
+                    // Replace the file with a link to the existing blob
+                    Path link = path.resolveSibling(path.getFileName() + LINK_SUFFIX);
+                    Files.deleteIfExists(link);
+                    Files.createLink(link, blob);
+                    Files.move(link, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the blobs which are not used by any attachment file anymore.
+     *
+     * @return the number of removed blobs
+     * @throws IOException when failing to list or remove the blobs
+     */
+    public int collect() throws IOException
+    {
+        if (!Files.isDirectory(this.blobsDirectory)) {
+            return 0;
+        }
+
+        List<Path> blobs;
+        try (Stream<Path> stream = Files.walk(this.blobsDirectory)) {
+            blobs = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        int count = 0;
+        for (Path blob : blobs) {
+            this.lock.writeLock().lock();
+            try {
+                if (getLinkCount(blob) == 1) {
+                    Files.delete(blob);
+                    ++count;
+                }
+            } catch (NoSuchFileException e) {
+                // Already removed
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @param hash the SHA-256 of the content
+     * @return the location of the blob holding the content
+     */
+    Path getBlob(String hash)
+    {
+        // Avoid having too many files in one folder because some filesystems don't perform well with large numbers of
+        // files in one folder
+        return this.blobsDirectory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private int getLinkCount(Path path) throws IOException
+    {
+        return ((Number) Files.getAttribute(path, LINK_COUNT)).intValue();
+    }
+}
@@ -67,4 +67,10 @@ public File getDirectory()
 
         return directory != null ? new File(directory) : null;
     }
+
+    @Override
+    public boolean isDeduplicationEnabled()
+    {
+        return this.configuration.getProperty(PREFIX + "attachment.deduplicate", Boolean.FALSE);
+    }
 }
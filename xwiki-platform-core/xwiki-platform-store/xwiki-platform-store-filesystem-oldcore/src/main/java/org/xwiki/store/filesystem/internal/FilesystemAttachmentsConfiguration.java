@@ -42,4 +42,10 @@
      * @since 11.4RC1
      */
     File getDirectory();
+
+    /**
+     * @return true if identical attachment contents should be stored only once, see {@link AttachmentBlobStore}
+     * @since 17.0.0RC1
+     */
+    boolean isDeduplicationEnabled();
 }
@@ -30,6 +30,7 @@
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.Initializable;
@@ -82,6 +83,14 @@ public class FilesystemStoreTools implements Initializable
      */
     public static final String DELETED_DOCUMENTS_DIR_NAME = "deleted-documents";
 
+    /**
+     * The directory within the store root directory where the deduplicated attachment contents are stored. The
+     * {@code ~} makes sure it cannot collide with a wiki directory.
+     * 
+     * @since 17.0.0RC1
+     */
+    public static final String BLOBS_DIR_NAME = "~blobs";
+
     /**
      * When a file is being saved, the original will be moved to the same name with this after it. If the save operation
      * fails then this file will be moved back to the regular position to come as close as possible to ACID transaction
@@ -121,6 +130,11 @@ public class FilesystemStoreTools implements Initializable
      */
     private File storeRootDirectory;
 
+    /**
+     * The store of the deduplicated attachment contents, null when deduplication is disabled.
+     */
+    private AttachmentBlobStore blobStore;
+
     /**
      * Testing Constructor.
      *
@@ -166,6 +180,36 @@ public void initialize() throws InitializationException
 
             new Thread(() -> deleteEmptyDirs(dir, 0)).start();
         }
+
+        if (this.config.isDeduplicationEnabled()) {
+            initializeBlobStore();
+        }
+    }
+
+    private void initializeBlobStore()
+    {
+        File blobsDirectory = new File(this.storeRootDirectory, BLOBS_DIR_NAME);
+
+        if (!AttachmentBlobStore.isSupported(blobsDirectory)) {
+            this.logger.warn("Attachment deduplication is disabled because the file system of [{}] does not support"
+                + " counting hard links", blobsDirectory);
+
+            return;
+        }
+
+        this.blobStore = new AttachmentBlobStore(this.storeRootDirectory, blobsDirectory);
+
+        this.logger.info("Deduplicating attachment contents in [{}]", blobsDirectory);
+
+        // Remove the blobs which were released since the last start
+        final AttachmentBlobStore store = this.blobStore;
+        new Thread(() -> {
+            try {
+                this.logger.debug("Removed [{}] unused attachment blobs", store.collect());
+            } catch (IOException e) {
+                this.logger.warn("Failed to remove unused attachment blobs: {}", ExceptionUtils.getRootCauseMessage(e));
+            }
+        }).start();
     }
 
     /**
@@ -279,6 +323,15 @@ public AttachmentFileProvider getAttachmentFileProvider(final AttachmentReferenc
         return new DefaultAttachmentFileProvider(getAttachmentDir(attachmentReference), attachmentReference.getName());
     }
 
+    /**
+     * @return the store of the deduplicated attachment contents, null when deduplication is disabled
+     * @since 17.0.0RC1
+     */
+    public AttachmentBlobStore getAttachmentBlobStore()
+    {
+        return this.blobStore;
+    }
+
     /**
      * @param attachment the attachment
      * @return the content of the link file
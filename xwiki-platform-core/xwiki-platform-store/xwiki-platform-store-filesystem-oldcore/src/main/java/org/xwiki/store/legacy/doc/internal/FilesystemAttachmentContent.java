@@ -23,6 +23,8 @@
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.AutoCloseInputStream;
@@ -128,6 +130,16 @@ public InputStream getContentInputStream()
         }
     }
 
+    @Override
+    public Optional<Path> getContentPath()
+    {
+        if (this.getFileItem() != null) {
+            return super.getContentPath();
+        }
+
+        return Optional.of(this.storageFile.toPath());
+    }
+
     @Override
     public long getLongSize()
     {
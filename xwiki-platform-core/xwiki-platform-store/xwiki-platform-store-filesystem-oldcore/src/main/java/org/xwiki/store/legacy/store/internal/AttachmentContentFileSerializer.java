@@ -0,0 +1,92 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.legacy.store.internal;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.xwiki.store.FileSerializer;
+import org.xwiki.store.StreamProviderFileSerializer;
+import org.xwiki.store.filesystem.internal.AttachmentBlobStore;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+
+/**
+ * Write the content of an attachment to a file, deduplicating it when a {@link AttachmentBlobStore} is provided.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+public class AttachmentContentFileSerializer implements FileSerializer
+{
+    /**
+     * The attachment to save content of.
+     */
+    private final XWikiAttachment attachment;
+
+    /**
+     * The XWikiContext for getting the content of the attachment.
+     */
+    private final XWikiContext context;
+
+    /**
+     * The store of the deduplicated contents, null when deduplication is disabled.
+     */
+    private final AttachmentBlobStore blobStore;
+
+    /**
+     * The Constructor.
+     *
+     * @param attachment the attachment whose content should be written
+     * @param context the XWikiContext needed to get the content from the attachment
+     * @param blobStore the store of the deduplicated contents, null when deduplication is disabled
+     */
+    public AttachmentContentFileSerializer(final XWikiAttachment attachment, final XWikiContext context,
+        final AttachmentBlobStore blobStore)
+    {
+        this.attachment = attachment;
+        this.context = context;
+        this.blobStore = blobStore;
+    }
+
+    @Override
+    public void serialize(File file) throws Exception
+    {
+        if (this.blobStore != null) {
+            // The content is already in the store (copied attachment, new version with the same content, etc.): share
+            // the existing file instead of copying it
+            Optional<Path> contentPath = this.attachment.getContentPath(this.context);
+            if (contentPath.isPresent() && this.blobStore.isShareable(contentPath.get())) {
+                this.blobStore.share(contentPath.get().toFile(), file);
+
+                return;
+            }
+        }
+
+        new StreamProviderFileSerializer(new AttachmentContentStreamProvider(this.attachment, this.context))
+            .serialize(file);
+
+        if (this.blobStore != null) {
+            this.blobStore.store(file);
+        }
+    }
+}
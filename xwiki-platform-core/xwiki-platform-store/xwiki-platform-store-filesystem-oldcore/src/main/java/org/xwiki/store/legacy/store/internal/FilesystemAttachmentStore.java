@@ -35,7 +35,8 @@
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.store.FileDeleteTransactionRunnable;
 import org.xwiki.store.FileSaveTransactionRunnable;
-import org.xwiki.store.StreamProvider;
+import org.xwiki.store.FileSerializer;
+import org.xwiki.store.StreamProviderFileSerializer;
 import org.xwiki.store.StringStreamProvider;
 import org.xwiki.store.TransactionRunnable;
 import org.xwiki.store.filesystem.internal.FilesystemStoreTools;
@@ -364,22 +365,24 @@ protected void onRun() throws XWikiException
 
             File finalAttachFile;
             File otherAttachFile;
-            StreamProvider streamProvider;
+            FileSerializer serializer;
             if (link) {
                 // Create a link to the current version
                 finalAttachFile = linkAttachFile;
-                streamProvider = new StringStreamProvider(fileTools.getLinkContent(attachment), StandardCharsets.UTF_8);
+                serializer = new StreamProviderFileSerializer(
+                    new StringStreamProvider(fileTools.getLinkContent(attachment), StandardCharsets.UTF_8));
                 otherAttachFile = attachFile;
             } else {
                 // Save the content as is
                 finalAttachFile = attachFile;
-                streamProvider = new AttachmentContentStreamProvider(attachment, context);
+                serializer =
+                    new AttachmentContentFileSerializer(attachment, context, fileTools.getAttachmentBlobStore());
                 otherAttachFile = linkAttachFile;
             }
 
             // Save the attachment file
             new FileSaveTransactionRunnable(finalAttachFile, fileTools.getTempFile(finalAttachFile),
-                fileTools.getBackupFile(finalAttachFile), fileTools.getLockForFile(finalAttachFile), streamProvider)
+                fileTools.getBackupFile(finalAttachFile), fileTools.getLockForFile(finalAttachFile), serializer)
                     .runIn(this);
 
             // Also delete any file remaining at the other location
@@ -25,8 +25,10 @@
 import java.util.Objects;
 
 import org.xwiki.store.FileSaveTransactionRunnable;
+import org.xwiki.store.FileSerializer;
 import org.xwiki.store.StartableTransactionRunnable;
 import org.xwiki.store.StreamProvider;
+import org.xwiki.store.StreamProviderFileSerializer;
 import org.xwiki.store.StringStreamProvider;
 import org.xwiki.store.filesystem.internal.DeletedAttachmentFileProvider;
 import org.xwiki.store.filesystem.internal.FilesystemStoreTools;
@@ -68,7 +70,7 @@ class SaveDeletedAttachmentContentRunnable extends StartableTransactionRunnable
 
         final StreamProvider metaProvider =
             new SerializationStreamProvider<XWikiAttachment>(metaSerializer, attachment);
-        addSaver(metaProvider, fileTools, provider.getDeletedAttachmentMetaFile());
+        addSaver(new StreamProviderFileSerializer(metaProvider), fileTools, provider.getDeletedAttachmentMetaFile());
 
         //////////////////////////////////////////////
         // Save the archive for the deleted attachment.
@@ -92,32 +94,34 @@ class SaveDeletedAttachmentContentRunnable extends StartableTransactionRunnable
         // Really comparing the content could be very expensive so we assume comparing the size and date are
         // enough
         File finalAttachFile;
-        StreamProvider streamProvider;
+        FileSerializer serializer;
         if (archiveAttachment != null && Objects.equals(archiveAttachment.getDate(), attachment.getDate())
             && archiveAttachment.getLongSize() == attachment.getLongSize()) {
             // Create a link to the current version
             finalAttachFile = linkAttachFile;
-            streamProvider = new StringStreamProvider(fileTools.getLinkContent(attachment), StandardCharsets.UTF_8);
+            serializer = new StreamProviderFileSerializer(
+                new StringStreamProvider(fileTools.getLinkContent(attachment), StandardCharsets.UTF_8));
         } else {
             // Save the content as is
             finalAttachFile = attachFile;
-            streamProvider = new AttachmentContentStreamProvider(attachment, context);
+            serializer = new AttachmentContentFileSerializer(attachment, context, fileTools.getAttachmentBlobStore());
         }
 
         // Save the attachment file
-        addSaver(streamProvider, fileTools, finalAttachFile);
+        addSaver(serializer, fileTools, finalAttachFile);
     }
 
     /**
      * Save some content safely in this runnable. TODO This duplicates AttachmentArchiveSaveRunnable, fix.
      *
-     * @param provider the means to get the content to save.
+     * @param serializer the means to write the content to save.
      * @param fileTools the means to get the backup file, temporary file, and lock.
      * @param saveHere the location to save the data.
      */
-    private void addSaver(final StreamProvider provider, final FilesystemStoreTools fileTools, final File saveHere)
+    private void addSaver(final FileSerializer serializer, final FilesystemStoreTools fileTools,
+        final File saveHere)
     {
         new FileSaveTransactionRunnable(saveHere, fileTools.getTempFile(saveHere), fileTools.getBackupFile(saveHere),
-            fileTools.getLockForFile(saveHere), provider).runIn(this);
+            fileTools.getLockForFile(saveHere), serializer).runIn(this);
     }
 }
@@ -0,0 +1,131 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.filesystem.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.XWikiTempDirExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Validate {@link AttachmentBlobStore}.
+ *
+ * @version $Id$
+ */
+@ExtendWith(XWikiTempDirExtension.class)
+class AttachmentBlobStoreTest
+{
+    private static final String CONTENT = "content";
+
+    @XWikiTempDir
+    private File storeDirectory;
+
+    private AttachmentBlobStore blobStore;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        assumeTrue(AttachmentBlobStore.isSupported(this.storeDirectory));
+
+        this.blobStore = new AttachmentBlobStore(this.storeDirectory,
+            new File(this.storeDirectory, FilesystemStoreTools.BLOBS_DIR_NAME));
+    }
+
+    private Path write(String name, String content) throws IOException
+    {
+        Path path = this.storeDirectory.toPath().resolve(name);
+        Files.createDirectories(path.getParent());
+
+        return Files.writeString(path, content);
+    }
+
+    private Path getBlob(String content)
+    {
+        return this.blobStore.getBlob(DigestUtils.sha256Hex(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void storeIdenticalContents() throws IOException
+    {
+        Path file1 = write("wiki/a/file1", CONTENT);
+        Path file2 = write("wiki/b/file2", CONTENT);
+        Path other = write("wiki/b/other", "other");
+
+        this.blobStore.store(file1.toFile());
+        this.blobStore.store(file2.toFile());
+        this.blobStore.store(other.toFile());
+        // Storing twice the same file does not change anything
+        this.blobStore.store(file2.toFile());
+
+        assertTrue(Files.isSameFile(file1, file2));
+        assertTrue(Files.isSameFile(file1, getBlob(CONTENT)));
+        assertFalse(Files.isSameFile(file1, other));
+        assertEquals(CONTENT, Files.readString(file2));
+        assertEquals(3, Files.getAttribute(getBlob(CONTENT), "unix:nlink"));
+    }
+
+    @Test
+    void share() throws IOException
+    {
+        Path source = write("wiki/a/file", CONTENT);
+        File target = new File(this.storeDirectory, "wiki/b/file");
+        target.getParentFile().mkdirs();
+
+        assertTrue(this.blobStore.isShareable(source));
+        assertFalse(this.blobStore.isShareable(source.resolveSibling("missing")));
+        assertFalse(this.blobStore.isShareable(Files.createTempFile("blob", null)));
+
+        this.blobStore.share(source.toFile(), target);
+
+        assertTrue(Files.isSameFile(source, target.toPath()));
+    }
+
+    @Test
+    void collect() throws IOException
+    {
+        Path used = write("wiki/a/used", CONTENT);
+        Path released = write("wiki/a/released", "released");
+        this.blobStore.store(used.toFile());
+        this.blobStore.store(released.toFile());
+
+        Files.delete(released);
+
+        assertEquals(1, this.blobStore.collect());
+
+        assertFalse(Files.exists(getBlob("released")));
+        assertTrue(Files.exists(getBlob(CONTENT)));
+        assertEquals(CONTENT, Files.readString(used));
+
+        assertEquals(0, this.blobStore.collect());
+    }
+}
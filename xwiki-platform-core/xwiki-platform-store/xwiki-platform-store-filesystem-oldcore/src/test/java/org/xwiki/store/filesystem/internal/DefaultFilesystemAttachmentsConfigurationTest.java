@@ -32,6 +32,7 @@
 import org.xwiki.test.junit5.mockito.MockComponent;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
@@ -65,4 +66,13 @@ void getDirectory() throws IOException
         when(configurationSource.getProperty("store.file.directory")).thenReturn(tempDir.toString());
         assertEquals(tempDir.toFile(), configuration.getDirectory());
     }
+
+    @Test
+    void isDeduplicationEnabled()
+    {
+        assertFalse(configuration.isDeduplicationEnabled());
+
+        when(configurationSource.getProperty("store.file.attachment.deduplicate", Boolean.FALSE)).thenReturn(true);
+        assertTrue(configuration.isDeduplicationEnabled());
+    }
 }
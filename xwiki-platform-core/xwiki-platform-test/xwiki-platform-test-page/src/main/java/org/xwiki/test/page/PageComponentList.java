@@ -129,6 +129,7 @@
 import com.xpn.xwiki.internal.template.InternalTemplateManager;
 import com.xpn.xwiki.internal.template.TemplateAsyncRenderer;
 import com.xpn.xwiki.internal.template.TemplateContext;
+import com.xpn.xwiki.internal.template.VelocityTemplateCache;
 import com.xpn.xwiki.internal.template.VelocityTemplateEvaluator;
 import com.xpn.xwiki.objects.meta.BooleanMetaClass;
 import com.xpn.xwiki.objects.meta.NumberMetaClass;
@@ -307,6 +308,7 @@
     InternalTemplateManager.class,
     TemplateContext.class,
     VelocityTemplateEvaluator.class,
+    VelocityTemplateCache.class,
     TemplateAsyncRenderer.class,
     DefaultCacheControl.class,
 
@@ -0,0 +1,131 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.tracing;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * The time spent in the various categories of work during a request.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Unstable
+public class RequestTrace
+{
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+
+    private final long start = System.nanoTime();
+
+    private volatile long end = -1;
+
+    private final Map<String, TraceTiming> timings = new ConcurrentHashMap<>();
+
+    /**
+     * @param name the name of the trace (generally the URL of the request)
+     */
+    public RequestTrace(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the trace (generally the URL of the request)
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * @return the duration of the trace in nanoseconds, until now if the trace is not ended yet
+     */
+    public long getDuration()
+    {
+        long currentEnd = this.end;
+
+        return (currentEnd != -1 ? currentEnd : System.nanoTime()) - this.start;
+    }
+
+    /**
+     * Mark the end of the trace.
+     */
+    public void end()
+    {
+        if (this.end == -1) {
+            this.end = System.nanoTime();
+        }
+    }
+
+    /**
+     * @param category the category of work
+     * @return the timing of the category, created if needed
+     */
+    public TraceTiming getTiming(String category)
+    {
+        return this.timings.computeIfAbsent(category, c -> new TraceTiming());
+    }
+
+    /**
+     * @return the timings indexed by category
+     */
+    public Map<String, TraceTiming> getTimings()
+    {
+        return Collections.unmodifiableMap(this.timings);
+    }
+
+    /**
+     * @return the trace in the format of the value of a
+     *         <a href="https://www.w3.org/TR/server-timing/">{@code Server-Timing}</a> HTTP header
+     */
+    public String toServerTiming()
+    {
+        StringBuilder builder = new StringBuilder();
+
+        for (Map.Entry<String, TraceTiming> entry : this.timings.entrySet()) {
+            TraceTiming timing = entry.getValue();
+            appendMetric(builder, entry.getKey(), timing.getDuration(), timing.getCount());
+            builder.append(", ");
+        }
+        appendMetric(builder, "total", getDuration(), -1);
+
+        return builder.toString();
+    }
+
+    private void appendMetric(StringBuilder builder, String metric, long duration, long count)
+    {
+        builder.append(metric);
+        builder.append(";dur=");
+        builder.append(String.format(Locale.ROOT, "%.1f", duration / NANOS_PER_MILLI));
+        if (count >= 0) {
+            builder.append(";desc=\"");
+            builder.append(count);
+            builder.append('"');
+        }
+    }
+}
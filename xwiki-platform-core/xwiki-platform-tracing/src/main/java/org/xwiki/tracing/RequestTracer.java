@@ -0,0 +1,100 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.tracing;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Record the time spent in the various stages (store, security, rendering, etc.) of the current request.
+ * <p>
+ * A trace is attached to the current execution context by {@link #startTrace(String)} (generally at the beginning of
+ * the request) and components measure their work with:
+ *
+ * <pre>
+ * try (TraceSpan span = this.tracer.startSpan(RequestTracer.STORE)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * When no trace is attached to the current execution context the returned span does nothing, so the cost of an unused
+ * span is the lookup of the current trace.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Role
+@Unstable
+public interface RequestTracer
+{
+    /**
+     * The category of spans measuring the loading of documents from the persistent storage.
+     */
+    String STORE = "store";
+
+    /**
+     * The category of spans measuring the rights checks.
+     */
+    String SECURITY = "security";
+
+    /**
+     * The category of spans measuring the evaluation of Velocity templates.
+     */
+    String VELOCITY = "velocity";
+
+    /**
+     * The category of spans measuring the execution of rendering transformations (mostly macros).
+     */
+    String TRANSFORMATION = "transformation";
+
+    /**
+     * The category of spans measuring the generation of skin extensions.
+     */
+    String SKINX = "skinx";
+
+    /**
+     * Attach a new trace to the current execution context.
+     *
+     * @param name the name of the trace (generally the URL of the request)
+     * @return the new trace
+     */
+    RequestTrace startTrace(String name);
+
+    /**
+     * Detach the current trace from the current execution context.
+     *
+     * @return the ended trace or {@code null} if no trace was attached to the current execution context
+     */
+    RequestTrace endTrace();
+
+    /**
+     * @return the trace attached to the current execution context or {@code null} if there is none
+     */
+    RequestTrace getCurrentTrace();
+
+    /**
+     * Start measuring some work. Nested spans of the same category are counted but their duration is only accounted
+     * once, as part of the outer span.
+     *
+     * @param category the category of the work
+     * @return the span to close when the work is done
+     */
+    TraceSpan startSpan(String category);
+}
@@ -0,0 +1,45 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.tracing;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * A measured piece of work, to close when the work is done.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ * @see RequestTracer#startSpan(String)
+ */
+@Unstable
+public interface TraceSpan extends AutoCloseable
+{
+    /**
+     * A span which does not measure anything.
+     */
+    TraceSpan NOOP = () -> {
+    };
+
+    /**
+     * Stop the measure and add it to the trace.
+     */
+    @Override
+    void close();
+}
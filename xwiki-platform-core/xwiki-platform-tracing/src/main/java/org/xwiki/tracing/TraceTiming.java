@@ -0,0 +1,64 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.tracing;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * The time spent in a category of work during a trace.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Unstable
+public class TraceTiming
+{
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder duration = new LongAdder();
+
+    /**
+     * @param spanDuration the duration of the span to add, in nanoseconds, or 0 for a span nested in another span of
+     *            the same category
+     */
+    public void add(long spanDuration)
+    {
+        this.count.increment();
+        this.duration.add(spanDuration);
+    }
+
+    /**
+     * @return the number of spans
+     */
+    public long getCount()
+    {
+        return this.count.sum();
+    }
+
+    /**
+     * @return the total duration of the spans, in nanoseconds
+     */
+    public long getDuration()
+    {
+        return this.duration.sum();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.tracing.internal;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.tracing.RequestTrace;
+import org.xwiki.tracing.RequestTracer;
+import org.xwiki.tracing.TraceSpan;
+
+/**
+ * Default implementation of {@link RequestTracer}, storing the current trace in the execution context.
+ *
+ * @version $Id$
+ * @since 17.0.0RC1
+ */
+@Component
+@Singleton
+public class DefaultRequestTracer implements RequestTracer
+{
+    /**
+     * The name of the execution context property containing the current trace.
+     */
+    public static final String TRACE_PROPERTY = "tracing.trace";
+
+    /**
+     * The categories of the spans currently open in the current thread, to detect nested spans.
+     */
+    private final ThreadLocal<Set<String>> openCategories = ThreadLocal.withInitial(HashSet::new);
+
+    @Inject
+    private Execution execution;
+
+    private final class DefaultTraceSpan implements TraceSpan
+    {
+        private final RequestTrace trace;
+
+        private final String category;
+
+        private final boolean nested;
+
+        private final long start;
+
+        private DefaultTraceSpan(RequestTrace trace, String category, boolean nested)
+        {
+            this.trace = trace;
+            this.category = category;
+            this.nested = nested;
+            this.start = nested ? 0 : System.nanoTime();
+        }
+
+        @Override
+        public void close()
+        {
+            if (this.nested) {
+                this.trace.getTiming(this.category).add(0);
+            } else {
+                this.trace.getTiming(this.category).add(System.nanoTime() - this.start);
+                openCategories.get().remove(this.category);
+            }
+        }
+    }
+
+    @Override
+    public RequestTrace startTrace(String name)
+    {
+        RequestTrace trace = new RequestTrace(name);
+
+        ExecutionContext context = this.execution.getContext();
+        if (context != null) {
+            context.setProperty(TRACE_PROPERTY, trace);
+        }
+
+        // Make sure a span which was never closed does not affect this trace
+        this.openCategories.remove();
+
+        return trace;
+    }
+
+    @Override
+    public RequestTrace endTrace()
+    {
+        RequestTrace trace = getCurrentTrace();
+
+        if (trace != null) {
+            trace.end();
+
+            this.execution.getContext().removeProperty(TRACE_PROPERTY);
+            this.openCategories.remove();
+        }
+
+        return trace;
+    }
+
+    @Override
+    public RequestTrace getCurrentTrace()
+    {
+        ExecutionContext context = this.execution.getContext();
+
+        return context != null ? (RequestTrace) context.getProperty(TRACE_PROPERTY) : null;
+    }
+
+    @Override
+    public TraceSpan startSpan(String category)
+    {
+        RequestTrace trace = getCurrentTrace();
+
+        if (trace == null) {
+            return TraceSpan.NOOP;
+        }
+
+        return new DefaultTraceSpan(trace, category, !this.openCategories.get().add(category));
+    }
+}
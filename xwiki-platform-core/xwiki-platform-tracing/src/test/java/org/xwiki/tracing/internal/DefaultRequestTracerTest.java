@@ -0,0 +1,97 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.tracing.internal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.tracing.RequestTrace;
+import org.xwiki.tracing.RequestTracer;
+import org.xwiki.tracing.TraceSpan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DefaultRequestTracer}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultRequestTracerTest
+{
+    @InjectMockComponents
+    private DefaultRequestTracer tracer;
+
+    @MockComponent
+    private Execution execution;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(this.execution.getContext()).thenReturn(new ExecutionContext());
+    }
+
+    @Test
+    void spanWithoutTrace()
+    {
+        assertSame(TraceSpan.NOOP, this.tracer.startSpan(RequestTracer.STORE));
+        assertNull(this.tracer.endTrace());
+    }
+
+    @Test
+    void trace() throws InterruptedException
+    {
+        RequestTrace trace = this.tracer.startTrace("url");
+
+        assertSame(trace, this.tracer.getCurrentTrace());
+
+        try (TraceSpan span = this.tracer.startSpan(RequestTracer.VELOCITY)) {
+            try (TraceSpan nestedSpan = this.tracer.startSpan(RequestTracer.VELOCITY)) {
+                Thread.sleep(1);
+            }
+            try (TraceSpan otherSpan = this.tracer.startSpan(RequestTracer.STORE)) {
+                Thread.sleep(1);
+            }
+        }
+
+        assertSame(trace, this.tracer.endTrace());
+        assertNull(this.tracer.getCurrentTrace());
+
+        assertEquals(2, trace.getTiming(RequestTracer.VELOCITY).getCount());
+        assertEquals(1, trace.getTiming(RequestTracer.STORE).getCount());
+        assertTrue(trace.getTiming(RequestTracer.VELOCITY).getDuration() >= 2_000_000);
+        assertTrue(trace.getTiming(RequestTracer.STORE).getDuration() >= 1_000_000);
+        assertTrue(trace.getDuration() >= trace.getTiming(RequestTracer.VELOCITY).getDuration());
+
+        String serverTiming = trace.toServerTiming();
+        assertTrue(serverTiming.contains("velocity;dur="), serverTiming);
+        assertTrue(serverTiming.contains(";desc=\"2\""), serverTiming);
+        assertTrue(serverTiming.contains("store;dur="), serverTiming);
+        assertTrue(serverTiming.matches(".*total;dur=\\d+\\.\\d$"), serverTiming);
+    }
+}